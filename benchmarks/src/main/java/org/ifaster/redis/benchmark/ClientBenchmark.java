@@ -0,0 +1,91 @@
+package org.ifaster.redis.benchmark;
+
+import org.ifaster.redis.client.support.RedisClientSupport;
+import org.ifaster.redis.test.server.EmbeddedRedisCluster;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RedisClientSupport常用命令的端到端开销，包括key编码、事件、序列化和网络往返
+ * 集群地址通过 -Dredis.cluster=host:port,host:port 指定，未指定时使用进程内的 {@link EmbeddedRedisCluster}，
+ * -Dredis.latency=毫秒 可以给内嵌集群注入回复延迟
+ *
+ * @author yangnan
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClientBenchmark {
+
+    private static final int LIST_SIZE = 100;
+    private static final int HASH_SIZE = 20;
+
+    @Param({"medium"})
+    private String payload;
+
+    private EmbeddedRedisCluster cluster;
+    private RedisClientSupport client;
+    private Object value;
+    private Class<Object> type;
+
+    @Setup
+    public void setup() {
+        String nodes = System.getProperty("redis.cluster");
+        if (nodes == null) {
+            cluster = new EmbeddedRedisCluster(3);
+            cluster.setLatencyMillis(Long.getLong("redis.latency", 0));
+            nodes = cluster.getNodes();
+        }
+        client = new RedisClientSupport("bench:", null, nodes);
+        value = Payloads.of(payload);
+        type = (Class<Object>) value.getClass();
+        client.set("value", 3600, value);
+        client.delete("list", "hash");
+        for (int i = 0; i < LIST_SIZE; i++) {
+            client.rpush("list", value);
+        }
+        for (int i = 0; i < HASH_SIZE; i++) {
+            client.hset("hash", "field" + i, value);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.delete("value", "list", "hash");
+        client.close();
+        if (cluster != null) {
+            cluster.close();
+        }
+    }
+
+    @Benchmark
+    public Object get() {
+        return client.get("value", type);
+    }
+
+    @Benchmark
+    public String set() {
+        return client.set("value", 3600, value);
+    }
+
+    @Benchmark
+    public Object hget() {
+        return client.hget("hash", "field1", type);
+    }
+
+    @Benchmark
+    public Map<String, Object> hgetAll() {
+        return client.hgetAll("hash", type);
+    }
+
+    @Benchmark
+    public List<Object> lrange() {
+        return client.lrange("list", 0, LIST_SIZE - 1, type);
+    }
+}
@@ -0,0 +1,116 @@
+package org.ifaster.redis.benchmark;
+
+import org.ifaster.redis.event.RedisCommandEvent;
+import org.ifaster.redis.event.RedisEvent;
+import org.ifaster.redis.listener.AsyncRedisEventListener;
+import org.ifaster.redis.listener.DefaultRedisEventListener;
+import org.ifaster.redis.listener.MetricsRedisEventListener;
+import org.ifaster.redis.listener.RedisEventListener;
+import org.ifaster.redis.listener.RedisEventListenerChain;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 事件：每个命令创建RedisCommandEvent并调用before/complete的开销，
+ * 以及监听器链在没有监听器(不创建事件)和有一个监听器时的开销；
+ * chainMetrics 为内置指标的记录开销，chainSlow/chainAsync 对比耗时监听器同步通知和异步通知时调用线程的开销
+ *
+ * @author yangnan
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EventBenchmark {
+
+    private final RedisEventListener listener = new DefaultRedisEventListener();
+    private final RedisEventListenerChain inactive = RedisEventListenerChain.of(null);
+    private final RedisEventListenerChain active = RedisEventListenerChain.of(new RedisEventListener() {
+    });
+    /**
+     * 模拟上报指标等有开销的监听器
+     */
+    private final RedisEventListener slow = new RedisEventListener() {
+        @Override
+        public void complete(RedisEvent event) {
+            Blackhole.consumeCPU(500);
+        }
+    };
+    private final RedisEventListenerChain sync = RedisEventListenerChain.of(slow);
+    private RedisEventListenerChain async;
+    private final RedisEventListenerChain metrics = RedisEventListenerChain.of(null,
+            new MetricsRedisEventListener("bench", 60000));
+    private final String cluster = "127.0.0.1:6381,127.0.0.1:6382";
+    private final String key = "user:session:1234567890";
+
+    @Setup
+    public void setup() {
+        async = RedisEventListenerChain.of(slow).async("bench", 8192, AsyncRedisEventListener.DropPolicy.DROP);
+    }
+
+    @TearDown
+    public void tearDown() {
+        async.close();
+    }
+
+    @Benchmark
+    public RedisEvent create() {
+        return RedisCommandEvent.builder().cluster(cluster).command("get").key(key)
+                .commandStart(System.currentTimeMillis()).build();
+    }
+
+    @Benchmark
+    public RedisEvent createAndDispatch() {
+        RedisEvent event = RedisCommandEvent.builder().cluster(cluster).command("get").key(key)
+                .commandStart(System.currentTimeMillis()).build();
+        try {
+            listener.before(event);
+            return event;
+        } finally {
+            listener.complete(event);
+        }
+    }
+
+    @Benchmark
+    public RedisEvent chainInactive() {
+        return dispatch(inactive);
+    }
+
+    @Benchmark
+    public RedisEvent chainActive() {
+        return dispatch(active);
+    }
+
+    @Benchmark
+    public RedisEvent chainSlow() {
+        return dispatch(sync);
+    }
+
+    @Benchmark
+    public RedisEvent chainMetrics() {
+        return dispatch(metrics);
+    }
+
+    @Benchmark
+    public RedisEvent chainAsync() {
+        return dispatch(async);
+    }
+
+    /**
+     * 与RedisClientSupport相同的调用方式
+     */
+    private RedisEvent dispatch(RedisEventListenerChain chain) {
+        RedisEvent event = chain.isActive() ? RedisCommandEvent.builder().cluster(cluster).command("get").key(key)
+                .commandStart(System.currentTimeMillis()).startNanos(System.nanoTime()).build() : null;
+        try {
+            chain.before(event);
+            return event;
+        } finally {
+            chain.complete(event);
+        }
+    }
+}
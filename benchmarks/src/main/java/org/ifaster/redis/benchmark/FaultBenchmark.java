@@ -0,0 +1,126 @@
+package org.ifaster.redis.benchmark;
+
+import org.ifaster.redis.client.support.RedisClientSupport;
+import org.ifaster.redis.test.proxy.FaultProxyCluster;
+import org.ifaster.redis.test.proxy.LatencyDistribution;
+import org.ifaster.redis.test.server.EmbeddedRedisCluster;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 故障场景下客户端的尾延迟，客户端通过 {@link FaultProxyCluster} 连接集群
+ * SampleTime模式输出p50/p90/p99/p999/p9999，errors为返回失败(空值)的次数
+ * 集群地址通过 -Dredis.cluster 指定，未指定时使用进程内的 {@link EmbeddedRedisCluster}
+ *
+ * <pre>
+ * java -jar benchmarks.jar FaultBenchmark -p scenario=slow-node,spikes
+ * </pre>
+ *
+ * @author yangnan
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 3)
+@Threads(8)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FaultBenchmark {
+
+    private static final int KEYS = 1000;
+
+    /**
+     * baseline:   无故障
+     * slow-node:  一个节点每个回复固定50ms
+     * jitter:     所有节点 1ms±0.5ms 正态抖动
+     * spikes:     所有节点0.2ms，1%的回复50ms
+     * lognormal:  所有节点中位数0.5ms的对数正态分布
+     * moved:      1%的命令回复MOVED，触发slot刷新
+     * ask:        1%的命令回复ASK到下一个节点
+     * reset:      0.1%的请求重置连接
+     */
+    @Param({"baseline", "slow-node", "jitter", "spikes", "lognormal", "moved", "ask", "reset"})
+    private String scenario;
+
+    private EmbeddedRedisCluster cluster;
+    private FaultProxyCluster proxy;
+    private RedisClientSupport client;
+    private Object value;
+    private Class<Object> type;
+
+    @Setup
+    public void setup() {
+        String nodes = System.getProperty("redis.cluster");
+        if (nodes == null) {
+            cluster = new EmbeddedRedisCluster(3);
+            nodes = cluster.getNodes();
+        }
+        proxy = new FaultProxyCluster(nodes);
+        client = new RedisClientSupport("bench:", null, proxy.getNodes());
+        value = Payloads.of("small");
+        type = (Class<Object>) value.getClass();
+        for (int i = 0; i < KEYS; i++) {
+            client.set("fault" + i, 3600, value);
+        }
+        switch (scenario) {
+            case "slow-node":
+                proxy.proxies().get(0).setLatency(LatencyDistribution.fixed(50));
+                break;
+            case "jitter":
+                proxy.configure(p -> p.setLatency(LatencyDistribution.jitter(1, 0.5)));
+                break;
+            case "spikes":
+                proxy.configure(p -> p.setLatency(LatencyDistribution.spikes(0.2, 50, 0.01)));
+                break;
+            case "lognormal":
+                proxy.configure(p -> p.setLatency(LatencyDistribution.logNormal(0.5, 1)));
+                break;
+            case "moved":
+                proxy.configure(p -> p.setMovedProbability(0.01));
+                break;
+            case "ask":
+                proxy.configure(p -> p.setAskProbability(0.01));
+                break;
+            case "reset":
+                proxy.configure(p -> p.setResetProbability(0.001));
+                break;
+            default:
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        proxy.heal();
+        client.close();
+        proxy.close();
+        if (cluster != null) {
+            cluster.close();
+        }
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Errors {
+        public long errors;
+    }
+
+    @Benchmark
+    public Object get(Errors errors) {
+        Object rs = client.get("fault" + ThreadLocalRandom.current().nextInt(KEYS), type);
+        if (rs == null) {
+            errors.errors++;
+        }
+        return rs;
+    }
+
+    @Benchmark
+    public String set(Errors errors) {
+        String rs = client.set("fault" + ThreadLocalRandom.current().nextInt(KEYS), 3600, value);
+        if (rs == null) {
+            errors.errors++;
+        }
+        return rs;
+    }
+}
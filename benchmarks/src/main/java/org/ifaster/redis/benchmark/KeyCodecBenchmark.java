@@ -0,0 +1,82 @@
+package org.ifaster.redis.benchmark;
+
+import org.ifaster.redis.client.support.KeyCodec;
+import org.openjdk.jmh.annotations.*;
+import redis.clients.jedis.util.JedisClusterCRC16;
+
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * key编码：KeyCodec 与原来的 (prefix + key).getBytes(UTF_8) 对比
+ *
+ * @author yangnan
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class KeyCodecBenchmark {
+
+    private static final String PREFIX = "order-service:";
+
+    @Param({"user:session:1234567890", "{user:1234567890}:profile:settings:notification"})
+    private String key;
+
+    private String[] keys;
+    private String[] fields;
+    private KeyCodec keyCodec;
+
+    @Setup
+    public void setup() {
+        keyCodec = new KeyCodec(PREFIX, 1024);
+        keys = new String[16];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = key + i;
+        }
+        fields = new String[]{"name", "phone", "email", "address", "createTime", "updateTime"};
+    }
+
+    @Benchmark
+    public byte[] legacyKey() {
+        return (PREFIX + key).getBytes(UTF_8);
+    }
+
+    @Benchmark
+    public byte[] keyCodec() {
+        return keyCodec.encode(key);
+    }
+
+    @Benchmark
+    public int[] legacyKeysWithSlots() {
+        int[] slots = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            slots[i] = JedisClusterCRC16.getSlot((PREFIX + keys[i]).getBytes(UTF_8));
+        }
+        return slots;
+    }
+
+    @Benchmark
+    public int[] keyCodecKeysWithSlots() {
+        int[] slots = new int[keys.length];
+        keyCodec.encode(keys, slots);
+        return slots;
+    }
+
+    @Benchmark
+    public byte[][] legacyFields() {
+        byte[][] rs = new byte[fields.length][];
+        for (int i = 0; i < fields.length; i++) {
+            rs[i] = fields[i].getBytes(UTF_8);
+        }
+        return rs;
+    }
+
+    @Benchmark
+    public byte[][] keyCodecFields() {
+        return keyCodec.fields(fields);
+    }
+}
@@ -0,0 +1,121 @@
+package org.ifaster.redis.benchmark;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基准测试使用的业务对象样本，大小分别接近常见的会话、订单和列表页缓存
+ *
+ * @author yangnan
+ */
+public final class Payloads {
+
+    private Payloads() {
+    }
+
+    /**
+     * 注册到BinarySerializer的类型
+     */
+    public static final Class<?>[] TYPES = {Session.class, Order.class, OrderItem.class, Page.class};
+
+    public static Object of(String name) {
+        switch (name) {
+            case "small":
+                return session(1);
+            case "medium":
+                return order(1, 10);
+            case "large":
+                return page(200);
+            default:
+                throw new IllegalArgumentException("unknown payload " + name);
+        }
+    }
+
+    static Session session(long id) {
+        Session session = new Session();
+        session.setUserId(id);
+        session.setToken("8f14e45fceea167a5a36dedd4bea2543");
+        session.setNickname("user-" + id);
+        session.setLoginTime(1579000000000L + id);
+        session.setVip(id % 2 == 0);
+        return session;
+    }
+
+    static Order order(long id, int items) {
+        Order order = new Order();
+        order.setOrderId(id);
+        order.setUserId(10000L + id);
+        order.setStatus(2);
+        order.setAmount(new BigDecimal("1024.50"));
+        order.setAddress("浙江省杭州市西湖区文三路" + id + "号");
+        order.setCreateTime(1579000000000L + id);
+        List<OrderItem> list = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            OrderItem item = new OrderItem();
+            item.setSkuId(100000L + i);
+            item.setTitle("商品标题 sku-" + i);
+            item.setQuantity(i % 3 + 1);
+            item.setPrice(19.9D + i);
+            list.add(item);
+        }
+        order.setItems(list);
+        Map<String, String> extra = new HashMap<>();
+        extra.put("channel", "app");
+        extra.put("coupon", "NEWUSER");
+        order.setExtra(extra);
+        return order;
+    }
+
+    static Page page(int size) {
+        Page page = new Page();
+        page.setPage(1);
+        page.setTotal(size * 10L);
+        List<Order> orders = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            orders.add(order(i, 3));
+        }
+        page.setOrders(orders);
+        return page;
+    }
+
+    @Data
+    public static class Session {
+        private long userId;
+        private String token;
+        private String nickname;
+        private long loginTime;
+        private boolean vip;
+    }
+
+    @Data
+    public static class Order {
+        private long orderId;
+        private long userId;
+        private int status;
+        private BigDecimal amount;
+        private String address;
+        private long createTime;
+        private List<OrderItem> items;
+        private Map<String, String> extra;
+    }
+
+    @Data
+    public static class OrderItem {
+        private long skuId;
+        private String title;
+        private int quantity;
+        private double price;
+    }
+
+    @Data
+    public static class Page {
+        private int page;
+        private long total;
+        private List<Order> orders;
+    }
+}
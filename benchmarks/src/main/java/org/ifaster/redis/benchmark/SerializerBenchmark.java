@@ -0,0 +1,72 @@
+package org.ifaster.redis.benchmark;
+
+import org.ifaster.redis.serializer.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 序列化：不同Serializer在不同大小对象上的序列化和反序列化
+ *
+ * @author yangnan
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SerializerBenchmark {
+
+    @Param({"fastjson", "binary", "compressing", "typed"})
+    private String serializerName;
+
+    @Param({"small", "medium", "large"})
+    private String payload;
+
+    private Serializer serializer;
+    private Object value;
+    private Class<?> type;
+    private byte[] data;
+    private SerializeBuffer buffer;
+
+    @Setup
+    public void setup() {
+        serializer = create(serializerName);
+        value = Payloads.of(payload);
+        type = value.getClass();
+        data = serializer.serialize(value);
+        buffer = new SerializeBuffer();
+    }
+
+    static Serializer create(String name) {
+        switch (name) {
+            case "fastjson":
+                return new FastJsonSerializer();
+            case "binary":
+                return new BinarySerializer().register(Payloads.TYPES);
+            case "compressing":
+                return new CompressingSerializer(new FastJsonSerializer(), 256);
+            case "typed":
+                return new CodecRegistry(new FastJsonSerializer());
+            default:
+                throw new IllegalArgumentException("unknown serializer " + name);
+        }
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(value);
+    }
+
+    @Benchmark
+    public int serializeToBuffer() {
+        serializer.serialize(value, buffer.clear());
+        return buffer.size();
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return serializer.deserialize(data, type);
+    }
+}
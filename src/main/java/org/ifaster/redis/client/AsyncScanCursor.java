@@ -0,0 +1,20 @@
+package org.ifaster.redis.client;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 异步游标，每次调用读取下一页，调用方在上一页完成后再读取下一页
+ *
+ * @param <T> 元素类型
+ * @author yangnan
+ */
+public interface AsyncScanCursor<T> {
+
+    /**
+     * 读取下一页
+     *
+     * @return 不超过count个元素，少于count个时遍历结束
+     */
+    CompletableFuture<List<T>> next();
+}
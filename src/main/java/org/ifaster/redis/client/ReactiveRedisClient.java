@@ -0,0 +1,226 @@
+package org.ifaster.redis.client;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import redis.clients.jedis.params.SetParams;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * redis响应式客户端，命令语义与{@link RedisClient}一致
+ * 值不存在时返回空的Mono，集合类结果以Flux返回，按下游请求量分页读取
+ *
+ * @author yangnan
+ */
+public interface ReactiveRedisClient {
+
+    /**
+     * 设置缓存对象
+     *
+     * @param key
+     * @param expTime 单位(秒)
+     * @param value
+     * @return
+     */
+    Mono<String> set(final String key, final int expTime, final Object value);
+
+    Mono<String> set(final String key, final Object value, SetParams params);
+
+    <T> Mono<T> get(String key, Class<T> classType);
+
+    /**
+     * 获取数字，直接解析原始的ASCII十进制值，不经过反序列化
+     *
+     * @param key
+     * @param defaultValue key不存在时返回的值
+     * @return
+     */
+    Mono<Long> getLong(String key, long defaultValue);
+
+    /**
+     * 获取浮点数，直接解析原始的ASCII十进制值，不经过反序列化
+     *
+     * @param key
+     * @param defaultValue key不存在时返回的值
+     * @return
+     */
+    Mono<Double> getDouble(String key, double defaultValue);
+
+    <T> Mono<List<T>> mget(Collection<String> keys, Class<T> classType);
+
+    Mono<String> mset(Map<String, ?> map, int expTime);
+
+    Mono<Long> delete(final String... keys);
+
+    Mono<Long> hincrBy(final String key, final String field, final long increment);
+
+    Mono<Long> incrBy(final String key, final long delta);
+
+    Mono<Long> rpush(final String key, final Object value);
+
+    <T> Mono<T> lpop(final String key, Class<T> javaType);
+
+    <T> Mono<List<T>> blpop(final String key, final int timeout, Class<T> javaType);
+
+    /**
+     * 返回存储在 key 的列表里指定范围内的元素，按下游请求量分页执行lrange
+     *
+     * @param key
+     * @param start
+     * @param end
+     * @param javaType
+     * @param <T>
+     * @return
+     */
+    <T> Flux<T> lrange(final String key, int start, int end, Class<T> javaType);
+
+    Mono<Long> expire(final String key, final int seconds);
+
+    Mono<Long> expireAt(String key, int unixTime);
+
+    Mono<Boolean> exists(final String key);
+
+    Mono<Long> hdel(String key, String... field);
+
+    Mono<String> hmset(String key, Map<String, ?> map);
+
+    <T> Mono<T> getSet(final String key, final Object value, Class<T> javaType);
+
+    Mono<Long> llen(String key);
+
+    Mono<Long> lrem(String key, long count, Object value);
+
+    Mono<Long> sadd(String key, Object... values);
+
+    Mono<Long> scard(String key);
+
+    Mono<Boolean> sismember(String key, Object member);
+
+    /**
+     * 返回集合 key 中的所有成员，按下游请求量分页执行sscan，遍历期间集合被修改时成员可能重复
+     *
+     * @param key
+     * @param valueType
+     * @param <T>
+     * @return
+     */
+    <T> Flux<T> smembers(String key, Class<T> valueType);
+
+    Mono<Long> srem(String key, Object... values);
+
+    Mono<Long> zadd(String key, Object member, double score);
+
+    Mono<Long> zadd(String key, Map<Object, Double> scoreMembers);
+
+    Mono<Long> zcard(String key);
+
+    Mono<Long> zcount(String key, double min, double max);
+
+    Mono<Long> zrem(String key, Object... member);
+
+    Mono<Long> hset(String key, String field, Object value);
+
+    <T> Mono<T> hget(String key, String field, Class<T> valueType);
+
+    /**
+     * 返回哈希表 key 中给定域 field 的数字值，直接解析不经过反序列化
+     * @param key
+     * @param field
+     * @param defaultValue 域不存在时返回的值
+     * @return
+     */
+    Mono<Long> hgetLong(String key, String field, long defaultValue);
+
+    /**
+     * 返回哈希表 key 中多个域的数字值，直接解析到long数组
+     * @param key
+     * @param defaultValue 域不存在时返回的值
+     * @param field
+     * @return 与field顺序一致
+     */
+    Mono<long[]> hmgetLongs(String key, long defaultValue, String... field);
+
+    /**
+     * 返回哈希表 key 中所有的域和值，按下游请求量分页执行hscan，遍历期间哈希表被修改时域可能重复
+     *
+     * @param key
+     * @param valueType
+     * @param <T>
+     * @return
+     */
+    <T> Flux<Map.Entry<String, T>> hgetAll(String key, Class<T> valueType);
+
+    Mono<Long> hlen(String key);
+
+    <T> Mono<List<T>> hmget(String key, Class<T> valueType, String... field);
+
+    Mono<Long> hsetnx(String key, String field, Object value);
+
+    /**
+     * 返回有序集 key 中，指定区间内的成员，按下游请求量分页执行zrange
+     *
+     * @param key
+     * @param start
+     * @param end
+     * @param valueType
+     * @param <T>
+     * @return
+     */
+    <T> Flux<T> zrange(String key, long start, long end, Class<T> valueType);
+
+    /**
+     * 返回有序集 key 中，指定区间内的成员(按score递减)，按下游请求量分页执行zrevrange
+     *
+     * @param key
+     * @param start
+     * @param end
+     * @param valueType
+     * @param <T>
+     * @return
+     */
+    <T> Flux<T> zrevrange(String key, long start, long end, Class<T> valueType);
+
+    Mono<Long> zrevrank(String key, Object member);
+
+    Mono<Long> zrank(String key, Object member);
+
+    /**
+     * 遍历所有主节点上匹配的key，按下游请求量逐页执行scan，返回去掉前缀的key
+     * @param pattern 不含前缀的glob模式，null表示全部
+     * @param count 每页元素个数
+     * @return
+     */
+    Flux<String> scan(String pattern, int count);
+
+    /**
+     * 按下游请求量逐页执行hscan遍历哈希表 key 中的域和值
+     * @param key
+     * @param count 每页元素个数
+     * @param valueType
+     * @param <T>
+     * @return
+     */
+    <T> Flux<Map.Entry<String, T>> hscan(String key, int count, Class<T> valueType);
+
+    /**
+     * 按下游请求量逐页执行sscan遍历集合 key 中的成员
+     * @param key
+     * @param count 每页元素个数
+     * @param valueType
+     * @param <T>
+     * @return
+     */
+    <T> Flux<T> sscan(String key, int count, Class<T> valueType);
+
+    /**
+     * 按下游请求量逐页执行zscan遍历有序集 key 中的成员及其 score
+     * @param key
+     * @param count 每页元素个数
+     * @param valueType
+     * @param <T>
+     * @return
+     */
+    <T> Flux<Map.Entry<T, Double>> zscan(String key, int count, Class<T> valueType);
+}
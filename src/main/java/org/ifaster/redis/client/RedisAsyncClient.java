@@ -0,0 +1,179 @@
+package org.ifaster.redis.client;
+
+import redis.clients.jedis.params.SetParams;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * redis异步客户端操作命令，命令语义与{@link RedisClient}一致
+ *
+ * @author yangnan
+ */
+public interface RedisAsyncClient {
+
+    /**
+     * 设置缓存对象
+     *
+     * @param key
+     * @param expTime 单位(秒)
+     * @param value
+     * @return
+     */
+    CompletableFuture<String> set(final String key, final int expTime, final Object value);
+
+    CompletableFuture<String> set(final String key, final Object value, SetParams params);
+
+    <T> CompletableFuture<T> get(String key, Class<T> classType);
+
+    /**
+     * 获取数字，直接解析原始的ASCII十进制值，不经过反序列化
+     *
+     * @param key
+     * @param defaultValue key不存在时返回的值
+     * @return
+     */
+    CompletableFuture<Long> getLong(String key, long defaultValue);
+
+    /**
+     * 获取浮点数，直接解析原始的ASCII十进制值，不经过反序列化
+     *
+     * @param key
+     * @param defaultValue key不存在时返回的值
+     * @return
+     */
+    CompletableFuture<Double> getDouble(String key, double defaultValue);
+
+    <T> CompletableFuture<List<T>> mget(Collection<String> keys, Class<T> classType);
+
+    CompletableFuture<String> mset(Map<String, ?> map, int expTime);
+
+    CompletableFuture<Long> delete(final String... keys);
+
+    CompletableFuture<Long> hincrBy(final String key, final String field, final long increment);
+
+    CompletableFuture<Long> incrBy(final String key, final long delta);
+
+    CompletableFuture<Long> rpush(final String key, final Object value);
+
+    <T> CompletableFuture<T> lpop(final String key, Class<T> javaType);
+
+    <T> CompletableFuture<List<T>> blpop(final String key, final int timeout, Class<T> javaType);
+
+    <T> CompletableFuture<List<T>> lrange(final String key, int start, int end, Class<T> javaType);
+
+    CompletableFuture<Long> expire(final String key, final int seconds);
+
+    CompletableFuture<Long> expireAt(String key, int unixTime);
+
+    CompletableFuture<Boolean> exists(final String key);
+
+    CompletableFuture<Long> hdel(String key, String... field);
+
+    CompletableFuture<String> hmset(String key, Map<String, ?> map);
+
+    <T> CompletableFuture<T> getSet(final String key, final Object value, Class<T> javaType);
+
+    CompletableFuture<Long> llen(String key);
+
+    CompletableFuture<Long> lrem(String key, long count, Object value);
+
+    CompletableFuture<Long> sadd(String key, Object... values);
+
+    CompletableFuture<Long> scard(String key);
+
+    CompletableFuture<Boolean> sismember(String key, Object member);
+
+    <T> CompletableFuture<Set<T>> smembers(String key, Class<T> valueType);
+
+    CompletableFuture<Long> srem(String key, Object... values);
+
+    CompletableFuture<Long> zadd(String key, Object member, double score);
+
+    CompletableFuture<Long> zadd(String key, Map<Object, Double> scoreMembers);
+
+    CompletableFuture<Long> zcard(String key);
+
+    CompletableFuture<Long> zcount(String key, double min, double max);
+
+    CompletableFuture<Long> zrem(String key, Object... member);
+
+    CompletableFuture<Long> hset(String key, String field, Object value);
+
+    <T> CompletableFuture<T> hget(String key, String field, Class<T> valueType);
+
+    /**
+     * 返回哈希表 key 中给定域 field 的数字值，直接解析不经过反序列化
+     * @param key
+     * @param field
+     * @param defaultValue 域不存在时返回的值
+     * @return
+     */
+    CompletableFuture<Long> hgetLong(String key, String field, long defaultValue);
+
+    /**
+     * 返回哈希表 key 中多个域的数字值，直接解析到long数组
+     * @param key
+     * @param defaultValue 域不存在时返回的值
+     * @param field
+     * @return 与field顺序一致
+     */
+    CompletableFuture<long[]> hmgetLongs(String key, long defaultValue, String... field);
+
+    <T> CompletableFuture<Map<String, T>> hgetAll(String key, Class<T> valueType);
+
+    CompletableFuture<Long> hlen(String key);
+
+    <T> CompletableFuture<List<T>> hmget(String key, Class<T> valueType, String... field);
+
+    CompletableFuture<Long> hsetnx(String key, String field, Object value);
+
+    <T> CompletableFuture<List<T>> zrange(String key, long start, long end, Class<T> valueType);
+
+    <T> CompletableFuture<List<T>> zrevrange(String key, long start, long end, Class<T> valueType);
+
+    CompletableFuture<Long> zrevrank(String key, Object member);
+
+    CompletableFuture<Long> zrank(String key, Object member);
+
+    /**
+     * 遍历所有主节点上匹配的key，每次读取count个，返回去掉前缀的key
+     * @param pattern 不含前缀的glob模式，null表示全部
+     * @param count 每页元素个数
+     * @return
+     */
+    AsyncScanCursor<String> scan(String pattern, int count);
+
+    /**
+     * 逐页遍历哈希表 key 中的域和值
+     * @param key
+     * @param count 每页元素个数
+     * @param valueType
+     * @param <T>
+     * @return
+     */
+    <T> AsyncScanCursor<Map.Entry<String, T>> hscan(String key, int count, Class<T> valueType);
+
+    /**
+     * 逐页遍历集合 key 中的成员
+     * @param key
+     * @param count 每页元素个数
+     * @param valueType
+     * @param <T>
+     * @return
+     */
+    <T> AsyncScanCursor<T> sscan(String key, int count, Class<T> valueType);
+
+    /**
+     * 逐页遍历有序集 key 中的成员及其 score
+     * @param key
+     * @param count 每页元素个数
+     * @param valueType
+     * @param <T>
+     * @return
+     */
+    <T> AsyncScanCursor<Map.Entry<T, Double>> zscan(String key, int count, Class<T> valueType);
+}
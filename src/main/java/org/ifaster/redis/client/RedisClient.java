@@ -3,9 +3,11 @@ package org.ifaster.redis.client;
 import redis.clients.jedis.params.SetParams;
 
 import java.nio.charset.Charset;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * redis客户端操作命令
@@ -49,7 +51,46 @@ public interface RedisClient {
     <T> T get(String key, Class<T> classType);
 
     /**
-     * 删除缓存对象
+     * 获取数字，直接解析原始的ASCII十进制值，不经过反序列化和装箱
+     * 值不是数字时与命令异常一样交给监听器处理
+     *
+     * @param key
+     * @param defaultValue key不存在时返回的值
+     * @return
+     */
+    long getLong(String key, long defaultValue);
+
+    /**
+     * 获取浮点数，直接解析原始的ASCII十进制值，不经过反序列化和装箱
+     * 值不是数字时与命令异常一样交给监听器处理
+     *
+     * @param key
+     * @param defaultValue key不存在时返回的值
+     * @return
+     */
+    double getDouble(String key, double defaultValue);
+
+    /**
+     * 批量获取缓存对象，key按slot和节点分组后每个节点一次pipeline，多节点并行
+     *
+     * @param keys
+     * @param classType
+     * @param <T>
+     * @return 与keys顺序一致，不存在的key对应null
+     */
+    <T> List<T> mget(Collection<String> keys, Class<T> classType);
+
+    /**
+     * 批量设置缓存对象，key按slot和节点分组后每个节点一次pipeline，多节点并行
+     *
+     * @param map
+     * @param expTime 单位(秒)，小于等于0表示不过期
+     * @return
+     */
+    String mset(Map<String, ?> map, int expTime);
+
+    /**
+     * 删除缓存对象，支持跨slot，按slot分组后每个节点一次pipeline，多节点并行
      *
      * @param keys
      * @return
@@ -261,6 +302,24 @@ public interface RedisClient {
      */
     <T> T hget(String key, String field, Class<T> valueType);
 
+    /**
+     * 返回哈希表 key 中给定域 field 的数字值，直接解析不装箱，值不是数字时与命令异常一样交给监听器处理
+     * @param key
+     * @param field
+     * @param defaultValue 域不存在时返回的值
+     * @return
+     */
+    long hgetLong(String key, String field, long defaultValue);
+
+    /**
+     * 返回哈希表 key 中多个域的数字值，直接解析到long数组，值不是数字时与命令异常一样交给监听器处理
+     * @param key
+     * @param defaultValue 域不存在时返回的值
+     * @param field
+     * @return 与field顺序一致
+     */
+    long[] hmgetLongs(String key, long defaultValue, String... field);
+
     /**
      * 返回 key 指定的哈希集中所有的字段和值。
      * @param key
@@ -340,4 +399,51 @@ public interface RedisClient {
      * @return
      */
     long zrank(String key, Object member);
+
+    /**
+     * 返回有序集key中成员member的score值。
+     * @param key
+     * @param member
+     * @param defaultValue member不存在时返回的值
+     * @return
+     */
+    double zscore(String key, Object member, double defaultValue);
+
+    /**
+     * 遍历所有主节点上匹配的key，按需逐页执行scan，返回去掉前缀的key
+     * @param pattern 不含前缀的glob模式，null表示全部
+     * @param count 每页建议返回的元素个数
+     * @return 用完需要关闭或遍历结束
+     */
+    Stream<String> scan(String pattern, int count);
+
+    /**
+     * 按需逐页执行hscan遍历哈希表 key 中的域和值
+     * @param key
+     * @param count 每页建议返回的元素个数
+     * @param valueType
+     * @param <T>
+     * @return
+     */
+    <T> Stream<Map.Entry<String, T>> hscan(String key, int count, Class<T> valueType);
+
+    /**
+     * 按需逐页执行sscan遍历集合 key 中的成员
+     * @param key
+     * @param count 每页建议返回的元素个数
+     * @param valueType
+     * @param <T>
+     * @return
+     */
+    <T> Stream<T> sscan(String key, int count, Class<T> valueType);
+
+    /**
+     * 按需逐页执行zscan遍历有序集 key 中的成员及其 score
+     * @param key
+     * @param count 每页建议返回的元素个数
+     * @param valueType
+     * @param <T>
+     * @return
+     */
+    <T> Stream<Map.Entry<T, Double>> zscan(String key, int count, Class<T> valueType);
 }
@@ -0,0 +1,266 @@
+package org.ifaster.redis.client.support;
+
+import org.ifaster.redis.exception.RedisOperationException;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisRedirectionException;
+import redis.clients.jedis.util.JedisClusterCRC16;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 自动pipeline
+ * 并发线程提交的单key命令按节点排队，由每个节点的刷新线程合并成一个pipeline写出，结果再回填给等待的调用线程；
+ * 节点队列空闲超过idleMillis或节点已不在集群中时停止刷新线程，下次有命令时重新创建，下线节点的线程不会一直保留
+ *
+ * @author yangnan
+ */
+class AutoPipeline {
+
+    private static final int SLOTS = 16384;
+
+    private final JedisCluster jedisCluster;
+    private final String name;
+    /**
+     * 每个pipeline最多合并的命令数
+     */
+    private final int batchSize;
+    /**
+     * 刷新前等待更多命令的时间 ns
+     */
+    private final long windowNanos;
+    /**
+     * 调用线程等待结果的超时时间 ms
+     */
+    private final long timeoutMillis;
+    /**
+     * 节点队列空闲多久后停止刷新线程 ns
+     */
+    private final long idleNanos;
+    /**
+     * slot所在节点 host:port，节点变化时由MOVED/ASK清除
+     */
+    private final String[] slotNodes = new String[SLOTS];
+    private final ConcurrentMap<String, NodeQueue> nodes = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    /**
+     * @param jedisCluster
+     * @param name          客户端名，用于线程名
+     * @param batchSize     每个pipeline最多合并的命令数
+     * @param windowMicros  刷新前等待更多命令的时间 us
+     * @param timeoutMillis 调用线程等待结果的超时时间 ms
+     * @param idleMillis    节点队列空闲多久后停止刷新线程 ms
+     */
+    AutoPipeline(JedisCluster jedisCluster, String name, int batchSize, long windowMicros, long timeoutMillis,
+                 long idleMillis) {
+        this.jedisCluster = jedisCluster;
+        this.name = name;
+        this.batchSize = batchSize;
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+        this.timeoutMillis = timeoutMillis;
+        this.idleNanos = TimeUnit.MILLISECONDS.toNanos(idleMillis);
+    }
+
+    /**
+     * 执行命令
+     *
+     * @param key       带前缀的key
+     * @param pipelined 在pipeline中写入命令
+     * @param direct    无法合并时直接通过jedisCluster执行
+     * @param <R>
+     * @return
+     */
+    <R> R execute(byte[] key, Function<Pipeline, Response<R>> pipelined, Supplier<R> direct) {
+        if (closed) {
+            return direct.get();
+        }
+        int slot = JedisClusterCRC16.getSlot(key);
+        NodeQueue queue = queue(slot);
+        if (queue == null) {
+            return direct.get();
+        }
+        PendingCommand<R> command = new PendingCommand<>(pipelined);
+        queue.commands.add(command);
+        //入队前刷新线程可能已经退出并取完了剩余命令，能移除说明没有被取走，由调用线程直接执行
+        if (!queue.isRunning() && queue.commands.remove(command)) {
+            return direct.get();
+        }
+        try {
+            return command.future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RedisOperationException(e);
+        } catch (TimeoutException e) {
+            throw new RedisOperationException("auto pipeline timeout", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof JedisRedirectionException) {
+                slotNodes[slot] = null;
+                return direct.get();
+            }
+            if (cause instanceof JedisConnectionException) {
+                return direct.get();
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RedisOperationException(cause);
+        }
+    }
+
+    /**
+     * 获取slot所在节点的命令队列
+     *
+     * @param slot
+     * @return
+     */
+    private NodeQueue queue(int slot) {
+        String node = slotNodes[slot];
+        if (node == null) {
+            try (Jedis jedis = jedisCluster.getConnectionFromSlot(slot)) {
+                node = jedis.getClient().getHost() + ":" + jedis.getClient().getPort();
+            }
+            slotNodes[slot] = node;
+        }
+        NodeQueue queue = nodes.get(node);
+        if (queue == null) {
+            JedisPool pool = jedisCluster.getClusterNodes().get(node);
+            if (pool == null) {
+                slotNodes[slot] = null;
+                return null;
+            }
+            queue = nodes.computeIfAbsent(node, NodeQueue::new);
+        }
+        return queue;
+    }
+
+    void close() {
+        closed = true;
+        nodes.values().forEach(q -> q.flusher.interrupt());
+    }
+
+    /**
+     * 待执行的命令
+     *
+     * @param <R>
+     */
+    private static class PendingCommand<R> {
+        private final Function<Pipeline, Response<R>> pipelined;
+        private final CompletableFuture<R> future = new CompletableFuture<>();
+        private Response<R> response;
+
+        PendingCommand(Function<Pipeline, Response<R>> pipelined) {
+            this.pipelined = pipelined;
+        }
+
+        void write(Pipeline pipeline) {
+            response = pipelined.apply(pipeline);
+        }
+
+        void complete() {
+            try {
+                future.complete(response.get());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * 节点命令队列和刷新线程
+     */
+    private class NodeQueue implements Runnable {
+        private final String node;
+        private final BlockingQueue<PendingCommand<?>> commands = new LinkedBlockingQueue<>();
+        private final Thread flusher;
+        /**
+         * 空闲或节点下线后停止
+         */
+        private volatile boolean stopped;
+
+        NodeQueue(String node) {
+            this.node = node;
+            this.flusher = new NamedThreadFactory("redis-pipeline-" + name + "-" + node).newThread(this);
+            this.flusher.start();
+        }
+
+        boolean isRunning() {
+            return !closed && !stopped;
+        }
+
+        /**
+         * 停止刷新线程并从节点表中移除，之后的命令创建新的队列
+         */
+        private void stop() {
+            stopped = true;
+            nodes.remove(node, this);
+        }
+
+        @Override
+        public void run() {
+            List<PendingCommand<?>> batch = new ArrayList<>(batchSize);
+            while (isRunning()) {
+                try {
+                    PendingCommand<?> first = commands.poll(idleNanos, TimeUnit.NANOSECONDS);
+                    if (first == null) {
+                        stop();
+                        continue;
+                    }
+                    batch.add(first);
+                    if (windowNanos > 0 && commands.size() < batchSize - 1) {
+                        LockSupport.parkNanos(windowNanos);
+                    }
+                    commands.drainTo(batch, batchSize - 1);
+                    flush(batch);
+                } catch (InterruptedException e) {
+                    break;
+                } finally {
+                    batch.clear();
+                }
+            }
+            //停止后剩余的命令交给调用线程直接执行
+            PendingCommand<?> command;
+            while ((command = commands.poll()) != null) {
+                command.future.completeExceptionally(new JedisConnectionException("auto pipeline closed"));
+            }
+        }
+
+        private void flush(List<PendingCommand<?>> batch) {
+            JedisPool pool = jedisCluster.getClusterNodes().get(node);
+            if (pool == null) {
+                stop();
+                fail(batch, new JedisConnectionException("node " + node + " not in cluster"));
+                return;
+            }
+            try (Jedis jedis = pool.getResource()) {
+                Pipeline pipeline = jedis.pipelined();
+                for (PendingCommand<?> command : batch) {
+                    command.write(pipeline);
+                }
+                pipeline.sync();
+            } catch (Throwable e) {
+                fail(batch, e);
+                return;
+            }
+            for (PendingCommand<?> command : batch) {
+                command.complete();
+            }
+        }
+
+        private void fail(List<PendingCommand<?>> batch, Throwable e) {
+            for (PendingCommand<?> command : batch) {
+                command.future.completeExceptionally(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package org.ifaster.redis.client.support;
+
+import org.ifaster.redis.exception.RedisOperationException;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.exceptions.JedisRedirectionException;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.ifaster.redis.constant.RedisClientConstant.BATCH_QUEUE_SIZE;
+
+/**
+ * 多key批量执行器
+ * 按slot对key分组，再按slot所在节点合并成一个pipeline，多个节点之间并行执行
+ *
+ * @author yangnan
+ */
+class ClusterBatchExecutor {
+
+    private final JedisCluster jedisCluster;
+    private final ExecutorService executor;
+
+    /**
+     * @param jedisCluster
+     * @param name         客户端名，用于线程名
+     * @param threads      并行执行的线程数
+     */
+    ClusterBatchExecutor(JedisCluster jedisCluster, String name, int threads) {
+        this.jedisCluster = jedisCluster;
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(BATCH_QUEUE_SIZE), new NamedThreadFactory("redis-batch-" + name),
+                //队列满或已关闭时由调用线程执行，不能丢弃，否则调用方会一直等待结果
+                (r, e) -> r.run());
+        pool.allowCoreThreadTimeOut(true);
+        this.executor = pool;
+    }
+
+    /**
+     * 批量执行
+     *
+     * @param keys      带前缀的key
+     * @param slots     每个key的slot
+     * @param pipelined 在pipeline中写入一个slot分组的命令，返回延迟获取的结果
+     * @param fallback  slot迁移时(MOVED/ASK)通过jedisCluster重新执行该slot分组
+     * @param collector 结果收集，参数为该分组的key在keys中的下标
+     * @param <R>
+     */
+    <R> void execute(byte[][] keys, int[] slots, BiFunction<Pipeline, int[], Supplier<R>> pipelined,
+                     Function<int[], R> fallback, BiConsumer<int[], R> collector) {
+        List<NodeBatch> batches = group(keys, slots);
+        if (batches.size() == 1) {
+            run(batches.get(0), pipelined, fallback, collector);
+            return;
+        }
+        List<Future<?>> futures = new ArrayList<>(batches.size() - 1);
+        try {
+            for (int i = 1; i < batches.size(); i++) {
+                NodeBatch batch = batches.get(i);
+                futures.add(executor.submit(() -> run(batch, pipelined, fallback, collector)));
+            }
+            run(batches.get(0), pipelined, fallback, collector);
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RedisOperationException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RedisOperationException(cause);
+        } finally {
+            //连接由执行的线程借用和归还，这里只取消还未开始的分组
+            futures.forEach(future -> future.cancel(false));
+        }
+    }
+
+    void close() {
+        executor.shutdown();
+    }
+
+    /**
+     * 按slot分组，同一节点的slot合并到一个批次
+     *
+     * @param keys
+     * @param keySlots
+     * @return
+     */
+    private List<NodeBatch> group(byte[][] keys, int[] keySlots) {
+        Map<Integer, List<Integer>> slots = new LinkedHashMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            slots.computeIfAbsent(keySlots[i], s -> new ArrayList<>()).add(i);
+        }
+        Map<String, NodeBatch> nodes = new LinkedHashMap<>();
+        slots.forEach((slot, indexes) -> {
+            //只解析slot所在节点，连接在执行时再借用，排队的批次不占用连接
+            String node;
+            try (Jedis jedis = jedisCluster.getConnectionFromSlot(slot)) {
+                node = jedis.getClient().getHost() + ":" + jedis.getClient().getPort();
+            }
+            nodes.computeIfAbsent(node, n -> new NodeBatch(slot))
+                    .slots.add(indexes.stream().mapToInt(Integer::intValue).toArray());
+        });
+        return new ArrayList<>(nodes.values());
+    }
+
+    private <R> void run(NodeBatch batch, BiFunction<Pipeline, int[], Supplier<R>> pipelined,
+                         Function<int[], R> fallback, BiConsumer<int[], R> collector) {
+        List<Supplier<R>> responses = new ArrayList<>(batch.slots.size());
+        try (Jedis jedis = jedisCluster.getConnectionFromSlot(batch.slot)) {
+            Pipeline pipeline = jedis.pipelined();
+            batch.slots.forEach(indexes -> responses.add(pipelined.apply(pipeline, indexes)));
+            pipeline.sync();
+        }
+        for (int i = 0; i < responses.size(); i++) {
+            int[] indexes = batch.slots.get(i);
+            R result;
+            try {
+                result = responses.get(i).get();
+            } catch (JedisRedirectionException e) {
+                result = fallback.apply(indexes);
+            }
+            collector.accept(indexes, result);
+        }
+    }
+
+    /**
+     * 同一节点上的批次
+     */
+    private static class NodeBatch {
+        /**
+         * 用于借用连接的slot，同一批次的slot在同一节点
+         */
+        private final int slot;
+        private final List<int[]> slots = new ArrayList<>();
+
+        NodeBatch(int slot) {
+            this.slot = slot;
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package org.ifaster.redis.client.support;
+
+import org.ifaster.redis.serializer.Serializer;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.UnaryOperator;
+import java.util.stream.IntStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * 集合结果反序列化
+ * 默认逐个反序列化到新的集合；开启lazy时返回只读视图，元素第一次访问时才反序列化并缓存；
+ * 元素数超过并行阈值时在ForkJoin公共池中并行反序列化，开启lazy时同样返回只读集合
+ *
+ * @author yangnan
+ */
+class CollectionDecoder {
+
+    private final Serializer serializer;
+    private final boolean lazy;
+    /**
+     * 并行反序列化的元素数阈值，小于等于0表示不并行
+     */
+    private final int parallelThreshold;
+
+    CollectionDecoder(Serializer serializer, boolean lazy, int parallelThreshold) {
+        this.serializer = serializer;
+        this.lazy = lazy;
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    <T> List<T> list(Collection<byte[]> data, Class<T> type) {
+        if (data == null || data.isEmpty()) {
+            return lazy ? Collections.emptyList() : new ArrayList<>(0);
+        }
+        byte[][] raw = data.toArray(new byte[0][]);
+        if (parallel(raw.length)) {
+            List<T> rs = new ArrayList<>(Arrays.asList(decodeParallel(raw, type)));
+            return lazy ? Collections.unmodifiableList(rs) : rs;
+        }
+        if (lazy) {
+            return new LazyList<>(serializer, raw, type);
+        }
+        List<T> rs = new ArrayList<>(raw.length);
+        for (byte[] r : raw) {
+            rs.add((T) serializer.deserialize(r, type));
+        }
+        return rs;
+    }
+
+    <T> Set<T> set(Collection<byte[]> data, Class<T> type) {
+        if (data == null || data.isEmpty()) {
+            return lazy ? Collections.emptySet() : new HashSet<>();
+        }
+        byte[][] raw = data.toArray(new byte[0][]);
+        if (parallel(raw.length)) {
+            Set<T> rs = new HashSet<>(Arrays.asList(decodeParallel(raw, type)));
+            return lazy ? Collections.unmodifiableSet(rs) : rs;
+        }
+        if (lazy) {
+            return new LazySet<>(new LazyList<>(serializer, raw, type));
+        }
+        Set<T> rs = new HashSet<>(raw.length);
+        for (byte[] r : raw) {
+            rs.add((T) serializer.deserialize(r, type));
+        }
+        return rs;
+    }
+
+    <T> Map<String, T> map(Map<byte[], byte[]> data, Class<T> type) {
+        if (data == null || data.isEmpty()) {
+            return null;
+        }
+        String[] keys = new String[data.size()];
+        byte[][] raw = new byte[data.size()][];
+        int i = 0;
+        for (Map.Entry<byte[], byte[]> e : data.entrySet()) {
+            keys[i] = new String(e.getKey(), UTF_8);
+            raw[i++] = e.getValue();
+        }
+        if (parallel(raw.length)) {
+            T[] values = decodeParallel(raw, type);
+            Map<String, T> rs = new HashMap<>(keys.length);
+            for (int j = 0; j < keys.length; j++) {
+                rs.put(keys[j], values[j]);
+            }
+            return lazy ? Collections.unmodifiableMap(rs) : rs;
+        }
+        if (lazy) {
+            return new LazyMap<>(keys, new LazyList<>(serializer, raw, type));
+        }
+        Map<String, T> rs = new HashMap<>(keys.length);
+        for (int j = 0; j < keys.length; j++) {
+            rs.put(keys[j], (T) serializer.deserialize(raw[j], type));
+        }
+        return rs;
+    }
+
+    /**
+     * 只读视图可以直接共享给并发相同请求的等待线程，否则复制一份
+     *
+     * @param copy
+     * @param <R>
+     * @return
+     */
+    <R> UnaryOperator<R> share(UnaryOperator<R> copy) {
+        return lazy ? UnaryOperator.identity() : copy;
+    }
+
+    private boolean parallel(int size) {
+        return parallelThreshold > 0 && size >= parallelThreshold;
+    }
+
+    private <T> T[] decodeParallel(byte[][] raw, Class<T> type) {
+        Object[] rs = new Object[raw.length];
+        IntStream.range(0, raw.length).parallel().forEach(i -> rs[i] = serializer.deserialize(raw[i], type));
+        return (T[]) rs;
+    }
+
+    /**
+     * 按下标懒加载的只读列表，多线程访问时同一元素可能重复反序列化，但只会发布其中一个
+     *
+     * @param <T>
+     */
+    private static class LazyList<T> extends AbstractList<T> implements RandomAccess {
+        /**
+         * 反序列化结果为null的元素，避免每次访问都重新反序列化
+         */
+        private static final Object NULL = new Object();
+
+        private final Serializer serializer;
+        private final byte[][] raw;
+        private final Class<T> type;
+        private final AtomicReferenceArray<Object> values;
+
+        LazyList(Serializer serializer, byte[][] raw, Class<T> type) {
+            this.serializer = serializer;
+            this.raw = raw;
+            this.type = type;
+            this.values = new AtomicReferenceArray<>(raw.length);
+        }
+
+        @Override
+        public T get(int index) {
+            Object value = values.get(index);
+            if (value == null) {
+                value = serializer.deserialize(raw[index], type);
+                if (value == null) {
+                    value = NULL;
+                }
+                if (!values.compareAndSet(index, null, value)) {
+                    value = values.get(index);
+                }
+            }
+            return value == NULL ? null : (T) value;
+        }
+
+        @Override
+        public int size() {
+            return raw.length;
+        }
+    }
+
+    /**
+     * 只读set视图，遍历时懒加载，contains等需要比较元素时整体反序列化
+     *
+     * @param <T>
+     */
+    private static class LazySet<T> extends AbstractSet<T> {
+        private final LazyList<T> values;
+        private volatile Set<T> set;
+
+        LazySet(LazyList<T> values) {
+            this.values = values;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return Collections.unmodifiableList(values).iterator();
+        }
+
+        @Override
+        public int size() {
+            return values.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            Set<T> s = set;
+            if (s == null) {
+                s = new HashSet<>(values);
+                set = s;
+            }
+            return s.contains(o);
+        }
+    }
+
+    /**
+     * 只读map视图，key在创建时解码，value第一次访问时反序列化
+     *
+     * @param <T>
+     */
+    private static class LazyMap<T> extends AbstractMap<String, T> {
+        private final String[] keys;
+        private final LazyList<T> values;
+        private volatile Map<String, Integer> index;
+
+        LazyMap(String[] keys, LazyList<T> values) {
+            this.keys = keys;
+            this.values = values;
+        }
+
+        @Override
+        public T get(Object key) {
+            Integer i = index().get(key);
+            return i == null ? null : values.get(i);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return index().containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return keys.length;
+        }
+
+        @Override
+        public Set<Entry<String, T>> entrySet() {
+            return new AbstractSet<Entry<String, T>>() {
+                @Override
+                public Iterator<Entry<String, T>> iterator() {
+                    return new Iterator<Entry<String, T>>() {
+                        private int i;
+
+                        @Override
+                        public boolean hasNext() {
+                            return i < keys.length;
+                        }
+
+                        @Override
+                        public Entry<String, T> next() {
+                            if (i >= keys.length) {
+                                throw new NoSuchElementException();
+                            }
+                            int current = i++;
+                            return new LazyEntry(current);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return keys.length;
+                }
+            };
+        }
+
+        private Map<String, Integer> index() {
+            Map<String, Integer> m = index;
+            if (m == null) {
+                m = new HashMap<>(keys.length * 4 / 3 + 1);
+                for (int i = 0; i < keys.length; i++) {
+                    m.put(keys[i], i);
+                }
+                index = m;
+            }
+            return m;
+        }
+
+        private class LazyEntry implements Entry<String, T> {
+            private final int i;
+
+            LazyEntry(int i) {
+                this.i = i;
+            }
+
+            @Override
+            public String getKey() {
+                return keys[i];
+            }
+
+            @Override
+            public T getValue() {
+                return values.get(i);
+            }
+
+            @Override
+            public T setValue(T value) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public boolean equals(Object o) {
+                if (!(o instanceof Entry)) {
+                    return false;
+                }
+                Entry<?, ?> e = (Entry<?, ?>) o;
+                return keys[i].equals(e.getKey()) && Objects.equals(getValue(), e.getValue());
+            }
+
+            @Override
+            public int hashCode() {
+                return keys[i].hashCode() ^ Objects.hashCode(getValue());
+            }
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package org.ifaster.redis.client.support;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+
+/**
+ * 热点key探测
+ * 用count-min sketch统计每个key的访问次数，当前窗口加上按时间折算的上一窗口作为滑动窗口估算qps，
+ * 超过阈值的key进入最多topK个的热点集合，热点key的get/hget结果在本地缓存很短的时间；
+ * 缓存的对象直接返回给所有调用方，调用方不能修改
+ *
+ * @author yangnan
+ */
+class HotKeyDetector {
+
+    private static final int DEPTH = 4;
+    private static final int WIDTH = 4096;
+    private static final long SEED1 = 0xCBF29CE484222325L;
+    private static final long SEED2 = 0x9E3779B97F4A7C15L;
+    private static final char SEPARATOR = '\u0000';
+
+    private final long windowMillis;
+    /**
+     * 一个窗口内的访问次数阈值
+     */
+    private final long threshold;
+    private final int topK;
+    private final long cacheMillis;
+    /**
+     * 新发现热点key时回调，参数为key和qps
+     */
+    private final BiConsumer<String, Long> onHotKey;
+    private final AtomicReference<Window[]> windows;
+    private final ConcurrentMap<String, HotKey> hotKeys = new ConcurrentHashMap<>();
+    /**
+     * 失效版本，加载期间key被失效时不缓存加载结果
+     */
+    private final KeyVersions versions = new KeyVersions();
+
+    /**
+     * @param qps          热点key的qps阈值
+     * @param windowMillis 统计窗口 ms
+     * @param topK         最多同时保留的热点key数
+     * @param cacheMillis  热点key本地缓存时间 ms
+     * @param onHotKey     新发现热点key时回调
+     */
+    HotKeyDetector(long qps, long windowMillis, int topK, long cacheMillis, BiConsumer<String, Long> onHotKey) {
+        this.windowMillis = windowMillis;
+        this.threshold = Math.max(1L, qps * windowMillis / 1000L);
+        this.topK = topK;
+        this.cacheMillis = cacheMillis;
+        this.onHotKey = onHotKey;
+        this.windows = new AtomicReference<>(new Window[]{new Window(System.currentTimeMillis()), null});
+    }
+
+    /**
+     * 记录一次访问
+     *
+     * @param key 原始key
+     */
+    void record(String key) {
+        long now = System.currentTimeMillis();
+        Window[] ws = rotate(now);
+        long count = ws[0].increment(key);
+        if (ws[1] != null) {
+            double remain = 1.0D - (double) (now - ws[0].start) / windowMillis;
+            count += (long) (ws[1].estimate(key) * Math.max(remain, 0.0D));
+        }
+        if (count >= threshold) {
+            promote(key, count * 1000L / windowMillis, now);
+        }
+    }
+
+    /**
+     * 获取热点key的本地缓存
+     *
+     * @param key   原始key
+     * @param field hash的field，没有时为null
+     * @param type  对象类型
+     * @return 不是热点key或缓存过期时返回null
+     */
+    Object cached(String key, String field, Class<?> type) {
+        HotKey hotKey = hotKeys.get(key);
+        if (hotKey == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        if (hotKey.expireAt < now) {
+            hotKeys.remove(key, hotKey);
+            return null;
+        }
+        CachedValue value = hotKey.values.get(subKey(field, type));
+        if (value == null || value.expireAt < now) {
+            return null;
+        }
+        record(key);
+        return value.value;
+    }
+
+    /**
+     * 加载前的失效版本，写入缓存时比较
+     *
+     * @param key 原始key
+     * @return
+     */
+    long version(String key) {
+        return versions.get(key);
+    }
+
+    /**
+     * 热点key的结果写入本地缓存
+     *
+     * @param key     原始key
+     * @param field   hash的field，没有时为null
+     * @param type    对象类型
+     * @param value
+     * @param version 加载前 {@link #version(String)} 的结果，加载期间key被失效时不写入
+     */
+    void cache(String key, String field, Class<?> type, Object value, long version) {
+        HotKey hotKey = hotKeys.get(key);
+        if (hotKey == null || value == null) {
+            return;
+        }
+        CachedValue cached = new CachedValue(value, System.currentTimeMillis() + cacheMillis);
+        hotKey.values.compute(subKey(field, type), (k, old) -> versions.changed(key, version) ? old : cached);
+    }
+
+    void invalidate(String key) {
+        versions.invalidate(key);
+        HotKey hotKey = hotKeys.get(key);
+        if (hotKey != null) {
+            hotKey.values.clear();
+        }
+    }
+
+    /**
+     * 当前热点key，按qps从高到低
+     *
+     * @return key -> qps
+     */
+    Map<String, Long> hotKeys() {
+        long now = System.currentTimeMillis();
+        List<Map.Entry<String, HotKey>> entries = new ArrayList<>(hotKeys.entrySet());
+        entries.removeIf(e -> e.getValue().expireAt < now);
+        entries.sort((a, b) -> Long.compare(b.getValue().qps, a.getValue().qps));
+        Map<String, Long> rs = new LinkedHashMap<>(entries.size());
+        entries.forEach(e -> rs.put(e.getKey(), e.getValue().qps));
+        return rs;
+    }
+
+    /**
+     * 窗口到期时滚动，当前窗口变为上一窗口
+     *
+     * @param now
+     * @return
+     */
+    private Window[] rotate(long now) {
+        Window[] ws = windows.get();
+        while (now - ws[0].start >= windowMillis) {
+            //超过两个窗口没有访问时上一窗口已无意义
+            Window previous = now - ws[0].start >= 2 * windowMillis ? null : ws[0];
+            Window[] next = {new Window(now - (now - ws[0].start) % windowMillis), previous};
+            if (windows.compareAndSet(ws, next)) {
+                hotKeys.values().removeIf(h -> h.expireAt < now);
+                return next;
+            }
+            ws = windows.get();
+        }
+        return ws;
+    }
+
+    /**
+     * 进入热点集合，超过topK时替换qps最低的key
+     *
+     * @param key
+     * @param qps
+     * @param now
+     */
+    private void promote(String key, long qps, long now) {
+        HotKey hotKey = hotKeys.get(key);
+        if (hotKey != null) {
+            hotKey.qps = qps;
+            hotKey.expireAt = now + 2 * windowMillis;
+            return;
+        }
+        synchronized (hotKeys) {
+            if (hotKeys.containsKey(key)) {
+                return;
+            }
+            if (hotKeys.size() >= topK) {
+                Map.Entry<String, HotKey> min = null;
+                for (Map.Entry<String, HotKey> e : hotKeys.entrySet()) {
+                    if (min == null || e.getValue().qps < min.getValue().qps) {
+                        min = e;
+                    }
+                }
+                if (min == null || min.getValue().qps >= qps) {
+                    return;
+                }
+                hotKeys.remove(min.getKey());
+            }
+            hotKeys.put(key, new HotKey(qps, now + 2 * windowMillis));
+        }
+        onHotKey.accept(key, qps);
+    }
+
+    private static String subKey(String field, Class<?> type) {
+        return field == null ? type.getName() : field + SEPARATOR + type.getName();
+    }
+
+    /**
+     * 一个统计窗口的count-min sketch
+     */
+    private static class Window {
+        private final long start;
+        private final AtomicLongArray counters = new AtomicLongArray(DEPTH * WIDTH);
+
+        Window(long start) {
+            this.start = start;
+        }
+
+        long increment(String key) {
+            long h1 = hash(key, SEED1);
+            long h2 = hash(key, SEED2) | 1L;
+            long min = Long.MAX_VALUE;
+            for (int i = 0; i < DEPTH; i++) {
+                min = Math.min(min, counters.incrementAndGet(index(i, h1, h2)));
+            }
+            return min;
+        }
+
+        long estimate(String key) {
+            long h1 = hash(key, SEED1);
+            long h2 = hash(key, SEED2) | 1L;
+            long min = Long.MAX_VALUE;
+            for (int i = 0; i < DEPTH; i++) {
+                min = Math.min(min, counters.get(index(i, h1, h2)));
+            }
+            return min;
+        }
+
+        /**
+         * 每行的位置为h1 + row * h2，两个64位hash互相独立，String.hashCode相同的key不会在每一行都冲突
+         */
+        private static int index(int row, long h1, long h2) {
+            return row * WIDTH + (int) ((h1 + row * h2) & (WIDTH - 1));
+        }
+
+        /**
+         * 按字符的FNV-1a，再用murmur3的fmix64打散
+         */
+        private static long hash(String key, long seed) {
+            long h = seed;
+            for (int i = 0; i < key.length(); i++) {
+                h = (h ^ key.charAt(i)) * 0x100000001B3L;
+            }
+            h ^= h >>> 33;
+            h *= 0xFF51AFD7ED558CCDL;
+            h ^= h >>> 33;
+            h *= 0xC4CEB9FE1A85EC53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+
+    private static class HotKey {
+        private volatile long qps;
+        private volatile long expireAt;
+        private final ConcurrentMap<String, CachedValue> values = new ConcurrentHashMap<>();
+
+        HotKey(long qps, long expireAt) {
+            this.qps = qps;
+            this.expireAt = expireAt;
+        }
+    }
+
+    private static class CachedValue {
+        private final Object value;
+        private final long expireAt;
+
+        CachedValue(Object value, long expireAt) {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package org.ifaster.redis.client.support;
+
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.ifaster.redis.jfr.RedisJfrEvents;
+import org.ifaster.redis.metrics.TopologyMetrics;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.JedisSlotBasedConnectionHandler;
+
+import java.util.Set;
+
+/**
+ * 可以观察连接分配的JedisCluster
+ * 替换默认的连接处理器，开启跟踪后记录当前线程最近一次拿到的连接，命令结束后据此得到实际执行的节点(包括重定向后的节点)；
+ * 设置 {@link TopologyMetrics} 后记录每个节点借连接的耗时、MOVED/ASK次数和slot缓存刷新次数，开启JFR后提交slot刷新和重定向事件。
+ * JedisClusterCommand只在收到MOVED时调用renewSlotCache(Jedis)，之后和ASK一样通过getConnectionFromNode拿目标节点的连接，
+ * 所以当前线程刚刷新过slot的getConnectionFromNode是MOVED，否则是ASK
+ *
+ * @author yangnan
+ */
+class InstrumentedJedisCluster extends JedisCluster {
+
+    private final ThreadLocal<Jedis> lastConnection = new ThreadLocal<>();
+    /**
+     * 当前线程收到MOVED后还没有拿目标节点的连接
+     */
+    private final ThreadLocal<boolean[]> moved = ThreadLocal.withInitial(() -> new boolean[1]);
+    private volatile boolean tracking;
+    private volatile TopologyMetrics topology;
+    /**
+     * 开启JFR事件时为集群名，否则为null
+     */
+    private volatile String jfrCluster;
+
+    InstrumentedJedisCluster(Set<HostAndPort> nodes, int connectionTimeout, int soTimeout, int maxAttempts,
+                             String password, GenericObjectPoolConfig poolConfig) {
+        super(nodes, connectionTimeout, soTimeout, maxAttempts, password, poolConfig);
+        //父类已经创建了默认的处理器，关闭后换成可以观察的处理器
+        this.connectionHandler.close();
+        this.connectionHandler = new Handler(nodes, poolConfig, connectionTimeout, soTimeout, password);
+    }
+
+    /**
+     * 是否记录每个线程拿到的连接，没有监听器时关闭
+     *
+     * @param tracking
+     */
+    void setTracking(boolean tracking) {
+        this.tracking = tracking;
+    }
+
+    /**
+     * 清除当前线程记录的连接，在命令开始前调用，避免读到上一条命令的节点
+     */
+    void clearNode() {
+        if (tracking) {
+            lastConnection.remove();
+        }
+    }
+
+    /**
+     * 当前线程最近一次命令执行的节点 host:port，未记录时返回null
+     *
+     * @return
+     */
+    String lastNode() {
+        Jedis jedis = tracking ? lastConnection.get() : null;
+        return jedis == null ? null : jedis.getClient().getHost() + ":" + jedis.getClient().getPort();
+    }
+
+    /**
+     * 设置拓扑统计，为null时不统计
+     *
+     * @param topology
+     */
+    void setTopology(TopologyMetrics topology) {
+        this.topology = topology;
+    }
+
+    /**
+     * 开启slot刷新和重定向的JFR事件
+     *
+     * @param cluster 集群名，为null时关闭
+     */
+    void setJfrEvents(String cluster) {
+        this.jfrCluster = cluster;
+    }
+
+    /**
+     * 重新读取集群拓扑，更新节点和slot缓存
+     */
+    void renewSlotCache() {
+        connectionHandler.renewSlotCache();
+    }
+
+    private Jedis track(Jedis jedis) {
+        if (tracking) {
+            lastConnection.set(jedis);
+        }
+        return jedis;
+    }
+
+    private class Handler extends JedisSlotBasedConnectionHandler {
+
+        Handler(Set<HostAndPort> nodes, GenericObjectPoolConfig poolConfig, int connectionTimeout, int soTimeout,
+                String password) {
+            super(nodes, poolConfig, connectionTimeout, soTimeout, password);
+        }
+
+        @Override
+        public Jedis getConnection() {
+            TopologyMetrics t = topology;
+            if (t == null) {
+                return track(super.getConnection());
+            }
+            long start = System.nanoTime();
+            return borrowed(t, super.getConnection(), start);
+        }
+
+        @Override
+        public Jedis getConnectionFromSlot(int slot) {
+            TopologyMetrics t = topology;
+            if (t == null) {
+                return track(super.getConnectionFromSlot(slot));
+            }
+            long start = System.nanoTime();
+            return borrowed(t, super.getConnectionFromSlot(slot), start);
+        }
+
+        @Override
+        public Jedis getConnectionFromNode(HostAndPort node) {
+            TopologyMetrics t = topology;
+            String jfr = jfrCluster;
+            if (t == null && jfr == null) {
+                return track(super.getConnectionFromNode(node));
+            }
+            Jedis jedis;
+            if (t == null) {
+                jedis = track(super.getConnectionFromNode(node));
+            } else {
+                long start = System.nanoTime();
+                jedis = borrowed(t, super.getConnectionFromNode(node), start);
+            }
+            boolean[] pending = moved.get();
+            boolean isMoved = pending[0];
+            pending[0] = false;
+            if (t != null && !isMoved) {
+                t.node(node.getHost(), node.getPort()).ask();
+            }
+            if (jfr != null) {
+                RedisJfrEvents.redirected(jfr, isMoved ? RedisJfrEvents.MOVED : RedisJfrEvents.ASK,
+                        node.getHost(), node.getPort());
+            }
+            return jedis;
+        }
+
+        @Override
+        public void renewSlotCache() {
+            TopologyMetrics t = topology;
+            if (t != null) {
+                t.slotRefreshed();
+            }
+            String jfr = jfrCluster;
+            if (jfr != null) {
+                RedisJfrEvents.slotRefreshed(jfr, null, 0);
+            }
+            super.renewSlotCache();
+        }
+
+        @Override
+        public void renewSlotCache(Jedis jedis) {
+            TopologyMetrics t = topology;
+            String jfr = jfrCluster;
+            if (t != null) {
+                t.slotRefreshed();
+                if (jedis != null) {
+                    t.node(jedis.getClient().getHost(), jedis.getClient().getPort()).moved();
+                }
+            }
+            if (jfr != null) {
+                RedisJfrEvents.slotRefreshed(jfr, jedis == null ? null : jedis.getClient().getHost(),
+                        jedis == null ? 0 : jedis.getClient().getPort());
+            }
+            if (t != null || jfr != null) {
+                moved.get()[0] = true;
+            }
+            super.renewSlotCache(jedis);
+        }
+
+        private Jedis borrowed(TopologyMetrics t, Jedis jedis, long start) {
+            long nanos = System.nanoTime() - start;
+            t.node(jedis.getClient().getHost(), jedis.getClient().getPort()).borrowed(nanos);
+            return track(jedis);
+        }
+    }
+}
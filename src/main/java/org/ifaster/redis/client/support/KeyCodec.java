@@ -0,0 +1,203 @@
+package org.ifaster.redis.client.support;
+
+import redis.clients.jedis.util.JedisClusterCRC16;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * key和hash field编码
+ * 前缀只编码一次，ASCII的key直接写入最终数组，不生成中间String；批量编码时在同一次遍历中计算CRC16 slot；
+ * 常用的field缓存编码结果，返回的数组会被共享，调用方不能修改
+ *
+ * @author yangnan
+ */
+public class KeyCodec {
+
+    private static final int SLOT_MASK = 16383;
+    private static final int[] CRC16_TABLE = new int[256];
+
+    static {
+        for (int i = 0; i < CRC16_TABLE.length; i++) {
+            int crc = i << 8;
+            for (int j = 0; j < 8; j++) {
+                crc = (crc & 0x8000) != 0 ? (crc << 1) ^ 0x1021 : crc << 1;
+            }
+            CRC16_TABLE[i] = crc & 0xFFFF;
+        }
+    }
+
+    private final byte[] prefix;
+    /**
+     * 前缀的CRC16，前缀中带有'{'时为-1，此时hash tag需要按完整key计算
+     */
+    private final int prefixCrc;
+    private final int maxCachedFields;
+    private final ConcurrentMap<String, byte[]> fields = new ConcurrentHashMap<>();
+
+    /**
+     * @param prefix          key前缀
+     * @param maxCachedFields 最多缓存的field数，小于等于0时不缓存
+     */
+    public KeyCodec(String prefix, int maxCachedFields) {
+        this.prefix = prefix == null ? new byte[0] : prefix.getBytes(UTF_8);
+        this.prefixCrc = indexOf(this.prefix, (byte) '{') >= 0 ? -1 : crc16(0, this.prefix, 0, this.prefix.length);
+        this.maxCachedFields = maxCachedFields;
+    }
+
+    /**
+     * 编码带前缀的key
+     *
+     * @param key 原始key
+     * @return
+     */
+    public byte[] encode(String key) {
+        return encode(key, null, 0);
+    }
+
+    /**
+     * 批量编码带前缀的key，同时计算每个key的slot
+     *
+     * @param keys  原始key
+     * @param slots 输出的slot，长度不小于keys
+     * @return
+     */
+    public byte[][] encode(String[] keys, int[] slots) {
+        byte[][] rs = new byte[keys.length][];
+        for (int i = 0; i < keys.length; i++) {
+            rs[i] = encode(keys[i], slots, i);
+        }
+        return rs;
+    }
+
+    /**
+     * 编码hash field，未超过缓存数量时缓存编码结果
+     *
+     * @param field
+     * @return 可能被共享的数组，不能修改
+     */
+    public byte[] field(String field) {
+        byte[] data = fields.get(field);
+        if (data != null) {
+            return data;
+        }
+        data = ascii(field);
+        if (data == null) {
+            data = field.getBytes(UTF_8);
+        }
+        if (fields.size() < maxCachedFields) {
+            fields.putIfAbsent(field, data);
+        }
+        return data;
+    }
+
+    /**
+     * 批量编码hash field
+     *
+     * @param fields
+     * @return
+     */
+    public byte[][] fields(String... fields) {
+        byte[][] rs = new byte[fields.length][];
+        for (int i = 0; i < fields.length; i++) {
+            rs[i] = field(fields[i]);
+        }
+        return rs;
+    }
+
+    /**
+     * ASCII的key直接写入前缀之后，同时按需计算slot；遇到非ASCII字符时退回到String.getBytes
+     *
+     * @param key
+     * @param slots 为null时不计算slot
+     * @param index
+     * @return
+     */
+    private byte[] encode(String key, int[] slots, int index) {
+        int length = key.length();
+        byte[] data = new byte[prefix.length + length];
+        System.arraycopy(prefix, 0, data, 0, prefix.length);
+        boolean slot = slots != null && prefixCrc >= 0;
+        int crc = prefixCrc;
+        //hash tag状态：-1未遇到'{'，0在'{'之后，1按tag计算，2按完整key计算
+        int tag = -1;
+        int tagCrc = 0;
+        int tagLength = 0;
+        int position = prefix.length;
+        for (int i = 0; i < length; i++) {
+            char c = key.charAt(i);
+            if (c >= 0x80) {
+                return fallback(key, slots, index);
+            }
+            byte b = (byte) c;
+            data[position++] = b;
+            if (!slot || tag == 1) {
+                continue;
+            }
+            crc = update(crc, b);
+            if (tag < 0) {
+                if (c == '{') {
+                    tag = 0;
+                }
+            } else if (tag == 0) {
+                if (c == '}') {
+                    //空的{}按完整key计算
+                    tag = tagLength > 0 ? 1 : 2;
+                } else {
+                    tagCrc = update(tagCrc, b);
+                    tagLength++;
+                }
+            }
+        }
+        if (slots != null) {
+            slots[index] = !slot ? JedisClusterCRC16.getSlot(data) : (tag == 1 ? tagCrc : crc) & SLOT_MASK;
+        }
+        return data;
+    }
+
+    private byte[] fallback(String key, int[] slots, int index) {
+        byte[] bytes = key.getBytes(UTF_8);
+        byte[] rs = new byte[prefix.length + bytes.length];
+        System.arraycopy(prefix, 0, rs, 0, prefix.length);
+        System.arraycopy(bytes, 0, rs, prefix.length, bytes.length);
+        if (slots != null) {
+            slots[index] = JedisClusterCRC16.getSlot(rs);
+        }
+        return rs;
+    }
+
+    private static byte[] ascii(String value) {
+        int length = value.length();
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x80) {
+                return null;
+            }
+            data[i] = (byte) c;
+        }
+        return data;
+    }
+
+    private static int update(int crc, byte b) {
+        return ((crc << 8) ^ CRC16_TABLE[((crc >>> 8) ^ b) & 0xFF]) & 0xFFFF;
+    }
+
+    private static int crc16(int crc, byte[] data, int from, int to) {
+        for (int i = from; i < to; i++) {
+            crc = update(crc, data[i]);
+        }
+        return crc;
+    }
+
+    private static int indexOf(byte[] data, byte b) {
+        for (int i = 0; i < data.length; i++) {
+            if (data[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,53 @@
+package org.ifaster.redis.client.support;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 按key分段的失效版本，用于本地缓存的加载：加载前取版本，写入缓存前比较，期间key被失效时不写入
+ * key按hash分到固定数量的段，只有同一段的失效才会影响加载，内存占用固定；
+ * 全部失效(如重新订阅)时增加全局版本
+ *
+ * @author yangnan
+ */
+class KeyVersions {
+
+    private static final int STRIPES = 4096;
+
+    private final AtomicLongArray versions = new AtomicLongArray(STRIPES);
+    private final AtomicLong global = new AtomicLong();
+
+    /**
+     * 当前版本，key或全局失效后变化
+     *
+     * @param key
+     * @return
+     */
+    long get(String key) {
+        return versions.get(index(key)) + global.get();
+    }
+
+    /**
+     * 加载期间key是否被失效过
+     *
+     * @param key
+     * @param version 加载前 {@link #get(String)} 的结果
+     * @return
+     */
+    boolean changed(String key, long version) {
+        return get(key) != version;
+    }
+
+    void invalidate(String key) {
+        versions.incrementAndGet(index(key));
+    }
+
+    void invalidateAll() {
+        global.incrementAndGet();
+    }
+
+    private static int index(String key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (STRIPES - 1);
+    }
+}
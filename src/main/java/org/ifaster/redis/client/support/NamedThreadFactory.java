@@ -0,0 +1,25 @@
+package org.ifaster.redis.client.support;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 客户端内部线程池使用的守护线程工厂
+ *
+ * @author yangnan
+ */
+class NamedThreadFactory implements ThreadFactory {
+    private final AtomicInteger count = new AtomicInteger();
+    private final String name;
+
+    NamedThreadFactory(String name) {
+        this.name = name + "-";
+    }
+
+    @Override
+    public Thread newThread(Runnable r) {
+        Thread thread = new Thread(r, name + count.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    }
+}
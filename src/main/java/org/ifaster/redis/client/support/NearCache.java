@@ -0,0 +1,326 @@
+package org.ifaster.redis.client.support;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.BinaryJedisPubSub;
+import redis.clients.jedis.JedisCluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 本地近端缓存，缓存get/hget反序列化后的对象
+ * 淘汰使用caffeine的W-TinyLFU，本客户端的写命令直接失效本地缓存，并通过pub/sub批量通知其他jvm失效；
+ * 加载期间同一key(分段)被失效时不缓存加载结果，其他key的失效不影响。
+ * 缓存的对象直接返回给所有调用方，不做复制，调用方不能修改返回的对象
+ *
+ * @author yangnan
+ */
+class NearCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NearCache.class);
+
+    private static final char SEPARATOR = '\u0000';
+    private static final long RESUBSCRIBE_INTERVAL_MILLIS = 1000L;
+    /**
+     * 等待发送的失效key上限
+     */
+    private static final int MAX_PENDING_KEYS = 65536;
+    /**
+     * 一条失效通知最多包含的key数
+     */
+    private static final int PUBLISH_BATCH_SIZE = 256;
+
+    private final Cache<String, Entries> cache;
+    /**
+     * 失效版本，加载期间key被失效时不缓存加载结果
+     */
+    private final KeyVersions versions = new KeyVersions();
+    private final JedisCluster jedisCluster;
+    private final byte[] channel;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final ExecutorService publisher;
+    /**
+     * 等待发送的失效key，相同key合并，超过上限时改为通知其他jvm清空缓存
+     */
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean overflow = new AtomicBoolean();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final AtomicLong dropped = new AtomicLong();
+    private final Subscriber subscriber = new Subscriber();
+    private final Thread subscribeThread;
+    private volatile boolean closed;
+
+    /**
+     * @param jedisCluster
+     * @param name          客户端名，用于线程命名
+     * @param channel       失效通知的channel
+     * @param maxSize       最大缓存key数，maxWeight大于0时不生效
+     * @param maxWeight     最大缓存字节数，按原始值的字节数计算，小于等于0时按maxSize限制
+     * @param expireSeconds 写入后过期时间(秒)，用于兜底丢失的失效通知
+     */
+    NearCache(JedisCluster jedisCluster, String name, String channel, long maxSize, long maxWeight, long expireSeconds) {
+        this.jedisCluster = jedisCluster;
+        this.channel = channel.getBytes(StandardCharsets.UTF_8);
+        Caffeine<Object, Object> builder = Caffeine.newBuilder().expireAfterWrite(expireSeconds, TimeUnit.SECONDS);
+        if (maxWeight > 0) {
+            builder.maximumWeight(maxWeight).weigher((String k, Entries e) -> e.weight);
+        } else {
+            builder.maximumSize(maxSize);
+        }
+        this.cache = builder.build();
+        //同一时间最多一个等待中的发送任务
+        this.publisher = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1),
+                new NamedThreadFactory("redis-near-cache-publish-" + name), new ThreadPoolExecutor.DiscardPolicy());
+        this.subscribeThread = new NamedThreadFactory("redis-near-cache-subscribe-" + name).newThread(this::subscribe);
+        this.subscribeThread.start();
+    }
+
+    /**
+     * 获取缓存对象
+     *
+     * @param key   原始key
+     * @param field hash的field，没有时为null
+     * @param type  对象类型
+     * @param <T>
+     * @return 未命中时为null
+     */
+    @SuppressWarnings("unchecked")
+    <T> T getIfPresent(String key, String field, Class<T> type) {
+        Entries entries = cache.getIfPresent(key);
+        return entries == null ? null : (T) entries.values.get(new SubKey(field, type));
+    }
+
+    /**
+     * 加载前的失效版本，写入缓存时比较
+     *
+     * @param key 原始key
+     * @return
+     */
+    long version(String key) {
+        return versions.get(key);
+    }
+
+    /**
+     * 加载结果写入缓存
+     *
+     * @param key     原始key
+     * @param field   hash的field，没有时为null
+     * @param type    对象类型
+     * @param value   反序列化后的对象，为null时不缓存
+     * @param weight  原始值的字节数
+     * @param version 加载前 {@link #version(String)} 的结果，加载期间key被失效时不写入
+     */
+    void put(String key, String field, Class<?> type, Object value, int weight, long version) {
+        if (value == null) {
+            return;
+        }
+        SubKey subKey = new SubKey(field, type);
+        cache.asMap().compute(key, (k, old) -> versions.changed(key, version) ? old
+                : Entries.with(old, subKey, value, weight));
+    }
+
+    /**
+     * 失效本地缓存并通知其他jvm
+     *
+     * @param keys 原始key
+     */
+    void invalidate(String... keys) {
+        for (String key : keys) {
+            invalidateLocal(key);
+        }
+        if (closed) {
+            return;
+        }
+        for (String key : keys) {
+            if (overflow.get()) {
+                dropped.incrementAndGet();
+            } else if (pending.size() >= MAX_PENDING_KEYS) {
+                overflow.set(true);
+                dropped.incrementAndGet();
+            } else {
+                pending.add(key);
+            }
+        }
+        if (scheduled.compareAndSet(false, true)) {
+            publisher.execute(this::publish);
+        }
+    }
+
+    /**
+     * 发送等待中的失效key，多个key合并成一条通知：instanceId\0key1\0key2...，
+     * 积压超过上限时只发送instanceId\0，其他jvm清空缓存
+     */
+    private void publish() {
+        //先清除标记，发送期间新加入的key会再提交一次发送
+        scheduled.set(false);
+        if (overflow.getAndSet(false)) {
+            long count = dropped.getAndSet(0);
+            pending.clear();
+            LOGGER.warn("near cache invalidation backlog overflow, {} keys dropped, invalidate all", count);
+            publish(Collections.emptyList());
+            return;
+        }
+        List<String> batch = new ArrayList<>(PUBLISH_BATCH_SIZE);
+        for (Iterator<String> it = pending.iterator(); it.hasNext(); ) {
+            batch.add(it.next());
+            it.remove();
+            if (batch.size() == PUBLISH_BATCH_SIZE) {
+                publish(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            publish(batch);
+        }
+    }
+
+    private void publish(List<String> keys) {
+        StringBuilder message = new StringBuilder(instanceId).append(SEPARATOR);
+        for (int i = 0; i < keys.size(); i++) {
+            if (i > 0) {
+                message.append(SEPARATOR);
+            }
+            message.append(keys.get(i));
+        }
+        try {
+            jedisCluster.publish(channel, message.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (Throwable e) {
+            LOGGER.warn("publish near cache invalidation failed, keys:{}", keys, e);
+        }
+    }
+
+    private void invalidateLocal(String key) {
+        versions.invalidate(key);
+        cache.invalidate(key);
+    }
+
+    private void invalidateAll() {
+        versions.invalidateAll();
+        cache.invalidateAll();
+    }
+
+    private void subscribe() {
+        while (!closed) {
+            try {
+                jedisCluster.subscribe(subscriber, channel);
+            } catch (Throwable e) {
+                if (closed) {
+                    break;
+                }
+                LOGGER.warn("near cache subscription lost, resubscribe in {}ms", RESUBSCRIBE_INTERVAL_MILLIS, e);
+            }
+            //订阅中断期间可能丢失失效通知
+            invalidateAll();
+            try {
+                Thread.sleep(RESUBSCRIBE_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+    }
+
+    void close() {
+        closed = true;
+        publisher.shutdown();
+        try {
+            if (subscriber.isSubscribed()) {
+                subscriber.unsubscribe();
+            }
+        } catch (Throwable e) {
+            LOGGER.warn("near cache unsubscribe failed", e);
+        }
+        subscribeThread.interrupt();
+        cache.invalidateAll();
+    }
+
+    private class Subscriber extends BinaryJedisPubSub {
+        /**
+         * JedisCluster在连接异常时会在内部重试订阅，每次订阅成功都清空缓存，覆盖中断期间丢失的通知
+         */
+        @Override
+        public void onSubscribe(byte[] channel, int subscribedChannels) {
+            invalidateAll();
+        }
+
+        @Override
+        public void onMessage(byte[] channel, byte[] message) {
+            String msg = new String(message, StandardCharsets.UTF_8);
+            int index = msg.indexOf(SEPARATOR);
+            if (index < 0 || instanceId.equals(msg.substring(0, index))) {
+                return;
+            }
+            if (index == msg.length() - 1) {
+                invalidateAll();
+                return;
+            }
+            for (int start = index + 1; ; ) {
+                int end = msg.indexOf(SEPARATOR, start);
+                if (end < 0) {
+                    invalidateLocal(msg.substring(start));
+                    return;
+                }
+                invalidateLocal(msg.substring(start, end));
+                start = end + 1;
+            }
+        }
+    }
+
+    /**
+     * 同一个key下按field和类型区分的缓存对象，不可变
+     */
+    private static class Entries {
+        private final Map<SubKey, Object> values;
+        private final int weight;
+
+        private Entries(Map<SubKey, Object> values, int weight) {
+            this.values = values;
+            this.weight = weight;
+        }
+
+        static Entries with(Entries old, SubKey subKey, Object value, int weight) {
+            if (old == null) {
+                return new Entries(Collections.singletonMap(subKey, value), Math.max(weight, 1));
+            }
+            Map<SubKey, Object> values = new HashMap<>(old.values);
+            values.put(subKey, value);
+            return new Entries(values, old.weight + Math.max(weight, 1));
+        }
+    }
+
+    private static class SubKey {
+        private final String field;
+        private final Class<?> type;
+
+        SubKey(String field, Class<?> type) {
+            this.field = field;
+            this.type = type;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof SubKey)) {
+                return false;
+            }
+            SubKey subKey = (SubKey) o;
+            return Objects.equals(field, subKey.field) && type == subKey.type;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Objects.hashCode(field) + type.hashCode();
+        }
+    }
+}
@@ -0,0 +1,366 @@
+package org.ifaster.redis.client.support;
+
+import org.ifaster.redis.client.AsyncScanCursor;
+import org.ifaster.redis.client.ReactiveRedisClient;
+import org.ifaster.redis.client.RedisAsyncClient;
+import org.ifaster.redis.configuration.RedisProperties;
+import org.ifaster.redis.exception.RedisConfigException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import redis.clients.jedis.params.SetParams;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.ifaster.redis.constant.RedisClientConstant.REACTIVE_PAGE_SIZE;
+
+/**
+ * 响应式客户端，基于异步客户端实现，调用线程不阻塞
+ * key前缀和序列化与同步客户端一致
+ *
+ * @author yangnan
+ */
+public class ReactiveRedisClientSupport implements ReactiveRedisClient {
+
+    private final RedisAsyncClient client;
+    /**
+     * 区间类命令每次读取的元素个数
+     */
+    private final int pageSize;
+
+    /**
+     * 构造函数
+     *
+     * @param client          异步客户端
+     * @param redisProperties
+     */
+    public ReactiveRedisClientSupport(RedisAsyncClient client, RedisProperties redisProperties) {
+        this(client, redisProperties.getReactivePageSize());
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param client 异步客户端
+     */
+    public ReactiveRedisClientSupport(RedisAsyncClient client) {
+        this(client, REACTIVE_PAGE_SIZE);
+    }
+
+    /**
+     * @param client   异步客户端
+     * @param pageSize 区间类命令每次读取的元素个数
+     */
+    public ReactiveRedisClientSupport(RedisAsyncClient client, int pageSize) {
+        if (client == null) {
+            throw new RedisConfigException("redis async client is null");
+        }
+        if (pageSize < 1) {
+            throw new RedisConfigException("reactive page size must be positive");
+        }
+        this.client = client;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * 分页读取区间，支持负数下标
+     *
+     * @param start  开始下标
+     * @param end    结束下标
+     * @param length 集合长度，下标为负数时使用
+     * @param range  区间读取命令
+     * @param <T>
+     * @return
+     */
+    private <T> Flux<T> page(long start, long end, Supplier<CompletableFuture<Long>> length,
+                             BiFunction<Long, Long, CompletableFuture<List<T>>> range) {
+        if (start >= 0 && end >= 0) {
+            return page(start, end, range);
+        }
+        return Mono.fromFuture(length).flatMapMany(len -> {
+            long from = start < 0 ? Math.max(len + start, 0) : start;
+            long to = end < 0 ? len + end : end;
+            return page(from, to, range);
+        });
+    }
+
+    private <T> Flux<T> page(long from, long to, BiFunction<Long, Long, CompletableFuture<List<T>>> range) {
+        if (from > to) {
+            return Flux.empty();
+        }
+        //下一页只在下游有需求时读取，内存中最多保留两页数据
+        return Flux.<Long, Long>generate(() -> from, (offset, sink) -> {
+            if (offset > to) {
+                sink.complete();
+            } else {
+                sink.next(offset);
+            }
+            return offset + pageSize;
+        }).concatMap(offset -> Mono.fromFuture(() -> range.apply(offset, Math.min(offset + pageSize - 1, to))), 1)
+                .takeUntil(page -> page.size() < pageSize)
+                .flatMapIterable(Function.identity(), 1);
+    }
+
+    /**
+     * 按下游请求量逐页读取游标，与区间类命令一样最多预读一页
+     *
+     * @param cursor 订阅时创建游标
+     * @param count  每页元素个数
+     * @param <T>
+     * @return
+     */
+    private <T> Flux<T> scan(Supplier<AsyncScanCursor<T>> cursor, int count) {
+        return Flux.defer(() -> {
+            AsyncScanCursor<T> c = cursor.get();
+            return Mono.fromFuture(c::next).repeat()
+                    .takeUntil(page -> page.size() < count)
+                    .flatMapIterable(Function.identity(), 1);
+        });
+    }
+
+    @Override
+    public Mono<String> set(String key, int expTime, Object value) {
+        return Mono.fromFuture(() -> client.set(key, expTime, value));
+    }
+
+    @Override
+    public Mono<String> set(String key, Object value, SetParams params) {
+        return Mono.fromFuture(() -> client.set(key, value, params));
+    }
+
+    @Override
+    public <T> Mono<T> get(String key, Class<T> classType) {
+        return Mono.fromFuture(() -> client.get(key, classType));
+    }
+
+    @Override
+    public Mono<Long> getLong(String key, long defaultValue) {
+        return Mono.fromFuture(() -> client.getLong(key, defaultValue));
+    }
+
+    @Override
+    public Mono<Double> getDouble(String key, double defaultValue) {
+        return Mono.fromFuture(() -> client.getDouble(key, defaultValue));
+    }
+
+    @Override
+    public <T> Mono<List<T>> mget(Collection<String> keys, Class<T> classType) {
+        return Mono.fromFuture(() -> client.mget(keys, classType));
+    }
+
+    @Override
+    public Mono<String> mset(Map<String, ?> map, int expTime) {
+        return Mono.fromFuture(() -> client.mset(map, expTime));
+    }
+
+    @Override
+    public Mono<Long> delete(String... keys) {
+        return Mono.fromFuture(() -> client.delete(keys));
+    }
+
+    @Override
+    public Mono<Long> hincrBy(String key, String field, long increment) {
+        return Mono.fromFuture(() -> client.hincrBy(key, field, increment));
+    }
+
+    @Override
+    public Mono<Long> incrBy(String key, long delta) {
+        return Mono.fromFuture(() -> client.incrBy(key, delta));
+    }
+
+    @Override
+    public Mono<Long> rpush(String key, Object value) {
+        return Mono.fromFuture(() -> client.rpush(key, value));
+    }
+
+    @Override
+    public <T> Mono<T> lpop(String key, Class<T> javaType) {
+        return Mono.fromFuture(() -> client.lpop(key, javaType));
+    }
+
+    @Override
+    public <T> Mono<List<T>> blpop(String key, int timeout, Class<T> javaType) {
+        return Mono.fromFuture(() -> client.blpop(key, timeout, javaType));
+    }
+
+    @Override
+    public Mono<Long> expire(String key, int seconds) {
+        return Mono.fromFuture(() -> client.expire(key, seconds));
+    }
+
+    @Override
+    public Mono<Long> expireAt(String key, int unixTime) {
+        return Mono.fromFuture(() -> client.expireAt(key, unixTime));
+    }
+
+    @Override
+    public Mono<Boolean> exists(String key) {
+        return Mono.fromFuture(() -> client.exists(key));
+    }
+
+    @Override
+    public Mono<Long> hdel(String key, String... field) {
+        return Mono.fromFuture(() -> client.hdel(key, field));
+    }
+
+    @Override
+    public Mono<String> hmset(String key, Map<String, ?> map) {
+        return Mono.fromFuture(() -> client.hmset(key, map));
+    }
+
+    @Override
+    public <T> Mono<T> getSet(String key, Object value, Class<T> javaType) {
+        return Mono.fromFuture(() -> client.getSet(key, value, javaType));
+    }
+
+    @Override
+    public Mono<Long> llen(String key) {
+        return Mono.fromFuture(() -> client.llen(key));
+    }
+
+    @Override
+    public Mono<Long> lrem(String key, long count, Object value) {
+        return Mono.fromFuture(() -> client.lrem(key, count, value));
+    }
+
+    @Override
+    public Mono<Long> sadd(String key, Object... values) {
+        return Mono.fromFuture(() -> client.sadd(key, values));
+    }
+
+    @Override
+    public Mono<Long> scard(String key) {
+        return Mono.fromFuture(() -> client.scard(key));
+    }
+
+    @Override
+    public Mono<Boolean> sismember(String key, Object member) {
+        return Mono.fromFuture(() -> client.sismember(key, member));
+    }
+
+    @Override
+    public Mono<Long> srem(String key, Object... values) {
+        return Mono.fromFuture(() -> client.srem(key, values));
+    }
+
+    @Override
+    public Mono<Long> zadd(String key, Object member, double score) {
+        return Mono.fromFuture(() -> client.zadd(key, member, score));
+    }
+
+    @Override
+    public Mono<Long> zadd(String key, Map<Object, Double> scoreMembers) {
+        return Mono.fromFuture(() -> client.zadd(key, scoreMembers));
+    }
+
+    @Override
+    public Mono<Long> zcard(String key) {
+        return Mono.fromFuture(() -> client.zcard(key));
+    }
+
+    @Override
+    public Mono<Long> zcount(String key, double min, double max) {
+        return Mono.fromFuture(() -> client.zcount(key, min, max));
+    }
+
+    @Override
+    public Mono<Long> zrem(String key, Object... member) {
+        return Mono.fromFuture(() -> client.zrem(key, member));
+    }
+
+    @Override
+    public Mono<Long> hset(String key, String field, Object value) {
+        return Mono.fromFuture(() -> client.hset(key, field, value));
+    }
+
+    @Override
+    public <T> Mono<T> hget(String key, String field, Class<T> valueType) {
+        return Mono.fromFuture(() -> client.hget(key, field, valueType));
+    }
+
+    @Override
+    public Mono<Long> hgetLong(String key, String field, long defaultValue) {
+        return Mono.fromFuture(() -> client.hgetLong(key, field, defaultValue));
+    }
+
+    @Override
+    public Mono<long[]> hmgetLongs(String key, long defaultValue, String... field) {
+        return Mono.fromFuture(() -> client.hmgetLongs(key, defaultValue, field));
+    }
+
+    @Override
+    public Mono<Long> hlen(String key) {
+        return Mono.fromFuture(() -> client.hlen(key));
+    }
+
+    @Override
+    public <T> Mono<List<T>> hmget(String key, Class<T> valueType, String... field) {
+        return Mono.fromFuture(() -> client.hmget(key, valueType, field));
+    }
+
+    @Override
+    public Mono<Long> hsetnx(String key, String field, Object value) {
+        return Mono.fromFuture(() -> client.hsetnx(key, field, value));
+    }
+
+    @Override
+    public Mono<Long> zrevrank(String key, Object member) {
+        return Mono.fromFuture(() -> client.zrevrank(key, member));
+    }
+
+    @Override
+    public Mono<Long> zrank(String key, Object member) {
+        return Mono.fromFuture(() -> client.zrank(key, member));
+    }
+
+    @Override
+    public <T> Flux<T> lrange(String key, int start, int end, Class<T> javaType) {
+        return page(start, end, () -> client.llen(key),
+                (from, to) -> client.lrange(key, from.intValue(), to.intValue(), javaType));
+    }
+
+    @Override
+    public <T> Flux<T> smembers(String key, Class<T> valueType) {
+        return sscan(key, pageSize, valueType);
+    }
+
+    @Override
+    public <T> Flux<Map.Entry<String, T>> hgetAll(String key, Class<T> valueType) {
+        return hscan(key, pageSize, valueType);
+    }
+
+    @Override
+    public <T> Flux<T> zrange(String key, long start, long end, Class<T> valueType) {
+        return page(start, end, () -> client.zcard(key), (from, to) -> client.zrange(key, from, to, valueType));
+    }
+
+    @Override
+    public <T> Flux<T> zrevrange(String key, long start, long end, Class<T> valueType) {
+        return page(start, end, () -> client.zcard(key), (from, to) -> client.zrevrange(key, from, to, valueType));
+    }
+
+    @Override
+    public Flux<String> scan(String pattern, int count) {
+        return scan(() -> client.scan(pattern, count), count);
+    }
+
+    @Override
+    public <T> Flux<Map.Entry<String, T>> hscan(String key, int count, Class<T> valueType) {
+        return scan(() -> client.hscan(key, count, valueType), count);
+    }
+
+    @Override
+    public <T> Flux<T> sscan(String key, int count, Class<T> valueType) {
+        return scan(() -> client.sscan(key, count, valueType), count);
+    }
+
+    @Override
+    public <T> Flux<Map.Entry<T, Double>> zscan(String key, int count, Class<T> valueType) {
+        return scan(() -> client.zscan(key, count, valueType), count);
+    }
+}
@@ -0,0 +1,363 @@
+package org.ifaster.redis.client.support;
+
+import org.ifaster.redis.client.AsyncScanCursor;
+import org.ifaster.redis.client.RedisAsyncClient;
+import org.ifaster.redis.client.RedisClient;
+import org.ifaster.redis.configuration.RedisProperties;
+import org.ifaster.redis.exception.RedisConfigException;
+import org.ifaster.redis.exception.RedisOperationException;
+import redis.clients.jedis.params.SetParams;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.ifaster.redis.constant.RedisClientConstant.ASYNC_QUEUE_SIZE;
+import static org.ifaster.redis.constant.RedisClientConstant.ASYNC_THREADS;
+
+/**
+ * 异步客户端，在有界线程池上执行同步客户端的命令
+ * 线程池和队列满时直接返回异常完成的future，不阻塞调用线程
+ *
+ * @author yangnan
+ */
+public class RedisAsyncClientSupport implements RedisAsyncClient, Closeable {
+
+    private final RedisClient client;
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * 构造函数
+     *
+     * @param client          同步客户端
+     * @param redisProperties
+     */
+    public RedisAsyncClientSupport(RedisClient client, RedisProperties redisProperties) {
+        this(client, redisProperties.getName(), redisProperties.getAsyncThreads(), redisProperties.getAsyncQueueSize());
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param client 同步客户端
+     * @param name   客户端名
+     */
+    public RedisAsyncClientSupport(RedisClient client, String name) {
+        this(client, name, ASYNC_THREADS, ASYNC_QUEUE_SIZE);
+    }
+
+    /**
+     * @param client    同步客户端
+     * @param name      客户端名，用于线程命名
+     * @param threads   执行线程数
+     * @param queueSize 等待执行的命令队列长度
+     */
+    public RedisAsyncClientSupport(RedisClient client, String name, int threads, int queueSize) {
+        if (client == null) {
+            throw new RedisConfigException("redis client is null");
+        }
+        this.client = client;
+        this.executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize), new NamedThreadFactory("redis-async-" + name));
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 提交命令
+     *
+     * @param command
+     * @param <R>
+     * @return
+     */
+    private <R> CompletableFuture<R> submit(Supplier<R> command) {
+        try {
+            return CompletableFuture.supplyAsync(command, executor);
+        } catch (RejectedExecutionException e) {
+            CompletableFuture<R> future = new CompletableFuture<>();
+            future.completeExceptionally(new RedisOperationException("redis async queue is full", e));
+            return future;
+        }
+    }
+
+    /**
+     * 游标，在线程池上从同步客户端的流中每次读取一页，第一次读取时才创建流
+     *
+     * @param stream
+     * @param count  每页元素个数
+     * @param <T>
+     * @return
+     */
+    private <T> AsyncScanCursor<T> cursor(Supplier<Stream<T>> stream, int count) {
+        return new AsyncScanCursor<T>() {
+            private Iterator<T> iterator;
+
+            @Override
+            public CompletableFuture<List<T>> next() {
+                return submit(() -> {
+                    synchronized (this) {
+                        if (iterator == null) {
+                            iterator = stream.get().iterator();
+                        }
+                        List<T> page = new ArrayList<>(count);
+                        while (page.size() < count && iterator.hasNext()) {
+                            page.add(iterator.next());
+                        }
+                        return page;
+                    }
+                });
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    @Override
+    public CompletableFuture<String> set(String key, int expTime, Object value) {
+        return submit(() -> client.set(key, expTime, value));
+    }
+
+    @Override
+    public CompletableFuture<String> set(String key, Object value, SetParams params) {
+        return submit(() -> client.set(key, value, params));
+    }
+
+    @Override
+    public <T> CompletableFuture<T> get(String key, Class<T> classType) {
+        return submit(() -> client.get(key, classType));
+    }
+
+    @Override
+    public CompletableFuture<Long> getLong(String key, long defaultValue) {
+        return submit(() -> client.getLong(key, defaultValue));
+    }
+
+    @Override
+    public CompletableFuture<Double> getDouble(String key, double defaultValue) {
+        return submit(() -> client.getDouble(key, defaultValue));
+    }
+
+    @Override
+    public <T> CompletableFuture<List<T>> mget(Collection<String> keys, Class<T> classType) {
+        return submit(() -> client.mget(keys, classType));
+    }
+
+    @Override
+    public CompletableFuture<String> mset(Map<String, ?> map, int expTime) {
+        return submit(() -> client.mset(map, expTime));
+    }
+
+    @Override
+    public CompletableFuture<Long> delete(String... keys) {
+        return submit(() -> client.delete(keys));
+    }
+
+    @Override
+    public CompletableFuture<Long> hincrBy(String key, String field, long increment) {
+        return submit(() -> client.hincrBy(key, field, increment));
+    }
+
+    @Override
+    public CompletableFuture<Long> incrBy(String key, long delta) {
+        return submit(() -> client.incrBy(key, delta));
+    }
+
+    @Override
+    public CompletableFuture<Long> rpush(String key, Object value) {
+        return submit(() -> client.rpush(key, value));
+    }
+
+    @Override
+    public <T> CompletableFuture<T> lpop(String key, Class<T> javaType) {
+        return submit(() -> client.lpop(key, javaType));
+    }
+
+    @Override
+    public <T> CompletableFuture<List<T>> blpop(String key, int timeout, Class<T> javaType) {
+        return submit(() -> client.blpop(key, timeout, javaType));
+    }
+
+    @Override
+    public <T> CompletableFuture<List<T>> lrange(String key, int start, int end, Class<T> javaType) {
+        return submit(() -> client.lrange(key, start, end, javaType));
+    }
+
+    @Override
+    public CompletableFuture<Long> expire(String key, int seconds) {
+        return submit(() -> client.expire(key, seconds));
+    }
+
+    @Override
+    public CompletableFuture<Long> expireAt(String key, int unixTime) {
+        return submit(() -> client.expireAt(key, unixTime));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> exists(String key) {
+        return submit(() -> client.exists(key));
+    }
+
+    @Override
+    public CompletableFuture<Long> hdel(String key, String... field) {
+        return submit(() -> client.hdel(key, field));
+    }
+
+    @Override
+    public CompletableFuture<String> hmset(String key, Map<String, ?> map) {
+        return submit(() -> client.hmset(key, map));
+    }
+
+    @Override
+    public <T> CompletableFuture<T> getSet(String key, Object value, Class<T> javaType) {
+        return submit(() -> client.getSet(key, value, javaType));
+    }
+
+    @Override
+    public CompletableFuture<Long> llen(String key) {
+        return submit(() -> client.llen(key));
+    }
+
+    @Override
+    public CompletableFuture<Long> lrem(String key, long count, Object value) {
+        return submit(() -> client.lrem(key, count, value));
+    }
+
+    @Override
+    public CompletableFuture<Long> sadd(String key, Object... values) {
+        return submit(() -> client.sadd(key, values));
+    }
+
+    @Override
+    public CompletableFuture<Long> scard(String key) {
+        return submit(() -> client.scard(key));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> sismember(String key, Object member) {
+        return submit(() -> client.sismember(key, member));
+    }
+
+    @Override
+    public <T> CompletableFuture<Set<T>> smembers(String key, Class<T> valueType) {
+        return submit(() -> client.smembers(key, valueType));
+    }
+
+    @Override
+    public CompletableFuture<Long> srem(String key, Object... values) {
+        return submit(() -> client.srem(key, values));
+    }
+
+    @Override
+    public CompletableFuture<Long> zadd(String key, Object member, double score) {
+        return submit(() -> client.zadd(key, member, score));
+    }
+
+    @Override
+    public CompletableFuture<Long> zadd(String key, Map<Object, Double> scoreMembers) {
+        return submit(() -> client.zadd(key, scoreMembers));
+    }
+
+    @Override
+    public CompletableFuture<Long> zcard(String key) {
+        return submit(() -> client.zcard(key));
+    }
+
+    @Override
+    public CompletableFuture<Long> zcount(String key, double min, double max) {
+        return submit(() -> client.zcount(key, min, max));
+    }
+
+    @Override
+    public CompletableFuture<Long> zrem(String key, Object... member) {
+        return submit(() -> client.zrem(key, member));
+    }
+
+    @Override
+    public CompletableFuture<Long> hset(String key, String field, Object value) {
+        return submit(() -> client.hset(key, field, value));
+    }
+
+    @Override
+    public <T> CompletableFuture<T> hget(String key, String field, Class<T> valueType) {
+        return submit(() -> client.hget(key, field, valueType));
+    }
+
+    @Override
+    public CompletableFuture<Long> hgetLong(String key, String field, long defaultValue) {
+        return submit(() -> client.hgetLong(key, field, defaultValue));
+    }
+
+    @Override
+    public CompletableFuture<long[]> hmgetLongs(String key, long defaultValue, String... field) {
+        return submit(() -> client.hmgetLongs(key, defaultValue, field));
+    }
+
+    @Override
+    public <T> CompletableFuture<Map<String, T>> hgetAll(String key, Class<T> valueType) {
+        return submit(() -> client.hgetAll(key, valueType));
+    }
+
+    @Override
+    public CompletableFuture<Long> hlen(String key) {
+        return submit(() -> client.hlen(key));
+    }
+
+    @Override
+    public <T> CompletableFuture<List<T>> hmget(String key, Class<T> valueType, String... field) {
+        return submit(() -> client.hmget(key, valueType, field));
+    }
+
+    @Override
+    public CompletableFuture<Long> hsetnx(String key, String field, Object value) {
+        return submit(() -> client.hsetnx(key, field, value));
+    }
+
+    @Override
+    public <T> CompletableFuture<List<T>> zrange(String key, long start, long end, Class<T> valueType) {
+        return submit(() -> client.zrange(key, start, end, valueType));
+    }
+
+    @Override
+    public <T> CompletableFuture<List<T>> zrevrange(String key, long start, long end, Class<T> valueType) {
+        return submit(() -> client.zrevrange(key, start, end, valueType));
+    }
+
+    @Override
+    public CompletableFuture<Long> zrevrank(String key, Object member) {
+        return submit(() -> client.zrevrank(key, member));
+    }
+
+    @Override
+    public CompletableFuture<Long> zrank(String key, Object member) {
+        return submit(() -> client.zrank(key, member));
+    }
+
+    @Override
+    public AsyncScanCursor<String> scan(String pattern, int count) {
+        return cursor(() -> client.scan(pattern, count), count);
+    }
+
+    @Override
+    public <T> AsyncScanCursor<Map.Entry<String, T>> hscan(String key, int count, Class<T> valueType) {
+        return cursor(() -> client.hscan(key, count, valueType), count);
+    }
+
+    @Override
+    public <T> AsyncScanCursor<T> sscan(String key, int count, Class<T> valueType) {
+        return cursor(() -> client.sscan(key, count, valueType), count);
+    }
+
+    @Override
+    public <T> AsyncScanCursor<Map.Entry<T, Double>> zscan(String key, int count, Class<T> valueType) {
+        return cursor(() -> client.zscan(key, count, valueType), count);
+    }
+}
@@ -3,22 +3,49 @@ package org.ifaster.redis.client.support;
 import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
 import org.ifaster.redis.client.RedisClient;
 import org.ifaster.redis.configuration.RedisProperties;
+import org.ifaster.redis.event.HotKeyEvent;
 import org.ifaster.redis.event.RedisCommandEvent;
 import org.ifaster.redis.event.RedisEvent;
 import org.ifaster.redis.exception.RedisConfigException;
+import org.ifaster.redis.exception.RedisOperationException;
 import org.ifaster.redis.exception.SerializationException;
-import org.ifaster.redis.listener.DefaultRedisEventListener;
+import org.ifaster.redis.jfr.RedisJfrEvents;
+import org.ifaster.redis.listener.JfrRedisEventListener;
+import org.ifaster.redis.listener.MetricsRedisEventListener;
 import org.ifaster.redis.listener.RedisEventListener;
+import org.ifaster.redis.listener.RedisEventListenerChain;
+import org.ifaster.redis.listener.SlowLogRedisEventListener;
+import org.ifaster.redis.metrics.TopologyMetrics;
+import org.ifaster.redis.serializer.AsciiNumbers;
+import org.ifaster.redis.serializer.BinarySerializer;
+import org.ifaster.redis.serializer.CodecRegistry;
+import org.ifaster.redis.serializer.CompressingSerializer;
 import org.ifaster.redis.serializer.FastJsonSerializer;
+import org.ifaster.redis.serializer.SerializeBuffer;
 import org.ifaster.redis.serializer.Serializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.util.ClassUtils;
 import org.springframework.util.StringUtils;
 import redis.clients.jedis.HostAndPort;
-import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.ScanParams;
 import redis.clients.jedis.params.SetParams;
 
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.Closeable;
+import java.lang.management.ManagementFactory;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
 
 import static org.apache.commons.pool2.impl.BaseObjectPoolConfig.DEFAULT_EVICTION_POLICY_CLASS_NAME;
 import static org.ifaster.redis.constant.RedisClientConstant.*;
@@ -26,19 +53,70 @@ import static org.ifaster.redis.constant.RedisClientConstant.*;
 /**
  * @author yangnan
  */
-public class RedisClientSupport implements RedisClient {
+public class RedisClientSupport implements RedisClient, Closeable {
 
     private static Logger LOGGER = LoggerFactory.getLogger(RedisClientSupport.class);
+    private static final String CAFFEINE_CLASS = "com.github.benmanes.caffeine.cache.Caffeine";
+    /**
+     * 序列化缓冲区，按线程复用
+     */
+    private static final ThreadLocal<SerializeBuffer> buffers = ThreadLocal.withInitial(SerializeBuffer::new);
 
-    private JedisCluster jedisCluster;
+    private InstrumentedJedisCluster jedisCluster;
     private Serializer serializer;
-    private RedisEventListener eventListener;
+    private RedisEventListenerChain eventListener;
+    /**
+     * 事件采样率 0-1，小于1时只为部分命令创建事件
+     */
+    private double eventSampleRate = 1;
     private String cluster;
+    private ClusterBatchExecutor batchExecutor;
+    /**
+     * 删除时使用UNLINK代替DEL
+     */
+    private boolean unlink;
+    /**
+     * 自动pipeline，未开启时为null
+     */
+    private AutoPipeline autoPipeline;
+    /**
+     * 并发相同读请求合并，未开启时为null
+     */
+    private SingleFlight singleFlight;
+    /**
+     * 近端缓存，未开启时为null
+     */
+    private NearCache nearCache;
+    /**
+     * 热点key探测，未开启时为null
+     */
+    private HotKeyDetector hotKeyDetector;
+    /**
+     * 内置指标，未开启时为null
+     */
+    private MetricsRedisEventListener metrics;
+    /**
+     * 慢命令日志，未开启时为null
+     */
+    private SlowLogRedisEventListener slowLog;
+    /**
+     * 连接池和拓扑统计，未开启时为null
+     */
+    private TopologyMetrics topology;
+    /**
+     * 注册到JMX的MBean
+     */
+    private final List<ObjectName> mbeans = new ArrayList<>();
 
     /**
      * redis key前缀
      */
     private String prefix;
+    private KeyCodec keyCodec;
+    /**
+     * 集合结果反序列化
+     */
+    private CollectionDecoder decoder;
 
     /**
      * 构造函数
@@ -54,7 +132,7 @@ public class RedisClientSupport implements RedisClient {
                 ,redisProperties.getMinEvictableIdleTimeMillis()
                 ,redisProperties.getTimeBetweenEvictionRunsMillis()
                 ,redisProperties.getEvictionPolicyClassName(),
-                eventListener);
+                eventListener, redisProperties);
     }
 
     /**
@@ -138,6 +216,20 @@ public class RedisClientSupport implements RedisClient {
                               int minIdle, int maxAttempts, long minEvictableIdleTimeMillis,
                               long timeBetweenEvictionRunsMillis, String evictionPolicyClassName,
                               RedisEventListener eventListener) {
+        this(prefix, password, cluster, serializer, connectionTimeout, soTimeout, maxIdle, maxTotal, minIdle,
+                maxAttempts, minEvictableIdleTimeMillis, timeBetweenEvictionRunsMillis, evictionPolicyClassName,
+                eventListener, new RedisProperties());
+    }
+
+    /**
+     * 连接参数之外的配置都来自redisProperties，没有RedisProperties的构造函数使用默认值
+     */
+    private RedisClientSupport(String prefix, String password, String cluster,
+                               Serializer serializer, int connectionTimeout,
+                               int soTimeout, int maxIdle, int maxTotal,
+                               int minIdle, int maxAttempts, long minEvictableIdleTimeMillis,
+                               long timeBetweenEvictionRunsMillis, String evictionPolicyClassName,
+                               RedisEventListener eventListener, RedisProperties redisProperties) {
         if (StringUtils.isEmpty(cluster)) {
             throw new RedisConfigException("cluster is null");
         }
@@ -148,11 +240,7 @@ public class RedisClientSupport implements RedisClient {
         } else {
             this.serializer = serializer;
         }
-        if (eventListener == null) {
-            this.eventListener = new DefaultRedisEventListener();
-        } else {
-            this.eventListener = eventListener;
-        }
+        this.eventListener = RedisEventListenerChain.of(eventListener);
         String[] clusters = cluster.split(",");
         Set<HostAndPort> jedisCluster = new HashSet<>();
         for (String c : clusters) {
@@ -168,7 +256,125 @@ public class RedisClientSupport implements RedisClient {
         poolConfig.setMinEvictableIdleTimeMillis(minEvictableIdleTimeMillis);
         poolConfig.setTimeBetweenEvictionRunsMillis(timeBetweenEvictionRunsMillis);
 
-        this.jedisCluster = new JedisCluster(jedisCluster, connectionTimeout, soTimeout, maxAttempts, password, poolConfig);
+        this.jedisCluster = new InstrumentedJedisCluster(jedisCluster, connectionTimeout, soTimeout, maxAttempts, password, poolConfig);
+        this.jedisCluster.setTracking(this.eventListener.isActive());
+        configure(redisProperties);
+    }
+
+    /**
+     * 应用RedisProperties中的扩展配置
+     *
+     * @param redisProperties
+     */
+    private void configure(RedisProperties redisProperties) {
+        if (serializer instanceof BinarySerializer && redisProperties.getSerializerClasses() != null) {
+            for (String className : redisProperties.getSerializerClasses()) {
+                try {
+                    ((BinarySerializer) serializer).register(ClassUtils.forName(className, getClass().getClassLoader()));
+                } catch (ClassNotFoundException e) {
+                    throw new RedisConfigException("serializer class not found: " + className);
+                }
+            }
+        }
+        if (redisProperties.getCompressThreshold() > 0) {
+            this.serializer = new CompressingSerializer(serializer, redisProperties.getCompressThreshold(),
+                    redisProperties.getCompressLevel());
+        }
+        if (redisProperties.isTypedCodec()) {
+            //只压缩使用serializer的复杂对象，数字保持可以INCRBY
+            this.serializer = new CodecRegistry(serializer);
+        }
+        this.decoder = new CollectionDecoder(serializer, redisProperties.isLazyDeserialize(),
+                redisProperties.getParallelDeserializeThreshold());
+        this.batchExecutor = new ClusterBatchExecutor(jedisCluster, redisProperties.getName(),
+                redisProperties.getBatchThreads());
+        this.keyCodec = new KeyCodec(prefix, redisProperties.getFieldCacheSize());
+        this.unlink = redisProperties.isUnlink();
+        this.eventSampleRate = redisProperties.getEventSampleRate();
+        if (redisProperties.isAutoPipeline()) {
+            this.autoPipeline = new AutoPipeline(jedisCluster, redisProperties.getName(),
+                    redisProperties.getAutoPipelineBatchSize(), redisProperties.getAutoPipelineWindowMicros(),
+                    redisProperties.getConnectionTimeout() + redisProperties.getSoTimeout(), AUTO_PIPELINE_IDLE_MILLIS);
+        }
+        if (redisProperties.isSingleFlight()) {
+            this.singleFlight = new SingleFlight();
+        }
+        if (redisProperties.isNearCache()) {
+            if (!ClassUtils.isPresent(CAFFEINE_CLASS, getClass().getClassLoader())) {
+                throw new RedisConfigException("near cache requires " + CAFFEINE_CLASS + " on the classpath");
+            }
+            String channel = StringUtils.isEmpty(redisProperties.getNearCacheChannel())
+                    ? prefix + NEAR_CACHE_CHANNEL_SUFFIX : redisProperties.getNearCacheChannel();
+            this.nearCache = new NearCache(jedisCluster, redisProperties.getName(), channel,
+                    redisProperties.getNearCacheMaxSize(), redisProperties.getNearCacheMaxWeight(),
+                    redisProperties.getNearCacheExpireSeconds());
+        }
+        if (redisProperties.isHotKeyDetect()) {
+            this.hotKeyDetector = new HotKeyDetector(redisProperties.getHotKeyQps(),
+                    redisProperties.getHotKeyWindowMillis(), redisProperties.getHotKeyTopK(),
+                    redisProperties.getHotKeyCacheMillis(), this::onHotKey);
+        }
+        if (redisProperties.isMetrics()) {
+            this.metrics = new MetricsRedisEventListener(redisProperties.getName(), redisProperties.getMetricsWindowMillis());
+            addEventListener(metrics);
+        }
+        if (redisProperties.isSlowLog()) {
+            this.slowLog = new SlowLogRedisEventListener(redisProperties.getSlowLogThresholdMillis(),
+                    redisProperties.getSlowLogSize());
+            addEventListener(slowLog);
+            registerMBean(slowLog, SLOW_LOG_OBJECT_NAME + ObjectName.quote(redisProperties.getName()));
+        }
+        if (redisProperties.isPoolMetrics()) {
+            this.topology = new TopologyMetrics(redisProperties.getName(), redisProperties.getMetricsWindowMillis(),
+                    jedisCluster.getClusterNodes()::get);
+            jedisCluster.setTopology(topology);
+            registerMBean(topology, TOPOLOGY_OBJECT_NAME + ObjectName.quote(redisProperties.getName()));
+        }
+        if (redisProperties.isAsyncListener()) {
+            this.eventListener = eventListener.async(redisProperties.getName(),
+                    redisProperties.getAsyncListenerBufferSize(), redisProperties.getAsyncListenerDropPolicy());
+        }
+        if (redisProperties.isJfrEvents()) {
+            if (!ClassUtils.isPresent(RedisJfrEvents.EVENT_CLASS, getClass().getClassLoader())) {
+                throw new RedisConfigException("jfr events require " + RedisJfrEvents.EVENT_CLASS + ", JDK 8u262 or 11+");
+            }
+            //在异步通知之后追加，保证在调用线程记录命令的起止时间
+            addEventListener(new JfrRedisEventListener(redisProperties.getName()));
+            jedisCluster.setJfrEvents(redisProperties.getName());
+        }
+    }
+
+    /**
+     * 注册到平台MBeanServer，同名已存在时只记录日志，close时注销
+     */
+    private void registerMBean(Object mbean, String name) {
+        try {
+            ObjectName objectName = new ObjectName(name);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(mbean, objectName);
+            mbeans.add(objectName);
+        } catch (JMException e) {
+            LOGGER.warn("register mbean failed, name:[{}]", name, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        for (ObjectName name : mbeans) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+            } catch (JMException e) {
+                LOGGER.warn("unregister mbean failed, name:[{}]", name, e);
+            }
+        }
+        if (nearCache != null) {
+            nearCache.close();
+        }
+        if (autoPipeline != null) {
+            autoPipeline.close();
+        }
+        batchExecutor.close();
+        jedisCluster.close();
+        eventListener.close();
     }
 
     /**
@@ -181,7 +387,173 @@ public class RedisClientSupport implements RedisClient {
         if (StringUtils.isEmpty(key)) {
             throw new SerializationException("redis key must be not null");
         }
-        return (prefix + key).getBytes(UTF_8);
+        return keyCodec.encode(key);
+    }
+
+    /**
+     * keys 序列化，同时计算每个key的slot
+     *
+     * @param slots 输出的slot
+     * @param keys
+     * @return
+     */
+    private byte[][] getKeys(int[] slots, String... keys) {
+        for (String key : keys) {
+            if (StringUtils.isEmpty(key)) {
+                throw new SerializationException("redis key must be not null");
+            }
+        }
+        return keyCodec.encode(keys, slots);
+    }
+
+    /**
+     * 执行单key命令，开启自动pipeline时与并发的其他命令合并发送
+     *
+     * @param key       带前缀的key
+     * @param pipelined pipeline中的命令
+     * @param direct    直接执行的命令
+     * @param <R>
+     * @return
+     */
+    private <R> R call(byte[] key, Function<Pipeline, Response<R>> pipelined, Supplier<R> direct) {
+        return autoPipeline == null ? direct.get() : autoPipeline.execute(key, pipelined, direct);
+    }
+
+    /**
+     * 执行读请求，开启single flight时合并并发的相同请求
+     *
+     * @param command 命令
+     * @param key     原始key
+     * @param arg     命令参数
+     * @param type    返回类型
+     * @param loader  读请求
+     * @param share   等待线程拿到结果前的处理
+     * @param <R>
+     * @return
+     */
+    private <R> R flight(String command, String key, Object arg, Class<?> type, Supplier<R> loader, UnaryOperator<R> share) {
+        return singleFlight == null ? loader.get() : singleFlight.execute(command, key, arg, type, loader, share);
+    }
+
+    /**
+     * 依次读取热点key缓存、近端缓存，都未命中时合并并发请求读取redis，结果写回缓存
+     *
+     * @param command 命令
+     * @param key     原始key
+     * @param field   hash的field，没有时为null
+     * @param type    返回类型
+     * @param loader  读取redis并反序列化，异常已通知监听器
+     * @param <T>
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T cachedRead(String command, String key, String field, Class<T> type, Supplier<Loaded<T>> loader) {
+        if (hotKeyDetector != null) {
+            Object hot = hotKeyDetector.cached(key, field, type);
+            if (hot != null) {
+                return (T) hot;
+            }
+        }
+        if (nearCache != null) {
+            long hotVersion = hotKeyDetector == null ? 0L : hotKeyDetector.version(key);
+            T near = nearCache.getIfPresent(key, field, type);
+            if (near != null) {
+                if (hotKeyDetector != null) {
+                    hotKeyDetector.cache(key, field, type, near, hotVersion);
+                }
+                return near;
+            }
+        }
+        Loaded<T> loaded = flight(command, key, field, type, () -> {
+            //失效版本由实际执行读取的线程在读取前获取，合并进来的调用线程使用同一个版本，
+            //读取开始后key被失效时所有调用线程都不缓存结果
+            long nearVersion = nearCache == null ? 0L : nearCache.version(key);
+            long hotVersion = hotKeyDetector == null ? 0L : hotKeyDetector.version(key);
+            return loader.get().versions(nearVersion, hotVersion);
+        }, UnaryOperator.identity());
+        if (nearCache != null) {
+            nearCache.put(key, field, type, loaded.value, loaded.weight, loaded.nearVersion);
+        }
+        if (hotKeyDetector != null) {
+            hotKeyDetector.cache(key, field, type, loaded.value, loaded.hotVersion);
+        }
+        return loaded.value;
+    }
+
+    /**
+     * 写命令后失效近端缓存和进行中的合并读请求
+     *
+     * @param keys 原始key
+     */
+    private void invalidate(String... keys) {
+        if (keys == null) {
+            return;
+        }
+        if (nearCache != null) {
+            nearCache.invalidate(keys);
+        }
+        if (hotKeyDetector != null) {
+            for (String key : keys) {
+                hotKeyDetector.invalidate(key);
+            }
+        }
+        if (singleFlight != null) {
+            for (String key : keys) {
+                singleFlight.invalidate(key);
+            }
+        }
+    }
+
+    /**
+     * 当前热点key，按qps从高到低，未开启热点key探测时为空
+     *
+     * @return key -> 估算的qps
+     */
+    public Map<String, Long> getHotKeys() {
+        return hotKeyDetector == null ? Collections.emptyMap() : hotKeyDetector.hotKeys();
+    }
+
+    /**
+     * 发现热点key，通知事件监听器
+     *
+     * @param key
+     * @param qps
+     */
+    private void onHotKey(String key, long qps) {
+        LOGGER.warn("hot key detected, cluster:[{}] key:[{}] qps:[{}]", cluster, key, qps);
+        try {
+            eventListener.hotKey(HotKeyEvent.builder().cluster(cluster).key(key).qps(qps)
+                    .detectTime(System.currentTimeMillis()).build());
+        } catch (Throwable e) {
+            LOGGER.warn("hot key listener failed", e);
+        }
+    }
+
+    /**
+     * 按下标选取
+     *
+     * @param data
+     * @param indexes
+     * @return
+     */
+    private static byte[][] select(byte[][] data, int[] indexes) {
+        byte[][] rs = new byte[indexes.length][];
+        for (int i = 0; i < indexes.length; i++) {
+            rs[i] = data[indexes[i]];
+        }
+        return rs;
+    }
+
+    /**
+     * 值序列化，使用线程内复用的缓冲区，只分配最终发送给jedis的数组
+     *
+     * @param value
+     * @return
+     */
+    private byte[] serialize(Object value) {
+        SerializeBuffer buffer = buffers.get().clear();
+        serializer.serialize(value, buffer);
+        return buffer.toByteArray();
     }
 
     /**
@@ -194,7 +566,22 @@ public class RedisClientSupport implements RedisClient {
         if (StringUtils.isEmpty(field)) {
             throw new SerializationException("redis hash field must be not null");
         }
-        return field.getBytes(UTF_8);
+        return keyCodec.field(field);
+    }
+
+    /**
+     * fields 序列化
+     *
+     * @param fields
+     * @return
+     */
+    private byte[][] getFields(String... fields) {
+        for (String field : fields) {
+            if (StringUtils.isEmpty(field)) {
+                throw new SerializationException("redis hash field must be not null");
+            }
+        }
+        return keyCodec.fields(fields);
     }
 
     /**
@@ -221,7 +608,7 @@ public class RedisClientSupport implements RedisClient {
             return new HashMap<>(0);
         }
         Map<byte[], byte[]> res = new HashMap<>(map.size());
-        map.forEach((k, v) -> res.put(getBytes(k), serializer.serialize(v)));
+        map.forEach((k, v) -> res.put(getBytes(k), serialize(v)));
         return res;
     }
 
@@ -233,7 +620,14 @@ public class RedisClientSupport implements RedisClient {
      * @return
      */
     private RedisEvent create(String key, String command) {
-        return RedisCommandEvent.builder().cluster(cluster).command(command).key(key).commandStart(System.currentTimeMillis()).build();
+        if (hotKeyDetector != null) {
+            hotKeyDetector.record(key);
+        }
+        if (!sampled()) {
+            return null;
+        }
+        jedisCluster.clearNode();
+        return event(key, command);
     }
 
     /**
@@ -244,7 +638,171 @@ public class RedisClientSupport implements RedisClient {
      * @return
      */
     private RedisEvent create(String command, String... keys) {
-        return RedisCommandEvent.builder().cluster(cluster).command(command).keys(keys).commandStart(System.currentTimeMillis()).build();
+        return sampled() ? event(command, keys) : null;
+    }
+
+    /**
+     * 是否需要为当前命令创建事件：没有监听器时不创建，开启采样时按概率创建
+     *
+     * @return
+     */
+    private boolean sampled() {
+        return eventListener.isActive()
+                && (eventSampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < eventSampleRate);
+    }
+
+    private RedisCommandEvent event(String key, String command) {
+        return RedisCommandEvent.builder().cluster(cluster).command(command).key(key)
+                .commandStart(System.currentTimeMillis()).startNanos(System.nanoTime()).build();
+    }
+
+    private RedisCommandEvent event(String command, String... keys) {
+        return RedisCommandEvent.builder().cluster(cluster).command(command).keys(keys)
+                .commandStart(System.currentTimeMillis()).startNanos(System.nanoTime()).build();
+    }
+
+    /**
+     * 异常交给监听器处理，未创建事件(没有监听器或未被采样)时补建事件
+     *
+     * @param event
+     * @param e
+     * @param key
+     * @param command
+     */
+    private void error(RedisEvent event, Throwable e, String key, String command) {
+        RedisEvent ev = event != null ? event : event(key, command);
+        failed(ev, e);
+        eventListener.error(ev, e);
+    }
+
+    private void error(RedisEvent event, Throwable e, String command, String... keys) {
+        RedisEvent ev = event != null ? event : event(command, keys);
+        failed(ev, e);
+        eventListener.error(ev, e);
+    }
+
+    /**
+     * 记录异常类型和执行的节点
+     */
+    private void failed(RedisEvent event, Throwable e) {
+        if (event instanceof RedisCommandEvent) {
+            RedisCommandEvent ev = (RedisCommandEvent) event;
+            ev.setError(e.getClass().getSimpleName());
+            if (ev.getKey() != null) {
+                ev.setNode(jedisCluster.lastNode());
+            }
+        }
+    }
+
+    /**
+     * 命令结束，单key命令记录执行的节点后通知监听器
+     *
+     * @param event
+     */
+    private void complete(RedisEvent event) {
+        if (event instanceof RedisCommandEvent) {
+            RedisCommandEvent ev = (RedisCommandEvent) event;
+            if (ev.getKey() != null && ev.getNode() == null) {
+                ev.setNode(jedisCluster.lastNode());
+            }
+        }
+        eventListener.complete(event);
+    }
+
+    /**
+     * 序列化value，有事件时记录耗时和字节数
+     */
+    private byte[] encode(RedisEvent event, Object value) {
+        if (event == null) {
+            return serialize(value);
+        }
+        long start = System.nanoTime();
+        byte[] data = serialize(value);
+        RedisCommandEvent ev = (RedisCommandEvent) event;
+        ev.setSerializeNanos(ev.getSerializeNanos() + System.nanoTime() - start);
+        return sent(event, data);
+    }
+
+    /**
+     * 反序列化命令内的value，有事件时记录耗时
+     */
+    private Object decode(RedisEvent event, byte[] data, Class<?> type) {
+        if (event == null) {
+            return serializer.deserialize(data, type);
+        }
+        long start = System.nanoTime();
+        Object value = serializer.deserialize(data, type);
+        RedisCommandEvent ev = (RedisCommandEvent) event;
+        ev.setSerializeNanos(ev.getSerializeNanos() + System.nanoTime() - start);
+        return value;
+    }
+
+    /**
+     * 记录请求中value的字节数
+     */
+    private static byte[] sent(RedisEvent event, byte[] value) {
+        if (event != null && value != null) {
+            RedisCommandEvent ev = (RedisCommandEvent) event;
+            ev.setRequestBytes(ev.getRequestBytes() + value.length);
+        }
+        return value;
+    }
+
+    /**
+     * 记录响应中value的字节数
+     */
+    private static byte[] received(RedisEvent event, byte[] value) {
+        if (event != null && value != null) {
+            RedisCommandEvent ev = (RedisCommandEvent) event;
+            ev.setResponseBytes(ev.getResponseBytes() + value.length);
+        }
+        return value;
+    }
+
+    private static <C extends Collection<byte[]>> C received(RedisEvent event, C values) {
+        if (event != null && values != null) {
+            for (byte[] value : values) {
+                received(event, value);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * 追加一个观察事件的监听器，不影响异常处理；开启异步通知时，后追加的监听器仍在调用线程通知
+     *
+     * @param listener
+     */
+    public void addEventListener(RedisEventListener listener) {
+        this.eventListener = eventListener.with(listener);
+        jedisCluster.setTracking(eventListener.isActive());
+    }
+
+    /**
+     * 慢命令日志，未开启redis.slowLog时为null
+     *
+     * @return
+     */
+    public SlowLogRedisEventListener getSlowLog() {
+        return slowLog;
+    }
+
+    /**
+     * 连接池和拓扑统计，未开启redis.poolMetrics时为null
+     *
+     * @return
+     */
+    public TopologyMetrics getTopology() {
+        return topology;
+    }
+
+    /**
+     * 内置指标，未开启redis.metrics时为null
+     *
+     * @return
+     */
+    public MetricsRedisEventListener getMetrics() {
+        return metrics;
     }
 
     @Override
@@ -252,11 +810,14 @@ public class RedisClientSupport implements RedisClient {
         RedisEvent event = create(key, "setex");
         try {
             eventListener.before(event);
-            return jedisCluster.setex(getKey(key), expTime, serializer.serialize(value));
+            byte[] k = getKey(key);
+            byte[] v = encode(event, value);
+            return call(k, p -> p.setex(k, expTime, v), () -> jedisCluster.setex(k, expTime, v));
         } catch (Throwable e) {
-            eventListener.error(event, e);
+            error(event, e, key, "setex");
         } finally {
-            eventListener.complete(event);
+            invalidate(key);
+            complete(event);
         }
         return null;
     }
@@ -266,44 +827,194 @@ public class RedisClientSupport implements RedisClient {
         RedisEvent event = create(key, "set");
         try {
             eventListener.before(event);
-            return jedisCluster.set(getKey(key), serializer.serialize(value), params);
+            byte[] k = getKey(key);
+            byte[] v = encode(event, value);
+            return call(k, p -> p.set(k, v, params), () -> jedisCluster.set(k, v, params));
         } catch (Throwable e) {
-            eventListener.error(event, e);
+            error(event, e, key, "set");
         } finally {
-            eventListener.complete(event);
+            invalidate(key);
+            complete(event);
         }
         return null;
     }
 
     @Override
     public <T> T get(String key, Class<T> classType) {
+        return cachedRead("get", key, null, classType, () -> doGet(key, classType));
+    }
+
+    private <T> Loaded<T> doGet(String key, Class<T> classType) {
         RedisEvent event = create(key, "get");
         try {
             eventListener.before(event);
-            return (T) serializer.deserialize(jedisCluster.get(getKey(key)), classType);
+            byte[] k = getKey(key);
+            byte[] data = received(event, call(k, p -> p.get(k), () -> jedisCluster.get(k)));
+            return new Loaded<>((T) serializer.deserialize(data, classType), data == null ? 0 : data.length);
         } catch (Throwable e) {
-            eventListener.error(event, e);
+            error(event, e, key, "get");
         } finally {
-            eventListener.complete(event);
+            complete(event);
+        }
+        return new Loaded<>(null, 0);
+    }
+
+    @Override
+    public long getLong(String key, long defaultValue) {
+        RedisEvent event = create(key, "get");
+        try {
+            eventListener.before(event);
+            byte[] k = getKey(key);
+            byte[] data = received(event, call(k, p -> p.get(k), () -> jedisCluster.get(k)));
+            return data == null ? defaultValue : AsciiNumbers.parseLong(data, 0, data.length);
+        } catch (Throwable e) {
+            error(event, e, key, "get");
+        } finally {
+            complete(event);
+        }
+        return defaultValue;
+    }
+
+    @Override
+    public double getDouble(String key, double defaultValue) {
+        RedisEvent event = create(key, "get");
+        try {
+            eventListener.before(event);
+            byte[] k = getKey(key);
+            byte[] data = received(event, call(k, p -> p.get(k), () -> jedisCluster.get(k)));
+            return data == null ? defaultValue : AsciiNumbers.parseDouble(data, 0, data.length);
+        } catch (Throwable e) {
+            error(event, e, key, "get");
+        } finally {
+            complete(event);
+        }
+        return defaultValue;
+    }
+
+    @Override
+    public <T> List<T> mget(Collection<String> keys, Class<T> classType) {
+        if (keys == null || keys.isEmpty()) {
+            return new ArrayList<>(0);
+        }
+        String[] originalKeys = keys.toArray(new String[0]);
+        RedisEvent event = create("mget", originalKeys);
+        byte[][] data = new byte[originalKeys.length][];
+        try {
+            eventListener.before(event);
+            int[] slots = new int[originalKeys.length];
+            byte[][] keyBytes = getKeys(slots, originalKeys);
+            batchExecutor.execute(keyBytes, slots, (pipeline, indexes) -> {
+                Response<List<byte[]>> response = pipeline.mget(select(keyBytes, indexes));
+                return response::get;
+            }, indexes -> jedisCluster.mget(select(keyBytes, indexes)), (indexes, values) -> {
+                for (int i = 0; i < indexes.length; i++) {
+                    data[indexes[i]] = values.get(i);
+                }
+            });
+            if (event != null) {
+                received(event, Arrays.asList(data));
+            }
+        } catch (Throwable e) {
+            error(event, e, "mget", originalKeys);
+        } finally {
+            complete(event);
+        }
+        List<T> rs = new ArrayList<>(data.length);
+        for (byte[] d : data) {
+            rs.add((T) serializer.deserialize(d, classType));
+        }
+        return rs;
+    }
+
+    @Override
+    public String mset(Map<String, ?> map, int expTime) {
+        if (map == null || map.isEmpty()) {
+            return null;
+        }
+        String[] originalKeys = map.keySet().toArray(new String[0]);
+        RedisEvent event = create("mset", originalKeys);
+        try {
+            eventListener.before(event);
+            int[] slots = new int[originalKeys.length];
+            byte[][] keyBytes = getKeys(slots, originalKeys);
+            byte[][] values = new byte[originalKeys.length][];
+            for (int i = 0; i < originalKeys.length; i++) {
+                values[i] = encode(event, map.get(originalKeys[i]));
+            }
+            if (expTime <= 0) {
+                batchExecutor.execute(keyBytes, slots, (pipeline, indexes) -> {
+                    Response<String> response = pipeline.mset(keysValues(keyBytes, values, indexes));
+                    return response::get;
+                }, indexes -> jedisCluster.mset(keysValues(keyBytes, values, indexes)), (indexes, r) -> {});
+            } else {
+                batchExecutor.execute(keyBytes, slots, (pipeline, indexes) -> {
+                    List<Response<String>> responses = new ArrayList<>(indexes.length);
+                    for (int i : indexes) {
+                        responses.add(pipeline.setex(keyBytes[i], expTime, values[i]));
+                    }
+                    return () -> {
+                        responses.forEach(Response::get);
+                        return "OK";
+                    };
+                }, indexes -> {
+                    for (int i : indexes) {
+                        jedisCluster.setex(keyBytes[i], expTime, values[i]);
+                    }
+                    return "OK";
+                }, (indexes, r) -> {});
+            }
+            return "OK";
+        } catch (Throwable e) {
+            error(event, e, "mset", originalKeys);
+        } finally {
+            invalidate(originalKeys);
+            complete(event);
         }
         return null;
     }
 
+    /**
+     * 按下标组装mset参数 key1 value1 key2 value2
+     *
+     * @param keys
+     * @param values
+     * @param indexes
+     * @return
+     */
+    private static byte[][] keysValues(byte[][] keys, byte[][] values, int[] indexes) {
+        byte[][] rs = new byte[indexes.length * 2][];
+        for (int i = 0; i < indexes.length; i++) {
+            rs[2 * i] = keys[indexes[i]];
+            rs[2 * i + 1] = values[indexes[i]];
+        }
+        return rs;
+    }
+
     @Override
     public long delete(String... keys) {
-        RedisEvent event = create("del", keys);
+        if (keys == null || keys.length < 1) {
+            return 0L;
+        }
+        RedisEvent event = create(unlink ? "unlink" : "del", keys);
         try {
             eventListener.before(event);
-            byte[][] keyBytes = new byte[keys.length][];
-            for (int i = 0; i < keys.length; i++) {
-                keyBytes[i] = getKey(keys[i]);
-            }
-            Long c = jedisCluster.del(keyBytes);
-            return c == null ? 0L : c;
+            int[] slots = new int[keys.length];
+            byte[][] keyBytes = getKeys(slots, keys);
+            AtomicLong count = new AtomicLong();
+            batchExecutor.execute(keyBytes, slots, (pipeline, indexes) -> {
+                byte[][] slotKeys = select(keyBytes, indexes);
+                Response<Long> response = unlink ? pipeline.unlink(slotKeys) : pipeline.del(slotKeys);
+                return response::get;
+            }, indexes -> {
+                byte[][] slotKeys = select(keyBytes, indexes);
+                return unlink ? jedisCluster.unlink(slotKeys) : jedisCluster.del(slotKeys);
+            }, (indexes, c) -> count.addAndGet(c == null ? 0L : c));
+            return count.get();
         } catch (Throwable e) {
-            eventListener.error(event, e);
+            error(event, e, unlink ? "unlink" : "del", keys);
         } finally {
-            eventListener.complete(event);
+            invalidate(keys);
+            complete(event);
         }
         return 0L;
     }
@@ -313,12 +1024,15 @@ public class RedisClientSupport implements RedisClient {
         RedisEvent event = create(key, "hincrBy");
         try {
             eventListener.before(event);
-            Long c = jedisCluster.hincrBy(getKey(key), getBytes(field), value);
+            byte[] k = getKey(key);
+            byte[] f = getBytes(field);
+            Long c = call(k, p -> p.hincrBy(k, f, value), () -> jedisCluster.hincrBy(k, f, value));
             return c == null ? 0L : c;
         } catch (Throwable e) {
-            eventListener.error(event, e);
+            error(event, e, key, "hincrBy");
         } finally {
-            eventListener.complete(event);
+            invalidate(key);
+            complete(event);
         }
         return 0L;
     }
@@ -328,12 +1042,14 @@ public class RedisClientSupport implements RedisClient {
         RedisEvent event = create(key, "incrBy");
         try {
             eventListener.before(event);
-            Long c = jedisCluster.incrBy(getKey(key), delta);
+            byte[] k = getKey(key);
+            Long c = call(k, p -> p.incrBy(k, delta), () -> jedisCluster.incrBy(k, delta));
             return c == null ? 0L : c;
         } catch (Throwable e) {
-            eventListener.error(event, e);
+            error(event, e, key, "incrBy");
         } finally {
-            eventListener.complete(event);
+            invalidate(key);
+            complete(event);
         }
         return 0L;
     }
@@ -343,12 +1059,12 @@ public class RedisClientSupport implements RedisClient {
         RedisEvent event = create(key, "rpush");
         try {
             eventListener.before(event);
-            Long c = jedisCluster.rpush(getKey(key), serializer.serialize(value));
+            Long c = jedisCluster.rpush(getKey(key), encode(event, value));
             return c == null ? 0L : c;
         } catch (Throwable e) {
-            eventListener.error(event, e);
+            error(event, e, key, "rpush");
         } finally {
-            eventListener.complete(event);
+            complete(event);
         }
         return 0L;
     }
@@ -358,11 +1074,11 @@ public class RedisClientSupport implements RedisClient {
         RedisEvent event = create(key, "lpop");
         try {
             eventListener.before(event);
-            return (T) serializer.deserialize(jedisCluster.lpop(getKey(key)), javaType);
+            return (T) decode(event, received(event, jedisCluster.lpop(getKey(key))), javaType);
         } catch (Throwable e) {
-            eventListener.error(event, e);
+            error(event, e, key, "lpop");
         } finally {
-            eventListener.complete(event);
+            complete(event);
         }
         return null;
     }
@@ -373,11 +1089,11 @@ public class RedisClientSupport implements RedisClient {
         List<byte[]> data = null;
         try {
             eventListener.before(event);
-            data = jedisCluster.blpop(timeout, getKey(key));
+            data = received(event, jedisCluster.blpop(timeout, getKey(key)));
         } catch (Throwable e) {
-            eventListener.error(event, e);
+            error(event, e, key, "blpop");
         } finally {
-            eventListener.complete(event);
+            complete(event);
         }
         if (data == null || data.size() < 1) {
             return null;
@@ -391,21 +1107,25 @@ public class RedisClientSupport implements RedisClient {
 
     @Override
     public <T> List<T> lrange(String key, int start, int end, Class<T> javaType) {
+        return flight("lrange", key, start + ":" + end, javaType,
+                () -> doLrange(key, start, end, javaType), decoder.share(ArrayList::new));
+    }
+
+    private <T> List<T> doLrange(String key, int start, int end, Class<T> javaType) {
         RedisEvent event = create(key, "lrange");
         List<byte[]> data = null;
         try {
             eventListener.before(event);
-            data = jedisCluster.lrange(getKey(key), start, end);
+            data = received(event, jedisCluster.lrange(getKey(key), start, end));
         } catch (Throwable e) {
-            eventListener.error(event, e);
+            error(event, e, key, "lrange");
         } finally {
-            eventListener.complete(event);
+            complete(event);
         }
         if (data == null || data.size() < 1) {
-            return new ArrayList<>(0);
+            return decoder.list(data, javaType);
         }
-        List<T> rs = new ArrayList<>(data.size());
-        data.forEach(r -> rs.add((T) serializer.deserialize(r, javaType)));
+        List<T> rs = decoder.list(data, javaType);
         data.clear();
         data = null;
         return rs;
@@ -416,12 +1136,14 @@ public class RedisClientSupport implements RedisClient {
         RedisEvent event = create(key, "expire");
         try {
             eventListener.before(event);
-            Long c = jedisCluster.expire(getKey(key), seconds);
+            byte[] k = getKey(key);
+            Long c = call(k, p -> p.expire(k, seconds), () -> jedisCluster.expire(k, seconds));
             return c == null ? 0L : c;
         } catch (Throwable e) {
-            eventListener.error(event, e);
+            error(event, e, key, "expire");
         } finally {
-            eventListener.complete(event);
+            invalidate(key);
+            complete(event);
         }
         return 0L;
     }
@@ -431,12 +1153,14 @@ public class RedisClientSupport implements RedisClient {
         RedisEvent event = create(key, "expireAt");
         try {
             eventListener.before(event);
-            Long c = jedisCluster.expireAt(getKey(key), unixTime);
+            byte[] k = getKey(key);
+            Long c = call(k, p -> p.expireAt(k, unixTime), () -> jedisCluster.expireAt(k, unixTime));
             return c == null ? 0L : c;
         } catch (Throwable e) {
-            eventListener.error(event, e);
+            error(event, e, key, "expireAt");
         } finally {
-            eventListener.complete(event);
+            invalidate(key);
+            complete(event);
         }
         return 0L;
     }
@@ -446,12 +1170,13 @@ public class RedisClientSupport implements RedisClient {
         RedisEvent event = create(key, "exists");
         try {
             eventListener.before(event);
-            Boolean exists = jedisCluster.exists(getKey(key));
+            byte[] k = getKey(key);
+            Boolean exists = call(k, p -> p.exists(k), () -> jedisCluster.exists(k));
             return exists == null ? false : exists;
         } catch (Throwable e) {
-            eventListener.error(event, e);
+            error(event, e, key, "exists");
         } finally {
-            eventListener.complete(event);
+            complete(event);
         }
         return false;
     }
@@ -461,23 +1186,21 @@ public class RedisClientSupport implements RedisClient {
         if (field == null || field.length < 1) {
             return 0L;
         }
-        byte[][] data = new byte[field.length][];
-        for (int i = 0; i < field.length; i++) {
-            data[i] = getBytes(field[i]);
-        }
+        byte[][] data = getFields(field);
         RedisEvent event = create(key, "hdel");
         try {
             eventListener.before(event);
             Long c =  jedisCluster.hdel(getKey(key), data);
             return c == null ? 0 : c;
         } catch (Throwable e) {
-            eventListener.error(event, e);
+            error(event, e, key, "hdel");
         } finally {
             for (int i = 0; i < field.length; i++) {
                 data[i] = null;
             }
             data = null;
-            eventListener.complete(event);
+            invalidate(key);
+            complete(event);
         }
         return 0L;
     }
@@ -489,30 +1212,34 @@ public class RedisClientSupport implements RedisClient {
             eventListener.before(event);
             return jedisCluster.hmset(getKey(key), serializerMap(map));
         } catch (Throwable e) {
-            eventListener.error(event, e);
+            error(event, e, key, "hmset");
         } finally {
-            eventListener.complete(event);
+            invalidate(key);
+            complete(event);
         }
         return null;
     }
 
     @Override
     public <T> Set<T> smembers(String key, Class<T> javaType) {
+        return flight("smembers", key, null, javaType, () -> doSmembers(key, javaType), decoder.share(HashSet::new));
+    }
+
+    private <T> Set<T> doSmembers(String key, Class<T> javaType) {
         RedisEvent event = create(key, "smembers");
         Set<byte[]> data = null;
         try {
             eventListener.before(event);
-            data = jedisCluster.smembers(getKey(key));
+            data = received(event, jedisCluster.smembers(getKey(key)));
         } catch (Throwable e) {
-            eventListener.error(event, e);
+            error(event, e, key, "smembers");
         } finally {
-            eventListener.complete(event);
+            complete(event);
         }
         if (data == null || data.isEmpty()) {
-            return new HashSet<>();
+            return decoder.set(data, javaType);
         }
-        Set<T> rs = new HashSet<>(data.size());
-        data.forEach(r -> rs.add((T) serializer.deserialize(r, javaType)));
+        Set<T> rs = decoder.set(data, javaType);
         data.clear();
         data = null;
         return rs;
@@ -524,11 +1251,14 @@ public class RedisClientSupport implements RedisClient {
         byte[] data = null;
         try {
             eventListener.before(event);
-            data = jedisCluster.getSet(getKey(key), serializer.serialize(value));
+            byte[] k = getKey(key);
+            byte[] v = encode(event, value);
+            data = received(event, call(k, p -> p.getSet(k, v), () -> jedisCluster.getSet(k, v)));
         } catch (Throwable e) {
-            eventListener.error(event, e);
+            error(event, e, key, "getSet");
         } finally {
-            eventListener.complete(event);
+            invalidate(key);
+            complete(event);
         }
         return (T) serializer.deserialize(data, javaType);
     }
@@ -540,7 +1270,7 @@ public class RedisClientSupport implements RedisClient {
         }
         byte[][] data = new byte[values.length][];
         for (int i=0; i<data.length; i++) {
-            data[i] = serializer.serialize(values[i]);
+            data[i] = serialize(values[i]);
         }
         RedisEvent event = create(key, "sadd");
         try {
@@ -548,13 +1278,13 @@ public class RedisClientSupport implements RedisClient {
             Long c = jedisCluster.sadd(getKey(key), data);
             return c == null ? 0L : c;
         } catch (Throwable e) {
-            eventListener.error(event, e);
+            error(event, e, key, "sadd");
         } finally {
             for (int i=0; i<data.length; i++) {
                 data[i] = null;
             }
             data = null;
-            eventListener.complete(event);
+            complete(event);
         }
         return 0L;
     }
@@ -566,7 +1296,7 @@ public class RedisClientSupport implements RedisClient {
         }
         byte[][] data = new byte[values.length][];
         for (int i=0; i<data.length; i++) {
-            data[i] = serializer.serialize(values[i]);
+            data[i] = serialize(values[i]);
         }
         RedisEvent event = create(key, "srem");
         try {
@@ -574,13 +1304,13 @@ public class RedisClientSupport implements RedisClient {
             Long c = jedisCluster.srem(getKey(key), data);
             return c == null ? 0L:c;
         } catch (Throwable e) {
-            eventListener.error(event, e);
+            error(event, e, key, "srem");
         } finally {
             for (int i=0; i<data.length; i++) {
                 data[i] = null;
             }
             data = null;
-            eventListener.complete(event);
+            complete(event);
         }
         return 0L;
     }
@@ -590,12 +1320,13 @@ public class RedisClientSupport implements RedisClient {
         RedisEvent event = create(key, "llen");
         try {
             eventListener.before(event);
-            Long c = jedisCluster.llen(getKey(key));
+            byte[] k = getKey(key);
+            Long c = call(k, p -> p.llen(k), () -> jedisCluster.llen(k));
             return c == null ? 0L:c;
         } catch (Throwable e) {
-            eventListener.error(event, e);
+            error(event, e, key, "llen");
         } finally {
-            eventListener.complete(event);
+            complete(event);
         }
         return 0L;
     }
@@ -605,12 +1336,12 @@ public class RedisClientSupport implements RedisClient {
         RedisEvent event = create(key, "lrem");
         try {
             eventListener.before(event);
-            Long c = jedisCluster.lrem(getKey(key), count, serializer.serialize(value));
+            Long c = jedisCluster.lrem(getKey(key), count, serialize(value));
             return c == null ? 0L:c;
         } catch (Throwable e) {
-            eventListener.error(event, e);
+            error(event, e, key, "lrem");
         } finally {
-            eventListener.complete(event);
+            complete(event);
         }
         return 0L;
     }
@@ -620,12 +1351,13 @@ public class RedisClientSupport implements RedisClient {
         RedisEvent event = create(key, "scard");
         try {
             eventListener.before(event);
-            Long c = jedisCluster.scard(getKey(key));
+            byte[] k = getKey(key);
+            Long c = call(k, p -> p.scard(k), () -> jedisCluster.scard(k));
             return c == null ? 0L:c;
         } catch (Throwable e) {
-            eventListener.error(event, e);
+            error(event, e, key, "scard");
         } finally {
-            eventListener.complete(event);
+            complete(event);
         }
         return 0L;
     }
@@ -635,12 +1367,14 @@ public class RedisClientSupport implements RedisClient {
         RedisEvent event = create(key, "sismember");
         try {
             eventListener.before(event);
-            Boolean es = jedisCluster.sismember(getKey(key), serializer.serialize(member));
+            byte[] k = getKey(key);
+            byte[] m = serialize(member);
+            Boolean es = call(k, p -> p.sismember(k, m), () -> jedisCluster.sismember(k, m));
             return  es == null ? false : es;
         } catch (Throwable e) {
-            eventListener.error(event, e);
+            error(event, e, key, "sismember");
         } finally {
-            eventListener.complete(event);
+            complete(event);
         }
         return false;
     }
@@ -650,12 +1384,12 @@ public class RedisClientSupport implements RedisClient {
         RedisEvent event = create(key, "zadd");
         try {
             eventListener.before(event);
-            Long c = jedisCluster.zadd(getKey(key), score, serializer.serialize(member));
+            Long c = jedisCluster.zadd(getKey(key), score, serialize(member));
             return c == null ? 0L:c;
         } catch (Throwable e) {
-            eventListener.error(event, e);
+            error(event, e, key, "zadd");
         } finally {
-            eventListener.complete(event);
+            complete(event);
         }
         return 0L;
     }
@@ -666,16 +1400,16 @@ public class RedisClientSupport implements RedisClient {
             return 0L;
         }
         Map<byte[], Double> data = new HashMap<>(scoreMembers.size());
-        scoreMembers.forEach((k, v) -> data.put(serializer.serialize(k), v));
+        scoreMembers.forEach((k, v) -> data.put(serialize(k), v));
         RedisEvent event = create(key, "zadd");
         try {
             eventListener.before(event);
             Long c = jedisCluster.zadd(getKey(key), data);
             return c == null ? 0L:c;
         } catch (Throwable e) {
-            eventListener.error(event, e);
+            error(event, e, key, "zadd");
         } finally {
-            eventListener.complete(event);
+            complete(event);
         }
         return 0L;
     }
@@ -685,12 +1419,13 @@ public class RedisClientSupport implements RedisClient {
         RedisEvent event = create(key, "zcard");
         try {
             eventListener.before(event);
-            Long c = jedisCluster.zcard(getKey(key));
+            byte[] k = getKey(key);
+            Long c = call(k, p -> p.zcard(k), () -> jedisCluster.zcard(k));
             return c == null ? 0L:c;
         } catch (Throwable e) {
-            eventListener.error(event, e);
+            error(event, e, key, "zcard");
         } finally {
-            eventListener.complete(event);
+            complete(event);
         }
         return 0L;
     }
@@ -703,9 +1438,9 @@ public class RedisClientSupport implements RedisClient {
             Long c = jedisCluster.zcount(getKey(key), min, max);
             return c == null ? 0L:c;
         } catch (Throwable e) {
-            eventListener.error(event, e);
+            error(event, e, key, "zcount");
         } finally {
-            eventListener.complete(event);
+            complete(event);
         }
         return 0L;
     }
@@ -717,7 +1452,7 @@ public class RedisClientSupport implements RedisClient {
         }
         byte[][] data = new byte[member.length][];
         for (int i=0 ;i<member.length; i++) {
-            data[i] = serializer.serialize(member);
+            data[i] = serialize(member[i]);
         }
         RedisEvent event = create(key, "zrem");
         try {
@@ -725,13 +1460,13 @@ public class RedisClientSupport implements RedisClient {
             Long c = jedisCluster.zrem(getKey(key), data);
             return c == null ? 0L:c;
         } catch (Throwable e) {
-            eventListener.error(event, e);
+            error(event, e, key, "zrem");
         } finally {
             for (int i=0 ;i<member.length; i++) {
                 data[i] = null;
             }
             data = null;
-            eventListener.complete(event);
+            complete(event);
         }
         return 0L;
     }
@@ -741,48 +1476,82 @@ public class RedisClientSupport implements RedisClient {
         RedisEvent event = create(key, "hset");
         try {
             eventListener.before(event);
-            Long c = jedisCluster.hset(getKey(key), getBytes(field), serializer.serialize(value));
+            byte[] k = getKey(key);
+            byte[] f = getBytes(field);
+            byte[] v = encode(event, value);
+            Long c = call(k, p -> p.hset(k, f, v), () -> jedisCluster.hset(k, f, v));
             return c == null ? 0L:c;
         } catch (Throwable e) {
-            eventListener.error(event, e);
+            error(event, e, key, "hset");
         } finally {
-            eventListener.complete(event);
+            invalidate(key);
+            complete(event);
         }
         return 0L;
     }
 
     @Override
     public <T> T hget(String key, String field, Class<T> valueType) {
+        return cachedRead("hget", key, field, valueType, () -> doHget(key, field, valueType));
+    }
+
+    private <T> Loaded<T> doHget(String key, String field, Class<T> valueType) {
         RedisEvent event = create(key, "hget");
-        byte[] data = null;
         try {
             eventListener.before(event);
-            data = jedisCluster.hget(getKey(key), getBytes(field));
+            byte[] k = getKey(key);
+            byte[] f = getBytes(field);
+            byte[] data = received(event, call(k, p -> p.hget(k, f), () -> jedisCluster.hget(k, f)));
+            return new Loaded<>((T) serializer.deserialize(data, valueType), data == null ? 0 : data.length);
         } catch (Throwable e) {
-            eventListener.error(event, e);
+            error(event, e, key, "hget");
         } finally {
-            eventListener.complete(event);
+            complete(event);
         }
-        return (T) serializer.deserialize(data, valueType);
+        return new Loaded<>(null, 0);
+    }
+
+    @Override
+    public long hgetLong(String key, String field, long defaultValue) {
+        RedisEvent event = create(key, "hget");
+        try {
+            eventListener.before(event);
+            byte[] k = getKey(key);
+            byte[] f = getBytes(field);
+            byte[] data = received(event, call(k, p -> p.hget(k, f), () -> jedisCluster.hget(k, f)));
+            return data == null ? defaultValue : AsciiNumbers.parseLong(data, 0, data.length);
+        } catch (Throwable e) {
+            error(event, e, key, "hget");
+        } finally {
+            complete(event);
+        }
+        return defaultValue;
     }
 
     @Override
     public <T> Map<String, T> hgetAll(String key, Class<T> valueType) {
+        return flight("hgetAll", key, null, valueType,
+                () -> doHgetAll(key, valueType), decoder.share(m -> m == null ? null : new HashMap<>(m)));
+    }
+
+    private <T> Map<String, T> doHgetAll(String key, Class<T> valueType) {
         RedisEvent event = create(key, "hgetAll");
         Map<byte[], byte[]> map = null;
         try {
             eventListener.before(event);
             map = jedisCluster.hgetAll(getKey(key));
+            if (map != null) {
+                received(event, map.values());
+            }
         } catch (Throwable e) {
-            eventListener.error(event, e);
+            error(event, e, key, "hgetAll");
         } finally {
-            eventListener.complete(event);
+            complete(event);
         }
         if (map == null || map.isEmpty()) {
             return null;
         }
-        Map<String, T> result = new HashMap<>(map.size());
-        map.forEach((k, v) -> result.put(new String(k, UTF_8), (T) serializer.deserialize(v, valueType)));
+        Map<String, T> result = decoder.map(map, valueType);
         map.clear();
         map = null;
         return result;
@@ -793,12 +1562,13 @@ public class RedisClientSupport implements RedisClient {
         RedisEvent event = create(key, "hlen");
         try {
             eventListener.before(event);
-            Long c = jedisCluster.hlen(getKey(key));
+            byte[] k = getKey(key);
+            Long c = call(k, p -> p.hlen(k), () -> jedisCluster.hlen(k));
             return c == null ? 0L:c;
         } catch (Throwable e) {
-            eventListener.error(event, e);
+            error(event, e, key, "hlen");
         } finally {
-            eventListener.complete(event);
+            complete(event);
         }
         return 0L;
     }
@@ -808,42 +1578,67 @@ public class RedisClientSupport implements RedisClient {
         if (field == null || field.length < 1) {
             return new ArrayList<>(0);
         }
-        byte[][] fieldBytes = new byte[field.length][];
-        for (int i=0; i<field.length; i++) {
-            fieldBytes[i] = getBytes(field[i]);
-        }
+        byte[][] fieldBytes = getFields(field);
         RedisEvent event = create(key, "hmget");
         List<byte[]> data = null;
         try {
             eventListener.before(event);
-            data = jedisCluster.hmget(getKey(key), fieldBytes);
+            data = received(event, jedisCluster.hmget(getKey(key), fieldBytes));
         } catch (Throwable e) {
-            eventListener.error(event, e);
+            error(event, e, key, "hmget");
         } finally {
-            eventListener.complete(event);
+            complete(event);
         }
         if (data == null || data.isEmpty()) {
-            return new ArrayList<>(1);
+            return decoder.list(data, valueType);
         }
 
-        List<T> rs = new ArrayList<>(data.size());
-        data.forEach( r -> rs.add((T) serializer.deserialize(r, valueType)));
+        List<T> rs = decoder.list(data, valueType);
         data.clear();
         data = null;
         return rs;
     }
 
+    @Override
+    public long[] hmgetLongs(String key, long defaultValue, String... field) {
+        if (field == null || field.length < 1) {
+            return new long[0];
+        }
+        byte[][] fieldBytes = getFields(field);
+        RedisEvent event = create(key, "hmget");
+        long[] rs = new long[field.length];
+        try {
+            eventListener.before(event);
+            List<byte[]> data = received(event, jedisCluster.hmget(getKey(key), fieldBytes));
+            for (int i = 0; i < rs.length; i++) {
+                byte[] d = data == null ? null : data.get(i);
+                rs[i] = d == null ? defaultValue : AsciiNumbers.parseLong(d, 0, d.length);
+            }
+            return rs;
+        } catch (Throwable e) {
+            error(event, e, key, "hmget");
+        } finally {
+            complete(event);
+        }
+        Arrays.fill(rs, defaultValue);
+        return rs;
+    }
+
     @Override
     public long hsetnx(String key, String field, Object value) {
         RedisEvent event = create(key, "hsetnx");
         try {
             eventListener.before(event);
-            Long c = jedisCluster.hsetnx(getKey(key), getBytes(field), serializer.serialize(value));
+            byte[] k = getKey(key);
+            byte[] f = getBytes(field);
+            byte[] v = encode(event, value);
+            Long c = call(k, p -> p.hsetnx(k, f, v), () -> jedisCluster.hsetnx(k, f, v));
             return c == null ? 0L:c;
         } catch (Throwable e) {
-            eventListener.error(event, e);
+            error(event, e, key, "hsetnx");
         } finally {
-            eventListener.complete(event);
+            invalidate(key);
+            complete(event);
         }
         return 0L;
     }
@@ -854,17 +1649,16 @@ public class RedisClientSupport implements RedisClient {
         Set<byte[]> data = null;
         try {
             eventListener.before(event);
-            data = jedisCluster.zrange(getKey(key), start, end);
+            data = received(event, jedisCluster.zrange(getKey(key), start, end));
         } catch (Throwable e) {
-            eventListener.error(event, e);
+            error(event, e, key, "zrange");
         } finally {
-            eventListener.complete(event);
+            complete(event);
         }
         if (data == null || data.isEmpty()) {
-            return new ArrayList<>(0);
+            return decoder.list(data, valueType);
         }
-        List<T> rs = new ArrayList<>(data.size());
-        data.forEach( r -> rs.add((T) serializer.deserialize(r, valueType)));
+        List<T> rs = decoder.list(data, valueType);
         data.clear();
         data = null;
         return rs;
@@ -876,17 +1670,16 @@ public class RedisClientSupport implements RedisClient {
         Set<byte[]> data = null;
         try {
             eventListener.before(event);
-            data = jedisCluster.zrevrange(getKey(key), start, end);
+            data = received(event, jedisCluster.zrevrange(getKey(key), start, end));
         } catch (Throwable e) {
-            eventListener.error(event, e);
+            error(event, e, key, "zrevrange");
         } finally {
-            eventListener.complete(event);
+            complete(event);
         }
         if (data == null || data.isEmpty()) {
-            return new ArrayList<>(0);
+            return decoder.list(data, valueType);
         }
-        List<T> rs = new ArrayList<>(data.size());
-        data.forEach( r -> rs.add((T) serializer.deserialize(r, valueType)));
+        List<T> rs = decoder.list(data, valueType);
         data.clear();
         data = null;
         return rs;
@@ -897,12 +1690,12 @@ public class RedisClientSupport implements RedisClient {
         RedisEvent event = create(key, "zrevrank");
         try {
             eventListener.before(event);
-            Long c = jedisCluster.zrevrank(getKey(key), serializer.serialize(member));
+            Long c = jedisCluster.zrevrank(getKey(key), serialize(member));
             return c == null ? 0L:c;
         } catch (Throwable e) {
-            eventListener.error(event, e);
+            error(event, e, key, "zrevrank");
         } finally {
-            eventListener.complete(event);
+            complete(event);
         }
         return 0L;
     }
@@ -912,13 +1705,172 @@ public class RedisClientSupport implements RedisClient {
         RedisEvent event = create(key, "zrank");
         try {
             eventListener.before(event);
-            Long c = jedisCluster.zrank(getKey(key), serializer.serialize(member));
+            Long c = jedisCluster.zrank(getKey(key), serialize(member));
             return c == null ? 0L:c;
         } catch (Throwable e) {
-            eventListener.error(event, e);
+            error(event, e, key, "zrank");
         } finally {
-            eventListener.complete(event);
+            complete(event);
         }
         return 0L;
     }
+
+    @Override
+    public double zscore(String key, Object member, double defaultValue) {
+        RedisEvent event = create(key, "zscore");
+        try {
+            eventListener.before(event);
+            byte[] k = getKey(key);
+            byte[] m = serialize(member);
+            Double score = call(k, p -> p.zscore(k, m), () -> jedisCluster.zscore(k, m));
+            return score == null ? defaultValue : score;
+        } catch (Throwable e) {
+            error(event, e, key, "zscore");
+        } finally {
+            complete(event);
+        }
+        return defaultValue;
+    }
+
+    @Override
+    public Stream<String> scan(String pattern, int count) {
+        ScanParams params = new ScanParams().match(escape(prefix) + (pattern == null ? "*" : pattern)).count(count);
+        return ScanIterator.streamAll(masters(), (node, cursor) -> {
+            RedisEvent event = create("scan", new String[]{pattern});
+            try {
+                eventListener.before(event);
+                JedisPool pool = jedisCluster.getClusterNodes().get(node);
+                if (pool == null) {
+                    //节点缓存可能落后于CLUSTER SLOTS，刷新后仍不存在说明节点已下线，游标无法继续
+                    jedisCluster.renewSlotCache();
+                    pool = jedisCluster.getClusterNodes().get(node);
+                    if (pool == null) {
+                        throw new RedisOperationException("scan node " + node + " is not in cluster " + cluster);
+                    }
+                }
+                try (Jedis jedis = pool.getResource()) {
+                    return jedis.scan(cursor, params);
+                }
+            } catch (Throwable e) {
+                error(event, e, "scan", new String[]{pattern});
+            } finally {
+                complete(event);
+            }
+            return null;
+        }, k -> new String(k, UTF_8).substring(prefix.length()));
+    }
+
+    @Override
+    public <T> Stream<Map.Entry<String, T>> hscan(String key, int count, Class<T> valueType) {
+        ScanParams params = new ScanParams().count(count);
+        return ScanIterator.stream(getKey(key), (k, cursor) -> {
+            RedisEvent event = create(key, "hscan");
+            try {
+                eventListener.before(event);
+                return jedisCluster.hscan(k, cursor, params);
+            } catch (Throwable e) {
+                error(event, e, key, "hscan");
+            } finally {
+                complete(event);
+            }
+            return null;
+        }, e -> new AbstractMap.SimpleImmutableEntry<>(new String(e.getKey(), UTF_8),
+                (T) serializer.deserialize(e.getValue(), valueType)));
+    }
+
+    @Override
+    public <T> Stream<T> sscan(String key, int count, Class<T> valueType) {
+        ScanParams params = new ScanParams().count(count);
+        return ScanIterator.stream(getKey(key), (k, cursor) -> {
+            RedisEvent event = create(key, "sscan");
+            try {
+                eventListener.before(event);
+                return jedisCluster.sscan(k, cursor, params);
+            } catch (Throwable e) {
+                error(event, e, key, "sscan");
+            } finally {
+                complete(event);
+            }
+            return null;
+        }, m -> (T) serializer.deserialize(m, valueType));
+    }
+
+    @Override
+    public <T> Stream<Map.Entry<T, Double>> zscan(String key, int count, Class<T> valueType) {
+        ScanParams params = new ScanParams().count(count);
+        return ScanIterator.stream(getKey(key), (k, cursor) -> {
+            RedisEvent event = create(key, "zscan");
+            try {
+                eventListener.before(event);
+                return jedisCluster.zscan(k, cursor, params);
+            } catch (Throwable e) {
+                error(event, e, key, "zscan");
+            } finally {
+                complete(event);
+            }
+            return null;
+        }, t -> new AbstractMap.SimpleImmutableEntry<>((T) serializer.deserialize(t.getBinaryElement(), valueType),
+                t.getScore()));
+    }
+
+    /**
+     * 当前所有主节点 host:port
+     *
+     * @return
+     */
+    private List<String> masters() {
+        for (JedisPool pool : jedisCluster.getClusterNodes().values()) {
+            try (Jedis jedis = pool.getResource()) {
+                Set<String> masters = new LinkedHashSet<>();
+                for (Object slot : jedis.clusterSlots()) {
+                    List<Object> master = (List<Object>) ((List<Object>) slot).get(2);
+                    masters.add(new String((byte[]) master.get(0), UTF_8) + ":" + master.get(1));
+                }
+                return new ArrayList<>(masters);
+            } catch (Throwable e) {
+                LOGGER.warn("cluster slots failed, try next node", e);
+            }
+        }
+        throw new RedisOperationException("no reachable node in cluster " + cluster);
+    }
+
+    /**
+     * 转义glob模式中的特殊字符
+     *
+     * @param s
+     * @return
+     */
+    private static String escape(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (char c : s.toCharArray()) {
+            if (c == '*' || c == '?' || c == '[' || c == ']' || c == '\\') {
+                sb.append('\\');
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 读取结果，带读取前的失效版本
+     *
+     * @param <T>
+     */
+    private static class Loaded<T> {
+        private final T value;
+        private final int weight;
+        private long nearVersion;
+        private long hotVersion;
+
+        Loaded(T value, int weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+
+        Loaded<T> versions(long nearVersion, long hotVersion) {
+            this.nearVersion = nearVersion;
+            this.hotVersion = hotVersion;
+            return this;
+        }
+    }
 }
@@ -0,0 +1,98 @@
+package org.ifaster.redis.client.support;
+
+import org.ifaster.redis.exception.RedisOperationException;
+import redis.clients.jedis.ScanResult;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static redis.clients.jedis.ScanParams.SCAN_POINTER_START_BINARY;
+
+/**
+ * 游标迭代器，当前页遍历完后才读取下一页，依次遍历多个目标(集群节点)
+ *
+ * @param <S> 游标所在的目标
+ * @param <R> 每页的原始元素
+ * @param <E> 转换后的元素
+ * @author yangnan
+ */
+class ScanIterator<S, R, E> implements Iterator<E> {
+
+    private static final String SCAN_END = "0";
+
+    private final Iterator<S> sources;
+    /**
+     * 读取一页，返回null表示读取失败(异常已通知监听器)
+     */
+    private final BiFunction<S, byte[], ScanResult<R>> fetch;
+    private final Function<R, E> mapper;
+
+    private S source;
+    private byte[] cursor;
+    private Iterator<R> page = Collections.emptyIterator();
+
+    ScanIterator(Collection<S> sources, BiFunction<S, byte[], ScanResult<R>> fetch, Function<R, E> mapper) {
+        this.sources = sources.iterator();
+        this.fetch = fetch;
+        this.mapper = mapper;
+    }
+
+    /**
+     * 单个目标的流
+     *
+     * @param source
+     * @param fetch
+     * @param mapper
+     * @return
+     */
+    static <S, R, E> Stream<E> stream(S source, BiFunction<S, byte[], ScanResult<R>> fetch, Function<R, E> mapper) {
+        return streamAll(Collections.singletonList(source), fetch, mapper);
+    }
+
+    /**
+     * 依次遍历多个目标的流
+     *
+     * @param sources
+     * @param fetch
+     * @param mapper
+     * @return
+     */
+    static <S, R, E> Stream<E> streamAll(Collection<S> sources, BiFunction<S, byte[], ScanResult<R>> fetch, Function<R, E> mapper) {
+        Iterator<E> iterator = new ScanIterator<>(sources, fetch, mapper);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!page.hasNext()) {
+            if (cursor == null) {
+                if (!sources.hasNext()) {
+                    return false;
+                }
+                source = sources.next();
+                cursor = SCAN_POINTER_START_BINARY;
+            }
+            ScanResult<R> result = fetch.apply(source, cursor);
+            if (result == null) {
+                //监听器没有抛出异常时也不能当作遍历结束，否则调用方拿到不完整的结果
+                Object target = source instanceof byte[] ? new String((byte[]) source, StandardCharsets.UTF_8) : source;
+                throw new RedisOperationException("scan " + target + " failed, result is incomplete");
+            }
+            page = result.getResult() == null ? Collections.emptyIterator() : result.getResult().iterator();
+            cursor = SCAN_END.equals(result.getCursor()) ? null : result.getCursorAsBytes();
+        }
+        return true;
+    }
+
+    @Override
+    public E next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return mapper.apply(page.next());
+    }
+}
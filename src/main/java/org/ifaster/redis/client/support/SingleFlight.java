@@ -0,0 +1,96 @@
+package org.ifaster.redis.client.support;
+
+import org.ifaster.redis.exception.RedisOperationException;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * 并发相同读请求合并
+ * 同一命令、key、参数和返回类型的并发请求只执行一次，其他调用线程等待并共享反序列化后的结果
+ * 写命令后移除该key上进行中的请求，写之后开始的读不会加入写之前开始的请求
+ *
+ * @author yangnan
+ */
+class SingleFlight {
+
+    private static final char SEPARATOR = '\u0000';
+
+    /**
+     * key -> (命令、参数和返回类型 -> 进行中的请求)，内层map只在compute中读写
+     */
+    private final ConcurrentMap<String, Map<String, CompletableFuture<Object>>> flights = new ConcurrentHashMap<>();
+
+    /**
+     * 执行读请求
+     *
+     * @param command 命令
+     * @param key     key
+     * @param arg     命令参数，没有时为null
+     * @param type    返回类型
+     * @param loader  实际的读请求
+     * @param share   等待线程拿到结果前的处理，集合结果复制一份避免互相修改
+     * @param <R>
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    <R> R execute(String command, String key, Object arg, Class<?> type, Supplier<R> loader, UnaryOperator<R> share) {
+        String flightKey = command + SEPARATOR + arg + SEPARATOR + type.getName();
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        Object[] existing = new Object[1];
+        flights.compute(key, (k, keyFlights) -> {
+            if (keyFlights == null) {
+                keyFlights = new HashMap<>(4);
+            }
+            existing[0] = keyFlights.putIfAbsent(flightKey, flight);
+            return keyFlights;
+        });
+        if (existing[0] != null) {
+            return share.apply(await((CompletableFuture<Object>) existing[0]));
+        }
+        try {
+            R result = loader.get();
+            flight.complete(result);
+            return result;
+        } catch (Throwable e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            flights.computeIfPresent(key, (k, keyFlights) -> {
+                keyFlights.remove(flightKey, flight);
+                return keyFlights.isEmpty() ? null : keyFlights;
+            });
+        }
+    }
+
+    /**
+     * 写命令后移除key上进行中的请求，已经加入的调用线程仍拿到原来的结果
+     *
+     * @param key key
+     */
+    void invalidate(String key) {
+        flights.remove(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <R> R await(CompletableFuture<Object> flight) {
+        try {
+            return (R) flight.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RedisOperationException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RedisOperationException(cause);
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package org.ifaster.redis.configuration;
 
+import org.ifaster.redis.client.support.RedisAsyncClientSupport;
 import org.ifaster.redis.client.support.RedisClientSupport;
 import org.ifaster.redis.exception.RedisConfigException;
 import org.ifaster.redis.listener.RedisEventListener;
+import org.ifaster.redis.listener.RedisEventListenerChain;
+import org.ifaster.redis.metrics.MicrometerMetricsRegistrar;
 import org.ifaster.redis.serializer.Serializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,6 +21,7 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.StringUtils;
 
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -30,6 +34,17 @@ public class RedisConfiguration implements BeanFactoryPostProcessor {
     private Logger logger = LoggerFactory.getLogger(getClass());
 
     private final static String PREFIX = "redis";
+    /**
+     * 异步客户端bean名后缀
+     */
+    private final static String ASYNC_SUFFIX = "Async";
+    /**
+     * 响应式客户端bean名后缀，reactor在classpath中时注册
+     */
+    private final static String REACTIVE_SUFFIX = "Reactive";
+    private final static String REACTOR_CLASS = "reactor.core.publisher.Mono";
+    private final static String REACTIVE_CLIENT_CLASS = "org.ifaster.redis.client.support.ReactiveRedisClientSupport";
+    private final static String METRICS_BEAN = "redisMetricsConfiguration";
 
     @Override
     public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) throws BeansException {
@@ -60,17 +75,39 @@ public class RedisConfiguration implements BeanFactoryPostProcessor {
             }
 
             if (!StringUtils.isEmpty(r.getEventListener())) {
-                try {
-                    Class cz = ClassUtils.forName(r.getEventListener(), beanFactory.getBeanClassLoader());
-                    eventListener = (RedisEventListener) BeanUtils.instantiateClass(cz);
-                } catch (ClassNotFoundException e) {
-                    throw new RedisConfigException(e.getMessage(), e);
+                String[] classNames = StringUtils.tokenizeToStringArray(r.getEventListener(), ",");
+                RedisEventListener[] listeners = new RedisEventListener[classNames.length];
+                for (int i = 0; i < classNames.length; i++) {
+                    try {
+                        Class cz = ClassUtils.forName(classNames[i], beanFactory.getBeanClassLoader());
+                        listeners[i] = (RedisEventListener) BeanUtils.instantiateClass(cz);
+                    } catch (ClassNotFoundException e) {
+                        throw new RedisConfigException(e.getMessage(), e);
+                    }
                 }
+                eventListener = RedisEventListenerChain.of(listeners[0], Arrays.copyOfRange(listeners, 1, listeners.length));
             }
             builder.addConstructorArgValue(serializer);
             builder.addConstructorArgValue(eventListener);
             listableBeanFactory.registerBeanDefinition(r.getName(), builder.getBeanDefinition());
+
+            BeanDefinitionBuilder asyncBuilder = BeanDefinitionBuilder.genericBeanDefinition(RedisAsyncClientSupport.class);
+            asyncBuilder.addConstructorArgReference(r.getName());
+            asyncBuilder.addConstructorArgValue(r);
+            listableBeanFactory.registerBeanDefinition(r.getName() + ASYNC_SUFFIX, asyncBuilder.getBeanDefinition());
+
+            if (ClassUtils.isPresent(REACTOR_CLASS, beanFactory.getBeanClassLoader())) {
+                BeanDefinitionBuilder reactiveBuilder = BeanDefinitionBuilder.genericBeanDefinition(REACTIVE_CLIENT_CLASS);
+                reactiveBuilder.addConstructorArgReference(r.getName() + ASYNC_SUFFIX);
+                reactiveBuilder.addConstructorArgValue(r);
+                listableBeanFactory.registerBeanDefinition(r.getName() + REACTIVE_SUFFIX, reactiveBuilder.getBeanDefinition());
+            }
             logger.info("init success config:[{}]", r);
         });
+        if (redisProperties.stream().anyMatch(r -> r.isEnable() && (r.isMetrics() || r.isPoolMetrics()))
+                && ClassUtils.isPresent(MicrometerMetricsRegistrar.METER_REGISTRY_CLASS, beanFactory.getBeanClassLoader())) {
+            listableBeanFactory.registerBeanDefinition(METRICS_BEAN,
+                    BeanDefinitionBuilder.genericBeanDefinition(RedisMetricsConfiguration.class).getBeanDefinition());
+        }
     }
 }
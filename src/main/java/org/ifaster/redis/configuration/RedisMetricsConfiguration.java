@@ -0,0 +1,47 @@
+package org.ifaster.redis.configuration;
+
+import org.ifaster.redis.client.support.RedisClientSupport;
+import org.ifaster.redis.metrics.MicrometerMetricsRegistrar;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.util.ClassUtils;
+
+/**
+ * 所有bean初始化后，把开启了metrics/poolMetrics的客户端注册到MeterRegistry，没有micrometer或MeterRegistry时不处理
+ *
+ * @author yangnan
+ */
+public class RedisMetricsConfiguration implements SmartInitializingSingleton, BeanFactoryAware {
+
+    private DefaultListableBeanFactory beanFactory;
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) throws BeansException {
+        this.beanFactory = (DefaultListableBeanFactory) beanFactory;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        ClassLoader classLoader = beanFactory.getBeanClassLoader();
+        if (!ClassUtils.isPresent(MicrometerMetricsRegistrar.METER_REGISTRY_CLASS, classLoader)) {
+            return;
+        }
+        Object registry = beanFactory.getBeanProvider(
+                ClassUtils.resolveClassName(MicrometerMetricsRegistrar.METER_REGISTRY_CLASS, classLoader)).getIfAvailable();
+        if (registry == null) {
+            return;
+        }
+        MicrometerMetricsRegistrar registrar = new MicrometerMetricsRegistrar(registry);
+        beanFactory.getBeansOfType(RedisClientSupport.class).values().forEach(client -> {
+            if (client.getMetrics() != null) {
+                client.getMetrics().setRegistrar(registrar);
+            }
+            if (client.getTopology() != null) {
+                client.getTopology().setRegistrar(registrar);
+            }
+        });
+    }
+}
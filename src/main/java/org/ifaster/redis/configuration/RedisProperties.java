@@ -1,6 +1,9 @@
 package org.ifaster.redis.configuration;
 
 import lombok.Data;
+import org.ifaster.redis.listener.AsyncRedisEventListener;
+
+import java.util.List;
 
 import static org.apache.commons.pool2.impl.BaseObjectPoolConfig.DEFAULT_EVICTION_POLICY_CLASS_NAME;
 import static org.ifaster.redis.constant.RedisClientConstant.*;
@@ -41,9 +44,53 @@ public class RedisProperties {
     private String serializer;
 
     /**
-     * 事件拦截器
+     * 事件拦截器，多个类名用逗号分隔，第一个决定异常的处理方式，后面的只观察事件
      */
     private String eventListener;
+    /**
+     * 事件采样率 0-1，小于1时只为部分命令创建事件并通知before/complete，异常总会通知
+     */
+    private double eventSampleRate = 1;
+    /**
+     * 是否在单独的线程通知监听器，异常处理仍在调用线程
+     */
+    private boolean asyncListener;
+    /**
+     * 异步通知的缓冲区大小，向上取2的幂
+     */
+    private int asyncListenerBufferSize = ASYNC_LISTENER_BUFFER_SIZE;
+    /**
+     * 异步通知缓冲区满时的策略 DROP/BLOCK/CALLER_RUNS
+     */
+    private AsyncRedisEventListener.DropPolicy asyncListenerDropPolicy = AsyncRedisEventListener.DropPolicy.DROP;
+    /**
+     * 是否开启内置指标，按命令和节点统计耗时分布，micrometer在classpath中时注册到MeterRegistry
+     */
+    private boolean metrics;
+    /**
+     * 分位值统计窗口 ms
+     */
+    private long metricsWindowMillis = METRICS_WINDOW_MILLIS;
+    /**
+     * 是否统计每个节点的连接池状态、借连接耗时、MOVED/ASK和slot刷新，通过RedisClientSupport#getTopology、JMX和micrometer查看
+     */
+    private boolean poolMetrics;
+    /**
+     * 是否记录慢命令，通过RedisClientSupport#getSlowLog和JMX查看
+     */
+    private boolean slowLog;
+    /**
+     * 慢命令阈值 ms
+     */
+    private long slowLogThresholdMillis = SLOW_LOG_THRESHOLD_MILLIS;
+    /**
+     * 保留的慢命令数
+     */
+    private int slowLogSize = SLOW_LOG_SIZE;
+    /**
+     * 是否提交JFR事件(命令、slot刷新、重定向)，需要JDK 8u262或11以上，没有正在进行的录制时只有判断的开销
+     */
+    private boolean jfrEvents;
 
     /**
      * 连接超时时间 ms
@@ -78,4 +125,114 @@ public class RedisProperties {
      * 过期策略
      */
     private String evictionPolicyClassName = DEFAULT_EVICTION_POLICY_CLASS_NAME;
+    /**
+     * 多key批量命令并行执行的线程数
+     */
+    private int batchThreads = BATCH_THREADS;
+    /**
+     * 删除key时使用UNLINK(redis 4.0+)在后台释放内存，默认使用DEL
+     */
+    private boolean unlink;
+    /**
+     * 异步客户端执行线程数
+     */
+    private int asyncThreads = ASYNC_THREADS;
+    /**
+     * 异步客户端等待执行的命令队列长度，队列满时命令直接异常完成
+     */
+    private int asyncQueueSize = ASYNC_QUEUE_SIZE;
+    /**
+     * 响应式客户端lrange/zrange等区间命令每次读取的元素个数
+     */
+    private int reactivePageSize = REACTIVE_PAGE_SIZE;
+    /**
+     * 开启自动pipeline，并发线程的单key命令按节点合并成pipeline发送，默认关闭
+     */
+    private boolean autoPipeline;
+    /**
+     * 自动pipeline每批最多合并的命令数
+     */
+    private int autoPipelineBatchSize = AUTO_PIPELINE_BATCH_SIZE;
+    /**
+     * 自动pipeline刷新前等待更多命令的时间 us，0表示只合并上一批执行期间到达的命令
+     */
+    private long autoPipelineWindowMicros = AUTO_PIPELINE_WINDOW_MICROS;
+    /**
+     * 开启后get/hget/hgetAll/smembers/lrange的并发相同请求只执行一次并共享结果，
+     * get/hget返回的是同一个对象，调用方不应修改，默认关闭
+     */
+    private boolean singleFlight;
+    /**
+     * 开启近端缓存，缓存get/hget反序列化后的对象，默认关闭
+     * 本客户端的写命令失效本地缓存，并通过pub/sub通知其他jvm，需要caffeine依赖；
+     * 缓存的对象由所有调用方共享，不能修改get/hget返回的对象，需要修改时先复制
+     */
+    private boolean nearCache;
+    /**
+     * 近端缓存最大key数
+     */
+    private long nearCacheMaxSize = NEAR_CACHE_MAX_SIZE;
+    /**
+     * 近端缓存最大字节数(按原始值计算)，大于0时代替nearCacheMaxSize
+     */
+    private long nearCacheMaxWeight;
+    /**
+     * 近端缓存写入后过期时间(秒)，兜底丢失的失效通知
+     */
+    private long nearCacheExpireSeconds = NEAR_CACHE_EXPIRE_SECONDS;
+    /**
+     * 失效通知的channel，默认为 prefix + __near_cache_invalidate__
+     */
+    private String nearCacheChannel;
+    /**
+     * 开启热点key探测，超过hotKeyQps的key通过RedisEventListener.hotKey通知，
+     * 其get/hget结果在本地缓存hotKeyCacheMillis，缓存的对象由调用方共享，不能修改，默认关闭
+     */
+    private boolean hotKeyDetect;
+    /**
+     * 热点key的qps阈值
+     */
+    private long hotKeyQps = HOT_KEY_QPS;
+    /**
+     * 热点key统计窗口 ms
+     */
+    private long hotKeyWindowMillis = HOT_KEY_WINDOW_MILLIS;
+    /**
+     * 最多同时保留的热点key数
+     */
+    private int hotKeyTopK = HOT_KEY_TOP_K;
+    /**
+     * 热点key本地缓存时间 ms
+     */
+    private long hotKeyCacheMillis = HOT_KEY_CACHE_MILLIS;
+    /**
+     * 序列化后超过该字节数的值使用deflate压缩，小于等于0表示不压缩
+     */
+    private int compressThreshold;
+    /**
+     * 压缩级别 1-9
+     */
+    private int compressLevel = COMPRESS_LEVEL;
+    /**
+     * 最多缓存编码结果的hash field数，小于等于0表示不缓存
+     */
+    private int fieldCacheSize = FIELD_CACHE_SIZE;
+    /**
+     * 按类型编码值：String存原始UTF-8，数字存ASCII十进制，byte[]原样存储，其他类型使用serializer，默认关闭。
+     * 开启后String和byte[]的存储格式与json不兼容
+     */
+    private boolean typedCodec;
+    /**
+     * lrange/smembers/zrange/zrevrange/hmget/hgetAll返回只读视图，元素第一次访问时才反序列化，默认关闭
+     */
+    private boolean lazyDeserialize;
+    /**
+     * 集合结果元素数超过该值时在ForkJoin公共池中并行反序列化，小于等于0表示不并行
+     */
+    private int parallelDeserializeThreshold;
+    /**
+     * serializer为BinarySerializer时按顺序注册的类名，ID从1开始依次分配，
+     * 各个jvm的顺序必须一致，只能在末尾追加
+     */
+    private List<String> serializerClasses;
 }
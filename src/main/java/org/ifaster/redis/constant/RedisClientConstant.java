@@ -33,4 +33,96 @@ public class RedisClientConstant {
      */
     public static final long MIN_EVICT_ABLE_IDLE_TIME_MILLIS = 1000L * 60L * 30L;
     public static final long TIME_BETWEEN_EVICTION_RUNS_MILLIS = 1000L * 60L * 10;
+    /**
+     * 多key批量命令并行执行的线程数
+     */
+    public static final int BATCH_THREADS = Runtime.getRuntime().availableProcessors();
+    /**
+     * 多key批量命令等待并行执行的批次队列长度，队列满时由调用线程执行
+     */
+    public static final int BATCH_QUEUE_SIZE = 1024;
+    /**
+     * 异步客户端执行线程数
+     */
+    public static final int ASYNC_THREADS = Runtime.getRuntime().availableProcessors() * 4;
+    /**
+     * 异步客户端等待执行的命令队列长度
+     */
+    public static final int ASYNC_QUEUE_SIZE = 10000;
+    /**
+     * 响应式客户端区间类命令每次读取的元素个数
+     */
+    public static final int REACTIVE_PAGE_SIZE = 256;
+    /**
+     * 自动pipeline每批最多合并的命令数
+     */
+    public static final int AUTO_PIPELINE_BATCH_SIZE = 128;
+    /**
+     * 自动pipeline刷新前等待更多命令的时间 us，0表示不等待
+     */
+    public static final long AUTO_PIPELINE_WINDOW_MICROS = 0L;
+    /**
+     * 自动pipeline节点队列空闲多久后停止刷新线程 ms
+     */
+    public static final long AUTO_PIPELINE_IDLE_MILLIS = 60000L;
+    /**
+     * 近端缓存最大key数
+     */
+    public static final long NEAR_CACHE_MAX_SIZE = 10000L;
+    /**
+     * 近端缓存写入后过期时间(秒)
+     */
+    public static final long NEAR_CACHE_EXPIRE_SECONDS = 60L;
+    /**
+     * 近端缓存失效通知channel的默认后缀，前面拼接key前缀
+     */
+    public static final String NEAR_CACHE_CHANNEL_SUFFIX = "__near_cache_invalidate__";
+    /**
+     * 热点key的qps阈值
+     */
+    public static final long HOT_KEY_QPS = 1000L;
+    /**
+     * 热点key统计窗口 ms
+     */
+    public static final long HOT_KEY_WINDOW_MILLIS = 1000L;
+    /**
+     * 最多同时保留的热点key数
+     */
+    public static final int HOT_KEY_TOP_K = 32;
+    /**
+     * 热点key本地缓存时间 ms
+     */
+    public static final long HOT_KEY_CACHE_MILLIS = 500L;
+    /**
+     * 压缩级别，默认最快
+     */
+    public static final int COMPRESS_LEVEL = 1;
+    /**
+     * 最多缓存编码结果的hash field数
+     */
+    public static final int FIELD_CACHE_SIZE = 1024;
+    /**
+     * 异步通知监听器的缓冲区大小
+     */
+    public static final int ASYNC_LISTENER_BUFFER_SIZE = 8192;
+    /**
+     * 指标分位值统计窗口 ms
+     */
+    public static final long METRICS_WINDOW_MILLIS = 60000L;
+    /**
+     * 慢命令阈值 ms
+     */
+    public static final long SLOW_LOG_THRESHOLD_MILLIS = 10L;
+    /**
+     * 保留的慢命令数
+     */
+    public static final int SLOW_LOG_SIZE = 128;
+    /**
+     * 慢命令日志的JMX ObjectName，后面拼接集群名
+     */
+    public static final String SLOW_LOG_OBJECT_NAME = "org.ifaster.redis:type=SlowLog,name=";
+    /**
+     * 连接池和拓扑统计的JMX ObjectName，后面拼接集群名
+     */
+    public static final String TOPOLOGY_OBJECT_NAME = "org.ifaster.redis:type=Topology,name=";
 }
@@ -0,0 +1,30 @@
+package org.ifaster.redis.event;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * 热点key事件
+ *
+ * @author yangnan
+ */
+@Data
+@Builder
+public class HotKeyEvent implements RedisEvent {
+    /**
+     * 集群ip
+     */
+    private String cluster;
+    /**
+     * redis的key
+     */
+    private String key;
+    /**
+     * 估算的每秒访问次数
+     */
+    private long qps;
+    /**
+     * 发现时间 ms
+     */
+    private long detectTime;
+}
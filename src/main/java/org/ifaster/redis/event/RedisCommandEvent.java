@@ -17,6 +17,34 @@ public class RedisCommandEvent implements RedisEvent {
      * 命令开始执行时间 ms
      */
     private long commandStart;
+    /**
+     * 命令开始执行时间 System.nanoTime，只用于计算耗时
+     */
+    private long startNanos;
+    /**
+     * 命令耗时 ns，complete时设置
+     */
+    private long durationNanos;
+    /**
+     * 命令内value序列化/反序列化的耗时 ns，包含在durationNanos中
+     */
+    private long serializeNanos;
+    /**
+     * 实际执行命令的节点 host:port，多key命令和自动pipeline中的命令为null
+     */
+    private String node;
+    /**
+     * 请求中value的字节数，不含key和协议开销
+     */
+    private long requestBytes;
+    /**
+     * 响应中value的字节数，不含协议开销
+     */
+    private long responseBytes;
+    /**
+     * 异常类名，命令失败时设置
+     */
+    private String error;
     /**
      * 集群ip
      */
@@ -4,6 +4,10 @@ package org.ifaster.redis.exception;
  * @author yangnan
  */
 public class RedisOperationException extends RuntimeException {
+    public RedisOperationException(String message) {
+        super(message);
+    }
+
     public RedisOperationException(Throwable cause) {
         super(cause);
     }
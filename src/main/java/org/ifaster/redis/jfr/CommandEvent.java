@@ -0,0 +1,59 @@
+package org.ifaster.redis.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+import lombok.Setter;
+import org.ifaster.redis.event.RedisEvent;
+
+/**
+ * 一条redis命令的JFR事件，起止时间与命令一致，可以和同一时间段的GC、线程阻塞对照
+ * 默认不采集调用栈，需要时在JFR配置中开启
+ *
+ * @author yangnan
+ */
+@Name("org.ifaster.redis.Command")
+@Label("Redis Command")
+@Category("Redis")
+@Description("Redis command executed by the client, including connection borrow, network and serialization")
+@StackTrace(false)
+@Setter
+public class CommandEvent extends jdk.jfr.Event {
+
+    @Label("Cluster")
+    private String cluster;
+
+    @Label("Command")
+    private String command;
+
+    @Label("Key Prefix")
+    @Description("Key up to the first ':', the first key for multi-key commands")
+    private String keyPrefix;
+
+    @Label("Node")
+    private String node;
+
+    @Label("Serialize Time")
+    @Timespan
+    private long serializeTime;
+
+    @Label("Request Bytes")
+    @DataAmount
+    private long requestBytes;
+
+    @Label("Response Bytes")
+    @DataAmount
+    private long responseBytes;
+
+    @Label("Error")
+    private String error;
+
+    /**
+     * 对应的客户端事件，嵌套命令时用于匹配，不写入JFR
+     */
+    transient RedisEvent source;
+}
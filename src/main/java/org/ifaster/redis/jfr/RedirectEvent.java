@@ -0,0 +1,30 @@
+package org.ifaster.redis.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import lombok.Setter;
+
+/**
+ * MOVED/ASK重定向的JFR事件
+ *
+ * @author yangnan
+ */
+@Name("org.ifaster.redis.Redirect")
+@Label("Redis Redirect")
+@Category("Redis")
+@Description("Command redirected to another node by a MOVED or ASK reply")
+@Setter
+public class RedirectEvent extends jdk.jfr.Event {
+
+    @Label("Cluster")
+    private String cluster;
+
+    @Label("Type")
+    private String type;
+
+    @Label("Node")
+    @Description("Target node of the redirect")
+    private String node;
+}
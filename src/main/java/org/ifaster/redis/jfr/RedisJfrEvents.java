@@ -0,0 +1,121 @@
+package org.ifaster.redis.jfr;
+
+import org.ifaster.redis.event.RedisCommandEvent;
+import org.ifaster.redis.event.RedisEvent;
+
+/**
+ * 提交JFR事件
+ * jdk.jfr在JDK 8u262、11及以上才有，只在开启redis.jfrEvents后调用，未开启时不会加载这些类；
+ * 没有正在进行的录制或录制中关闭了对应事件时，isEnabled为false，不拼接字符串也不提交
+ *
+ * @author yangnan
+ */
+public final class RedisJfrEvents {
+
+    public static final String EVENT_CLASS = "jdk.jfr.Event";
+    public static final String MOVED = "MOVED";
+    public static final String ASK = "ASK";
+    /**
+     * key前缀的最大长度
+     */
+    private static final int MAX_PREFIX = 64;
+
+    private static final ThreadLocal<CommandEvent> CURRENT = new ThreadLocal<>();
+
+    private RedisJfrEvents() {
+    }
+
+    /**
+     * 命令开始，录制开启时记录开始时间
+     *
+     * @param event
+     */
+    public static void begin(RedisEvent event) {
+        CommandEvent jfr = new CommandEvent();
+        if (!jfr.isEnabled()) {
+            return;
+        }
+        jfr.source = event;
+        CURRENT.set(jfr);
+        jfr.begin();
+    }
+
+    /**
+     * 命令结束，超过录制配置的阈值时提交
+     *
+     * @param cluster 集群名
+     * @param event
+     */
+    public static void commit(String cluster, RedisCommandEvent event) {
+        CommandEvent jfr = CURRENT.get();
+        if (jfr == null || jfr.source != event) {
+            return;
+        }
+        CURRENT.remove();
+        jfr.end();
+        if (!jfr.shouldCommit()) {
+            return;
+        }
+        jfr.setCluster(cluster);
+        jfr.setCommand(event.getCommand());
+        jfr.setKeyPrefix(keyPrefix(event));
+        jfr.setNode(event.getNode());
+        jfr.setSerializeTime(event.getSerializeNanos());
+        jfr.setRequestBytes(event.getRequestBytes());
+        jfr.setResponseBytes(event.getResponseBytes());
+        jfr.setError(event.getError());
+        jfr.commit();
+    }
+
+    /**
+     * slot缓存刷新
+     *
+     * @param cluster
+     * @param host    返回MOVED的节点，连接异常时为null
+     * @param port
+     */
+    public static void slotRefreshed(String cluster, String host, int port) {
+        SlotRefreshEvent jfr = new SlotRefreshEvent();
+        if (!jfr.isEnabled()) {
+            return;
+        }
+        jfr.setCluster(cluster);
+        jfr.setNode(host == null ? null : host + ":" + port);
+        jfr.commit();
+    }
+
+    /**
+     * MOVED/ASK重定向
+     *
+     * @param cluster
+     * @param type    {@link #MOVED}/{@link #ASK}
+     * @param host    目标节点
+     * @param port
+     */
+    public static void redirected(String cluster, String type, String host, int port) {
+        RedirectEvent jfr = new RedirectEvent();
+        if (!jfr.isEnabled()) {
+            return;
+        }
+        jfr.setCluster(cluster);
+        jfr.setType(type);
+        jfr.setNode(host + ":" + port);
+        jfr.commit();
+    }
+
+    /**
+     * key中第一个':'及之前的部分，不记录完整的key，避免把业务数据写入录制文件
+     */
+    static String keyPrefix(RedisCommandEvent event) {
+        String key = event.getKey();
+        if (key == null && event.getKeys() != null && event.getKeys().length > 0) {
+            key = event.getKeys()[0];
+        }
+        if (key == null) {
+            return null;
+        }
+        int i = key.indexOf(':');
+        int end = i < 0 ? key.length() : i + 1;
+        return key.substring(0, Math.min(end, MAX_PREFIX));
+    }
+}
@@ -0,0 +1,27 @@
+package org.ifaster.redis.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import lombok.Setter;
+
+/**
+ * slot缓存刷新的JFR事件
+ *
+ * @author yangnan
+ */
+@Name("org.ifaster.redis.SlotRefresh")
+@Label("Redis Slot Refresh")
+@Category("Redis")
+@Description("Cluster slot cache renewed after a MOVED reply or a connection error")
+@Setter
+public class SlotRefreshEvent extends jdk.jfr.Event {
+
+    @Label("Cluster")
+    private String cluster;
+
+    @Label("Node")
+    @Description("Node that returned MOVED, empty when caused by a connection error")
+    private String node;
+}
@@ -0,0 +1,305 @@
+package org.ifaster.redis.listener;
+
+import org.ifaster.redis.event.HotKeyEvent;
+import org.ifaster.redis.event.RedisEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 异步通知监听器
+ * 调用线程只把事件写入预分配的环形缓冲区，由单独的线程按顺序通知被包装的监听器链。
+ * 多生产者通过CAS领取序号，写完槽位后按序号发布，发布过程无锁；通知在锁内按序号读取，
+ * 通知线程空闲时park，由生产者唤醒。缓冲区满时按 {@link DropPolicy} 处理。由 {@link RedisEventListenerChain#async} 创建
+ *
+ * @author yangnan
+ */
+public class AsyncRedisEventListener implements RedisEventListener, Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncRedisEventListener.class);
+
+    private static final int BEFORE = 0;
+    private static final int COMPLETE = 1;
+    private static final int ERROR = 2;
+    private static final int HOT_KEY = 3;
+    /**
+     * 空闲时先自旋，再让出cpu，最后park；
+     * 通知线程park时由生产者唤醒，park时间逐次加倍到上限，只用于兜底唤醒的竞争
+     */
+    private static final int SPINS = 100;
+    private static final int YIELDS = 10;
+    private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    /**
+     * 缓冲区满时的策略
+     */
+    public enum DropPolicy {
+        /**
+         * 丢弃新事件并计数
+         */
+        DROP,
+        /**
+         * 等待缓冲区有空位
+         */
+        BLOCK,
+        /**
+         * 在调用线程同步通知，先通知缓冲区中已有的事件，与通知线程串行，保持通知顺序
+         */
+        CALLER_RUNS
+    }
+
+    private final RedisEventListenerChain delegate;
+    private final DropPolicy dropPolicy;
+    private final int mask;
+    /**
+     * 每个槽位已发布的序号
+     */
+    private final AtomicLongArray published;
+    private final int[] types;
+    private final RedisEvent[] events;
+    private final Throwable[] errors;
+    /**
+     * 下一个待领取的序号
+     */
+    private final AtomicLong tail = new AtomicLong();
+    /**
+     * 下一个待消费的序号
+     */
+    private final AtomicLong head = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    /**
+     * 通知监听器时持有，通知线程和CALLER_RUNS的调用线程不会并发通知
+     */
+    private final Object dispatchLock = new Object();
+    private final Thread thread;
+    private volatile boolean running = true;
+    /**
+     * 通知线程即将park或已park，生产者发布后需要唤醒
+     */
+    private volatile boolean sleeping;
+
+    AsyncRedisEventListener(RedisEventListenerChain delegate, String name, int bufferSize, DropPolicy dropPolicy) {
+        int capacity = Integer.highestOneBit(Math.max(2, bufferSize) - 1) << 1;
+        this.delegate = delegate;
+        this.dropPolicy = dropPolicy == null ? DropPolicy.DROP : dropPolicy;
+        this.mask = capacity - 1;
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, -1);
+        }
+        this.types = new int[capacity];
+        this.events = new RedisEvent[capacity];
+        this.errors = new Throwable[capacity];
+        this.thread = new Thread(this::consume, "redis-event-" + name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    @Override
+    public void before(RedisEvent event) {
+        publish(BEFORE, event, null);
+    }
+
+    @Override
+    public void error(RedisEvent event, Throwable e) {
+        publish(ERROR, event, e);
+    }
+
+    @Override
+    public void complete(RedisEvent event) {
+        publish(COMPLETE, event, null);
+    }
+
+    @Override
+    public void hotKey(HotKeyEvent event) {
+        publish(HOT_KEY, event, null);
+    }
+
+    /**
+     * 缓冲区满被丢弃的事件数
+     *
+     * @return
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * 缓冲区中未通知的事件数
+     *
+     * @return
+     */
+    public long getPending() {
+        return tail.get() - head.get();
+    }
+
+    /**
+     * 缓冲区大小
+     *
+     * @return
+     */
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * 停止通知线程，已发布的事件会先通知完
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(thread);
+        if (thread != Thread.currentThread()) {
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void publish(int type, RedisEvent event, Throwable e) {
+        long sequence;
+        int spins = 0;
+        while (true) {
+            sequence = tail.get();
+            if (sequence - head.get() > mask) {
+                //缓冲区已满
+                if (!running || dropPolicy == DropPolicy.DROP) {
+                    dropped.increment();
+                    return;
+                }
+                if (dropPolicy == DropPolicy.CALLER_RUNS) {
+                    callerRuns(type, event, e);
+                    return;
+                }
+                idle(++spins);
+                continue;
+            }
+            if (tail.compareAndSet(sequence, sequence + 1)) {
+                break;
+            }
+        }
+        int index = (int) sequence & mask;
+        types[index] = type;
+        events[index] = event;
+        errors[index] = e;
+        //写完槽位后发布，消费者读到序号时能看到上面的写入
+        published.lazySet(index, sequence);
+        if (sleeping) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * 在调用线程通知：先通知在自己之前领取序号的事件，再通知自己的事件
+     */
+    private void callerRuns(int type, RedisEvent event, Throwable e) {
+        synchronized (dispatchLock) {
+            long end = tail.get();
+            while (head.get() - end < 0) {
+                if (!take()) {
+                    //其他生产者已领取序号但还没有写完槽位
+                    Thread.yield();
+                }
+            }
+            dispatch(type, event, e);
+        }
+    }
+
+    private void consume() {
+        int spins = 0;
+        long parkNanos = PARK_NANOS;
+        while (true) {
+            boolean taken = false;
+            synchronized (dispatchLock) {
+                //批量通知已发布的事件
+                while (take()) {
+                    taken = true;
+                }
+            }
+            if (taken) {
+                spins = 0;
+                parkNanos = PARK_NANOS;
+                continue;
+            }
+            if (!running && head.get() == tail.get()) {
+                return;
+            }
+            if (++spins < SPINS + YIELDS) {
+                idle(spins);
+                continue;
+            }
+            //先声明要park再检查，生产者发布后看到sleeping会唤醒
+            sleeping = true;
+            long sequence = head.get();
+            if (running && published.get((int) sequence & mask) != sequence) {
+                LockSupport.parkNanos(this, parkNanos);
+                parkNanos = Math.min(parkNanos << 1, MAX_PARK_NANOS);
+            }
+            sleeping = false;
+        }
+    }
+
+    /**
+     * 通知下一个已发布的事件，需要持有dispatchLock
+     *
+     * @return 下一个序号还没有发布时返回false
+     */
+    private boolean take() {
+        long sequence = head.get();
+        int index = (int) sequence & mask;
+        if (published.get(index) != sequence) {
+            return false;
+        }
+        int type = types[index];
+        RedisEvent event = events[index];
+        Throwable e = errors[index];
+        events[index] = null;
+        errors[index] = null;
+        head.lazySet(sequence + 1);
+        dispatch(type, event, e);
+        return true;
+    }
+
+    private void dispatch(int type, RedisEvent event, Throwable e) {
+        try {
+            switch (type) {
+                case BEFORE:
+                    delegate.before(event);
+                    break;
+                case COMPLETE:
+                    delegate.notifyComplete(event);
+                    break;
+                case ERROR:
+                    delegate.notifyError(event, e);
+                    break;
+                default:
+                    delegate.hotKey((HotKeyEvent) event);
+            }
+        } catch (Throwable t) {
+            LOGGER.warn("async event listener failed", t);
+        }
+    }
+
+    /**
+     * 生产者等待缓冲区空位、通知线程park前的退避
+     */
+    private static void idle(int spins) {
+        if (spins < SPINS) {
+            return;
+        }
+        if (spins < SPINS + YIELDS) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+    }
+}
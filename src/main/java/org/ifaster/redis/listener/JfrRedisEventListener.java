@@ -0,0 +1,42 @@
+package org.ifaster.redis.listener;
+
+import org.ifaster.redis.event.RedisCommandEvent;
+import org.ifaster.redis.event.RedisEvent;
+import org.ifaster.redis.jfr.RedisJfrEvents;
+
+/**
+ * 把命令写入JDK Flight Recorder
+ * 需要在调用线程通知，before/complete之间的时间就是JFR事件的起止时间，所以不能放在异步通知的链中
+ *
+ * @author yangnan
+ */
+public class JfrRedisEventListener implements RedisEventListener {
+
+    private final String cluster;
+
+    /**
+     * @param cluster 集群名
+     */
+    public JfrRedisEventListener(String cluster) {
+        this.cluster = cluster;
+    }
+
+    @Override
+    public void before(RedisEvent event) {
+        if (event instanceof RedisCommandEvent) {
+            RedisJfrEvents.begin(event);
+        }
+    }
+
+    @Override
+    public void error(RedisEvent event, Throwable e) {
+        //异常类型在complete时随事件提交
+    }
+
+    @Override
+    public void complete(RedisEvent event) {
+        if (event instanceof RedisCommandEvent) {
+            RedisJfrEvents.commit(cluster, (RedisCommandEvent) event);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package org.ifaster.redis.listener;
+
+import org.ifaster.redis.event.RedisCommandEvent;
+import org.ifaster.redis.event.RedisEvent;
+import org.ifaster.redis.metrics.LatencyMetrics;
+import org.ifaster.redis.metrics.MetricsRegistrar;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 内置的指标监听器
+ * 按命令和节点分别记录耗时分布、请求/响应字节数和异常类型，通过 {@link MetricsRegistrar} 注册到外部指标系统
+ *
+ * @author yangnan
+ */
+public class MetricsRedisEventListener implements RedisEventListener {
+
+    public static final String COMMAND = "command";
+    public static final String NODE = "node";
+
+    private final String cluster;
+    private final long windowMillis;
+    private final Map<String, LatencyMetrics> commands = new ConcurrentHashMap<>();
+    private final Map<String, LatencyMetrics> nodes = new ConcurrentHashMap<>();
+    private volatile MetricsRegistrar registrar;
+
+    /**
+     * @param cluster      集群名，作为指标的tag
+     * @param windowMillis 分位值统计窗口 ms
+     */
+    public MetricsRedisEventListener(String cluster, long windowMillis) {
+        this.cluster = cluster;
+        this.windowMillis = windowMillis;
+    }
+
+    @Override
+    public void complete(RedisEvent event) {
+        if (!(event instanceof RedisCommandEvent)) {
+            return;
+        }
+        RedisCommandEvent e = (RedisCommandEvent) event;
+        metrics(commands, COMMAND, e.getCommand())
+                .record(e.getDurationNanos(), e.getRequestBytes(), e.getResponseBytes());
+        if (e.getNode() != null) {
+            metrics(nodes, NODE, e.getNode()).record(e.getDurationNanos(), e.getRequestBytes(), e.getResponseBytes());
+        }
+    }
+
+    @Override
+    public void error(RedisEvent event, Throwable e) {
+        if (!(event instanceof RedisCommandEvent)) {
+            return;
+        }
+        RedisCommandEvent ev = (RedisCommandEvent) event;
+        String error = ev.getError() != null ? ev.getError() : e.getClass().getSimpleName();
+        error(metrics(commands, COMMAND, ev.getCommand()), error);
+        if (ev.getNode() != null) {
+            error(metrics(nodes, NODE, ev.getNode()), error);
+        }
+    }
+
+    /**
+     * 设置外部指标系统，已有的统计立即注册
+     *
+     * @param registrar
+     */
+    public synchronized void setRegistrar(MetricsRegistrar registrar) {
+        this.registrar = registrar;
+        for (Map<String, LatencyMetrics> map : new Map[]{commands, nodes}) {
+            for (LatencyMetrics m : map.values()) {
+                registrar.register(cluster, m);
+                m.getErrors().forEach((error, counter) -> registrar.registerError(cluster, m, error, counter));
+            }
+        }
+    }
+
+    public String getCluster() {
+        return cluster;
+    }
+
+    /**
+     * 按命令的统计
+     *
+     * @return
+     */
+    public Map<String, LatencyMetrics> getCommands() {
+        return Collections.unmodifiableMap(commands);
+    }
+
+    /**
+     * 按节点的统计
+     *
+     * @return
+     */
+    public Map<String, LatencyMetrics> getNodes() {
+        return Collections.unmodifiableMap(nodes);
+    }
+
+    private LatencyMetrics metrics(Map<String, LatencyMetrics> map, String dimension, String name) {
+        LatencyMetrics m = map.get(name);
+        if (m != null) {
+            return m;
+        }
+        synchronized (this) {
+            m = map.get(name);
+            if (m == null) {
+                m = new LatencyMetrics(dimension, name, windowMillis);
+                map.put(name, m);
+                if (registrar != null) {
+                    registrar.register(cluster, m);
+                }
+            }
+            return m;
+        }
+    }
+
+    private void error(LatencyMetrics m, String error) {
+        if (m.getErrors().containsKey(error)) {
+            m.error(error);
+            return;
+        }
+        synchronized (this) {
+            boolean created = !m.getErrors().containsKey(error);
+            LongAdder counter = m.error(error);
+            if (created && registrar != null) {
+                registrar.registerError(cluster, m, error, counter);
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package org.ifaster.redis.listener;
 
+import org.ifaster.redis.event.HotKeyEvent;
 import org.ifaster.redis.event.RedisEvent;
 import org.ifaster.redis.exception.RedisOperationException;
 
@@ -35,4 +36,11 @@ public interface RedisEventListener extends EventListener {
      */
     default void complete(RedisEvent event) {
     }
+
+    /**
+     * 发现热点key时触发，需要开启热点key探测
+     * @param event
+     */
+    default void hotKey(HotKeyEvent event) {
+    }
 }
@@ -0,0 +1,197 @@
+package org.ifaster.redis.listener;
+
+import org.ifaster.redis.event.HotKeyEvent;
+import org.ifaster.redis.event.RedisCommandEvent;
+import org.ifaster.redis.event.RedisEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.Arrays;
+
+/**
+ * 监听器链
+ * 第一个监听器决定异常的处理方式(默认抛出)，后面的监听器只观察事件，它们自身抛出的异常只记录日志；
+ * 空实现的 {@link DefaultRedisEventListener} 不加入链中，链上没有监听器时 {@link #isActive()} 为false，
+ * 客户端不再创建事件，before/complete 收到null事件时直接返回
+ *
+ * @author yangnan
+ */
+public final class RedisEventListenerChain implements RedisEventListener, Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RedisEventListenerChain.class);
+    private static final RedisEventListener[] EMPTY = new RedisEventListener[0];
+
+    /**
+     * 处理异常的监听器
+     */
+    private final RedisEventListener primary;
+    /**
+     * 需要接收before/complete的监听器，primary是空实现时不包含primary
+     */
+    private final RedisEventListener[] listeners;
+
+    private RedisEventListenerChain(RedisEventListener primary, RedisEventListener[] listeners) {
+        this.primary = primary;
+        this.listeners = listeners;
+    }
+
+    /**
+     * 创建监听器链
+     *
+     * @param primary   处理异常的监听器，为null时使用默认实现
+     * @param observers 观察事件的监听器
+     * @return
+     */
+    public static RedisEventListenerChain of(RedisEventListener primary, RedisEventListener... observers) {
+        if (primary instanceof RedisEventListenerChain) {
+            RedisEventListenerChain chain = (RedisEventListenerChain) primary;
+            for (RedisEventListener observer : observers) {
+                chain = chain.with(observer);
+            }
+            return chain;
+        }
+        RedisEventListener p = primary == null ? new DefaultRedisEventListener() : primary;
+        RedisEventListenerChain chain = new RedisEventListenerChain(p, noop(p) ? EMPTY : new RedisEventListener[]{p});
+        for (RedisEventListener observer : observers) {
+            chain = chain.with(observer);
+        }
+        return chain;
+    }
+
+    /**
+     * 追加一个观察者，返回新的链
+     *
+     * @param observer
+     * @return
+     */
+    public RedisEventListenerChain with(RedisEventListener observer) {
+        if (observer == null || noop(observer)) {
+            return this;
+        }
+        RedisEventListener[] rs = Arrays.copyOf(listeners, listeners.length + 1);
+        rs[listeners.length] = observer;
+        return new RedisEventListenerChain(primary, rs);
+    }
+
+    /**
+     * 是否有需要接收事件的监听器
+     *
+     * @return
+     */
+    public boolean isActive() {
+        return listeners.length > 0;
+    }
+
+    public RedisEventListener getPrimary() {
+        return primary;
+    }
+
+    @Override
+    public void before(RedisEvent event) {
+        if (event == null) {
+            return;
+        }
+        for (RedisEventListener listener : listeners) {
+            if (listener == primary) {
+                listener.before(event);
+                continue;
+            }
+            try {
+                listener.before(event);
+            } catch (Throwable e) {
+                LOGGER.warn("event listener {} failed", listener.getClass().getName(), e);
+            }
+        }
+    }
+
+    @Override
+    public void error(RedisEvent event, Throwable e) {
+        notifyError(event, e);
+        primary.error(event, e);
+    }
+
+    @Override
+    public void complete(RedisEvent event) {
+        if (event == null) {
+            return;
+        }
+        if (event instanceof RedisCommandEvent) {
+            RedisCommandEvent e = (RedisCommandEvent) event;
+            e.setDurationNanos(System.nanoTime() - e.getStartNanos());
+        }
+        notifyComplete(event);
+    }
+
+    @Override
+    public void hotKey(HotKeyEvent event) {
+        for (RedisEventListener listener : listeners) {
+            listener.hotKey(event);
+        }
+    }
+
+    /**
+     * 返回异步通知的链：before/complete/观察者的error发布到环形缓冲区，由单独的线程通知当前链上的监听器，
+     * 异常处理仍由primary在调用线程同步完成
+     *
+     * @param name       线程名后缀
+     * @param bufferSize 缓冲区大小，向上取2的幂
+     * @param dropPolicy 缓冲区满时的策略
+     * @return 没有监听器时返回自身
+     */
+    public RedisEventListenerChain async(String name, int bufferSize, AsyncRedisEventListener.DropPolicy dropPolicy) {
+        if (!isActive()) {
+            return this;
+        }
+        return new RedisEventListenerChain(primary,
+                new RedisEventListener[]{new AsyncRedisEventListener(this, name, bufferSize, dropPolicy)});
+    }
+
+    /**
+     * 停止异步通知线程，未通知的事件会先处理完
+     */
+    @Override
+    public void close() {
+        for (RedisEventListener listener : listeners) {
+            if (listener instanceof AsyncRedisEventListener) {
+                ((AsyncRedisEventListener) listener).close();
+            }
+        }
+    }
+
+    /**
+     * 通知观察者异常，不包括primary
+     */
+    void notifyError(RedisEvent event, Throwable e) {
+        for (RedisEventListener listener : listeners) {
+            if (listener != primary) {
+                try {
+                    listener.error(event, e);
+                } catch (Throwable ignored) {
+                    //观察者不影响异常处理
+                }
+            }
+        }
+    }
+
+    /**
+     * 通知所有监听器命令完成，不重新计算耗时
+     */
+    void notifyComplete(RedisEvent event) {
+        for (RedisEventListener listener : listeners) {
+            if (listener == primary) {
+                listener.complete(event);
+                continue;
+            }
+            try {
+                listener.complete(event);
+            } catch (Throwable e) {
+                LOGGER.warn("event listener {} failed", listener.getClass().getName(), e);
+            }
+        }
+    }
+
+    private static boolean noop(RedisEventListener listener) {
+        return listener.getClass() == DefaultRedisEventListener.class;
+    }
+}
@@ -0,0 +1,109 @@
+package org.ifaster.redis.listener;
+
+import org.ifaster.redis.event.RedisCommandEvent;
+import org.ifaster.redis.event.RedisEvent;
+import org.ifaster.redis.metrics.SlowLogEntry;
+import org.ifaster.redis.metrics.SlowLogMXBean;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 慢命令日志
+ * 耗时超过阈值的命令写入固定大小的环形缓冲区，新记录覆盖最旧的记录；
+ * 与redis的SLOWLOG不同，耗时包括网络、等待连接和序列化，可以区分是大key、热点节点还是客户端本身慢
+ *
+ * @author yangnan
+ */
+public class SlowLogRedisEventListener implements RedisEventListener, SlowLogMXBean {
+
+    /**
+     * 多key命令最多记录的key数
+     */
+    private static final int MAX_KEYS = 3;
+
+    private final AtomicReferenceArray<SlowLogEntry> entries;
+    private final AtomicLong sequence = new AtomicLong();
+    private volatile long thresholdNanos;
+
+    /**
+     * @param thresholdMillis 慢命令阈值 ms
+     * @param size            保留的记录数
+     */
+    public SlowLogRedisEventListener(long thresholdMillis, int size) {
+        this.entries = new AtomicReferenceArray<>(Math.max(1, size));
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+    }
+
+    @Override
+    public void complete(RedisEvent event) {
+        if (!(event instanceof RedisCommandEvent)) {
+            return;
+        }
+        RedisCommandEvent e = (RedisCommandEvent) event;
+        if (e.getDurationNanos() < thresholdNanos) {
+            return;
+        }
+        long id = sequence.getAndIncrement();
+        long duration = TimeUnit.NANOSECONDS.toMicros(e.getDurationNanos());
+        long serialize = TimeUnit.NANOSECONDS.toMicros(e.getSerializeNanos());
+        entries.set((int) (id % entries.length()), SlowLogEntry.builder().id(id).timestamp(e.getCommandStart())
+                .command(e.getCommand()).key(key(e)).node(e.getNode())
+                .durationMicros(duration).serializeMicros(serialize).networkMicros(Math.max(0, duration - serialize))
+                .requestBytes(e.getRequestBytes()).responseBytes(e.getResponseBytes()).error(e.getError()).build());
+    }
+
+    @Override
+    public List<SlowLogEntry> getEntries() {
+        List<SlowLogEntry> rs = new ArrayList<>(entries.length());
+        for (int i = 0; i < entries.length(); i++) {
+            SlowLogEntry entry = entries.get(i);
+            if (entry != null) {
+                rs.add(entry);
+            }
+        }
+        rs.sort(Comparator.comparingLong(SlowLogEntry::getId).reversed());
+        return rs;
+    }
+
+    @Override
+    public long getCount() {
+        return sequence.get();
+    }
+
+    @Override
+    public long getThresholdMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(thresholdNanos);
+    }
+
+    @Override
+    public void setThresholdMillis(long thresholdMillis) {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < entries.length(); i++) {
+            entries.set(i, null);
+        }
+    }
+
+    private static String key(RedisCommandEvent e) {
+        if (e.getKey() != null || e.getKeys() == null) {
+            return e.getKey();
+        }
+        String[] keys = e.getKeys();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < keys.length && i < MAX_KEYS; i++) {
+            sb.append(i == 0 ? "" : ",").append(keys[i]);
+        }
+        if (keys.length > MAX_KEYS) {
+            sb.append(",...(").append(keys.length).append(')');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,154 @@
+package org.ifaster.redis.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 无锁的延迟直方图
+ * 与HdrHistogram相同的对数线性分桶：小于32的值每个值一个桶，之后每个2的幂区间分32个桶，相对误差不超过1/32；
+ * 记录只做一次原子自增，读取时与上一次的计数相减得到区间内的分布，不影响记录线程
+ *
+ * @author yangnan
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    /**
+     * 可以区分的最大值 2^36 ns 约68秒，更大的值记在最后一个桶
+     */
+    private static final int MAX_EXPONENT = 36;
+    private static final long MAX_VALUE = (1L << MAX_EXPONENT) - 1;
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong max = new AtomicLong();
+    /**
+     * 上一次区间读取时的计数，只在读取时使用
+     */
+    private final long[] last = new long[BUCKETS];
+
+    /**
+     * 记录一个值
+     *
+     * @param value 非负值，一般是ns
+     */
+    public void record(long value) {
+        long v = value < 0 ? 0 : Math.min(value, MAX_VALUE);
+        counts.incrementAndGet(index(v));
+        long m = max.get();
+        while (v > m && !max.compareAndSet(m, v)) {
+            m = max.get();
+        }
+    }
+
+    /**
+     * 从创建开始的分布，最大值为上一次区间读取之后的最大值
+     *
+     * @return
+     */
+    public Snapshot snapshot() {
+        long[] rs = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            rs[i] = counts.get(i);
+        }
+        return new Snapshot(rs, max.get());
+    }
+
+    /**
+     * 上一次调用之后的分布
+     *
+     * @return
+     */
+    public synchronized Snapshot interval() {
+        long[] rs = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            long c = counts.get(i);
+            rs[i] = c - last[i];
+            last[i] = c;
+        }
+        return new Snapshot(rs, max.getAndSet(0));
+    }
+
+    static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * 桶内的最大值
+     */
+    static long highest(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long sub = index % SUB_BUCKETS + SUB_BUCKETS;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    /**
+     * 直方图快照
+     */
+    public static class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long max;
+
+        Snapshot(long[] counts, long max) {
+            this.counts = counts;
+            long c = 0;
+            for (long n : counts) {
+                c += n;
+            }
+            this.count = c;
+            this.max = c == 0 ? 0 : max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * 分位值
+         *
+         * @param percentile 0-100
+         * @return 没有记录时返回0
+         */
+        public long percentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(highest(i), max);
+                }
+            }
+            return max;
+        }
+
+        public double mean() {
+            if (count == 0) {
+                return 0;
+            }
+            double sum = 0;
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) {
+                    sum += (double) counts[i] * highest(i);
+                }
+            }
+            return sum / count;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package org.ifaster.redis.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 一个命令或一个节点的统计：耗时分布、请求/响应字节数、按异常类型的错误数
+ *
+ * @author yangnan
+ */
+public class LatencyMetrics {
+
+    /**
+     * 维度 command/node
+     */
+    private final String dimension;
+    /**
+     * 命令名或节点 host:port
+     */
+    private final String name;
+    private final long windowMillis;
+    private final LatencyHistogram histogram = new LatencyHistogram();
+    private final LongAdder requestBytes = new LongAdder();
+    private final LongAdder responseBytes = new LongAdder();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+    private volatile LatencyHistogram.Snapshot window;
+    private volatile long windowStart;
+
+    public LatencyMetrics(String dimension, String name, long windowMillis) {
+        this.dimension = dimension;
+        this.name = name;
+        this.windowMillis = windowMillis;
+        this.window = histogram.interval();
+        this.windowStart = System.currentTimeMillis();
+    }
+
+    /**
+     * 记录一次命令
+     *
+     * @param durationNanos 耗时 ns
+     * @param request       请求字节数
+     * @param response      响应字节数
+     */
+    public void record(long durationNanos, long request, long response) {
+        histogram.record(durationNanos);
+        if (request > 0) {
+            requestBytes.add(request);
+        }
+        if (response > 0) {
+            responseBytes.add(response);
+        }
+    }
+
+    /**
+     * 记录一次异常
+     *
+     * @param error 异常类名
+     * @return 该异常的计数器
+     */
+    public LongAdder error(String error) {
+        LongAdder counter = errors.get(error);
+        if (counter == null) {
+            counter = errors.computeIfAbsent(error, e -> new LongAdder());
+        }
+        counter.increment();
+        return counter;
+    }
+
+    /**
+     * 最近一个完整统计窗口的耗时分布，窗口结束后第一次读取时切换
+     *
+     * @return
+     */
+    public LatencyHistogram.Snapshot getWindow() {
+        long now = System.currentTimeMillis();
+        if (now - windowStart >= windowMillis) {
+            synchronized (this) {
+                if (now - windowStart >= windowMillis) {
+                    window = histogram.interval();
+                    windowStart = now;
+                }
+            }
+        }
+        return window;
+    }
+
+    /**
+     * 从创建开始的耗时分布
+     *
+     * @return
+     */
+    public LatencyHistogram.Snapshot getTotal() {
+        return histogram.snapshot();
+    }
+
+    public String getDimension() {
+        return dimension;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getRequestBytes() {
+        return requestBytes.sum();
+    }
+
+    public long getResponseBytes() {
+        return responseBytes.sum();
+    }
+
+    public Map<String, LongAdder> getErrors() {
+        return Collections.unmodifiableMap(errors);
+    }
+}
@@ -0,0 +1,47 @@
+package org.ifaster.redis.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 把统计注册到外部的指标系统，新的命令/节点/异常类型第一次出现时回调
+ *
+ * @author yangnan
+ */
+public interface MetricsRegistrar {
+
+    /**
+     * 注册一个命令或节点的统计
+     *
+     * @param cluster 集群名
+     * @param metrics
+     */
+    void register(String cluster, LatencyMetrics metrics);
+
+    /**
+     * 注册一种异常的计数
+     *
+     * @param cluster 集群名
+     * @param metrics 所属的命令或节点
+     * @param error   异常类名
+     * @param counter 计数器
+     */
+    void registerError(String cluster, LatencyMetrics metrics, String error, LongAdder counter);
+
+    /**
+     * 注册集群的拓扑统计
+     *
+     * @param cluster  集群名
+     * @param topology
+     */
+    default void registerTopology(String cluster, TopologyMetrics topology) {
+    }
+
+    /**
+     * 注册一个节点的连接池统计
+     *
+     * @param cluster 集群名
+     * @param node
+     */
+    default void registerNode(String cluster, NodeMetrics node) {
+    }
+}
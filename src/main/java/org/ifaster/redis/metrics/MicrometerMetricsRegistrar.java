@@ -0,0 +1,134 @@
+package org.ifaster.redis.metrics;
+
+import org.ifaster.redis.exception.RedisConfigException;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 注册到Micrometer的MeterRegistry
+ * micrometer是可选依赖，这里通过反射调用Gauge/FunctionCounter的builder，classpath中没有micrometer时不会加载；
+ * 指标读取的都是已有的统计，注册后不增加命令的开销
+ *
+ * <pre>
+ * redis.command.latency.percentile  cluster command phi   最近一个窗口的分位值 秒
+ * redis.command.latency.max         cluster command       最近一个窗口的最大值 秒
+ * redis.command.count               cluster command       命令数
+ * redis.command.request.bytes       cluster command       请求value字节数
+ * redis.command.response.bytes      cluster command       响应value字节数
+ * redis.command.errors              cluster command error 异常数
+ * redis.node.*                      cluster node          按节点的同名指标
+ * redis.pool.active/idle/waiters    cluster node          连接池当前连接数
+ * redis.pool.created/destroyed      cluster node          创建/销毁的连接数
+ * redis.pool.borrow.percentile      cluster node phi      最近一个窗口借连接耗时 秒
+ * redis.pool.borrow.max             cluster node          最近一个窗口借连接最大耗时 秒
+ * redis.redirects                   cluster node type     MOVED(返回的节点)/ASK(目标节点)次数
+ * redis.slot.refreshes              cluster               slot缓存刷新次数
+ * </pre>
+ *
+ * @author yangnan
+ */
+public class MicrometerMetricsRegistrar implements MetricsRegistrar {
+
+    public static final String METER_REGISTRY_CLASS = "io.micrometer.core.instrument.MeterRegistry";
+    private static final String GAUGE_CLASS = "io.micrometer.core.instrument.Gauge";
+    private static final String COUNTER_CLASS = "io.micrometer.core.instrument.FunctionCounter";
+    private static final double[] PERCENTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final Object registry;
+    private final Class<?> registryClass;
+
+    /**
+     * @param registry io.micrometer.core.instrument.MeterRegistry
+     */
+    public MicrometerMetricsRegistrar(Object registry) {
+        try {
+            this.registryClass = Class.forName(METER_REGISTRY_CLASS, false, registry.getClass().getClassLoader());
+        } catch (ClassNotFoundException e) {
+            throw new RedisConfigException("micrometer not found: " + METER_REGISTRY_CLASS);
+        }
+        if (!registryClass.isInstance(registry)) {
+            throw new RedisConfigException("not a MeterRegistry: " + registry.getClass().getName());
+        }
+        this.registry = registry;
+    }
+
+    @Override
+    public void register(String cluster, LatencyMetrics metrics) {
+        String prefix = "redis." + metrics.getDimension();
+        String[] tags = {"cluster", cluster, metrics.getDimension(), metrics.getName()};
+        for (double p : PERCENTILES) {
+            meter(GAUGE_CLASS, prefix + ".latency.percentile", metrics,
+                    m -> m.getWindow().percentile(p * 100) / NANOS_PER_SECOND, "seconds",
+                    append(tags, "phi", String.valueOf(p)));
+        }
+        meter(GAUGE_CLASS, prefix + ".latency.max", metrics, m -> m.getWindow().getMax() / NANOS_PER_SECOND,
+                "seconds", tags);
+        meter(COUNTER_CLASS, prefix + ".count", metrics, m -> m.getTotal().getCount(), null, tags);
+        meter(COUNTER_CLASS, prefix + ".request.bytes", metrics, LatencyMetrics::getRequestBytes, "bytes", tags);
+        meter(COUNTER_CLASS, prefix + ".response.bytes", metrics, LatencyMetrics::getResponseBytes, "bytes", tags);
+    }
+
+    @Override
+    public void registerError(String cluster, LatencyMetrics metrics, String error, LongAdder counter) {
+        meter(COUNTER_CLASS, "redis." + metrics.getDimension() + ".errors", counter, LongAdder::sum, null,
+                new String[]{"cluster", cluster, metrics.getDimension(), metrics.getName(), "error", error});
+    }
+
+    @Override
+    public void registerTopology(String cluster, TopologyMetrics topology) {
+        meter(COUNTER_CLASS, "redis.slot.refreshes", topology, TopologyMetrics::getSlotRefreshes, null,
+                new String[]{"cluster", cluster});
+    }
+
+    @Override
+    public void registerNode(String cluster, NodeMetrics node) {
+        String[] tags = {"cluster", cluster, "node", node.getNode()};
+        meter(GAUGE_CLASS, "redis.pool.active", node, NodeMetrics::getActive, "connections", tags);
+        meter(GAUGE_CLASS, "redis.pool.idle", node, NodeMetrics::getIdle, "connections", tags);
+        meter(GAUGE_CLASS, "redis.pool.waiters", node, NodeMetrics::getWaiters, "threads", tags);
+        meter(COUNTER_CLASS, "redis.pool.created", node, NodeMetrics::getCreated, "connections", tags);
+        meter(COUNTER_CLASS, "redis.pool.destroyed", node, NodeMetrics::getDestroyed, "connections", tags);
+        LatencyMetrics borrow = node.borrowMetrics();
+        for (double p : PERCENTILES) {
+            meter(GAUGE_CLASS, "redis.pool.borrow.percentile", borrow,
+                    m -> m.getWindow().percentile(p * 100) / NANOS_PER_SECOND, "seconds",
+                    append(tags, "phi", String.valueOf(p)));
+        }
+        meter(GAUGE_CLASS, "redis.pool.borrow.max", borrow, m -> m.getWindow().getMax() / NANOS_PER_SECOND,
+                "seconds", tags);
+        meter(COUNTER_CLASS, "redis.redirects", node, NodeMetrics::getMoved, null, append(tags, "type", "moved"));
+        meter(COUNTER_CLASS, "redis.redirects", node, NodeMetrics::getAsk, null, append(tags, "type", "ask"));
+    }
+
+    /**
+     * Gauge.builder(name, obj, f).tags(tags).baseUnit(unit).register(registry)
+     */
+    private <T> void meter(String meterClass, String name, T obj, ToDoubleFunction<T> f, String unit, String[] tags) {
+        try {
+            Class<?> type = Class.forName(meterClass, false, registryClass.getClassLoader());
+            Object builder = type.getMethod("builder", String.class, Object.class, ToDoubleFunction.class)
+                    .invoke(null, name, obj, f);
+            Class<?> builderClass = builder.getClass();
+            builder = builderClass.getMethod("tags", String[].class).invoke(builder, (Object) tags);
+            if (unit != null) {
+                builder = builderClass.getMethod("baseUnit", String.class).invoke(builder, unit);
+            }
+            Method register = builderClass.getMethod("register", registryClass);
+            register.invoke(builder, registry);
+        } catch (ReflectiveOperationException e) {
+            throw new RedisConfigException("register meter failed: " + name, e);
+        }
+    }
+
+    private static String[] append(String[] tags, String key, String value) {
+        String[] rs = new String[tags.length + 2];
+        System.arraycopy(tags, 0, rs, 0, tags.length);
+        rs[tags.length] = key;
+        rs[tags.length + 1] = value;
+        return rs;
+    }
+}
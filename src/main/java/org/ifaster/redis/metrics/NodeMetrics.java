@@ -0,0 +1,138 @@
+package org.ifaster.redis.metrics;
+
+import org.apache.commons.pool2.impl.GenericObjectPool;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.util.Pool;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 一个节点的连接池和重定向统计
+ * 活跃/空闲/等待连接数直接读取JedisPool，创建/销毁数读取内部的GenericObjectPool，
+ * 借连接的耗时由客户端记录(包括slot查找、等待空闲连接和新建连接)
+ *
+ * @author yangnan
+ */
+public class NodeMetrics {
+
+    private static final Field INTERNAL_POOL = internalPoolField();
+
+    private final String node;
+    private final JedisPool pool;
+    private final LatencyMetrics borrow;
+    private final LongAdder moved = new LongAdder();
+    private final LongAdder ask = new LongAdder();
+
+    public NodeMetrics(String node, JedisPool pool, long windowMillis) {
+        this.node = node;
+        this.pool = pool;
+        this.borrow = new LatencyMetrics(TopologyMetrics.NODE, node, windowMillis);
+    }
+
+    /**
+     * 记录一次借连接
+     *
+     * @param nanos 耗时 ns
+     */
+    public void borrowed(long nanos) {
+        borrow.record(nanos, 0, 0);
+    }
+
+    public void moved() {
+        moved.increment();
+    }
+
+    public void ask() {
+        ask.increment();
+    }
+
+    /**
+     * 借连接耗时的统计
+     *
+     * @return
+     */
+    public LatencyMetrics borrowMetrics() {
+        return borrow;
+    }
+
+    public String getNode() {
+        return node;
+    }
+
+    public int getActive() {
+        return pool == null ? 0 : Math.max(0, pool.getNumActive());
+    }
+
+    public int getIdle() {
+        return pool == null ? 0 : Math.max(0, pool.getNumIdle());
+    }
+
+    public int getWaiters() {
+        return pool == null ? 0 : Math.max(0, pool.getNumWaiters());
+    }
+
+    public long getCreated() {
+        GenericObjectPool<?> p = internalPool();
+        return p == null ? 0 : p.getCreatedCount();
+    }
+
+    public long getDestroyed() {
+        GenericObjectPool<?> p = internalPool();
+        return p == null ? 0 : p.getDestroyedCount();
+    }
+
+    public long getBorrowCount() {
+        return borrow.getTotal().getCount();
+    }
+
+    /**
+     * 最近一个窗口借连接耗时的p99 us
+     */
+    public long getBorrowP99Micros() {
+        return TimeUnit.NANOSECONDS.toMicros(borrow.getWindow().percentile(99));
+    }
+
+    /**
+     * 最近一个窗口借连接耗时的最大值 us
+     */
+    public long getBorrowMaxMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(borrow.getWindow().getMax());
+    }
+
+    /**
+     * 该节点返回MOVED的次数
+     */
+    public long getMoved() {
+        return moved.sum();
+    }
+
+    /**
+     * 被ASK重定向到该节点的次数
+     */
+    public long getAsk() {
+        return ask.sum();
+    }
+
+    private GenericObjectPool<?> internalPool() {
+        if (pool == null || INTERNAL_POOL == null) {
+            return null;
+        }
+        try {
+            return (GenericObjectPool<?>) INTERNAL_POOL.get(pool);
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    private static Field internalPoolField() {
+        try {
+            Field field = Pool.class.getDeclaredField("internalPool");
+            field.setAccessible(true);
+            return field;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package org.ifaster.redis.metrics;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * 慢命令记录
+ *
+ * @author yangnan
+ */
+@Data
+@Builder
+public class SlowLogEntry {
+    /**
+     * 递增的序号
+     */
+    private long id;
+    /**
+     * 命令开始时间 ms
+     */
+    private long timestamp;
+    private String command;
+    /**
+     * key，多key命令为逗号分隔的前几个key
+     */
+    private String key;
+    /**
+     * 执行的节点 host:port，多key命令为null
+     */
+    private String node;
+    /**
+     * 总耗时 us
+     */
+    private long durationMicros;
+    /**
+     * 序列化耗时 us
+     */
+    private long serializeMicros;
+    /**
+     * 网络耗时(包括等待连接和redis执行) us，总耗时减去序列化耗时
+     */
+    private long networkMicros;
+    /**
+     * 请求value字节数
+     */
+    private long requestBytes;
+    /**
+     * 响应value字节数
+     */
+    private long responseBytes;
+    /**
+     * 异常类名，成功时为null
+     */
+    private String error;
+}
@@ -0,0 +1,34 @@
+package org.ifaster.redis.metrics;
+
+import java.util.List;
+
+/**
+ * 慢命令日志的JMX接口，ObjectName为 org.ifaster.redis:type=SlowLog,name=集群名
+ *
+ * @author yangnan
+ */
+public interface SlowLogMXBean {
+
+    /**
+     * 最近的慢命令，从新到旧
+     *
+     * @return
+     */
+    List<SlowLogEntry> getEntries();
+
+    /**
+     * 从开始记录到现在的慢命令总数
+     *
+     * @return
+     */
+    long getCount();
+
+    long getThresholdMillis();
+
+    void setThresholdMillis(long thresholdMillis);
+
+    /**
+     * 清空记录
+     */
+    void reset();
+}
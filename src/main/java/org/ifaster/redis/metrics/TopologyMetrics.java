@@ -0,0 +1,142 @@
+package org.ifaster.redis.metrics;
+
+import redis.clients.jedis.JedisPool;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 一个集群的连接池和拓扑统计：每个节点的连接池状态、借连接耗时、MOVED/ASK次数，以及slot缓存刷新次数
+ *
+ * @author yangnan
+ */
+public class TopologyMetrics implements TopologyMetricsMXBean {
+
+    public static final String NODE = "node";
+
+    private final String cluster;
+    private final long windowMillis;
+    private final Function<String, JedisPool> pools;
+    /**
+     * host -> 该host上的节点，按host和port查找，记录时不拼接字符串
+     */
+    private final Map<String, PortEntry[]> hosts = new ConcurrentHashMap<>();
+    private final LongAdder slotRefreshes = new LongAdder();
+    private volatile MetricsRegistrar registrar;
+
+    /**
+     * @param cluster      集群名
+     * @param windowMillis 借连接耗时分位值的统计窗口 ms
+     * @param pools        节点 host:port -> 连接池
+     */
+    public TopologyMetrics(String cluster, long windowMillis, Function<String, JedisPool> pools) {
+        this.cluster = cluster;
+        this.windowMillis = windowMillis;
+        this.pools = pools;
+    }
+
+    /**
+     * 节点的统计，第一次出现时创建
+     *
+     * @param host
+     * @param port
+     * @return
+     */
+    public NodeMetrics node(String host, int port) {
+        PortEntry[] nodes = hosts.get(host);
+        if (nodes != null) {
+            for (PortEntry n : nodes) {
+                if (n.port == port) {
+                    return n.metrics;
+                }
+            }
+        }
+        return create(host, port);
+    }
+
+    public void slotRefreshed() {
+        slotRefreshes.increment();
+    }
+
+    /**
+     * 设置外部指标系统，已有的节点立即注册
+     *
+     * @param registrar
+     */
+    public synchronized void setRegistrar(MetricsRegistrar registrar) {
+        this.registrar = registrar;
+        registrar.registerTopology(cluster, this);
+        for (PortEntry[] nodes : hosts.values()) {
+            for (PortEntry n : nodes) {
+                registrar.registerNode(cluster, n.metrics);
+            }
+        }
+    }
+
+    public String getCluster() {
+        return cluster;
+    }
+
+    @Override
+    public List<NodeMetrics> getNodes() {
+        List<NodeMetrics> rs = new ArrayList<>();
+        for (PortEntry[] nodes : hosts.values()) {
+            for (PortEntry n : nodes) {
+                rs.add(n.metrics);
+            }
+        }
+        rs.sort(Comparator.comparing(NodeMetrics::getNode));
+        return rs;
+    }
+
+    @Override
+    public long getSlotRefreshes() {
+        return slotRefreshes.sum();
+    }
+
+    @Override
+    public long getMoved() {
+        return getNodes().stream().mapToLong(NodeMetrics::getMoved).sum();
+    }
+
+    @Override
+    public long getAsk() {
+        return getNodes().stream().mapToLong(NodeMetrics::getAsk).sum();
+    }
+
+    private synchronized NodeMetrics create(String host, int port) {
+        PortEntry[] nodes = hosts.get(host);
+        if (nodes != null) {
+            for (PortEntry n : nodes) {
+                if (n.port == port) {
+                    return n.metrics;
+                }
+            }
+        }
+        String node = host + ":" + port;
+        NodeMetrics metrics = new NodeMetrics(node, pools.apply(node), windowMillis);
+        PortEntry[] rs = nodes == null ? new PortEntry[1] : Arrays.copyOf(nodes, nodes.length + 1);
+        rs[rs.length - 1] = new PortEntry(port, metrics);
+        hosts.put(host, rs);
+        if (registrar != null) {
+            registrar.registerNode(cluster, metrics);
+        }
+        return metrics;
+    }
+
+    private static class PortEntry {
+        private final int port;
+        private final NodeMetrics metrics;
+
+        PortEntry(int port, NodeMetrics metrics) {
+            this.port = port;
+            this.metrics = metrics;
+        }
+    }
+}
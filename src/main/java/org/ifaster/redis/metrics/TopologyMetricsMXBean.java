@@ -0,0 +1,29 @@
+package org.ifaster.redis.metrics;
+
+import java.util.List;
+
+/**
+ * 连接池和拓扑统计的JMX接口，ObjectName为 org.ifaster.redis:type=Topology,name=集群名
+ *
+ * @author yangnan
+ */
+public interface TopologyMetricsMXBean {
+
+    /**
+     * 每个节点的连接池状态，按节点排序
+     *
+     * @return
+     */
+    List<NodeMetrics> getNodes();
+
+    /**
+     * slot缓存刷新次数，包括MOVED和连接失败触发的刷新
+     *
+     * @return
+     */
+    long getSlotRefreshes();
+
+    long getMoved();
+
+    long getAsk();
+}
@@ -0,0 +1,138 @@
+package org.ifaster.redis.serializer;
+
+import org.ifaster.redis.exception.SerializationException;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * ASCII十进制数字的读写，与redis INCRBY/INCRBYFLOAT的存储格式一致
+ *
+ * @author yangnan
+ */
+public final class AsciiNumbers {
+
+    private AsciiNumbers() {
+    }
+
+    /**
+     * 写入long，不生成中间String
+     *
+     * @param value
+     * @param buffer
+     */
+    public static void writeLong(long value, SerializeBuffer buffer) {
+        if (value == Long.MIN_VALUE) {
+            byte[] data = Long.toString(value).getBytes(US_ASCII);
+            buffer.write(data, 0, data.length);
+            return;
+        }
+        int length = stringSize(value);
+        buffer.ensureRemaining(length);
+        byte[] out = buffer.array();
+        int start = buffer.size();
+        int position = start + length;
+        long v = Math.abs(value);
+        do {
+            out[--position] = (byte) ('0' + v % 10);
+            v /= 10;
+        } while (v != 0);
+        if (value < 0) {
+            out[start] = '-';
+        }
+        buffer.size(start + length);
+    }
+
+    /**
+     * 解析long，不生成中间String
+     *
+     * @param data
+     * @param offset
+     * @param length
+     * @return
+     */
+    public static long parseLong(byte[] data, int offset, int length) {
+        if (length <= 0) {
+            throw invalid(data, offset, length);
+        }
+        int end = offset + length;
+        boolean negative = data[offset] == '-';
+        int i = negative || data[offset] == '+' ? offset + 1 : offset;
+        if (i == end) {
+            throw invalid(data, offset, length);
+        }
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long rs = 0;
+        for (; i < end; i++) {
+            int digit = data[i] - '0';
+            if (digit < 0 || digit > 9 || rs < limit / 10) {
+                throw invalid(data, offset, length);
+            }
+            rs *= 10;
+            if (rs < limit + digit) {
+                throw invalid(data, offset, length);
+            }
+            //按负数累加，避免Long.MIN_VALUE溢出
+            rs -= digit;
+        }
+        return negative ? rs : -rs;
+    }
+
+    /**
+     * 解析double，支持整数和redis INCRBYFLOAT的输出
+     *
+     * @param data
+     * @param offset
+     * @param length
+     * @return
+     */
+    public static double parseDouble(byte[] data, int offset, int length) {
+        if (length <= 0) {
+            throw invalid(data, offset, length);
+        }
+        if (length < 19 && isInteger(data, offset, length)) {
+            return parseLong(data, offset, length);
+        }
+        String s = new String(data, offset, length, US_ASCII);
+        switch (s) {
+            case "inf":
+            case "+inf":
+                return Double.POSITIVE_INFINITY;
+            case "-inf":
+                return Double.NEGATIVE_INFINITY;
+            default:
+                try {
+                    return Double.parseDouble(s);
+                } catch (NumberFormatException e) {
+                    throw invalid(data, offset, length);
+                }
+        }
+    }
+
+    private static boolean isInteger(byte[] data, int offset, int length) {
+        int end = offset + length;
+        int i = data[offset] == '-' ? offset + 1 : offset;
+        if (i == end) {
+            return false;
+        }
+        for (; i < end; i++) {
+            if (data[i] < '0' || data[i] > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int stringSize(long value) {
+        int size = value < 0 ? 2 : 1;
+        long v = Math.abs(value);
+        while (v >= 10) {
+            v /= 10;
+            size++;
+        }
+        return size;
+    }
+
+    private static SerializationException invalid(byte[] data, int offset, int length) {
+        return new SerializationException("not a number: " + new String(data, offset, Math.max(length, 0), US_ASCII));
+    }
+}
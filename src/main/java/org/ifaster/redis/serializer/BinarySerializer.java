@@ -0,0 +1,692 @@
+package org.ifaster.redis.serializer;
+
+import org.ifaster.redis.exception.SerializationException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * 紧凑二进制序列化
+ * 对象只写入注册时分配的类ID和按字段名排序的字段值，不写字段名；字段访问使用注册时生成的MethodHandle，
+ * 读写过程不再反射。对象类型(包括枚举)需要先注册，并且各个jvm的注册ID必须一致；
+ * 字段增删后旧数据无法读取，需要换新的key或重新写入。
+ * 支持基本类型及其包装类、String、byte[]、BigDecimal、BigInteger、Date、List、Set、Map和已注册的类型。
+ * 输出的第一个字节是类型标记，不会以0xFE开头，可以被{@link CompressingSerializer}包装
+ *
+ * @author yangnan
+ */
+public class BinarySerializer implements Serializer<Object> {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private static final byte NULL = 0;
+    private static final byte OBJECT = 1;
+    private static final byte STRING = 2;
+    private static final byte INT = 3;
+    private static final byte LONG = 4;
+    private static final byte DOUBLE = 5;
+    private static final byte FLOAT = 6;
+    private static final byte TRUE = 7;
+    private static final byte FALSE = 8;
+    private static final byte SHORT = 9;
+    private static final byte BYTE = 10;
+    private static final byte CHAR = 11;
+    private static final byte BYTES = 12;
+    private static final byte LIST = 13;
+    private static final byte SET = 14;
+    private static final byte MAP = 15;
+    private static final byte BIG_DECIMAL = 16;
+    private static final byte BIG_INTEGER = 17;
+    private static final byte DATE = 18;
+    private static final byte ENUM = 19;
+
+    /**
+     * 字段类型，基本类型不写类型标记
+     */
+    private static final int KIND_BOOLEAN = 1;
+    private static final int KIND_BYTE = 2;
+    private static final int KIND_SHORT = 3;
+    private static final int KIND_CHAR = 4;
+    private static final int KIND_INT = 5;
+    private static final int KIND_LONG = 6;
+    private static final int KIND_FLOAT = 7;
+    private static final int KIND_DOUBLE = 8;
+    private static final int KIND_VALUE = 9;
+
+    private final Map<Class<?>, Schema> schemas = new ConcurrentHashMap<>();
+    private volatile Schema[] ids = new Schema[16];
+    private final ThreadLocal<SerializeBuffer> buffers = ThreadLocal.withInitial(SerializeBuffer::new);
+    private final ThreadLocal<Output> outputs = ThreadLocal.withInitial(Output::new);
+
+    /**
+     * 注册类型，ID为当前最大ID加1
+     *
+     * @param types
+     * @return this
+     */
+    public synchronized BinarySerializer register(Class<?>... types) {
+        for (Class<?> type : types) {
+            if (!schemas.containsKey(type)) {
+                int id = 1;
+                for (int i = ids.length - 1; i > 0; i--) {
+                    if (ids[i] != null) {
+                        id = i + 1;
+                        break;
+                    }
+                }
+                register(type, id);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * 按指定ID注册类型
+     *
+     * @param type
+     * @param id   大于0
+     * @return this
+     */
+    public synchronized BinarySerializer register(Class<?> type, int id) {
+        if (id <= 0) {
+            throw new SerializationException("class id must be greater than 0: " + id);
+        }
+        Schema[] current = ids;
+        if (id < current.length && current[id] != null) {
+            if (current[id].type == type) {
+                return this;
+            }
+            throw new SerializationException("class id " + id + " is already registered by " + current[id].type.getName());
+        }
+        if (schemas.containsKey(type)) {
+            throw new SerializationException(type.getName() + " is already registered with id " + schemas.get(type).id);
+        }
+        Schema schema = new Schema(id, type);
+        Schema[] next = Arrays.copyOf(current, Math.max(current.length, Integer.highestOneBit(id) << 1));
+        next[id] = schema;
+        schemas.put(type, schema);
+        ids = next;
+        return this;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        SerializeBuffer buffer = buffers.get().clear();
+        serialize(value, buffer);
+        return buffer.toByteArray();
+    }
+
+    @Override
+    public void serialize(Object value, SerializeBuffer buffer) throws SerializationException {
+        if (value == null) {
+            return;
+        }
+        Output out = outputs.get();
+        out.start(buffer);
+        try {
+            writeValue(out, value);
+        } finally {
+            out.finish();
+        }
+    }
+
+    @Override
+    public <T> T deserialize(byte[] data, Class<T> clz) throws SerializationException {
+        return data == null ? null : deserialize(data, 0, data.length, clz);
+    }
+
+    @Override
+    public <T> T deserialize(byte[] data, int offset, int length, Class<T> clz) throws SerializationException {
+        if (data == null || length == 0) {
+            return null;
+        }
+        Input in = new Input(data, offset, offset + length);
+        try {
+            return (T) readValue(in, clz);
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new SerializationException("corrupted binary value", e);
+        }
+    }
+
+    private void writeValue(Output out, Object value) {
+        if (value == null) {
+            out.writeByte(NULL);
+            return;
+        }
+        Class<?> type = value.getClass();
+        if (type == String.class) {
+            out.writeByte(STRING);
+            out.writeString((String) value);
+        } else if (type == Integer.class) {
+            out.writeByte(INT);
+            out.writeVarInt((Integer) value);
+        } else if (type == Long.class) {
+            out.writeByte(LONG);
+            out.writeVarLong((Long) value);
+        } else if (type == Double.class) {
+            out.writeByte(DOUBLE);
+            out.writeLong(Double.doubleToLongBits((Double) value));
+        } else if (type == Boolean.class) {
+            out.writeByte((Boolean) value ? TRUE : FALSE);
+        } else if (type == Float.class) {
+            out.writeByte(FLOAT);
+            out.writeInt(Float.floatToIntBits((Float) value));
+        } else if (type == Short.class) {
+            out.writeByte(SHORT);
+            out.writeVarInt((Short) value);
+        } else if (type == Byte.class) {
+            out.writeByte(BYTE);
+            out.writeByte((Byte) value);
+        } else if (type == Character.class) {
+            out.writeByte(CHAR);
+            out.writeVarInt((Character) value);
+        } else if (type == byte[].class) {
+            out.writeByte(BYTES);
+            byte[] bytes = (byte[]) value;
+            out.writeVarInt(bytes.length);
+            out.writeBytes(bytes, 0, bytes.length);
+        } else if (type == BigDecimal.class) {
+            out.writeByte(BIG_DECIMAL);
+            out.writeString(value.toString());
+        } else if (type == BigInteger.class) {
+            out.writeByte(BIG_INTEGER);
+            out.writeString(value.toString());
+        } else if (type == Date.class) {
+            out.writeByte(DATE);
+            out.writeVarLong(((Date) value).getTime());
+        } else {
+            Schema schema = schemas.get(type);
+            if (schema == null && value instanceof Enum) {
+                //带方法体的枚举常量是枚举的子类
+                schema = schemas.get(((Enum<?>) value).getDeclaringClass());
+            }
+            if (schema != null) {
+                writeObject(out, schema, value);
+            } else if (value instanceof List) {
+                out.writeByte(LIST);
+                List<?> list = (List<?>) value;
+                out.writeVarInt(list.size());
+                for (Object e : list) {
+                    writeValue(out, e);
+                }
+            } else if (value instanceof Set) {
+                out.writeByte(SET);
+                Set<?> set = (Set<?>) value;
+                out.writeVarInt(set.size());
+                for (Object e : set) {
+                    writeValue(out, e);
+                }
+            } else if (value instanceof Map) {
+                out.writeByte(MAP);
+                Map<?, ?> map = (Map<?, ?>) value;
+                out.writeVarInt(map.size());
+                for (Map.Entry<?, ?> e : map.entrySet()) {
+                    writeValue(out, e.getKey());
+                    writeValue(out, e.getValue());
+                }
+            } else {
+                throw new SerializationException("class is not registered: " + type.getName());
+            }
+        }
+    }
+
+    private void writeObject(Output out, Schema schema, Object value) {
+        if (schema.enumConstants != null) {
+            out.writeByte(ENUM);
+            out.writeVarInt(schema.id);
+            out.writeVarInt(((Enum<?>) value).ordinal());
+            return;
+        }
+        out.writeByte(OBJECT);
+        out.writeVarInt(schema.id);
+        try {
+            for (FieldAccess f : schema.fields) {
+                switch (f.kind) {
+                    case KIND_BOOLEAN:
+                        out.writeByte((boolean) f.getter.invokeExact(value) ? 1 : 0);
+                        break;
+                    case KIND_BYTE:
+                        out.writeByte((byte) f.getter.invokeExact(value));
+                        break;
+                    case KIND_SHORT:
+                        out.writeVarInt((short) f.getter.invokeExact(value));
+                        break;
+                    case KIND_CHAR:
+                        out.writeVarInt((char) f.getter.invokeExact(value));
+                        break;
+                    case KIND_INT:
+                        out.writeVarInt((int) f.getter.invokeExact(value));
+                        break;
+                    case KIND_LONG:
+                        out.writeVarLong((long) f.getter.invokeExact(value));
+                        break;
+                    case KIND_FLOAT:
+                        out.writeInt(Float.floatToIntBits((float) f.getter.invokeExact(value)));
+                        break;
+                    case KIND_DOUBLE:
+                        out.writeLong(Double.doubleToLongBits((double) f.getter.invokeExact(value)));
+                        break;
+                    default:
+                        writeValue(out, (Object) f.getter.invokeExact(value));
+                }
+            }
+        } catch (SerializationException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new SerializationException("serialize " + schema.type.getName() + " failed", e);
+        }
+    }
+
+    /**
+     * @param in
+     * @param declared 声明的类型，用于创建集合，未知时为null
+     * @return
+     */
+    private Object readValue(Input in, Class<?> declared) {
+        byte tag = in.readByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case OBJECT:
+                return readObject(in, schema(in.readVarInt()));
+            case ENUM:
+                Schema schema = schema(in.readVarInt());
+                return schema.enumConstants[in.readVarInt()];
+            case STRING:
+                return in.readString();
+            case INT:
+                return in.readVarInt();
+            case LONG:
+                return in.readVarLong();
+            case DOUBLE:
+                return Double.longBitsToDouble(in.readLong());
+            case FLOAT:
+                return Float.intBitsToFloat(in.readInt());
+            case TRUE:
+                return Boolean.TRUE;
+            case FALSE:
+                return Boolean.FALSE;
+            case SHORT:
+                return (short) in.readVarInt();
+            case BYTE:
+                return in.readByte();
+            case CHAR:
+                return (char) in.readVarInt();
+            case BYTES:
+                return in.readBytes(in.readVarInt());
+            case BIG_DECIMAL:
+                return new BigDecimal(in.readString());
+            case BIG_INTEGER:
+                return new BigInteger(in.readString());
+            case DATE:
+                return new Date(in.readVarLong());
+            case LIST:
+            case SET: {
+                int size = in.readVarInt();
+                Collection<Object> rs = newCollection(declared, tag == LIST, size);
+                for (int i = 0; i < size; i++) {
+                    rs.add(readValue(in, null));
+                }
+                return rs;
+            }
+            case MAP: {
+                int size = in.readVarInt();
+                Map<Object, Object> rs = newMap(declared, size);
+                for (int i = 0; i < size; i++) {
+                    rs.put(readValue(in, null), readValue(in, null));
+                }
+                return rs;
+            }
+            default:
+                throw new SerializationException("unknown binary type " + tag);
+        }
+    }
+
+    private Object readObject(Input in, Schema schema) {
+        try {
+            Object value = schema.constructor.invokeExact();
+            for (FieldAccess f : schema.fields) {
+                switch (f.kind) {
+                    case KIND_BOOLEAN:
+                        f.setter.invokeExact(value, in.readByte() != 0);
+                        break;
+                    case KIND_BYTE:
+                        f.setter.invokeExact(value, in.readByte());
+                        break;
+                    case KIND_SHORT:
+                        f.setter.invokeExact(value, (short) in.readVarInt());
+                        break;
+                    case KIND_CHAR:
+                        f.setter.invokeExact(value, (char) in.readVarInt());
+                        break;
+                    case KIND_INT:
+                        f.setter.invokeExact(value, in.readVarInt());
+                        break;
+                    case KIND_LONG:
+                        f.setter.invokeExact(value, in.readVarLong());
+                        break;
+                    case KIND_FLOAT:
+                        f.setter.invokeExact(value, Float.intBitsToFloat(in.readInt()));
+                        break;
+                    case KIND_DOUBLE:
+                        f.setter.invokeExact(value, Double.longBitsToDouble(in.readLong()));
+                        break;
+                    default:
+                        f.setter.invokeExact(value, readValue(in, f.declared));
+                }
+            }
+            return value;
+        } catch (SerializationException | ArrayIndexOutOfBoundsException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new SerializationException("deserialize " + schema.type.getName() + " failed", e);
+        }
+    }
+
+    private Schema schema(int id) {
+        Schema[] current = ids;
+        Schema schema = id > 0 && id < current.length ? current[id] : null;
+        if (schema == null) {
+            throw new SerializationException("class id is not registered: " + id);
+        }
+        return schema;
+    }
+
+    private static Collection<Object> newCollection(Class<?> declared, boolean list, int size) {
+        if (declared != null && !declared.isInterface() && !Modifier.isAbstract(declared.getModifiers())
+                && Collection.class.isAssignableFrom(declared)) {
+            return (Collection<Object>) newInstance(declared);
+        }
+        if (declared != null && SortedSet.class.isAssignableFrom(declared)) {
+            return new TreeSet<>();
+        }
+        return list ? new ArrayList<>(size) : new LinkedHashSet<>(size * 4 / 3 + 1);
+    }
+
+    private static Map<Object, Object> newMap(Class<?> declared, int size) {
+        if (declared != null && !declared.isInterface() && !Modifier.isAbstract(declared.getModifiers())
+                && Map.class.isAssignableFrom(declared)) {
+            return (Map<Object, Object>) newInstance(declared);
+        }
+        if (declared != null && SortedMap.class.isAssignableFrom(declared)) {
+            return new TreeMap<>();
+        }
+        return new LinkedHashMap<>(size * 4 / 3 + 1);
+    }
+
+    private static Object newInstance(Class<?> type) {
+        try {
+            return type.newInstance();
+        } catch (InstantiationException | IllegalAccessException e) {
+            throw new SerializationException("can not create " + type.getName(), e);
+        }
+    }
+
+    /**
+     * 注册类型的结构，字段访问在注册时绑定
+     */
+    private static final class Schema {
+        private final int id;
+        private final Class<?> type;
+        private final MethodHandle constructor;
+        private final FieldAccess[] fields;
+        private final Object[] enumConstants;
+
+        Schema(int id, Class<?> type) {
+            this.id = id;
+            this.type = type;
+            if (type.isEnum()) {
+                this.constructor = null;
+                this.fields = null;
+                this.enumConstants = type.getEnumConstants();
+                return;
+            }
+            if (type.isInterface() || Modifier.isAbstract(type.getModifiers()) || type.isArray() || type.isPrimitive()) {
+                throw new SerializationException("can not register " + type.getName());
+            }
+            this.enumConstants = null;
+            try {
+                Constructor<?> c = type.getDeclaredConstructor();
+                c.setAccessible(true);
+                this.constructor = LOOKUP.unreflectConstructor(c).asType(MethodType.methodType(Object.class));
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                throw new SerializationException(type.getName() + " requires a no-arg constructor", e);
+            }
+            List<Field> list = new ArrayList<>();
+            Deque<Class<?>> hierarchy = new ArrayDeque<>();
+            for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+                hierarchy.push(c);
+            }
+            //父类字段在前，同一个类按字段名排序
+            for (Class<?> c : hierarchy) {
+                List<Field> declared = new ArrayList<>();
+                for (Field f : c.getDeclaredFields()) {
+                    if (!Modifier.isStatic(f.getModifiers()) && !Modifier.isTransient(f.getModifiers()) && !f.isSynthetic()) {
+                        declared.add(f);
+                    }
+                }
+                declared.sort(Comparator.comparing(Field::getName));
+                list.addAll(declared);
+            }
+            this.fields = new FieldAccess[list.size()];
+            for (int i = 0; i < fields.length; i++) {
+                fields[i] = new FieldAccess(list.get(i));
+            }
+        }
+    }
+
+    private static final class FieldAccess {
+        private final int kind;
+        private final Class<?> declared;
+        private final MethodHandle getter;
+        private final MethodHandle setter;
+
+        FieldAccess(Field field) {
+            Class<?> type = field.getType();
+            this.declared = type;
+            this.kind = kind(type);
+            Class<?> access = type.isPrimitive() ? type : Object.class;
+            try {
+                field.setAccessible(true);
+                this.getter = LOOKUP.unreflectGetter(field).asType(MethodType.methodType(access, Object.class));
+                this.setter = LOOKUP.unreflectSetter(field).asType(MethodType.methodType(void.class, Object.class, access));
+            } catch (IllegalAccessException e) {
+                throw new SerializationException("can not access field " + field, e);
+            }
+        }
+
+        private static int kind(Class<?> type) {
+            if (type == boolean.class) {
+                return KIND_BOOLEAN;
+            } else if (type == byte.class) {
+                return KIND_BYTE;
+            } else if (type == short.class) {
+                return KIND_SHORT;
+            } else if (type == char.class) {
+                return KIND_CHAR;
+            } else if (type == int.class) {
+                return KIND_INT;
+            } else if (type == long.class) {
+                return KIND_LONG;
+            } else if (type == float.class) {
+                return KIND_FLOAT;
+            } else if (type == double.class) {
+                return KIND_DOUBLE;
+            }
+            return KIND_VALUE;
+        }
+    }
+
+    /**
+     * 直接写入SerializeBuffer底层数组，按线程复用
+     */
+    private static final class Output {
+        private SerializeBuffer buffer;
+        private byte[] buf;
+        private int position;
+
+        void start(SerializeBuffer buffer) {
+            this.buffer = buffer;
+            this.buf = buffer.array();
+            this.position = buffer.size();
+        }
+
+        void finish() {
+            buffer.size(position);
+            buffer = null;
+            buf = null;
+        }
+
+        private void require(int length) {
+            if (position + length > buf.length) {
+                buffer.size(position);
+                buffer.ensureRemaining(length);
+                buf = buffer.array();
+            }
+        }
+
+        void writeByte(int b) {
+            require(1);
+            buf[position++] = (byte) b;
+        }
+
+        void writeBytes(byte[] data, int offset, int length) {
+            require(length);
+            System.arraycopy(data, offset, buf, position, length);
+            position += length;
+        }
+
+        void writeInt(int v) {
+            require(4);
+            buf[position++] = (byte) (v >>> 24);
+            buf[position++] = (byte) (v >>> 16);
+            buf[position++] = (byte) (v >>> 8);
+            buf[position++] = (byte) v;
+        }
+
+        void writeLong(long v) {
+            writeInt((int) (v >>> 32));
+            writeInt((int) v);
+        }
+
+        /**
+         * zigzag变长编码，绝对值小的数占用字节少
+         */
+        void writeVarInt(int v) {
+            writeUnsignedVarLong(((long) (v << 1 ^ v >> 31)) & 0xFFFFFFFFL);
+        }
+
+        void writeVarLong(long v) {
+            writeUnsignedVarLong(v << 1 ^ v >> 63);
+        }
+
+        private void writeUnsignedVarLong(long v) {
+            require(10);
+            while ((v & ~0x7FL) != 0) {
+                buf[position++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buf[position++] = (byte) v;
+        }
+
+        void writeString(String s) {
+            int length = s.length();
+            boolean ascii = true;
+            for (int i = 0; i < length; i++) {
+                if (s.charAt(i) >= 0x80) {
+                    ascii = false;
+                    break;
+                }
+            }
+            if (!ascii) {
+                byte[] data = s.getBytes(UTF_8);
+                writeVarInt(data.length);
+                writeBytes(data, 0, data.length);
+                return;
+            }
+            writeVarInt(length);
+            require(length);
+            for (int i = 0; i < length; i++) {
+                buf[position++] = (byte) s.charAt(i);
+            }
+        }
+    }
+
+    private static final class Input {
+        private final byte[] data;
+        private final int end;
+        private int position;
+
+        Input(byte[] data, int offset, int end) {
+            this.data = data;
+            this.position = offset;
+            this.end = end;
+        }
+
+        byte readByte() {
+            if (position >= end) {
+                throw new SerializationException("unexpected end of binary value");
+            }
+            return data[position++];
+        }
+
+        byte[] readBytes(int length) {
+            if (length < 0 || position + length > end) {
+                throw new SerializationException("unexpected end of binary value");
+            }
+            byte[] rs = Arrays.copyOfRange(data, position, position + length);
+            position += length;
+            return rs;
+        }
+
+        int readInt() {
+            return (readByte() & 0xFF) << 24 | (readByte() & 0xFF) << 16 | (readByte() & 0xFF) << 8 | (readByte() & 0xFF);
+        }
+
+        long readLong() {
+            return ((long) readInt()) << 32 | (readInt() & 0xFFFFFFFFL);
+        }
+
+        int readVarInt() {
+            long v = readUnsignedVarLong();
+            return (int) (v >>> 1) ^ -(int) (v & 1);
+        }
+
+        long readVarLong() {
+            long v = readUnsignedVarLong();
+            return (v >>> 1) ^ -(v & 1);
+        }
+
+        private long readUnsignedVarLong() {
+            long rs = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                rs |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return rs;
+                }
+            }
+            throw new SerializationException("malformed varint");
+        }
+
+        String readString() {
+            int length = readVarInt();
+            if (length < 0 || position + length > end) {
+                throw new SerializationException("unexpected end of binary value");
+            }
+            String rs = new String(data, position, length, UTF_8);
+            position += length;
+            return rs;
+        }
+    }
+}
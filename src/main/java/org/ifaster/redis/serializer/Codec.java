@@ -0,0 +1,32 @@
+package org.ifaster.redis.serializer;
+
+import org.ifaster.redis.exception.SerializationException;
+
+/**
+ * 单个类型的编解码，注册到{@link CodecRegistry}
+ *
+ * @param <T> 类型
+ * @author yangnan
+ */
+public interface Codec<T> {
+
+    /**
+     * 编码到缓冲区
+     *
+     * @param value  非null的值
+     * @param buffer 缓冲区
+     * @throws SerializationException
+     */
+    void encode(T value, SerializeBuffer buffer) throws SerializationException;
+
+    /**
+     * 从byte数组的一段解码
+     *
+     * @param data   byte数组
+     * @param offset 开始位置
+     * @param length 长度
+     * @return
+     * @throws SerializationException
+     */
+    T decode(byte[] data, int offset, int length) throws SerializationException;
+}
@@ -0,0 +1,224 @@
+package org.ifaster.redis.serializer;
+
+import org.ifaster.redis.exception.SerializationException;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * 按类型选择编解码的序列化
+ * String存原始UTF-8，数字存ASCII十进制(可以和INCRBY/INCRBYFLOAT互通)，byte[]原样存储，
+ * 其他类型使用被包装的序列化。
+ * 注意String和byte[]的存储格式与json不同，开启前用json写入的这两类值需要重新写入
+ *
+ * @author yangnan
+ */
+public class CodecRegistry implements Serializer<Object> {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final Serializer serializer;
+    private final Map<Class<?>, Codec<?>> codecs = new ConcurrentHashMap<>();
+
+    /**
+     * @param serializer 未注册类型使用的序列化
+     */
+    public CodecRegistry(Serializer serializer) {
+        if (serializer == null) {
+            throw new SerializationException("serializer must be not null");
+        }
+        this.serializer = serializer;
+        register(String.class, new StringCodec());
+        register(byte[].class, new BytesCodec());
+        LongCodec longCodec = new LongCodec();
+        register(Long.class, longCodec);
+        register(long.class, longCodec);
+        IntegerCodec integerCodec = new IntegerCodec();
+        register(Integer.class, integerCodec);
+        register(int.class, integerCodec);
+        DoubleCodec doubleCodec = new DoubleCodec();
+        register(Double.class, doubleCodec);
+        register(double.class, doubleCodec);
+        register(BigDecimal.class, new DecimalCodec<>(BigDecimal::new));
+        register(BigInteger.class, new DecimalCodec<>(BigInteger::new));
+    }
+
+    /**
+     * 注册类型的编解码，按类型精确匹配，不匹配子类
+     *
+     * @param type  类型
+     * @param codec 编解码
+     * @param <T>
+     * @return this
+     */
+    public <T> CodecRegistry register(Class<T> type, Codec<? super T> codec) {
+        codecs.put(type, codec);
+        return this;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value instanceof byte[]) {
+            return (byte[]) value;
+        }
+        Codec<Object> codec = value == null ? null : codec(value.getClass());
+        if (codec == null) {
+            return serializer.serialize(value);
+        }
+        SerializeBuffer buffer = new SerializeBuffer();
+        codec.encode(value, buffer);
+        return buffer.toByteArray();
+    }
+
+    @Override
+    public void serialize(Object value, SerializeBuffer buffer) throws SerializationException {
+        Codec<Object> codec = value == null ? null : codec(value.getClass());
+        if (codec == null) {
+            serializer.serialize(value, buffer);
+        } else {
+            codec.encode(value, buffer);
+        }
+    }
+
+    @Override
+    public <T> T deserialize(byte[] data, Class<T> clz) throws SerializationException {
+        if (data == null) {
+            return null;
+        }
+        if (clz == byte[].class) {
+            return (T) data;
+        }
+        return deserialize(data, 0, data.length, clz);
+    }
+
+    @Override
+    public <T> T deserialize(byte[] data, int offset, int length, Class<T> clz) throws SerializationException {
+        Codec<Object> codec = codec(clz);
+        if (data == null || codec == null) {
+            return (T) serializer.deserialize(data, offset, length, clz);
+        }
+        return (T) codec.decode(data, offset, length);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Codec<Object> codec(Class<?> type) {
+        return (Codec<Object>) codecs.get(type);
+    }
+
+    private static class StringCodec implements Codec<String> {
+        @Override
+        public void encode(String value, SerializeBuffer buffer) {
+            int length = value.length();
+            buffer.ensureRemaining(length);
+            byte[] out = buffer.array();
+            int start = buffer.size();
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                if (c >= 0x80) {
+                    //非ASCII时整体按UTF-8编码
+                    byte[] data = value.getBytes(UTF_8);
+                    buffer.size(start);
+                    buffer.write(data, 0, data.length);
+                    return;
+                }
+                out[start + i] = (byte) c;
+            }
+            buffer.size(start + length);
+        }
+
+        @Override
+        public String decode(byte[] data, int offset, int length) {
+            return new String(data, offset, length, UTF_8);
+        }
+    }
+
+    private static class BytesCodec implements Codec<byte[]> {
+        @Override
+        public void encode(byte[] value, SerializeBuffer buffer) {
+            buffer.write(value, 0, value.length);
+        }
+
+        @Override
+        public byte[] decode(byte[] data, int offset, int length) {
+            return length == 0 ? EMPTY : Arrays.copyOfRange(data, offset, offset + length);
+        }
+    }
+
+    private static class LongCodec implements Codec<Long> {
+        @Override
+        public void encode(Long value, SerializeBuffer buffer) {
+            AsciiNumbers.writeLong(value, buffer);
+        }
+
+        @Override
+        public Long decode(byte[] data, int offset, int length) {
+            return length == 0 ? null : AsciiNumbers.parseLong(data, offset, length);
+        }
+    }
+
+    private static class IntegerCodec implements Codec<Integer> {
+        @Override
+        public void encode(Integer value, SerializeBuffer buffer) {
+            AsciiNumbers.writeLong(value, buffer);
+        }
+
+        @Override
+        public Integer decode(byte[] data, int offset, int length) {
+            if (length == 0) {
+                return null;
+            }
+            long value = AsciiNumbers.parseLong(data, offset, length);
+            if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+                throw new SerializationException("integer overflow: " + value);
+            }
+            return (int) value;
+        }
+    }
+
+    private static class DoubleCodec implements Codec<Double> {
+        @Override
+        public void encode(Double value, SerializeBuffer buffer) {
+            byte[] data = Double.toString(value).getBytes(US_ASCII);
+            buffer.write(data, 0, data.length);
+        }
+
+        @Override
+        public Double decode(byte[] data, int offset, int length) {
+            return length == 0 ? null : AsciiNumbers.parseDouble(data, offset, length);
+        }
+    }
+
+    private static class DecimalCodec<T extends Number> implements Codec<T> {
+        private final Function<String, T> parser;
+
+        DecimalCodec(Function<String, T> parser) {
+            this.parser = parser;
+        }
+
+        @Override
+        public void encode(T value, SerializeBuffer buffer) {
+            byte[] data = (value instanceof BigDecimal ? ((BigDecimal) value).toPlainString() : value.toString())
+                    .getBytes(US_ASCII);
+            buffer.write(data, 0, data.length);
+        }
+
+        @Override
+        public T decode(byte[] data, int offset, int length) {
+            if (length == 0) {
+                return null;
+            }
+            try {
+                return parser.apply(new String(data, offset, length, US_ASCII));
+            } catch (NumberFormatException e) {
+                throw new SerializationException("not a number: " + new String(data, offset, length, US_ASCII), e);
+            }
+        }
+    }
+}
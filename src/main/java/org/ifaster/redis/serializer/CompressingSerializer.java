@@ -0,0 +1,163 @@
+package org.ifaster.redis.serializer;
+
+import org.ifaster.redis.exception.SerializationException;
+
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 压缩序列化，包装其他序列化
+ * 序列化结果超过阈值时使用deflate压缩，压缩后的值以 0xFE + 压缩算法 + 原始长度(4字节) 开头，
+ * 未压缩的值保持原样，所以开启前写入的值仍可以正常读取。
+ * 0xFE不会出现在合法的UTF-8文本中，被包装的序列化输出二进制时不能以0xFE开头
+ *
+ * @author yangnan
+ */
+public class CompressingSerializer implements Serializer<Object> {
+
+    private static final byte MAGIC = (byte) 0xFE;
+    private static final byte DEFLATE = 1;
+    private static final int HEADER_LENGTH = 6;
+    /**
+     * 原始长度上限，和redis字符串的上限相同
+     */
+    private static final int MAX_RAW_LENGTH = 512 * 1024 * 1024;
+    /**
+     * deflate的最大压缩比约为1032:1，超过时头部的原始长度一定是错的
+     */
+    private static final int MAX_DEFLATE_RATIO = 1032;
+
+    private final Serializer serializer;
+    private final int threshold;
+    private final ThreadLocal<Deflater> deflaters;
+    private final ThreadLocal<Inflater> inflaters = ThreadLocal.withInitial(Inflater::new);
+    /**
+     * 被包装的序列化输出和解压结果的缓冲区
+     */
+    private final ThreadLocal<SerializeBuffer> raws = ThreadLocal.withInitial(SerializeBuffer::new);
+    /**
+     * byte数组接口使用的输出缓冲区
+     */
+    private final ThreadLocal<SerializeBuffer> outputs = ThreadLocal.withInitial(SerializeBuffer::new);
+
+    /**
+     * @param serializer 被包装的序列化
+     * @param threshold  超过该字节数时压缩
+     */
+    public CompressingSerializer(Serializer serializer, int threshold) {
+        this(serializer, threshold, Deflater.BEST_SPEED);
+    }
+
+    /**
+     * @param serializer 被包装的序列化
+     * @param threshold  超过该字节数时压缩
+     * @param level      压缩级别 0-9
+     */
+    public CompressingSerializer(Serializer serializer, int threshold, int level) {
+        if (serializer == null) {
+            throw new SerializationException("serializer must be not null");
+        }
+        this.serializer = serializer;
+        this.threshold = threshold;
+        this.deflaters = ThreadLocal.withInitial(() -> new Deflater(level));
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        SerializeBuffer buffer = outputs.get().clear();
+        serialize(value, buffer);
+        return buffer.toByteArray();
+    }
+
+    @Override
+    public void serialize(Object value, SerializeBuffer buffer) throws SerializationException {
+        SerializeBuffer raw = raws.get().clear();
+        serializer.serialize(value, raw);
+        int length = raw.size();
+        if (length <= threshold) {
+            buffer.write(raw.array(), 0, length);
+            return;
+        }
+        int start = buffer.size();
+        buffer.ensureRemaining(HEADER_LENGTH + length);
+        byte[] out = buffer.array();
+        int position = start + HEADER_LENGTH;
+        int limit = position + length;
+        Deflater deflater = deflaters.get();
+        try {
+            deflater.setInput(raw.array(), 0, length);
+            deflater.finish();
+            while (!deflater.finished() && position < limit) {
+                position += deflater.deflate(out, position, limit - position);
+            }
+            if (!deflater.finished()) {
+                //压缩后没有变小
+                buffer.write(raw.array(), 0, length);
+                return;
+            }
+        } finally {
+            deflater.reset();
+        }
+        out[start] = MAGIC;
+        out[start + 1] = DEFLATE;
+        writeInt(out, start + 2, length);
+        buffer.size(position);
+    }
+
+    @Override
+    public <T> T deserialize(byte[] data, Class<T> clz) throws SerializationException {
+        return data == null ? null : deserialize(data, 0, data.length, clz);
+    }
+
+    @Override
+    public <T> T deserialize(byte[] data, int offset, int length, Class<T> clz) throws SerializationException {
+        if (data == null || length < HEADER_LENGTH || data[offset] != MAGIC) {
+            return (T) serializer.deserialize(data, offset, length, clz);
+        }
+        if (data[offset + 1] != DEFLATE) {
+            throw new SerializationException("unknown compression type " + data[offset + 1]);
+        }
+        int rawLength = readInt(data, offset + 2);
+        //分配缓冲区前校验头部的原始长度，损坏的值不能导致分配超大数组
+        if (rawLength < 0 || rawLength > MAX_RAW_LENGTH
+                || rawLength > (long) (length - HEADER_LENGTH) * MAX_DEFLATE_RATIO) {
+            throw new SerializationException("corrupted compressed value, invalid raw length " + rawLength);
+        }
+        SerializeBuffer raw = raws.get().clear();
+        raw.ensureRemaining(rawLength);
+        byte[] out = raw.array();
+        Inflater inflater = inflaters.get();
+        try {
+            inflater.setInput(data, offset + HEADER_LENGTH, length - HEADER_LENGTH);
+            int position = 0;
+            while (position < rawLength && !inflater.finished()) {
+                int n = inflater.inflate(out, position, rawLength - position);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                position += n;
+            }
+            if (position != rawLength) {
+                throw new SerializationException("corrupted compressed value, expect " + rawLength + " bytes but " + position);
+            }
+        } catch (DataFormatException e) {
+            throw new SerializationException("corrupted compressed value", e);
+        } finally {
+            inflater.reset();
+        }
+        return (T) serializer.deserialize(out, 0, rawLength, clz);
+    }
+
+    private static void writeInt(byte[] data, int offset, int value) {
+        data[offset] = (byte) (value >>> 24);
+        data[offset + 1] = (byte) (value >>> 16);
+        data[offset + 2] = (byte) (value >>> 8);
+        data[offset + 3] = (byte) value;
+    }
+
+    private static int readInt(byte[] data, int offset) {
+        return ((data[offset] & 0xFF) << 24) | ((data[offset + 1] & 0xFF) << 16)
+                | ((data[offset + 2] & 0xFF) << 8) | (data[offset + 3] & 0xFF);
+    }
+}
@@ -4,7 +4,10 @@ import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.serializer.SerializerFeature;
 import org.ifaster.redis.exception.SerializationException;
 
+import java.io.IOException;
+
 import static com.alibaba.fastjson.serializer.SerializerFeature.DisableCircularReferenceDetect;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 /**
  * fast json序列化
@@ -31,4 +34,24 @@ public class FastJsonSerializer implements Serializer<Object> {
         }
         return JSON.parseObject(data, clz);
     }
+
+    @Override
+    public void serialize(Object value, SerializeBuffer buffer) throws SerializationException {
+        if (value == null) {
+            return;
+        }
+        try {
+            JSON.writeJSONString(buffer, value, features);
+        } catch (IOException e) {
+            throw new SerializationException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public <T> T deserialize(byte[] data, int offset, int length, Class<T> clz) throws SerializationException {
+        if (data == null || length == 0) {
+            return null;
+        }
+        return JSON.parseObject(data, offset, length, UTF_8, clz);
+    }
 }
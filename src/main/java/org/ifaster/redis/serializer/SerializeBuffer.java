@@ -0,0 +1,68 @@
+package org.ifaster.redis.serializer;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * 可复用的序列化缓冲区，一般按线程缓存，每次使用前调用{@link #clear()}
+ *
+ * @author yangnan
+ */
+public class SerializeBuffer extends ByteArrayOutputStream {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    /**
+     * 超过该大小的缓冲区清空时不再保留，避免偶发的大值长期占用内存
+     */
+    private static final int MAX_RETAINED_CAPACITY = 1 << 20;
+
+    public SerializeBuffer() {
+        super(INITIAL_CAPACITY);
+    }
+
+    /**
+     * 清空缓冲区
+     *
+     * @return this
+     */
+    public SerializeBuffer clear() {
+        if (buf.length > MAX_RETAINED_CAPACITY) {
+            buf = new byte[INITIAL_CAPACITY];
+        }
+        count = 0;
+        return this;
+    }
+
+    /**
+     * 底层数组，有效数据为 [0, size())
+     *
+     * @return
+     */
+    public byte[] array() {
+        return buf;
+    }
+
+    /**
+     * 保证还能直接写入 length 个字节到 array() 的 size() 位置之后
+     *
+     * @param length
+     */
+    public void ensureRemaining(int length) {
+        int required = count + length;
+        if (required > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(required, buf.length << 1));
+        }
+    }
+
+    /**
+     * 直接写入 array() 后调整有效长度
+     *
+     * @param size
+     */
+    public void size(int size) {
+        if (size < 0 || size > buf.length) {
+            throw new IndexOutOfBoundsException("size " + size + " capacity " + buf.length);
+        }
+        count = size;
+    }
+}
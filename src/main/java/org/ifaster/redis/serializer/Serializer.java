@@ -2,6 +2,8 @@ package org.ifaster.redis.serializer;
 
 import org.ifaster.redis.exception.SerializationException;
 
+import java.util.Arrays;
+
 /**
  * 序列化和反序列化
  *
@@ -28,4 +30,36 @@ public interface Serializer<T> {
      * @throws SerializationException
      */
     <T> T deserialize(byte[] data, Class<T> clz) throws SerializationException;
+
+    /**
+     * 序列化对象到可复用的缓冲区，默认先序列化成byte数组再写入，实现类可以直接写入避免中间数组
+     *
+     * @param value  对象值
+     * @param buffer 缓冲区
+     * @throws SerializationException
+     */
+    default void serialize(T value, SerializeBuffer buffer) throws SerializationException {
+        byte[] data = serialize(value);
+        if (data != null) {
+            buffer.write(data, 0, data.length);
+        }
+    }
+
+    /**
+     * 从byte数组的一段反序列化，默认复制这一段后反序列化，实现类可以直接读取避免复制
+     *
+     * @param data   byte数组
+     * @param offset 开始位置
+     * @param length 长度
+     * @param clz    反序列化的类型
+     * @param <T>
+     * @return
+     * @throws SerializationException
+     */
+    default <T> T deserialize(byte[] data, int offset, int length, Class<T> clz) throws SerializationException {
+        if (data == null || (offset == 0 && length == data.length)) {
+            return deserialize(data, clz);
+        }
+        return deserialize(Arrays.copyOfRange(data, offset, offset + length), clz);
+    }
 }
@@ -0,0 +1,124 @@
+package org.ifaster.redis.test;
+
+import org.ifaster.redis.client.support.RedisClientSupport;
+import org.ifaster.redis.configuration.RedisProperties;
+import org.ifaster.redis.test.proxy.FaultProxy;
+import org.ifaster.redis.test.proxy.FaultProxyCluster;
+import org.ifaster.redis.test.server.EmbeddedRedisCluster;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 自动pipeline测试：合并、MOVED/ASK和连接重置时回退到直接执行
+ */
+public class AutoPipelineTest {
+
+    private static final int THREADS = 16;
+
+    private static EmbeddedRedisCluster cluster;
+    private static FaultProxyCluster proxy;
+    private static ExecutorService executor;
+
+    @BeforeClass
+    public static void start() {
+        cluster = new EmbeddedRedisCluster(3);
+        proxy = new FaultProxyCluster(cluster.getNodes());
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterClass
+    public static void stop() {
+        executor.shutdownNow();
+        proxy.close();
+        cluster.close();
+    }
+
+    @Before
+    public void reset() {
+        proxy.heal();
+        cluster.setLatencyMillis(0);
+        cluster.flushAll();
+        cluster.resetStats();
+    }
+
+    private static RedisProperties properties(String name, String nodes) {
+        RedisProperties properties = new RedisProperties();
+        properties.setName(name);
+        properties.setPrefix("pipe:");
+        properties.setCluster(nodes);
+        properties.setAutoPipeline(true);
+        properties.setAutoPipelineWindowMicros(2000);
+        properties.setMaxAttempts(5);
+        return properties;
+    }
+
+    /**
+     * 每个线程读写自己的key，检查读到的都是自己写入的值
+     */
+    private static void concurrently(RedisClientSupport client, int rounds) throws Exception {
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures.add(executor.submit((Callable<Void>) () -> {
+                for (int i = 0; i < rounds; i++) {
+                    String key = "k" + thread + ":" + i;
+                    Assert.assertEquals("OK", client.set(key, 60, i));
+                    Assert.assertEquals(Integer.valueOf(i), client.get(key, Integer.class));
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void testBatching() throws Exception {
+        try (RedisClientSupport client = new RedisClientSupport(properties("batching", cluster.getNodes()))) {
+            concurrently(client, 50);
+            //每个命令只到达服务端一次，并发的命令合并成pipeline
+            Assert.assertEquals(THREADS * 50, cluster.getCommandCount("get"));
+            Assert.assertEquals(THREADS * 50, cluster.getCommandCount("setex"));
+            Assert.assertTrue(cluster.getMaxPipelined() > 1);
+        }
+    }
+
+    @Test
+    public void testAskFallback() throws Exception {
+        try (RedisClientSupport client = new RedisClientSupport(properties("ask", proxy.getNodes()))) {
+            proxy.proxies().get(0).setAskProbability(1);
+            concurrently(client, 20);
+        }
+    }
+
+    @Test
+    public void testMovedFallback() throws Exception {
+        try (RedisClientSupport client = new RedisClientSupport(properties("moved", proxy.getNodes()))) {
+            proxy.configure(p -> p.setMovedProbability(0.05));
+            concurrently(client, 20);
+        }
+    }
+
+    @Test
+    public void testConnectionResetFallback() throws Exception {
+        try (RedisClientSupport client = new RedisClientSupport(properties("reset", proxy.getNodes()))) {
+            concurrently(client, 5);
+            //刷新线程持有的连接被重置，pipeline失败的命令由调用线程直接执行
+            proxy.configure(FaultProxy::resetConnections);
+            Thread.sleep(50);
+            concurrently(client, 5);
+        }
+    }
+}
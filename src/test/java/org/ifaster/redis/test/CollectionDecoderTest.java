@@ -0,0 +1,220 @@
+package org.ifaster.redis.test;
+
+import org.ifaster.redis.client.support.RedisClientSupport;
+import org.ifaster.redis.configuration.RedisProperties;
+import org.ifaster.redis.serializer.Serializer;
+import org.ifaster.redis.test.server.EmbeddedRedisCluster;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * 集合结果反序列化测试：懒加载视图和并行反序列化
+ */
+public class CollectionDecoderTest {
+
+    private static EmbeddedRedisCluster cluster;
+    private static final AtomicInteger deserialized = new AtomicInteger();
+
+    /**
+     * 数字按十进制文本存储，"nil"反序列化为null，统计反序列化次数
+     */
+    private static class CountingSerializer implements Serializer<Object> {
+        @Override
+        public byte[] serialize(Object value) {
+            return String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T deserialize(byte[] data, Class<T> clz) {
+            deserialized.incrementAndGet();
+            if (data == null) {
+                return null;
+            }
+            String s = new String(data, StandardCharsets.UTF_8);
+            return "nil".equals(s) ? null : (T) Integer.valueOf(s);
+        }
+    }
+
+    @BeforeClass
+    public static void start() {
+        cluster = new EmbeddedRedisCluster(3);
+    }
+
+    @AfterClass
+    public static void stop() {
+        cluster.close();
+    }
+
+    @Before
+    public void flush() {
+        cluster.flushAll();
+        deserialized.set(0);
+    }
+
+    private static RedisClientSupport client(boolean lazy, int parallelThreshold) {
+        RedisProperties properties = new RedisProperties();
+        properties.setName("decoder");
+        properties.setPrefix("decoder:");
+        properties.setCluster(cluster.getNodes());
+        properties.setLazyDeserialize(lazy);
+        properties.setParallelDeserializeThreshold(parallelThreshold);
+        return new RedisClientSupport(properties, new CountingSerializer(), null);
+    }
+
+    private static void fill(RedisClientSupport client, int size) {
+        Map<String, Object> hash = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            client.rpush("list", i);
+            client.sadd("set", i);
+            hash.put("f" + i, i);
+        }
+        client.hmset("hash", hash);
+        deserialized.set(0);
+    }
+
+    private static List<Integer> range(int size) {
+        return IntStream.range(0, size).boxed().collect(Collectors.toList());
+    }
+
+    private static Map<String, Integer> hash(int size) {
+        return IntStream.range(0, size).boxed().collect(Collectors.toMap(i -> "f" + i, i -> i));
+    }
+
+    @Test
+    public void testLazyList() {
+        try (RedisClientSupport client = client(true, 0)) {
+            client.rpush("list", 1);
+            client.rpush("list", "nil");
+            client.rpush("list", 3);
+            deserialized.set(0);
+            List<Integer> list = client.lrange("list", 0, -1, Integer.class);
+            Assert.assertEquals(0, deserialized.get());
+            Assert.assertEquals(3, list.size());
+            //反序列化为null的元素也只反序列化一次
+            Assert.assertNull(list.get(1));
+            Assert.assertNull(list.get(1));
+            Assert.assertEquals(1, deserialized.get());
+            Assert.assertEquals(Arrays.asList(1, null, 3), list);
+            Assert.assertEquals(Arrays.asList(1, null, 3).hashCode(), list.hashCode());
+            Assert.assertEquals(3, deserialized.get());
+            try {
+                list.add(4);
+                Assert.fail();
+            } catch (UnsupportedOperationException e) {
+                //只读
+            }
+        }
+    }
+
+    @Test
+    public void testLazyMap() {
+        try (RedisClientSupport client = client(true, 0)) {
+            fill(client, 10);
+            Map<String, Integer> map = client.hgetAll("hash", Integer.class);
+            Assert.assertEquals(0, deserialized.get());
+            Assert.assertEquals(Integer.valueOf(5), map.get("f5"));
+            Assert.assertNull(map.get("missing"));
+            Assert.assertTrue(map.containsKey("f9"));
+            Assert.assertEquals(1, deserialized.get());
+            Map<String, Integer> copy = new HashMap<>();
+            for (Map.Entry<String, Integer> e : map.entrySet()) {
+                copy.put(e.getKey(), e.getValue());
+            }
+            Assert.assertEquals(hash(10), copy);
+            Assert.assertEquals(10, deserialized.get());
+            Assert.assertEquals(hash(10), map);
+            Assert.assertEquals(map, hash(10));
+            Assert.assertEquals(hash(10).hashCode(), map.hashCode());
+            Assert.assertEquals(hash(10).entrySet(), map.entrySet());
+            try {
+                map.put("f10", 10);
+                Assert.fail();
+            } catch (UnsupportedOperationException e) {
+                //只读
+            }
+            try {
+                map.entrySet().iterator().next().setValue(1);
+                Assert.fail();
+            } catch (UnsupportedOperationException e) {
+                //只读
+            }
+        }
+    }
+
+    @Test
+    public void testLazySet() {
+        try (RedisClientSupport client = client(true, 0)) {
+            fill(client, 10);
+            Set<Integer> set = client.smembers("set", Integer.class);
+            Assert.assertEquals(0, deserialized.get());
+            Assert.assertEquals(10, set.size());
+            Assert.assertTrue(set.contains(3));
+            Assert.assertFalse(set.contains(10));
+            Assert.assertEquals(new HashSet<>(range(10)), set);
+            Assert.assertEquals(new HashSet<>(range(10)), new HashSet<>(set));
+            //contains整体反序列化一次后不再反序列化
+            Assert.assertEquals(10, deserialized.get());
+            try {
+                set.add(10);
+                Assert.fail();
+            } catch (UnsupportedOperationException e) {
+                //只读
+            }
+        }
+    }
+
+    @Test
+    public void testParallel() {
+        try (RedisClientSupport client = client(false, 16)) {
+            fill(client, 100);
+            List<Integer> list = client.lrange("list", 0, -1, Integer.class);
+            Assert.assertEquals(range(100), list);
+            Assert.assertEquals(new HashSet<>(range(100)), client.smembers("set", Integer.class));
+            Assert.assertEquals(hash(100), client.hgetAll("hash", Integer.class));
+            Assert.assertEquals(300, deserialized.get());
+            //未开启lazy时返回可修改的集合
+            list.add(100);
+            //小于阈值时逐个反序列化
+            Assert.assertEquals(range(10), client.lrange("list", 0, 9, Integer.class));
+        }
+    }
+
+    @Test
+    public void testParallelReadOnly() {
+        try (RedisClientSupport client = client(true, 16)) {
+            fill(client, 100);
+            List<Integer> list = client.lrange("list", 0, -1, Integer.class);
+            //超过阈值时直接并行反序列化全部元素
+            Assert.assertEquals(100, deserialized.get());
+            Assert.assertEquals(range(100), list);
+            Set<Integer> set = client.smembers("set", Integer.class);
+            Map<String, Integer> map = client.hgetAll("hash", Integer.class);
+            Assert.assertEquals(new HashSet<>(range(100)), set);
+            Assert.assertEquals(hash(100), map);
+            //开启lazy时并行结果同样只读，可以共享给并发请求
+            for (Runnable write : Arrays.<Runnable>asList(() -> list.add(1), () -> set.add(1), () -> map.put("f", 1))) {
+                try {
+                    write.run();
+                    Assert.fail();
+                } catch (UnsupportedOperationException e) {
+                    //只读
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,610 @@
+package org.ifaster.redis.test;
+
+import org.ifaster.redis.client.support.RedisClientSupport;
+import org.ifaster.redis.configuration.RedisProperties;
+import org.ifaster.redis.event.RedisCommandEvent;
+import org.ifaster.redis.event.RedisEvent;
+import org.ifaster.redis.exception.RedisOperationException;
+import org.ifaster.redis.exception.SerializationException;
+import org.ifaster.redis.listener.AsyncRedisEventListener;
+import org.ifaster.redis.listener.DefaultRedisEventListener;
+import org.ifaster.redis.listener.MetricsRedisEventListener;
+import org.ifaster.redis.listener.RedisEventListener;
+import org.ifaster.redis.listener.RedisEventListenerChain;
+import org.ifaster.redis.metrics.LatencyHistogram;
+import org.ifaster.redis.metrics.LatencyMetrics;
+import org.ifaster.redis.metrics.MetricsRegistrar;
+import org.ifaster.redis.metrics.SlowLogEntry;
+import org.ifaster.redis.serializer.Serializer;
+import org.ifaster.redis.test.server.EmbeddedRedisCluster;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * 使用内嵌集群的命令测试，不需要真实的redis
+ */
+public class EmbeddedRedisTest {
+
+    private static EmbeddedRedisCluster cluster;
+    private static RedisClientSupport client;
+
+    @BeforeClass
+    public static void start() {
+        cluster = new EmbeddedRedisCluster(3);
+        client = new RedisClientSupport("test:", null, cluster.getNodes());
+    }
+
+    @AfterClass
+    public static void stop() {
+        client.close();
+        cluster.close();
+    }
+
+    @Before
+    public void flush() {
+        cluster.setLatencyMillis(0);
+        cluster.flushAll();
+    }
+
+    @Test
+    public void testString() {
+        Assert.assertEquals("OK", client.set("name", 10, "embedded"));
+        Assert.assertEquals("embedded", client.get("name", String.class));
+        Assert.assertTrue(client.exists("name"));
+        Assert.assertEquals("embedded", client.getSet("name", "other", String.class));
+        Assert.assertEquals(5, client.incrBy("counter", 5));
+        Assert.assertEquals(5, client.getLong("counter", 0));
+        Assert.assertEquals(2, client.delete("name", "counter"));
+        Assert.assertNull(client.get("name", String.class));
+    }
+
+    @Test
+    public void testBatchAcrossNodes() {
+        Map<String, Object> map = new HashMap<>();
+        IntStream.range(0, 100).forEach(i -> map.put("k" + i, i));
+        client.mset(map, 60);
+        List<String> keys = IntStream.range(0, 100).mapToObj(i -> "k" + i).collect(Collectors.toList());
+        List<Integer> values = client.mget(keys, Integer.class);
+        Assert.assertEquals(IntStream.range(0, 100).boxed().collect(Collectors.toList()), values);
+        Set<String> scanned = client.scan("k*", 10).collect(Collectors.toSet());
+        Assert.assertEquals(100, scanned.size());
+        Assert.assertEquals(100, client.delete(keys.toArray(new String[0])));
+    }
+
+    @Test
+    public void testHash() {
+        client.hset("hash", "a", 1);
+        client.hmset("hash", new HashMap<String, Object>() {{
+            put("b", 2);
+            put("c", 3);
+        }});
+        Assert.assertEquals(3, client.hlen("hash"));
+        Assert.assertEquals(Integer.valueOf(2), client.hget("hash", "b", Integer.class));
+        Assert.assertEquals(13, client.hincrBy("hash", "c", 10));
+        Assert.assertArrayEquals(new long[]{1, 2, 13, -1}, client.hmgetLongs("hash", -1, "a", "b", "c", "d"));
+        Assert.assertEquals(3, client.hgetAll("hash", Object.class).size());
+        Assert.assertEquals(3, client.hscan("hash", 10, Object.class).count());
+        Assert.assertEquals(0, client.hsetnx("hash", "a", 5));
+        Assert.assertEquals(1, client.hdel("hash", "a"));
+    }
+
+    @Test
+    public void testNumberParseError() throws Exception {
+        client.set("num", 10, "abc");
+        client.hset("nums", "a", "abc");
+        client.hset("nums", "b", 2);
+        //默认监听器抛出异常
+        try {
+            client.getLong("num", 0);
+            Assert.fail();
+        } catch (RedisOperationException e) {
+            Assert.assertTrue(e.getCause() instanceof SerializationException);
+        }
+        List<String> errors = new CopyOnWriteArrayList<>();
+        List<String> completed = new CopyOnWriteArrayList<>();
+        RedisEventListener listener = new RedisEventListener() {
+            @Override
+            public void error(RedisEvent event, Throwable e) {
+                errors.add(((RedisCommandEvent) event).getCommand() + ":" + ((RedisCommandEvent) event).getError());
+            }
+
+            @Override
+            public void complete(RedisEvent event) {
+                completed.add(((RedisCommandEvent) event).getCommand());
+            }
+        };
+        try (RedisClientSupport quiet = new RedisClientSupport("test:", null, cluster.getNodes(), listener)) {
+            //解析失败与命令异常一样通知监听器，返回默认值
+            Assert.assertEquals(-1L, quiet.getLong("num", -1L));
+            Assert.assertEquals(-1.0D, quiet.getDouble("num", -1.0D), 0.0D);
+            Assert.assertEquals(-1L, quiet.hgetLong("nums", "a", -1L));
+            Assert.assertArrayEquals(new long[]{-1L, -1L}, quiet.hmgetLongs("nums", -1L, "a", "b"));
+            Assert.assertEquals(Arrays.asList("get:SerializationException", "get:SerializationException",
+                    "hget:SerializationException", "hmget:SerializationException"), errors);
+            Assert.assertEquals(Arrays.asList("get", "get", "hget", "hmget"), completed);
+            Assert.assertEquals(2L, quiet.hgetLong("nums", "b", -1L));
+            Assert.assertEquals(4, errors.size());
+        }
+    }
+
+    @Test
+    public void testDeserializeError() {
+        List<String> errors = new CopyOnWriteArrayList<>();
+        RedisEventListener listener = new RedisEventListener() {
+            @Override
+            public void error(RedisEvent event, Throwable e) {
+                errors.add(((RedisCommandEvent) event).getCommand() + ":" + ((RedisCommandEvent) event).getError());
+            }
+        };
+        Serializer<Object> failing = new Serializer<Object>() {
+            @Override
+            public byte[] serialize(Object value) {
+                return String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+            }
+
+            @Override
+            public <T> T deserialize(byte[] data, Class<T> clz) {
+                throw new SerializationException("broken");
+            }
+        };
+        RedisProperties properties = new RedisProperties();
+        properties.setName("decode");
+        properties.setPrefix("test:");
+        properties.setCluster(cluster.getNodes());
+        try (RedisClientSupport quiet = new RedisClientSupport(properties, failing, listener)) {
+            quiet.set("broken", 10, "v");
+            quiet.hset("brokenHash", "f", "v");
+            //反序列化失败与命令异常一样通知监听器，监听器不抛出时返回null
+            Assert.assertNull(quiet.get("broken", String.class));
+            Assert.assertNull(quiet.hget("brokenHash", "f", String.class));
+            Assert.assertEquals(Arrays.asList("get:SerializationException", "hget:SerializationException"), errors);
+        }
+    }
+
+    @Test
+    public void testResponseBytes() {
+        Map<String, Long> responseBytes = new HashMap<>();
+        RedisEventListener listener = new RedisEventListener() {
+            @Override
+            public void complete(RedisEvent event) {
+                RedisCommandEvent ev = (RedisCommandEvent) event;
+                responseBytes.put(ev.getCommand(), ev.getResponseBytes());
+            }
+        };
+        try (RedisClientSupport c = new RedisClientSupport("test:", null, cluster.getNodes(), listener)) {
+            c.zadd("zset", "a", 1);
+            c.zadd("zset", "bc", 2);
+            c.rpush("list", "a");
+            c.rpush("list", "bc");
+            Assert.assertEquals(Arrays.asList("a", "bc"), c.zrange("zset", 0, -1, String.class));
+            Assert.assertEquals(Arrays.asList("bc", "a"), c.zrevrange("zset", 0, -1, String.class));
+            Assert.assertEquals(Arrays.asList("a", "bc"), c.lrange("list", 0, -1, String.class));
+            //集合结果按元素的原始字节数累计，相同元素的结果字节数一致
+            long expected = responseBytes.get("lrange");
+            Assert.assertTrue(expected > 0);
+            Assert.assertEquals(expected, responseBytes.get("zrange").longValue());
+            Assert.assertEquals(expected, responseBytes.get("zrevrange").longValue());
+        }
+    }
+
+    @Test
+    public void testListSetZset() {
+        client.rpush("list", "a");
+        client.rpush("list", "b");
+        client.rpush("list", "a");
+        Assert.assertEquals(Arrays.asList("a", "b", "a"), client.lrange("list", 0, -1, String.class));
+        Assert.assertEquals(2, client.lrem("list", 0, "a"));
+        Assert.assertEquals("b", client.lpop("list", String.class));
+        Assert.assertEquals(0, client.llen("list"));
+
+        Assert.assertEquals(2, client.sadd("set", "x", "y"));
+        Assert.assertTrue(client.sismember("set", "x"));
+        Assert.assertEquals(2, client.smembers("set", String.class).size());
+        Assert.assertEquals(1, client.srem("set", "x"));
+
+        client.zadd("zset", "a", 3);
+        client.zadd("zset", "b", 1);
+        client.zadd("zset", "c", 2);
+        Assert.assertEquals(Arrays.asList("b", "c", "a"), client.zrange("zset", 0, -1, String.class));
+        Assert.assertEquals(Arrays.asList("a", "c"), client.zrevrange("zset", 0, 1, String.class));
+        Assert.assertEquals(2, client.zcount("zset", 1.5, 3));
+        Assert.assertEquals(0, client.zrank("zset", "b"));
+        Assert.assertEquals(3.0, client.zscore("zset", "a", 0), 0);
+        Assert.assertEquals(1, client.zrem("zset", "a"));
+        Assert.assertEquals(2, client.zcard("zset"));
+    }
+
+    @Test
+    public void testExpire() {
+        client.set("expire", 1, "v");
+        Assert.assertEquals(1, client.expireAt("expire", (int) (System.currentTimeMillis() / 1000) - 1));
+        Assert.assertFalse(client.exists("expire"));
+    }
+
+    @Test
+    public void testLatency() {
+        client.set("latency", 10, "v");
+        cluster.setLatencyMillis(50);
+        long start = System.nanoTime();
+        Assert.assertEquals("v", client.get("latency", String.class));
+        Assert.assertTrue(System.nanoTime() - start >= 50_000_000L);
+    }
+
+    @Test
+    public void testEventListener() {
+        Assert.assertFalse(RedisEventListenerChain.of(new DefaultRedisEventListener()).isActive());
+        List<RedisCommandEvent> completed = new ArrayList<>();
+        List<RedisEvent> errors = new ArrayList<>();
+        RedisEventListener listener = new RedisEventListener() {
+            @Override
+            public void error(RedisEvent event, Throwable e) {
+                errors.add(event);
+            }
+
+            @Override
+            public void complete(RedisEvent event) {
+                completed.add((RedisCommandEvent) event);
+            }
+        };
+        RedisProperties properties = new RedisProperties();
+        properties.setPrefix("test:");
+        properties.setCluster(cluster.getNodes());
+        try (RedisClientSupport c = new RedisClientSupport(properties, null, listener)) {
+            c.set("event", 10, "v");
+            Assert.assertEquals(1, completed.size());
+            Assert.assertEquals("setex", completed.get(0).getCommand());
+            Assert.assertTrue(completed.get(0).getDurationNanos() > 0);
+        }
+        //不采样时不通知before/complete，异常仍然交给监听器
+        properties.setEventSampleRate(0);
+        completed.clear();
+        try (RedisClientSupport c = new RedisClientSupport(properties, null, listener)) {
+            c.set("event", 10, "v");
+            Assert.assertNull(c.hget("event", "f", String.class));
+            Assert.assertTrue(completed.isEmpty());
+            Assert.assertEquals(1, errors.size());
+            Assert.assertEquals("hget", ((RedisCommandEvent) errors.get(0)).getCommand());
+        }
+    }
+
+    @Test
+    public void testAsyncListener() throws InterruptedException {
+        List<String> threads = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(1);
+        RedisEventListener listener = new RedisEventListener() {
+            @Override
+            public void complete(RedisEvent event) {
+                threads.add(Thread.currentThread().getName());
+                done.countDown();
+            }
+        };
+        RedisProperties properties = new RedisProperties();
+        properties.setName("async");
+        properties.setPrefix("test:");
+        properties.setCluster(cluster.getNodes());
+        properties.setAsyncListener(true);
+        try (RedisClientSupport c = new RedisClientSupport(properties, null, listener)) {
+            c.set("event", 10, "v");
+            Assert.assertTrue(done.await(5, TimeUnit.SECONDS));
+            Assert.assertEquals("redis-event-async", threads.get(0));
+        }
+        //缓冲区满时丢弃，不阻塞调用线程
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger received = new AtomicInteger();
+        RedisEventListenerChain chain = RedisEventListenerChain.of(new RedisEventListener() {
+            @Override
+            public void complete(RedisEvent event) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                received.incrementAndGet();
+            }
+        }).async("drop", 2, AsyncRedisEventListener.DropPolicy.DROP);
+        for (int i = 0; i < 10; i++) {
+            chain.complete(RedisCommandEvent.builder().command("get").build());
+        }
+        release.countDown();
+        chain.close();
+        Assert.assertTrue(received.get() > 0 && received.get() <= 3);
+    }
+
+    @Test
+    public void testAsyncListenerCallerRuns() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> received = new CopyOnWriteArrayList<>();
+        AtomicInteger concurrent = new AtomicInteger();
+        AtomicInteger maxConcurrent = new AtomicInteger();
+        RedisEventListenerChain chain = RedisEventListenerChain.of(new RedisEventListener() {
+            @Override
+            public void complete(RedisEvent event) {
+                maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                received.add(((RedisCommandEvent) event).getCommand());
+                concurrent.decrementAndGet();
+            }
+        }).async("callerRuns", 2, AsyncRedisEventListener.DropPolicy.CALLER_RUNS);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            //通知线程阻塞在第一个事件上，缓冲区满后调用线程等待通知线程，再按顺序通知
+            Future<?> releasing = executor.submit(() -> {
+                Thread.sleep(200);
+                release.countDown();
+                return null;
+            });
+            for (int i = 0; i < 10; i++) {
+                chain.complete(RedisCommandEvent.builder().command("c" + i).build());
+            }
+            releasing.get(5, TimeUnit.SECONDS);
+            chain.close();
+            Assert.assertEquals(IntStream.range(0, 10).mapToObj(i -> "c" + i).collect(Collectors.toList()), received);
+            Assert.assertEquals(1, maxConcurrent.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testAsyncListenerIdle() throws Exception {
+        AtomicInteger received = new AtomicInteger();
+        AtomicLong threadId = new AtomicLong();
+        RedisEventListenerChain chain = RedisEventListenerChain.of(new RedisEventListener() {
+            @Override
+            public void complete(RedisEvent event) {
+                threadId.set(Thread.currentThread().getId());
+                received.incrementAndGet();
+            }
+        }).async("idle", 16, AsyncRedisEventListener.DropPolicy.DROP);
+        try {
+            chain.complete(RedisCommandEvent.builder().command("get").build());
+            awaitCount(received, 1, TimeUnit.SECONDS.toNanos(5));
+            //空闲时通知线程park，不持续占用cpu
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            Thread.sleep(100);
+            long cpu = threads.getThreadCpuTime(threadId.get());
+            Thread.sleep(1000);
+            Assert.assertTrue(threads.getThreadCpuTime(threadId.get()) - cpu < TimeUnit.MILLISECONDS.toNanos(20));
+            //park后由生产者唤醒
+            chain.complete(RedisCommandEvent.builder().command("get").build());
+            awaitCount(received, 2, TimeUnit.MILLISECONDS.toNanos(50));
+        } finally {
+            chain.close();
+        }
+    }
+
+    private static void awaitCount(AtomicInteger count, int expected, long timeoutNanos) throws InterruptedException {
+        long deadline = System.nanoTime() + timeoutNanos;
+        while (count.get() < expected) {
+            Assert.assertTrue(System.nanoTime() - deadline < 0);
+            Thread.sleep(1);
+        }
+    }
+
+    @Test
+    public void testSingleFlight() throws Exception {
+        RedisProperties properties = new RedisProperties();
+        properties.setName("flight");
+        properties.setPrefix("test:");
+        properties.setCluster(cluster.getNodes());
+        properties.setSingleFlight(true);
+        properties.setMaxTotal(32);
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (RedisClientSupport c = new RedisClientSupport(properties)) {
+            c.set("flight", 10, "v");
+            c.rpush("flightList", "a");
+            c.rpush("flightList", "b");
+            cluster.setLatencyMillis(200);
+            cluster.resetStats();
+            CountDownLatch ready = new CountDownLatch(1);
+            List<Future<String>> gets = new ArrayList<>();
+            List<Future<List<String>>> lists = new ArrayList<>();
+            for (int i = 0; i < threads / 2; i++) {
+                gets.add(executor.submit(() -> {
+                    ready.await();
+                    return c.get("flight", String.class);
+                }));
+                lists.add(executor.submit(() -> {
+                    ready.await();
+                    return c.lrange("flightList", 0, -1, String.class);
+                }));
+            }
+            ready.countDown();
+            for (Future<String> get : gets) {
+                Assert.assertEquals("v", get.get(5, TimeUnit.SECONDS));
+            }
+            List<List<String>> results = new ArrayList<>();
+            for (Future<List<String>> list : lists) {
+                results.add(list.get(5, TimeUnit.SECONDS));
+            }
+            //并发的相同读请求只有一次往返
+            Assert.assertEquals(1, cluster.getCommandCount("get"));
+            Assert.assertEquals(1, cluster.getCommandCount("lrange"));
+            //集合结果每个调用线程拿到各自的副本
+            Assert.assertEquals(results.size(), results.stream().map(System::identityHashCode).distinct().count());
+            results.get(0).add("c");
+            for (int i = 1; i < results.size(); i++) {
+                Assert.assertEquals(Arrays.asList("a", "b"), results.get(i));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testSingleFlightInvalidate() throws Exception {
+        RedisProperties properties = new RedisProperties();
+        properties.setName("flightInvalidate");
+        properties.setPrefix("test:");
+        properties.setCluster(cluster.getNodes());
+        properties.setSingleFlight(true);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try (RedisClientSupport c = new RedisClientSupport(properties)) {
+            c.set("flight", 10, "v1");
+            cluster.setLatencyMillis(300);
+            Future<String> before = executor.submit(() -> c.get("flight", String.class));
+            Thread.sleep(100);
+            cluster.setLatencyMillis(0);
+            c.set("flight", 10, "v2");
+            //写之后开始的读不加入写之前开始的请求
+            Future<String> after = executor.submit(() -> c.get("flight", String.class));
+            Assert.assertEquals("v2", after.get(5, TimeUnit.SECONDS));
+            Assert.assertEquals("v1", before.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testMetrics() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.interval();
+        Assert.assertEquals(1000, snapshot.getCount());
+        Assert.assertEquals(990_000, snapshot.percentile(99), 990_000 / 32);
+        Assert.assertEquals(0, histogram.interval().getCount());
+
+        List<String> registered = new ArrayList<>();
+        RedisProperties properties = new RedisProperties();
+        properties.setName("metrics");
+        properties.setPrefix("test:");
+        properties.setCluster(cluster.getNodes());
+        properties.setMetrics(true);
+        try (RedisClientSupport c = new RedisClientSupport(properties, null, new DefaultRedisEventListener() {
+            @Override
+            public void error(RedisEvent event, Throwable e) {
+            }
+        })) {
+            MetricsRedisEventListener metrics = c.getMetrics();
+            metrics.setRegistrar(new MetricsRegistrar() {
+                @Override
+                public void register(String cluster, LatencyMetrics m) {
+                    registered.add(cluster + ":" + m.getDimension() + ":" + m.getName());
+                }
+
+                @Override
+                public void registerError(String cluster, LatencyMetrics m, String error, LongAdder counter) {
+                    registered.add(cluster + ":" + m.getName() + ":" + error);
+                }
+            });
+            c.set("metrics", 10, "value");
+            Assert.assertEquals("value", c.get("metrics", String.class));
+            c.hget("metrics", "f", String.class);
+            LatencyMetrics setex = metrics.getCommands().get("setex");
+            Assert.assertEquals(1, setex.getTotal().getCount());
+            Assert.assertTrue(setex.getRequestBytes() > 0);
+            Assert.assertEquals(setex.getRequestBytes(), metrics.getCommands().get("get").getResponseBytes());
+            Assert.assertEquals(1, metrics.getCommands().get("hget").getErrors().size());
+            Assert.assertEquals(1, metrics.getNodes().size());
+            String node = metrics.getNodes().keySet().iterator().next();
+            Assert.assertTrue(node, cluster.getNodes().contains(node));
+            Assert.assertTrue(registered.contains("metrics:command:setex"));
+            Assert.assertTrue(registered.contains("metrics:node:" + node));
+        }
+    }
+
+    @Test
+    public void testSlowLog() throws Exception {
+        RedisProperties properties = new RedisProperties();
+        properties.setName("slow");
+        properties.setPrefix("test:");
+        properties.setCluster(cluster.getNodes());
+        properties.setSlowLog(true);
+        properties.setSlowLogThresholdMillis(20);
+        try (RedisClientSupport c = new RedisClientSupport(properties)) {
+            c.set("fast", 10, "v");
+            cluster.setLatencyMillis(30);
+            c.set("slow", 10, "value");
+            cluster.setLatencyMillis(0);
+            List<SlowLogEntry> entries = c.getSlowLog().getEntries();
+            Assert.assertEquals(1, entries.size());
+            SlowLogEntry entry = entries.get(0);
+            Assert.assertEquals("setex", entry.getCommand());
+            Assert.assertEquals("slow", entry.getKey());
+            Assert.assertTrue(entry.getNetworkMicros() >= 30_000);
+            Assert.assertTrue(entry.getRequestBytes() > 0);
+            Assert.assertTrue(cluster.getNodes().contains(entry.getNode()));
+            ObjectName name = new ObjectName("org.ifaster.redis:type=SlowLog,name=\"slow\"");
+            Assert.assertEquals(1L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Count"));
+            CompositeData[] data = (CompositeData[]) ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Entries");
+            Assert.assertEquals("setex", data[0].get("command"));
+        }
+    }
+
+    @Test
+    public void testJfrEvents() throws Exception {
+        RedisProperties properties = new RedisProperties();
+        properties.setName("jfr");
+        properties.setPrefix("test:");
+        properties.setCluster(cluster.getNodes());
+        properties.setJfrEvents(true);
+        Path file = Files.createTempFile("redis", ".jfr");
+        try (RedisClientSupport c = new RedisClientSupport(properties); Recording recording = new Recording()) {
+            //没有录制时不提交
+            c.set("user:1", 10, "v");
+            recording.enable("org.ifaster.redis.Command");
+            recording.start();
+            c.set("user:2", 10, "value");
+            Assert.assertEquals("value", c.get("user:2", String.class));
+            recording.stop();
+            recording.dump(file);
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                    .filter(e -> "org.ifaster.redis.Command".equals(e.getEventType().getName()))
+                    .collect(Collectors.toList());
+            Assert.assertEquals(2, events.size());
+            RecordedEvent set = events.get(0);
+            Assert.assertEquals("setex", set.getString("command"));
+            Assert.assertEquals("user:", set.getString("keyPrefix"));
+            Assert.assertEquals("jfr", set.getString("cluster"));
+            Assert.assertTrue(cluster.getNodes().contains(set.getString("node")));
+            Assert.assertTrue(set.getLong("requestBytes") > 0);
+            Assert.assertTrue(events.get(1).getLong("responseBytes") > 0);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test(expected = RedisOperationException.class)
+    public void testErrorWithoutListener() {
+        client.set("wrongType", 10, "v");
+        client.hget("wrongType", "f", String.class);
+    }
+}
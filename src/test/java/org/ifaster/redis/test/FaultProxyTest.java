@@ -0,0 +1,154 @@
+package org.ifaster.redis.test;
+
+import org.ifaster.redis.client.support.RedisClientSupport;
+import org.ifaster.redis.configuration.RedisProperties;
+import org.ifaster.redis.event.RedisEvent;
+import org.ifaster.redis.exception.RedisOperationException;
+import org.ifaster.redis.listener.RedisEventListener;
+import org.ifaster.redis.metrics.NodeMetrics;
+import org.ifaster.redis.metrics.TopologyMetrics;
+import org.ifaster.redis.test.proxy.FaultProxy;
+import org.ifaster.redis.test.proxy.FaultProxyCluster;
+import org.ifaster.redis.test.proxy.LatencyDistribution;
+import org.ifaster.redis.test.server.EmbeddedRedisCluster;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+/**
+ * 故障注入代理测试
+ */
+public class FaultProxyTest {
+
+    private static EmbeddedRedisCluster cluster;
+    private static FaultProxyCluster proxy;
+    private static RedisClientSupport client;
+
+    @BeforeClass
+    public static void start() {
+        cluster = new EmbeddedRedisCluster(3);
+        proxy = new FaultProxyCluster(cluster.getNodes());
+        client = new RedisClientSupport("fault:", null, proxy.getNodes());
+    }
+
+    @AfterClass
+    public static void stop() {
+        client.close();
+        proxy.close();
+        cluster.close();
+    }
+
+    @Before
+    public void heal() {
+        proxy.heal();
+    }
+
+    @Test
+    public void testClusterSlotsRewritten() {
+        FaultProxy first = proxy.proxies().get(0);
+        String[] address = first.getAddress().split(":");
+        try (Jedis jedis = new Jedis(address[0], Integer.parseInt(address[1]))) {
+            for (Object slot : jedis.clusterSlots()) {
+                List<Object> master = (List<Object>) ((List<Object>) slot).get(2);
+                String node = new String((byte[]) master.get(0)) + ":" + master.get(1);
+                Assert.assertTrue(node, proxy.getNodes().contains(node));
+            }
+        }
+    }
+
+    @Test
+    public void testLatency() {
+        client.set("latency", 10, "v");
+        proxy.configure(p -> p.setLatency(LatencyDistribution.fixed(30)));
+        long start = System.nanoTime();
+        Assert.assertEquals("v", client.get("latency", String.class));
+        Assert.assertTrue(System.nanoTime() - start >= 30_000_000L);
+    }
+
+    @Test
+    public void testScanNodeFailure() {
+        RedisProperties properties = new RedisProperties();
+        properties.setName("scanFault");
+        properties.setPrefix("fault:");
+        properties.setCluster(proxy.getNodes());
+        //监听器不抛出异常
+        try (RedisClientSupport quiet = new RedisClientSupport(properties, null, new RedisEventListener() {
+            @Override
+            public void error(RedisEvent event, Throwable e) {
+            }
+        })) {
+            for (int i = 0; i < 30; i++) {
+                quiet.set("scan" + i, 10, i);
+            }
+            Assert.assertEquals(30, quiet.scan("scan*", 10).count());
+            proxy.proxies().get(1).setResetProbability(1);
+            //一个节点读取失败时不能静默结束，返回不完整的结果
+            try {
+                quiet.scan("scan*", 10).count();
+                Assert.fail();
+            } catch (RedisOperationException e) {
+                Assert.assertTrue(e.getMessage().contains("incomplete"));
+            }
+        }
+    }
+
+    @Test
+    public void testAsk() {
+        proxy.proxies().get(0).setAskProbability(1);
+        for (int i = 0; i < 30; i++) {
+            client.set("ask" + i, 10, i);
+            Assert.assertEquals(Integer.valueOf(i), client.get("ask" + i, Integer.class));
+        }
+    }
+
+    @Test
+    public void testReset() {
+        client.set("reset", 10, "v");
+        proxy.configure(FaultProxy::resetConnections);
+        String value = null;
+        for (int i = 0; i < 5 && value == null; i++) {
+            value = client.get("reset", String.class);
+        }
+        Assert.assertEquals("v", value);
+    }
+
+    @Test
+    public void testTopologyMetrics() throws Exception {
+        RedisProperties properties = new RedisProperties();
+        properties.setName("topology");
+        properties.setPrefix("fault:");
+        properties.setCluster(proxy.getNodes());
+        properties.setPoolMetrics(true);
+        properties.setMaxAttempts(5);
+        try (RedisClientSupport c = new RedisClientSupport(properties)) {
+            proxy.configure(p -> {
+                p.setMovedProbability(0.05);
+                p.setAskProbability(0.05);
+            });
+            for (int i = 0; i < 200; i++) {
+                c.set("topology" + i, 10, i);
+            }
+            TopologyMetrics topology = c.getTopology();
+            Assert.assertTrue(topology.getMoved() > 0);
+            Assert.assertTrue(topology.getAsk() > 0);
+            Assert.assertTrue(topology.getSlotRefreshes() >= topology.getMoved());
+            Assert.assertEquals(3, topology.getNodes().size());
+            for (NodeMetrics node : topology.getNodes()) {
+                Assert.assertTrue(proxy.getNodes().contains(node.getNode()));
+                Assert.assertTrue(node.getBorrowCount() > 0);
+                Assert.assertTrue(node.getIdle() > 0);
+                Assert.assertTrue(node.getCreated() > 0);
+            }
+            ObjectName name = new ObjectName("org.ifaster.redis:type=Topology,name=\"topology\"");
+            Assert.assertEquals(topology.getMoved(), ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Moved"));
+            Assert.assertEquals(3, ((Object[]) ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Nodes")).length);
+        }
+    }
+}
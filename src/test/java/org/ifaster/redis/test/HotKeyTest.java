@@ -0,0 +1,148 @@
+package org.ifaster.redis.test;
+
+import org.ifaster.redis.client.support.RedisClientSupport;
+import org.ifaster.redis.configuration.RedisProperties;
+import org.ifaster.redis.event.HotKeyEvent;
+import org.ifaster.redis.listener.RedisEventListener;
+import org.ifaster.redis.test.server.EmbeddedRedisCluster;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 热点key测试：count-min sketch计数、topK替换、热点缓存的失效
+ */
+public class HotKeyTest {
+
+    private static EmbeddedRedisCluster cluster;
+    private static ExecutorService executor;
+    private final List<HotKeyEvent> events = Collections.synchronizedList(new ArrayList<>());
+    private RedisClientSupport client;
+
+    @BeforeClass
+    public static void start() {
+        cluster = new EmbeddedRedisCluster(3);
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterClass
+    public static void stop() {
+        executor.shutdownNow();
+        cluster.close();
+    }
+
+    @Before
+    public void open() {
+        cluster.setLatencyMillis(0);
+        cluster.flushAll();
+        RedisProperties properties = new RedisProperties();
+        properties.setName("hot");
+        properties.setPrefix("hot:");
+        properties.setCluster(cluster.getNodes());
+        properties.setHotKeyDetect(true);
+        //窗口足够长，测试期间不会滚动，阈值为一个窗口100次
+        properties.setHotKeyQps(10);
+        properties.setHotKeyWindowMillis(10000);
+        properties.setHotKeyTopK(2);
+        properties.setHotKeyCacheMillis(60000);
+        client = new RedisClientSupport(properties, null, new RedisEventListener() {
+            @Override
+            public void hotKey(HotKeyEvent event) {
+                events.add(event);
+            }
+        });
+        cluster.resetStats();
+    }
+
+    @After
+    public void close() {
+        cluster.setLatencyMillis(0);
+        client.close();
+    }
+
+    private void read(String key, int times) {
+        for (int i = 0; i < times; i++) {
+            client.get(key, Integer.class);
+        }
+    }
+
+    @Test
+    public void testTopK() {
+        //大量访问次数低于阈值的key，sketch的冲突不会让它们成为热点
+        for (int i = 0; i < 2000; i++) {
+            read("cold" + i, 5);
+        }
+        Assert.assertTrue(client.getHotKeys().isEmpty());
+        Assert.assertTrue(events.isEmpty());
+        read("a", 300);
+        read("b", 200);
+        //达到阈值但qps低于集合中的最小值，不替换
+        read("c", 150);
+        Map<String, Long> hotKeys = client.getHotKeys();
+        Assert.assertEquals(Arrays.asList("a", "b"), new ArrayList<>(hotKeys.keySet()));
+        Assert.assertEquals(30L, hotKeys.get("a").longValue());
+        Assert.assertEquals(20L, hotKeys.get("b").longValue());
+        Assert.assertEquals(2, events.size());
+        Assert.assertEquals("a", events.get(0).getKey());
+        Assert.assertEquals(10L, events.get(0).getQps());
+        Assert.assertEquals("b", events.get(1).getKey());
+        //超过最小值后替换qps最低的key
+        read("c", 200);
+        Assert.assertEquals(Arrays.asList("c", "a"), new ArrayList<>(client.getHotKeys().keySet()));
+        Assert.assertEquals("c", events.get(2).getKey());
+    }
+
+    @Test
+    public void testHashCodeCollision() {
+        //"Aa"和"BB"的hashCode相同，sketch每一行使用独立的hash，不会一起成为热点
+        Assert.assertEquals("Aa".hashCode(), "BB".hashCode());
+        read("Aa", 150);
+        read("BB", 1);
+        Assert.assertEquals(Collections.singletonList("Aa"), new ArrayList<>(client.getHotKeys().keySet()));
+    }
+
+    @Test
+    public void testHotCache() {
+        client.set("k", 60, 1);
+        read("k", 100);
+        Assert.assertTrue(client.getHotKeys().containsKey("k"));
+        cluster.resetStats();
+        read("k", 50);
+        Assert.assertEquals(0, cluster.getCommandCount("get"));
+        //写入后失效，下一次读取到新值
+        client.set("k", 60, 2);
+        Assert.assertEquals(Integer.valueOf(2), client.get("k", Integer.class));
+        Assert.assertEquals(Integer.valueOf(2), client.get("k", Integer.class));
+        Assert.assertEquals(1, cluster.getCommandCount("get"));
+    }
+
+    @Test
+    public void testInvalidateDuringLoad() throws Exception {
+        client.set("k", 60, 1);
+        read("k", 100);
+        client.set("k", 60, 2);
+        cluster.setLatencyMillis(300);
+        Future<Integer> loading = executor.submit(() -> client.get("k", Integer.class));
+        Thread.sleep(100);
+        //写命令走另一个连接立即返回，失效发生在加载返回之前
+        cluster.setLatencyMillis(0);
+        client.set("k", 60, 3);
+        Assert.assertEquals(Integer.valueOf(2), loading.get(5, TimeUnit.SECONDS));
+        cluster.resetStats();
+        Assert.assertEquals(Integer.valueOf(3), client.get("k", Integer.class));
+        Assert.assertEquals(1, cluster.getCommandCount("get"));
+    }
+}
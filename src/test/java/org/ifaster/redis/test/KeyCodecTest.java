@@ -0,0 +1,38 @@
+package org.ifaster.redis.test;
+
+import org.ifaster.redis.client.support.KeyCodec;
+import org.junit.Assert;
+import org.junit.Test;
+import redis.clients.jedis.util.JedisClusterCRC16;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * key编码测试
+ */
+public class KeyCodecTest {
+
+    @Test
+    public void testEncode() {
+        String[] keys = {"user:1", "{user}:1", "a{}b", "a{b", "a{b}{c}", "{}", "用户:1", "}{x}"};
+        for (String prefix : new String[]{"", "app:", "{app}:", "a{"}) {
+            KeyCodec codec = new KeyCodec(prefix, 16);
+            int[] slots = new int[keys.length];
+            byte[][] encoded = codec.encode(keys, slots);
+            for (int i = 0; i < keys.length; i++) {
+                byte[] expected = (prefix + keys[i]).getBytes(StandardCharsets.UTF_8);
+                Assert.assertArrayEquals(expected, encoded[i]);
+                Assert.assertArrayEquals(expected, codec.encode(keys[i]));
+                Assert.assertEquals(prefix + keys[i], JedisClusterCRC16.getSlot(expected), slots[i]);
+            }
+        }
+    }
+
+    @Test
+    public void testField() {
+        KeyCodec codec = new KeyCodec("app:", 1);
+        Assert.assertArrayEquals("name".getBytes(StandardCharsets.UTF_8), codec.field("name"));
+        Assert.assertSame(codec.field("name"), codec.field("name"));
+        Assert.assertArrayEquals("名字".getBytes(StandardCharsets.UTF_8), codec.field("名字"));
+    }
+}
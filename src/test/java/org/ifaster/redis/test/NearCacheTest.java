@@ -0,0 +1,192 @@
+package org.ifaster.redis.test;
+
+import org.ifaster.redis.client.support.RedisClientSupport;
+import org.ifaster.redis.configuration.RedisProperties;
+import org.ifaster.redis.test.server.EmbeddedRedisCluster;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 近端缓存测试：本地和跨实例失效、加载期间的失效、重新订阅
+ */
+public class NearCacheTest {
+
+    private static EmbeddedRedisCluster cluster;
+    private static ExecutorService executor;
+    private RedisClientSupport client;
+    private RedisClientSupport other;
+
+    @BeforeClass
+    public static void start() {
+        cluster = new EmbeddedRedisCluster(3);
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterClass
+    public static void stop() {
+        executor.shutdownNow();
+        cluster.close();
+    }
+
+    @Before
+    public void open() {
+        cluster.setLatencyMillis(0);
+        cluster.flushAll();
+        client = new RedisClientSupport(properties("near"));
+        other = new RedisClientSupport(properties("nearOther"));
+        await(() -> cluster.getSubscribers() >= 2);
+        cluster.resetStats();
+    }
+
+    @After
+    public void close() {
+        cluster.setLatencyMillis(0);
+        client.close();
+        other.close();
+    }
+
+    private static RedisProperties properties(String name) {
+        RedisProperties properties = new RedisProperties();
+        properties.setName(name);
+        properties.setPrefix("near:");
+        properties.setCluster(cluster.getNodes());
+        properties.setNearCache(true);
+        properties.setMaxAttempts(5);
+        return properties;
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            Assert.assertTrue(System.nanoTime() < deadline);
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    @Test
+    public void testLocalInvalidation() {
+        client.set("k", 60, 1);
+        Assert.assertEquals(Integer.valueOf(1), client.get("k", Integer.class));
+        Assert.assertEquals(Integer.valueOf(1), client.get("k", Integer.class));
+        Assert.assertEquals(1, cluster.getCommandCount("get"));
+        //本客户端写入后直接失效，下一次读取到新值
+        client.set("k", 60, 2);
+        Assert.assertEquals(Integer.valueOf(2), client.get("k", Integer.class));
+        Assert.assertEquals(2, cluster.getCommandCount("get"));
+    }
+
+    @Test
+    public void testRemoteInvalidation() {
+        client.set("k", 60, 1);
+        Assert.assertEquals(Integer.valueOf(1), client.get("k", Integer.class));
+        other.set("k", 60, 2);
+        await(() -> Integer.valueOf(2).equals(client.get("k", Integer.class)));
+        //通知发送方自己不会重复失效
+        Assert.assertEquals(Integer.valueOf(2), other.get("k", Integer.class));
+        Assert.assertEquals(Integer.valueOf(2), other.get("k", Integer.class));
+    }
+
+    @Test
+    public void testInvalidateDuringLoad() throws Exception {
+        client.set("k", 60, 1);
+        cluster.setLatencyMillis(300);
+        Future<Integer> loading = executor.submit(() -> client.get("k", Integer.class));
+        Thread.sleep(100);
+        //写命令走另一个连接立即返回，失效发生在加载返回之前
+        cluster.setLatencyMillis(0);
+        client.set("k", 60, 2);
+        Assert.assertEquals(Integer.valueOf(1), loading.get(5, TimeUnit.SECONDS));
+        //加载期间key被失效，旧值没有缓存
+        cluster.resetStats();
+        Assert.assertEquals(Integer.valueOf(2), client.get("k", Integer.class));
+        Assert.assertEquals(1, cluster.getCommandCount("get"));
+    }
+
+    @Test
+    public void testInvalidateOtherKeyDuringLoad() throws Exception {
+        client.set("k", 60, 1);
+        cluster.setLatencyMillis(300);
+        Future<Integer> loading = executor.submit(() -> client.get("k", Integer.class));
+        Thread.sleep(100);
+        cluster.setLatencyMillis(0);
+        client.set("unrelated", 60, 2);
+        Assert.assertEquals(Integer.valueOf(1), loading.get(5, TimeUnit.SECONDS));
+        //其他key的失效不影响加载结果的缓存
+        cluster.resetStats();
+        Assert.assertEquals(Integer.valueOf(1), client.get("k", Integer.class));
+        Assert.assertEquals(0, cluster.getCommandCount("get"));
+    }
+
+    @Test
+    public void testBatchedInvalidation() {
+        String[] keys = new String[50];
+        //不开启近端缓存的客户端写入，不发送失效通知
+        try (RedisClientSupport writer = new RedisClientSupport("near:", null, cluster.getNodes())) {
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = "batch" + i;
+                writer.set(keys[i], 60, i);
+                Assert.assertEquals(Integer.valueOf(i), client.get(keys[i], Integer.class));
+            }
+        }
+        cluster.resetStats();
+        //一次写命令的多个key合并成一条通知
+        other.delete(keys);
+        await(() -> client.get(keys[keys.length - 1], Integer.class) == null);
+        for (String key : keys) {
+            Assert.assertNull(client.get(key, Integer.class));
+        }
+        Assert.assertEquals(1, cluster.getCommandCount("publish"));
+    }
+
+    @Test
+    public void testJoinedLoadNotCached() throws Exception {
+        RedisProperties properties = properties("nearFlight");
+        properties.setSingleFlight(true);
+        try (RedisClientSupport flight = new RedisClientSupport(properties)) {
+            flight.set("k", 60, 1);
+            cluster.setLatencyMillis(300);
+            Future<Integer> leader = executor.submit(() -> flight.get("k", Integer.class));
+            Thread.sleep(50);
+            Future<Integer> joined = executor.submit(() -> flight.get("k", Integer.class));
+            Thread.sleep(50);
+            cluster.setLatencyMillis(0);
+            flight.set("k", 60, 2);
+            Assert.assertEquals(Integer.valueOf(1), leader.get(5, TimeUnit.SECONDS));
+            Assert.assertEquals(Integer.valueOf(1), joined.get(5, TimeUnit.SECONDS));
+            //加入的调用线程使用读取前的版本，失效之后不缓存旧值
+            cluster.resetStats();
+            Assert.assertEquals(Integer.valueOf(2), flight.get("k", Integer.class));
+            Assert.assertEquals(1, cluster.getCommandCount("get"));
+        }
+    }
+
+    @Test
+    public void testResubscribe() throws Exception {
+        client.set("k", 60, 1);
+        Assert.assertEquals(Integer.valueOf(1), client.get("k", Integer.class));
+        //断开所有连接，订阅中断期间的通知会丢失，重新订阅后清空缓存
+        cluster.closeConnections();
+        await(() -> cluster.getSubscribers() >= 2);
+        Thread.sleep(100);
+        cluster.resetStats();
+        Assert.assertEquals(Integer.valueOf(1), client.get("k", Integer.class));
+        Assert.assertEquals(1, cluster.getCommandCount("get"));
+        //重新订阅后可以继续收到失效通知
+        other.set("k", 60, 2);
+        await(() -> Integer.valueOf(2).equals(client.get("k", Integer.class)));
+    }
+}
@@ -0,0 +1,197 @@
+package org.ifaster.redis.test;
+
+import org.ifaster.redis.client.AsyncScanCursor;
+import org.ifaster.redis.client.RedisAsyncClient;
+import org.ifaster.redis.client.support.ReactiveRedisClientSupport;
+import org.ifaster.redis.client.support.RedisAsyncClientSupport;
+import org.ifaster.redis.client.support.RedisClientSupport;
+import org.ifaster.redis.test.server.EmbeddedRedisCluster;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * 响应式客户端测试，使用内嵌集群，统计异步客户端的调用次数验证分页
+ */
+public class ReactiveRedisClientTest {
+
+    private static final int PAGE_SIZE = 10;
+
+    private static EmbeddedRedisCluster cluster;
+    private static RedisClientSupport client;
+    private static RedisAsyncClientSupport async;
+    private static ReactiveRedisClientSupport reactive;
+    private static final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+
+    @BeforeClass
+    public static void start() {
+        cluster = new EmbeddedRedisCluster(3);
+        client = new RedisClientSupport("test:", null, cluster.getNodes());
+        async = new RedisAsyncClientSupport(client, "reactive");
+        reactive = new ReactiveRedisClientSupport(counting(RedisAsyncClient.class, async), PAGE_SIZE);
+    }
+
+    /**
+     * 统计按方法名的调用次数，返回的游标同样统计
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T counting(Class<T> type, T target) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class[]{type}, (proxy, method, args) -> {
+            calls.computeIfAbsent(method.getName(), m -> new AtomicInteger()).incrementAndGet();
+            try {
+                Object rs = method.invoke(target, args);
+                return rs instanceof AsyncScanCursor ? counting(AsyncScanCursor.class, (AsyncScanCursor<?>) rs) : rs;
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        });
+    }
+
+    @AfterClass
+    public static void stop() {
+        async.close();
+        client.close();
+        cluster.close();
+    }
+
+    @Before
+    public void flush() {
+        cluster.flushAll();
+        calls.clear();
+    }
+
+    private static int calls(String method) {
+        AtomicInteger n = calls.get(method);
+        return n == null ? 0 : n.get();
+    }
+
+    private static List<Integer> range(int from, int to) {
+        return IntStream.range(from, to).boxed().collect(Collectors.toList());
+    }
+
+    private static void rpush(String key, int size) {
+        for (int i = 0; i < size; i++) {
+            client.rpush(key, i);
+        }
+    }
+
+    @Test
+    public void testLrangeNegativeEnd() {
+        rpush("list", 25);
+        Assert.assertEquals(range(0, 25), reactive.lrange("list", 0, -1, Integer.class).collectList().block());
+        Assert.assertEquals(1, calls("llen"));
+        Assert.assertEquals(3, calls("lrange"));
+    }
+
+    @Test
+    public void testLrangeNegativeStart() {
+        rpush("list", 25);
+        Assert.assertEquals(range(20, 25), reactive.lrange("list", -5, -1, Integer.class).collectList().block());
+        Assert.assertEquals(range(0, 25), reactive.lrange("list", -100, 24, Integer.class).collectList().block());
+        Assert.assertEquals(0, reactive.lrange("list", -1, -5, Integer.class).count().block().intValue());
+        Assert.assertEquals(0, reactive.lrange("missing", 0, -1, Integer.class).count().block().intValue());
+    }
+
+    @Test
+    public void testShortLastPage() {
+        rpush("list", 25);
+        //end远大于长度时，读到不满一页就结束，不再读取后面的空页
+        Assert.assertEquals(range(0, 25), reactive.lrange("list", 0, 1000, Integer.class).collectList().block());
+        Assert.assertEquals(0, calls("llen"));
+        Assert.assertEquals(3, calls("lrange"));
+        calls.clear();
+        rpush("exact", 20);
+        Assert.assertEquals(range(0, 20), reactive.lrange("exact", 0, 1000, Integer.class).collectList().block());
+        Assert.assertEquals(3, calls("lrange"));
+    }
+
+    @Test
+    public void testDemandBounded() throws InterruptedException {
+        rpush("list", 50);
+        Assert.assertEquals(range(0, 3), reactive.lrange("list", 0, -1, Integer.class).take(3).collectList().block());
+        Thread.sleep(100);
+        //只请求了第一页的部分元素，最多预读一页
+        Assert.assertTrue(calls("lrange") <= 2);
+    }
+
+    @Test
+    public void testZrange() {
+        for (int i = 0; i < 25; i++) {
+            client.zadd("zset", i, i);
+        }
+        Assert.assertEquals(range(0, 25), reactive.zrange("zset", 0, -1, Integer.class).collectList().block());
+        Assert.assertEquals(1, calls("zcard"));
+        Assert.assertEquals(3, calls("zrange"));
+        List<Integer> reversed = range(0, 25);
+        Collections.reverse(reversed);
+        Assert.assertEquals(reversed.subList(0, 12), reactive.zrevrange("zset", 0, 11, Integer.class).collectList().block());
+    }
+
+    @Test
+    public void testSmembers() {
+        for (int i = 0; i < 25; i++) {
+            client.sadd("set", i);
+        }
+        Set<Integer> members = new HashSet<>(reactive.smembers("set", Integer.class).collectList().block());
+        Assert.assertEquals(new HashSet<>(range(0, 25)), members);
+        Assert.assertEquals(0, calls("smembers"));
+        Assert.assertEquals(1, calls("sscan"));
+        Assert.assertEquals(3, calls("next"));
+        Assert.assertEquals(0, reactive.smembers("missing", Integer.class).count().block().intValue());
+    }
+
+    @Test
+    public void testHgetAll() {
+        Map<String, Integer> hash = new HashMap<>();
+        for (int i = 0; i < 20; i++) {
+            hash.put("f" + i, i);
+        }
+        client.hmset("hash", hash);
+        Map<String, Integer> rs = reactive.hgetAll("hash", Integer.class)
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue).block();
+        Assert.assertEquals(hash, rs);
+        Assert.assertEquals(0, calls("hgetAll"));
+        Assert.assertEquals(1, calls("hscan"));
+        //元素个数是页大小的整数倍时，读到空页结束
+        Assert.assertEquals(3, calls("next"));
+    }
+
+    @Test
+    public void testScanDemandBounded() throws InterruptedException {
+        for (int i = 0; i < 50; i++) {
+            client.sadd("set", i);
+        }
+        Assert.assertEquals(3, reactive.sscan("set", PAGE_SIZE, Integer.class).take(3).count().block().intValue());
+        Thread.sleep(100);
+        Assert.assertTrue(calls("next") <= 2);
+    }
+
+    @Test
+    public void testScan() {
+        for (int i = 0; i < 15; i++) {
+            client.set("scan" + i, 60, i);
+            client.zadd("zset", i, i * 2.0D);
+        }
+        Set<String> keys = new HashSet<>(reactive.scan("scan*", 4).collectList().block());
+        Assert.assertEquals(IntStream.range(0, 15).mapToObj(i -> "scan" + i).collect(Collectors.toSet()), keys);
+        Map<Integer, Double> scores = reactive.zscan("zset", 4, Integer.class)
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue).block();
+        Assert.assertEquals(15, scores.size());
+        Assert.assertEquals(Double.valueOf(28.0D), scores.get(14));
+    }
+}
@@ -0,0 +1,119 @@
+package org.ifaster.redis.test;
+
+import org.ifaster.redis.client.RedisAsyncClient;
+import org.ifaster.redis.client.support.RedisAsyncClientSupport;
+import org.ifaster.redis.client.support.RedisClientSupport;
+import org.ifaster.redis.configuration.RedisConfiguration;
+import org.ifaster.redis.exception.RedisOperationException;
+import org.ifaster.redis.test.server.EmbeddedRedisCluster;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 异步客户端测试，使用内嵌集群
+ */
+public class RedisAsyncClientTest {
+
+    private static EmbeddedRedisCluster cluster;
+    private static RedisClientSupport client;
+
+    @BeforeClass
+    public static void start() {
+        cluster = new EmbeddedRedisCluster(3);
+        client = new RedisClientSupport("test:", null, cluster.getNodes());
+    }
+
+    @AfterClass
+    public static void stop() {
+        client.close();
+        cluster.close();
+    }
+
+    @Before
+    public void flush() {
+        cluster.setLatencyMillis(0);
+        cluster.flushAll();
+    }
+
+    @Test
+    public void testQueueFull() throws Exception {
+        client.set("async", 10, "v");
+        try (RedisAsyncClientSupport async = new RedisAsyncClientSupport(client, "full", 1, 1)) {
+            cluster.setLatencyMillis(200);
+            CompletableFuture<String> running = async.get("async", String.class);
+            CompletableFuture<String> queued = async.get("async", String.class);
+            //线程和队列都已占满，提交的命令直接失败，不阻塞调用线程
+            long start = System.nanoTime();
+            CompletableFuture<String> rejected = async.get("async", String.class);
+            Assert.assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(100));
+            Assert.assertTrue(rejected.isCompletedExceptionally());
+            try {
+                rejected.get();
+                Assert.fail();
+            } catch (ExecutionException e) {
+                Assert.assertTrue(e.getCause() instanceof RedisOperationException);
+            }
+            Assert.assertEquals("v", running.get(5, TimeUnit.SECONDS));
+            Assert.assertEquals("v", queued.get(5, TimeUnit.SECONDS));
+            //队列空出后可以继续提交
+            cluster.setLatencyMillis(0);
+            Assert.assertEquals("v", async.get("async", String.class).get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void testNumbers() throws Exception {
+        client.incrBy("counter", 5);
+        client.hincrBy("counters", "a", 3);
+        try (RedisAsyncClientSupport async = new RedisAsyncClientSupport(client, "numbers")) {
+            Assert.assertEquals(Long.valueOf(5), async.getLong("counter", 0).get(5, TimeUnit.SECONDS));
+            Assert.assertEquals(Double.valueOf(5), async.getDouble("counter", 0).get(5, TimeUnit.SECONDS));
+            Assert.assertEquals(Long.valueOf(-1), async.getLong("missing", -1).get(5, TimeUnit.SECONDS));
+            Assert.assertEquals(Long.valueOf(3), async.hgetLong("counters", "a", 0).get(5, TimeUnit.SECONDS));
+            Assert.assertArrayEquals(new long[]{3, 0},
+                    async.hmgetLongs("counters", 0, "a", "b").get(5, TimeUnit.SECONDS));
+            //解析失败时future异常完成
+            client.set("text", 10, "abc");
+            try {
+                async.getLong("text", 0).get(5, TimeUnit.SECONDS);
+                Assert.fail();
+            } catch (ExecutionException e) {
+                Assert.assertTrue(e.getCause() instanceof RedisOperationException);
+            }
+        }
+    }
+
+    @Test
+    public void testBeanRegistration() throws Exception {
+        Map<String, Object> config = new HashMap<>();
+        config.put("redis.clusters[0].name", "beans");
+        config.put("redis.clusters[0].prefix", "test:");
+        config.put("redis.clusters[0].cluster", cluster.getNodes());
+        config.put("redis.clusters[0].asyncThreads", 2);
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new MapPropertySource("test", config));
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("environment", environment);
+        new RedisConfiguration().postProcessBeanFactory(beanFactory);
+        try {
+            RedisAsyncClient async = beanFactory.getBean("beansAsync", RedisAsyncClient.class);
+            Assert.assertTrue(async instanceof RedisAsyncClientSupport);
+            Assert.assertEquals("OK", async.set("bean", 10, "v").get(5, TimeUnit.SECONDS));
+            Assert.assertEquals("v", beanFactory.getBean("beans", RedisClientSupport.class).get("bean", String.class));
+        } finally {
+            beanFactory.destroySingletons();
+        }
+    }
+}
@@ -8,7 +8,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @RunWith(SpringRunner.class)
 @SpringBootTest
@@ -56,4 +61,51 @@ public class RedisCommandTest {
         long a = client.hdel(key, "fff");
         System.out.println(a);
     }
+
+    @Test
+    public void testMsetMget() {
+        Map<String, String> map = new HashMap<>();
+        map.put("a", "1");
+        map.put("b", "2");
+        map.put("c", "3");
+        client.mset(map, 10);
+        List<String> values = client.mget(Arrays.asList("c", "a", "none", "b"), String.class);
+        System.out.println(values);
+        Assert.assertEquals(Arrays.asList("3", "1", null, "2"), values);
+    }
+
+    @Test
+    public void testDeleteCrossSlot() {
+        Map<String, String> map = new HashMap<>();
+        map.put("d1", "1");
+        map.put("d2", "2");
+        map.put("d3", "3");
+        client.mset(map, 10);
+        long c = client.delete("d1", "d2", "d3", "none");
+        Assert.assertEquals(3L, c);
+    }
+
+    @Test
+    public void testScan() {
+        client.sadd("testSet", "a", "b", "c");
+        try (Stream<String> keys = client.scan("testSe*", 100)) {
+            Assert.assertTrue(keys.collect(Collectors.toList()).contains("testSet"));
+        }
+        List<String> members = client.sscan("testSet", 1, String.class).sorted().collect(Collectors.toList());
+        Assert.assertEquals(Arrays.asList("a", "b", "c"), members);
+    }
+
+    @Test
+    public void testPrimitive() {
+        client.set("counter", 10, 41L);
+        client.incrBy("counter", 1L);
+        Assert.assertEquals(42L, client.getLong("counter", 0L));
+        Assert.assertEquals(-1L, client.getLong("none", -1L));
+        client.hincrBy("testCounters", "a", 3L);
+        client.hincrBy("testCounters", "b", 5L);
+        Assert.assertArrayEquals(new long[]{3L, 5L, 0L}, client.hmgetLongs("testCounters", 0L, "a", "b", "c"));
+        client.delete("testCounters");
+        client.zadd("testZset", "a", 1.5D);
+        Assert.assertEquals(1.5D, client.zscore("testZset", "a", Double.NaN), 0.0D);
+    }
 }
@@ -1,11 +1,23 @@
 package org.ifaster.redis.test;
 
 import lombok.Data;
+import org.ifaster.redis.exception.SerializationException;
+import org.ifaster.redis.serializer.BinarySerializer;
+import org.ifaster.redis.serializer.CodecRegistry;
+import org.ifaster.redis.serializer.CompressingSerializer;
 import org.ifaster.redis.serializer.FastJsonSerializer;
+import org.ifaster.redis.serializer.SerializeBuffer;
 import org.ifaster.redis.serializer.Serializer;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * 序列化测试
  */
@@ -22,6 +34,132 @@ public class SerializerTest {
         Assert.assertEquals(person, p);
     }
 
+    @Test
+    public void testCompressingSerializer() {
+        Serializer compressing = new CompressingSerializer(serializer, 64);
+        Person person = new Person();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            sb.append("test");
+        }
+        person.setName(sb.toString());
+        byte[] data = compressing.serialize(person);
+        Assert.assertTrue(data.length < serializer.serialize(person).length);
+        Assert.assertEquals(person, compressing.deserialize(data, Person.class));
+
+        Person small = new Person();
+        Assert.assertArrayEquals(serializer.serialize(small), compressing.serialize(small));
+        //未压缩写入的旧值
+        Assert.assertEquals(person, compressing.deserialize(serializer.serialize(person), Person.class));
+    }
+
+    @Test
+    public void testCorruptedRawLength() {
+        Serializer compressing = new CompressingSerializer(serializer, 8);
+        byte[] data = compressing.serialize(new Person());
+        Assert.assertEquals((byte) 0xFE, data[0]);
+        //头部的原始长度为负数、超过上限或超过压缩比上限时直接失败，不分配缓冲区
+        for (int rawLength : new int[]{-1, Integer.MAX_VALUE, (data.length - 6) * 1032 + 1}) {
+            byte[] corrupted = data.clone();
+            corrupted[2] = (byte) (rawLength >>> 24);
+            corrupted[3] = (byte) (rawLength >>> 16);
+            corrupted[4] = (byte) (rawLength >>> 8);
+            corrupted[5] = (byte) rawLength;
+            try {
+                compressing.deserialize(corrupted, Person.class);
+                Assert.fail();
+            } catch (SerializationException e) {
+                Assert.assertTrue(e.getMessage().contains("invalid raw length"));
+            }
+        }
+    }
+
+    @Test
+    public void testSerializeBuffer() {
+        Person person = new Person();
+        SerializeBuffer buffer = new SerializeBuffer();
+        buffer.write(0);
+        serializer.serialize(person, buffer);
+        Assert.assertEquals(person, serializer.deserialize(buffer.array(), 1, buffer.size() - 1, Person.class));
+
+        Serializer compressing = new CompressingSerializer(serializer, 8);
+        buffer.clear().write(0);
+        compressing.serialize(person, buffer);
+        Assert.assertEquals(person, compressing.deserialize(buffer.array(), 1, buffer.size() - 1, Person.class));
+    }
+
+    @Test
+    public void testCodecRegistry() {
+        Serializer registry = new CodecRegistry(serializer);
+        Assert.assertArrayEquals("测试abc".getBytes(StandardCharsets.UTF_8), registry.serialize("测试abc"));
+        Assert.assertEquals("测试abc", registry.deserialize("测试abc".getBytes(StandardCharsets.UTF_8), String.class));
+        Assert.assertArrayEquals("-9223372036854775808".getBytes(StandardCharsets.US_ASCII), registry.serialize(Long.MIN_VALUE));
+        for (long v : new long[]{0L, 7L, -42L, Long.MAX_VALUE, Long.MIN_VALUE}) {
+            Assert.assertEquals(Long.valueOf(v), registry.deserialize(registry.serialize(v), Long.class));
+        }
+        Assert.assertEquals(Integer.valueOf(-12), registry.deserialize(registry.serialize(-12), Integer.class));
+        Assert.assertEquals(Double.valueOf(1.5D), registry.deserialize("1.5".getBytes(StandardCharsets.US_ASCII), Double.class));
+        Assert.assertEquals(new BigDecimal("10.50"), registry.deserialize(registry.serialize(new BigDecimal("10.50")), BigDecimal.class));
+        byte[] raw = {(byte) 0xFE, 0, 1};
+        Assert.assertArrayEquals(raw, registry.serialize(raw));
+        Assert.assertArrayEquals(raw, (byte[]) registry.deserialize(raw, byte[].class));
+        //json写入的数字仍然可以读取
+        Assert.assertEquals(Long.valueOf(123L), registry.deserialize(serializer.serialize(123L), Long.class));
+        Person person = new Person();
+        Assert.assertEquals(person, registry.deserialize(registry.serialize(person), Person.class));
+    }
+
+    @Test
+    public void testBinarySerializer() {
+        BinarySerializer binary = new BinarySerializer().register(Person.class, Order.class, Status.class);
+        Person person = new Person();
+        byte[] data = binary.serialize(person);
+        Assert.assertTrue(data.length < serializer.serialize(person).length);
+        Assert.assertEquals(person, binary.deserialize(data, Person.class));
+
+        Order order = new Order();
+        order.setId(Long.MAX_VALUE);
+        order.setCount(-3);
+        order.setPrice(12.5D);
+        order.setPaid(true);
+        order.setStatus(Status.PAID);
+        order.setAmount(new BigDecimal("99.90"));
+        order.setBuyer(person);
+        order.setItems(Arrays.asList("a", null, "商品"));
+        Map<String, Object> extra = new HashMap<>();
+        extra.put("n", 1L);
+        extra.put("p", new Person());
+        order.setExtra(extra);
+        Assert.assertEquals(order, binary.deserialize(binary.serialize(order), Order.class));
+        Assert.assertEquals(order, new CompressingSerializer(binary, 16)
+                .deserialize(new CompressingSerializer(binary, 16).serialize(order), Order.class));
+        Assert.assertEquals("test", binary.deserialize(binary.serialize("test"), String.class));
+        Assert.assertEquals(Long.valueOf(-1L), binary.deserialize(binary.serialize(-1L), Long.class));
+        Assert.assertNull(binary.deserialize(binary.serialize(null), Person.class));
+    }
+
+    @Test(expected = SerializationException.class)
+    public void testBinarySerializerUnregistered() {
+        new BinarySerializer().serialize(new Order());
+    }
+
+    @Data
+    static class Order {
+        private long id;
+        private int count;
+        private double price;
+        private boolean paid;
+        private Status status;
+        private BigDecimal amount;
+        private Person buyer;
+        private List<String> items;
+        private Map<String, Object> extra;
+    }
+
+    enum Status {
+        CREATED, PAID
+    }
+
     @Data
     static class Person {
         private String name = "test";
@@ -0,0 +1,128 @@
+package org.ifaster.redis.test.proxy;
+
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+
+/**
+ * 一个节点前面的故障注入代理，故障配置可以在运行中修改
+ *
+ * @author yangnan
+ */
+public class FaultProxy {
+
+    private final String host;
+    private final int port;
+    private final String target;
+    final ServerSocketChannel server;
+    private final Selector selector;
+
+    private volatile LatencyDistribution latency = LatencyDistribution.NONE;
+    private volatile double movedProbability;
+    private volatile double askProbability;
+    private volatile double resetProbability;
+    /**
+     * 为true时在下一轮事件循环中重置当前所有连接
+     */
+    volatile boolean resetRequested;
+
+    FaultProxy(String host, ServerSocketChannel server, String target, Selector selector) {
+        this.host = host;
+        this.selector = selector;
+        this.port = server.socket().getLocalPort();
+        this.server = server;
+        this.target = target;
+    }
+
+    /**
+     * 代理地址 host:port
+     *
+     * @return
+     */
+    public String getAddress() {
+        return host + ":" + port;
+    }
+
+    /**
+     * 被代理的节点地址 host:port
+     *
+     * @return
+     */
+    public String getTarget() {
+        return target;
+    }
+
+    public LatencyDistribution getLatency() {
+        return latency;
+    }
+
+    /**
+     * 每个回复额外的延迟
+     *
+     * @param latency
+     */
+    public void setLatency(LatencyDistribution latency) {
+        this.latency = latency == null ? LatencyDistribution.NONE : latency;
+    }
+
+    public double getMovedProbability() {
+        return movedProbability;
+    }
+
+    /**
+     * 带key的命令直接回复 MOVED 到当前节点的概率，模拟客户端路由表过期，客户端会刷新slot后重试
+     *
+     * @param probability 0-1
+     */
+    public void setMovedProbability(double probability) {
+        this.movedProbability = probability;
+    }
+
+    public double getAskProbability() {
+        return askProbability;
+    }
+
+    /**
+     * 带key的命令直接回复 ASK 到下一个节点的概率，模拟slot迁移中，客户端会ASKING后到目标节点重试
+     *
+     * @param probability 0-1
+     */
+    public void setAskProbability(double probability) {
+        this.askProbability = probability;
+    }
+
+    public double getResetProbability() {
+        return resetProbability;
+    }
+
+    /**
+     * 每个请求触发连接重置(RST)的概率
+     *
+     * @param probability 0-1
+     */
+    public void setResetProbability(double probability) {
+        this.resetProbability = probability;
+    }
+
+    /**
+     * 重置当前所有连接，新连接不受影响
+     */
+    public void resetConnections() {
+        this.resetRequested = true;
+        selector.wakeup();
+    }
+
+    /**
+     * 清除所有故障
+     */
+    public void heal() {
+        setLatency(LatencyDistribution.NONE);
+        setMovedProbability(0);
+        setAskProbability(0);
+        setResetProbability(0);
+    }
+
+    @Override
+    public String toString() {
+        return getAddress() + " -> " + target;
+    }
+}
@@ -0,0 +1,278 @@
+package org.ifaster.redis.test.proxy;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * 集群前面的故障注入代理，用于复现节点变慢、抖动、slot迁移和断连时客户端的表现
+ * 每个节点一个代理端口，代理改写CLUSTER SLOTS/NODES和MOVED/ASK中的地址，所以客户端只会连接代理。
+ * 所有代理共用一个NIO线程，延迟按回复排队，不阻塞其他连接；随机数使用固定种子，故障序列可以复现
+ *
+ * <pre>
+ * try (EmbeddedRedisCluster cluster = new EmbeddedRedisCluster(3);
+ *      FaultProxyCluster proxy = new FaultProxyCluster(cluster.getNodes())) {
+ *     proxy.proxies().get(0).setLatency(LatencyDistribution.spikes(1, 50, 0.01));
+ *     RedisClient client = new RedisClientSupport("test:", null, proxy.getNodes());
+ * }
+ * </pre>
+ *
+ * @author yangnan
+ */
+public class FaultProxyCluster implements Closeable {
+
+    private static final String HOST = "127.0.0.1";
+    private static final long DEFAULT_SEED = 20200101L;
+
+    private final Selector selector;
+    private final List<FaultProxy> proxies = new ArrayList<>();
+    /**
+     * 节点地址 -> 代理地址
+     */
+    private final Map<String, String> addresses = new HashMap<>();
+    /**
+     * 节点端口 -> 代理地址，节点在CLUSTER SLOTS中使用其他ip时按端口匹配
+     */
+    private final Map<String, String> ports = new HashMap<>();
+    private final Set<ProxyConnection> connections = new HashSet<>();
+    private final Random random;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    /**
+     * @param nodes 被代理的节点 host1:port1,host2:port2
+     */
+    public FaultProxyCluster(String nodes) {
+        this(nodes, DEFAULT_SEED);
+    }
+
+    /**
+     * @param nodes 被代理的节点 host1:port1,host2:port2
+     * @param seed  故障注入的随机种子
+     */
+    public FaultProxyCluster(String nodes, long seed) {
+        this.random = new Random(seed);
+        try {
+            this.selector = Selector.open();
+            for (String node : nodes.split(",")) {
+                ServerSocketChannel server = ServerSocketChannel.open();
+                server.bind(new InetSocketAddress(HOST, 0));
+                server.configureBlocking(false);
+                FaultProxy proxy = new FaultProxy(HOST, server, node.trim(), selector);
+                server.register(selector, SelectionKey.OP_ACCEPT, proxy);
+                proxies.add(proxy);
+                addresses.put(proxy.getTarget(), proxy.getAddress());
+                ports.put(proxy.getTarget().substring(proxy.getTarget().lastIndexOf(':') + 1), proxy.getAddress());
+            }
+        } catch (IOException e) {
+            close();
+            throw new UncheckedIOException(e);
+        }
+        this.thread = new Thread(this::loop, "fault-proxy");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * 代理地址 host1:port1,host2:port2，客户端用它代替节点地址
+     *
+     * @return
+     */
+    public String getNodes() {
+        return proxies.stream().map(FaultProxy::getAddress).collect(Collectors.joining(","));
+    }
+
+    public List<FaultProxy> proxies() {
+        return Collections.unmodifiableList(proxies);
+    }
+
+    /**
+     * 对所有代理应用同一配置
+     *
+     * @param config
+     */
+    public void configure(Consumer<FaultProxy> config) {
+        proxies.forEach(config);
+    }
+
+    /**
+     * 清除所有代理的故障
+     */
+    public void heal() {
+        proxies.forEach(FaultProxy::heal);
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        if (selector == null) {
+            return;
+        }
+        selector.wakeup();
+        if (thread != null && thread != Thread.currentThread()) {
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        for (FaultProxy proxy : proxies) {
+            try {
+                proxy.server.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private void loop() {
+        long next = 0;
+        try {
+            while (running) {
+                long timeout = next == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(next - System.nanoTime());
+                if (next != 0 && timeout <= 0) {
+                    selector.selectNow();
+                } else {
+                    selector.select(timeout);
+                }
+                resetRequested();
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    handle(key);
+                }
+                next = deliver(System.nanoTime());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            connections.forEach(c -> c.close(false));
+            try {
+                selector.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private void handle(SelectionKey key) throws IOException {
+        if (!key.isValid()) {
+            return;
+        }
+        if (key.isAcceptable()) {
+            accept((FaultProxy) key.attachment());
+            return;
+        }
+        ProxyConnection.Endpoint endpoint = (ProxyConnection.Endpoint) key.attachment();
+        ProxyConnection conn = endpoint.conn;
+        try {
+            if (key.isWritable()) {
+                endpoint.flush();
+            }
+            if (!key.isValid() || !key.isReadable()) {
+                return;
+            }
+            if (!endpoint.read()) {
+                close(conn, false);
+            } else if (endpoint == conn.client) {
+                if (!conn.onRequests(random, askTarget(conn.proxy))) {
+                    close(conn, true);
+                }
+            } else {
+                conn.onReplies(this::address);
+            }
+        } catch (IOException | RuntimeException e) {
+            close(conn, true);
+        }
+    }
+
+    private void accept(FaultProxy proxy) throws IOException {
+        SocketChannel client = proxy.server.accept();
+        if (client == null) {
+            return;
+        }
+        SocketChannel server;
+        try {
+            String target = proxy.getTarget();
+            int colon = target.lastIndexOf(':');
+            server = SocketChannel.open(new InetSocketAddress(target.substring(0, colon),
+                    Integer.parseInt(target.substring(colon + 1))));
+        } catch (IOException e) {
+            //节点不可用时客户端看到连接被重置
+            client.socket().setSoLinger(true, 0);
+            client.close();
+            return;
+        }
+        client.configureBlocking(false);
+        server.configureBlocking(false);
+        client.socket().setTcpNoDelay(true);
+        server.socket().setTcpNoDelay(true);
+        connections.add(new ProxyConnection(proxy, client, client.register(selector, SelectionKey.OP_READ),
+                server, server.register(selector, SelectionKey.OP_READ)));
+    }
+
+    private long deliver(long now) {
+        long next = 0;
+        for (Iterator<ProxyConnection> it = connections.iterator(); it.hasNext(); ) {
+            ProxyConnection conn = it.next();
+            if (conn.closed) {
+                it.remove();
+                continue;
+            }
+            try {
+                long due = conn.deliver(now);
+                if (due != 0 && (next == 0 || due - next < 0)) {
+                    next = due;
+                }
+            } catch (IOException e) {
+                conn.close(true);
+                it.remove();
+            }
+        }
+        return next;
+    }
+
+    private void resetRequested() {
+        for (FaultProxy proxy : proxies) {
+            if (proxy.resetRequested) {
+                proxy.resetRequested = false;
+                connections.stream().filter(c -> c.proxy == proxy).forEach(c -> c.close(true));
+            }
+        }
+    }
+
+    private void close(ProxyConnection conn, boolean reset) {
+        conn.close(reset);
+    }
+
+    /**
+     * ASK注入的目标：下一个代理
+     */
+    private String askTarget(FaultProxy proxy) {
+        return proxies.get((proxies.indexOf(proxy) + 1) % proxies.size()).getAddress();
+    }
+
+    private String address(String node) {
+        String address = addresses.get(node);
+        if (address == null) {
+            address = ports.getOrDefault(node.substring(node.lastIndexOf(':') + 1), node);
+        }
+        return address;
+    }
+}
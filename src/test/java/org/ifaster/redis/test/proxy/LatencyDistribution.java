@@ -0,0 +1,93 @@
+package org.ifaster.redis.test.proxy;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 代理注入的延迟分布，每个回复采样一次
+ *
+ * @author yangnan
+ */
+@FunctionalInterface
+public interface LatencyDistribution {
+
+    /**
+     * 不注入延迟
+     */
+    LatencyDistribution NONE = random -> 0;
+
+    /**
+     * 采样一个延迟
+     *
+     * @param random 代理线程使用的随机数
+     * @return 纳秒
+     */
+    long nextNanos(Random random);
+
+    /**
+     * 固定延迟
+     *
+     * @param millis
+     * @return
+     */
+    static LatencyDistribution fixed(double millis) {
+        long nanos = nanos(millis);
+        return random -> nanos;
+    }
+
+    /**
+     * [min, max) 均匀分布
+     *
+     * @param minMillis
+     * @param maxMillis
+     * @return
+     */
+    static LatencyDistribution uniform(double minMillis, double maxMillis) {
+        long min = nanos(minMillis);
+        long range = nanos(maxMillis) - min;
+        return random -> min + (long) (random.nextDouble() * range);
+    }
+
+    /**
+     * 基础延迟加正态分布的抖动，小于0时取0
+     *
+     * @param meanMillis   平均延迟
+     * @param jitterMillis 标准差
+     * @return
+     */
+    static LatencyDistribution jitter(double meanMillis, double jitterMillis) {
+        long mean = nanos(meanMillis);
+        long jitter = nanos(jitterMillis);
+        return random -> Math.max(0, mean + (long) (random.nextGaussian() * jitter));
+    }
+
+    /**
+     * 长尾分布：大部分回复是base，按概率出现spike延迟，模拟GC、fork或慢命令造成的停顿
+     *
+     * @param baseMillis  正常延迟
+     * @param spikeMillis 毛刺延迟
+     * @param probability 毛刺概率 0-1
+     * @return
+     */
+    static LatencyDistribution spikes(double baseMillis, double spikeMillis, double probability) {
+        long base = nanos(baseMillis);
+        long spike = nanos(spikeMillis);
+        return random -> random.nextDouble() < probability ? spike : base;
+    }
+
+    /**
+     * 对数正态分布，中位数为medianMillis，sigma越大尾部越长
+     *
+     * @param medianMillis
+     * @param sigma
+     * @return
+     */
+    static LatencyDistribution logNormal(double medianMillis, double sigma) {
+        double median = nanos(medianMillis);
+        return random -> (long) (median * Math.exp(sigma * random.nextGaussian()));
+    }
+
+    static long nanos(double millis) {
+        return (long) (millis * TimeUnit.MILLISECONDS.toNanos(1));
+    }
+}
@@ -0,0 +1,308 @@
+package org.ifaster.redis.test.proxy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.function.UnaryOperator;
+
+import redis.clients.jedis.util.JedisClusterCRC16;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * 一对客户端/节点连接
+ * 请求按完整命令切分后决定是否注入故障，回复与请求一一对应，按请求顺序在到期后写回客户端
+ *
+ * @author yangnan
+ */
+class ProxyConnection {
+
+    final FaultProxy proxy;
+    final Endpoint client;
+    final Endpoint server;
+    /**
+     * 按请求顺序排列的回复
+     */
+    private final ArrayDeque<Pending> pending = new ArrayDeque<>();
+    /**
+     * 已转发但节点还没有回复的请求
+     */
+    private final ArrayDeque<Pending> inflight = new ArrayDeque<>();
+    private long lastDue;
+    boolean closed;
+
+    ProxyConnection(FaultProxy proxy, SocketChannel client, SelectionKey clientKey,
+                    SocketChannel server, SelectionKey serverKey) {
+        this.proxy = proxy;
+        this.client = new Endpoint(this, client, clientKey);
+        this.server = new Endpoint(this, server, serverKey);
+        this.lastDue = System.nanoTime();
+    }
+
+    /**
+     * 处理客户端发来的完整命令
+     *
+     * @param random
+     * @param askTarget ASK注入的目标地址
+     * @return 需要重置连接时返回false
+     */
+    boolean onRequests(Random random, String askTarget) throws IOException {
+        int end;
+        while ((end = Resp.scan(client.input, client.start, client.end)) > 0) {
+            int start = client.start;
+            client.start = end;
+            if (random.nextDouble() < proxy.getResetProbability()) {
+                return false;
+            }
+            Pending p = new Pending(proxy.getLatency().nextNanos(random));
+            List<byte[]> args = Resp.command(client.input, start, end);
+            String cmd = args.isEmpty() ? "" : new String(args.get(0), UTF_8).toUpperCase(Locale.ROOT);
+            String injected = keyed(cmd, args) ? inject(random, args.get(1), askTarget) : null;
+            if (injected != null) {
+                p.ready(Resp.error(injected), System.nanoTime());
+            } else {
+                p.rewrite = "CLUSTER".equals(cmd);
+                server.enqueue(Arrays.copyOfRange(client.input, start, end));
+                inflight.add(p);
+            }
+            pending.add(p);
+        }
+        client.compact();
+        server.flush();
+        return true;
+    }
+
+    /**
+     * 处理节点的回复
+     *
+     * @param addresses 节点地址到代理地址的映射
+     */
+    void onReplies(UnaryOperator<String> addresses) {
+        int end;
+        long now = System.nanoTime();
+        while ((end = Resp.scan(server.input, server.start, server.end)) > 0) {
+            int start = server.start;
+            server.start = end;
+            Pending p = inflight.poll();
+            if (p == null) {
+                throw new IllegalStateException("unexpected reply from " + proxy.getTarget());
+            }
+            byte[] reply = Arrays.copyOfRange(server.input, start, end);
+            if (p.rewrite || reply[0] == '-') {
+                reply = rewrite(reply, addresses);
+            }
+            p.ready(reply, now);
+        }
+        server.compact();
+    }
+
+    /**
+     * 按顺序写回已到期的回复
+     *
+     * @param now
+     * @return 下一个回复的到期时间，没有时返回0
+     */
+    long deliver(long now) throws IOException {
+        Pending p;
+        while ((p = pending.peek()) != null && p.reply != null) {
+            if (p.due == 0) {
+                //回复顺序不能超过前一个
+                p.due = Math.max(p.readyAt + p.delay - lastDue, 0) + lastDue;
+                lastDue = p.due;
+            }
+            if (p.due - now > 0) {
+                client.flush();
+                return p.due;
+            }
+            pending.poll();
+            client.enqueue(p.reply);
+        }
+        client.flush();
+        return 0;
+    }
+
+    /**
+     * 关闭两端，reset为true时发送RST
+     */
+    void close(boolean reset) {
+        closed = true;
+        client.close(reset);
+        server.close(reset);
+    }
+
+    private String inject(Random random, byte[] key, String askTarget) {
+        int slot = JedisClusterCRC16.getSlot(key);
+        double r = random.nextDouble();
+        if (r < proxy.getMovedProbability()) {
+            return "MOVED " + slot + " " + proxy.getAddress();
+        }
+        if (r < proxy.getMovedProbability() + proxy.getAskProbability()) {
+            return "ASK " + slot + " " + askTarget;
+        }
+        return null;
+    }
+
+    private static boolean keyed(String cmd, List<byte[]> args) {
+        if (args.size() < 2) {
+            return false;
+        }
+        switch (cmd) {
+            case "AUTH": case "ASKING": case "CLUSTER": case "SCAN": case "PING": case "ECHO": case "SELECT":
+            case "CLIENT": case "INFO": case "COMMAND": case "PUBLISH": case "SUBSCRIBE": case "PSUBSCRIBE":
+            case "UNSUBSCRIBE": case "PUNSUBSCRIBE": case "READONLY": case "READWRITE": case "QUIT":
+                return false;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * 把回复中的节点地址换成代理地址：MOVED/ASK错误、CLUSTER SLOTS和CLUSTER NODES
+     */
+    private static byte[] rewrite(byte[] reply, UnaryOperator<String> addresses) {
+        Object value = Resp.decode(reply, new int[]{0});
+        ByteArrayOutputStream out = new ByteArrayOutputStream(reply.length + 32);
+        Resp.encode(rewrite(value, addresses), out);
+        return out.toByteArray();
+    }
+
+    private static Object rewrite(Object value, UnaryOperator<String> addresses) {
+        if (value instanceof Resp.Error) {
+            String[] parts = ((Resp.Error) value).message.split(" ");
+            if (parts.length == 3 && ("MOVED".equals(parts[0]) || "ASK".equals(parts[0]))) {
+                return new Resp.Error(parts[0] + " " + parts[1] + " " + addresses.apply(parts[2]));
+            }
+            return value;
+        }
+        if (value instanceof byte[]) {
+            //CLUSTER NODES: <id> <ip:port@cport> ...
+            String[] lines = new String((byte[]) value, UTF_8).split("\n");
+            StringBuilder sb = new StringBuilder();
+            for (String line : lines) {
+                String[] fields = line.split(" ", 3);
+                if (fields.length == 3) {
+                    int at = fields[1].indexOf('@');
+                    String address = at < 0 ? fields[1] : fields[1].substring(0, at);
+                    line = fields[0] + " " + addresses.apply(address) + (at < 0 ? "" : fields[1].substring(at))
+                            + " " + fields[2];
+                }
+                sb.append(line).append('\n');
+            }
+            return sb.toString().getBytes(UTF_8);
+        }
+        if (value instanceof List) {
+            //CLUSTER SLOTS: [[start, end, [host, port, id], ...], ...]
+            List<Object> slots = (List<Object>) value;
+            for (Object slot : slots) {
+                List<Object> info = (List<Object>) slot;
+                for (int i = 2; i < info.size(); i++) {
+                    List<Object> node = (List<Object>) info.get(i);
+                    String[] address = addresses.apply(new String((byte[]) node.get(0), UTF_8) + ":" + node.get(1))
+                            .split(":");
+                    node.set(0, address[0].getBytes(UTF_8));
+                    node.set(1, Long.parseLong(address[1]));
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * 一个请求对应的回复
+     */
+    private static final class Pending {
+        final long delay;
+        boolean rewrite;
+        byte[] reply;
+        long readyAt;
+        long due;
+
+        Pending(long delay) {
+            this.delay = delay;
+        }
+
+        void ready(byte[] reply, long now) {
+            this.reply = reply;
+            this.readyAt = now;
+        }
+    }
+
+    /**
+     * 连接的一端：输入缓冲区和发送队列
+     */
+    static final class Endpoint {
+        final ProxyConnection conn;
+        final SocketChannel channel;
+        final SelectionKey key;
+        byte[] input = new byte[4096];
+        int start;
+        int end;
+        private final ArrayDeque<ByteBuffer> outputs = new ArrayDeque<>();
+
+        Endpoint(ProxyConnection conn, SocketChannel channel, SelectionKey key) {
+            this.conn = conn;
+            this.channel = channel;
+            this.key = key;
+            key.attach(this);
+        }
+
+        boolean read() throws IOException {
+            if (end == input.length) {
+                input = Arrays.copyOf(input, input.length * 2);
+            }
+            int n = channel.read(ByteBuffer.wrap(input, end, input.length - end));
+            if (n < 0) {
+                return false;
+            }
+            end += n;
+            return true;
+        }
+
+        void compact() {
+            if (start == end) {
+                start = 0;
+                end = 0;
+            } else if (start > input.length / 2) {
+                System.arraycopy(input, start, input, 0, end - start);
+                end -= start;
+                start = 0;
+            }
+        }
+
+        void enqueue(byte[] data) {
+            outputs.add(ByteBuffer.wrap(data));
+        }
+
+        void flush() throws IOException {
+            while (!outputs.isEmpty()) {
+                ByteBuffer buffer = outputs.peek();
+                channel.write(buffer);
+                if (buffer.hasRemaining()) {
+                    break;
+                }
+                outputs.poll();
+            }
+            if (key.isValid()) {
+                key.interestOps(SelectionKey.OP_READ | (outputs.isEmpty() ? 0 : SelectionKey.OP_WRITE));
+            }
+        }
+
+        void close(boolean reset) {
+            key.cancel();
+            try {
+                if (reset && channel.isOpen()) {
+                    channel.socket().setSoLinger(true, 0);
+                }
+                channel.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package org.ifaster.redis.test.proxy;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * 代理使用的RESP帧切分和解码
+ * 转发时只需要找到完整值的边界，只有需要改写地址的回复才完整解码再编码
+ *
+ * @author yangnan
+ */
+final class Resp {
+
+    private Resp() {
+    }
+
+    /**
+     * 找到从from开始的完整RESP值的结束位置
+     *
+     * @param data
+     * @param from
+     * @param to
+     * @return 结束位置(不含)，数据不完整时返回-1
+     */
+    static int scan(byte[] data, int from, int to) {
+        if (from >= to) {
+            return -1;
+        }
+        int lineEnd = lineEnd(data, from, to);
+        if (lineEnd < 0) {
+            return -1;
+        }
+        switch (data[from]) {
+            case '$': {
+                int length = (int) parseLong(data, from + 1, lineEnd);
+                if (length < 0) {
+                    return lineEnd + 2;
+                }
+                int end = lineEnd + 2 + length + 2;
+                return end <= to ? end : -1;
+            }
+            case '*': {
+                int count = (int) parseLong(data, from + 1, lineEnd);
+                int position = lineEnd + 2;
+                for (int i = 0; i < count; i++) {
+                    position = scan(data, position, to);
+                    if (position < 0) {
+                        return -1;
+                    }
+                }
+                return position;
+            }
+            default:
+                //+ - : 和内联命令都是单行
+                return lineEnd + 2;
+        }
+    }
+
+    /**
+     * 解码请求参数，支持内联命令
+     *
+     * @return
+     */
+    static List<byte[]> command(byte[] data, int from, int to) {
+        List<byte[]> args = new ArrayList<>();
+        if (data[from] != '*') {
+            for (String s : new String(data, from, to - from, UTF_8).trim().split("\\s+")) {
+                if (!s.isEmpty()) {
+                    args.add(s.getBytes(UTF_8));
+                }
+            }
+            return args;
+        }
+        for (Object arg : (List<?>) decode(data, new int[]{from})) {
+            args.add((byte[]) arg);
+        }
+        return args;
+    }
+
+    /**
+     * 完整解码：bulk为byte[]，整数为Long，状态为String，错误为{@link Error}，数组为List
+     *
+     * @param data
+     * @param position 输入输出的读取位置
+     * @return
+     */
+    static Object decode(byte[] data, int[] position) {
+        int from = position[0];
+        int lineEnd = lineEnd(data, from, data.length);
+        position[0] = lineEnd + 2;
+        switch (data[from]) {
+            case '+':
+                return new String(data, from + 1, lineEnd - from - 1, UTF_8);
+            case '-':
+                return new Error(new String(data, from + 1, lineEnd - from - 1, UTF_8));
+            case ':':
+                return parseLong(data, from + 1, lineEnd);
+            case '$': {
+                int length = (int) parseLong(data, from + 1, lineEnd);
+                if (length < 0) {
+                    return null;
+                }
+                byte[] rs = new byte[length];
+                System.arraycopy(data, lineEnd + 2, rs, 0, length);
+                position[0] = lineEnd + 2 + length + 2;
+                return rs;
+            }
+            case '*': {
+                int count = (int) parseLong(data, from + 1, lineEnd);
+                if (count < 0) {
+                    return null;
+                }
+                List<Object> rs = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    rs.add(decode(data, position));
+                }
+                return rs;
+            }
+            default:
+                throw new IllegalStateException("unknown RESP type " + (char) data[from]);
+        }
+    }
+
+    static void encode(Object value, ByteArrayOutputStream out) {
+        if (value == null) {
+            line(out, "$-1");
+        } else if (value instanceof String) {
+            line(out, "+" + value);
+        } else if (value instanceof Error) {
+            line(out, "-" + ((Error) value).message);
+        } else if (value instanceof Long) {
+            line(out, ":" + value);
+        } else if (value instanceof byte[]) {
+            byte[] data = (byte[]) value;
+            line(out, "$" + data.length);
+            out.write(data, 0, data.length);
+            line(out, "");
+        } else {
+            List<?> list = (List<?>) value;
+            line(out, "*" + list.size());
+            for (Object o : list) {
+                encode(o, out);
+            }
+        }
+    }
+
+    static byte[] error(String message) {
+        return ("-" + message + "\r\n").getBytes(UTF_8);
+    }
+
+    private static void line(ByteArrayOutputStream out, String s) {
+        byte[] data = (s + "\r\n").getBytes(UTF_8);
+        out.write(data, 0, data.length);
+    }
+
+    private static int lineEnd(byte[] data, int from, int to) {
+        for (int i = from; i < to - 1; i++) {
+            if (data[i] == '\r' && data[i + 1] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static long parseLong(byte[] data, int from, int to) {
+        boolean negative = data[from] == '-';
+        long value = 0;
+        for (int i = negative ? from + 1 : from; i < to; i++) {
+            value = value * 10 + (data[i] - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    static final class Error {
+        final String message;
+
+        Error(String message) {
+            this.message = message;
+        }
+    }
+}
@@ -0,0 +1,417 @@
+package org.ifaster.redis.test.server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * 进程内的redis集群替身，用于没有redis的环境下运行测试和基准测试
+ * 所有节点共用一个NIO selector线程和一份数据，每个节点负责连续的一段slot，
+ * 不属于节点的key返回MOVED，支持CLUSTER SLOTS，JedisCluster可以直接用 {@link #getNodes()} 初始化。
+ * 可以按节点注入回复延迟，延迟的回复按到期时间排队发送，不阻塞其他连接；
+ * 统计每种命令的执行次数和一次读取中最多执行的命令数，用于验证合并和pipeline
+ *
+ * <pre>
+ * try (EmbeddedRedisCluster cluster = new EmbeddedRedisCluster(3)) {
+ *     RedisClient client = new RedisClientSupport("test:", null, cluster.getNodes());
+ * }
+ * </pre>
+ *
+ * @author yangnan
+ */
+public class EmbeddedRedisCluster implements Closeable {
+
+    private static final int SLOTS = 16384;
+    private static final String HOST = "127.0.0.1";
+
+    private final Selector selector;
+    private final List<EmbeddedRedisNode> nodes = new ArrayList<>();
+    private final EmbeddedRedisStore store;
+    private final PriorityQueue<Delayed> delayed = new PriorityQueue<>((a, b) -> {
+        int c = Long.compare(a.due - b.due, 0);
+        return c != 0 ? c : Long.compare(a.sequence, b.sequence);
+    });
+    private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final Thread thread;
+    private volatile boolean running = true;
+    private long sequence;
+    private final Map<String, LongAdder> commandCounts = new ConcurrentHashMap<>();
+    private volatile int maxPipelined;
+
+    /**
+     * @param size 主节点数
+     */
+    public EmbeddedRedisCluster(int size) {
+        this(size, null);
+    }
+
+    /**
+     * @param size     主节点数
+     * @param password 不为null时校验AUTH
+     */
+    public EmbeddedRedisCluster(int size, String password) {
+        if (size <= 0 || size > SLOTS) {
+            throw new IllegalArgumentException("invalid cluster size " + size);
+        }
+        try {
+            this.selector = Selector.open();
+            for (int i = 0; i < size; i++) {
+                ServerSocketChannel server = ServerSocketChannel.open();
+                server.bind(new InetSocketAddress(HOST, 0));
+                server.configureBlocking(false);
+                EmbeddedRedisNode node = new EmbeddedRedisNode(String.format("%040d", i), HOST, server,
+                        i * SLOTS / size, (i + 1) * SLOTS / size - 1);
+                server.register(selector, SelectionKey.OP_ACCEPT, node);
+                nodes.add(node);
+            }
+        } catch (IOException e) {
+            close();
+            throw new UncheckedIOException(e);
+        }
+        this.store = new EmbeddedRedisStore(Collections.unmodifiableList(nodes), password);
+        this.thread = new Thread(this::loop, "embedded-redis");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * 节点地址 host1:port1,host2:port2
+     *
+     * @return
+     */
+    public String getNodes() {
+        return nodes.stream().map(EmbeddedRedisNode::toString).collect(Collectors.joining(","));
+    }
+
+    public List<EmbeddedRedisNode> nodes() {
+        return Collections.unmodifiableList(nodes);
+    }
+
+    /**
+     * 设置所有节点的回复延迟
+     *
+     * @param millis 0表示不延迟
+     */
+    public void setLatencyMillis(long millis) {
+        nodes.forEach(n -> n.setLatencyMillis(millis));
+    }
+
+    /**
+     * 命令执行次数
+     *
+     * @param command 命令名，不区分大小写
+     * @return
+     */
+    public long getCommandCount(String command) {
+        LongAdder count = commandCounts.get(command.toUpperCase(Locale.ROOT));
+        return count == null ? 0 : count.sum();
+    }
+
+    /**
+     * 一个连接一次读取到并执行的最多命令数，大于1说明客户端使用了pipeline
+     *
+     * @return
+     */
+    public int getMaxPipelined() {
+        return maxPipelined;
+    }
+
+    /**
+     * 清空命令统计
+     */
+    public void resetStats() {
+        commandCounts.clear();
+        maxPipelined = 0;
+    }
+
+    /**
+     * 当前订阅连接数
+     *
+     * @return
+     */
+    public int getSubscribers() {
+        return call(store::subscribers);
+    }
+
+    /**
+     * 断开所有客户端连接，模拟网络中断，客户端会重新建立连接
+     */
+    public void closeConnections() {
+        call(() -> {
+            for (SelectionKey key : selector.keys()) {
+                if (key.attachment() instanceof RespConnection) {
+                    close((RespConnection) key.attachment());
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 清空所有数据
+     */
+    public void flushAll() {
+        call(() -> {
+            store.clear();
+            return null;
+        });
+    }
+
+    /**
+     * 在集群线程中执行并等待结果
+     */
+    private <T> T call(Supplier<T> task) {
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicReference<T> result = new AtomicReference<>();
+        tasks.add(() -> {
+            try {
+                result.set(task.get());
+            } finally {
+                latch.countDown();
+            }
+        });
+        selector.wakeup();
+        try {
+            if (!latch.await(10, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("embedded redis not responding");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return result.get();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        if (selector == null) {
+            return;
+        }
+        selector.wakeup();
+        if (thread != null && thread != Thread.currentThread()) {
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        for (EmbeddedRedisNode node : nodes) {
+            try {
+                node.server.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private void loop() {
+        try {
+            while (running) {
+                long timeout = timeoutMillis();
+                if (timeout < 0) {
+                    selector.selectNow();
+                } else {
+                    selector.select(timeout);
+                }
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    task.run();
+                }
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    handle(key);
+                }
+                long now = System.nanoTime();
+                deliver(now);
+                store.expireWaiters(now);
+                wake();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                if (key.attachment() instanceof RespConnection) {
+                    ((RespConnection) key.attachment()).close();
+                }
+            }
+            try {
+                selector.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private void handle(SelectionKey key) throws IOException {
+        if (!key.isValid()) {
+            return;
+        }
+        if (key.isAcceptable()) {
+            EmbeddedRedisNode node = (EmbeddedRedisNode) key.attachment();
+            SocketChannel channel = node.server.accept();
+            if (channel == null) {
+                return;
+            }
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            SelectionKey connKey = channel.register(selector, SelectionKey.OP_READ);
+            connKey.attach(new RespConnection(node, channel, connKey));
+            return;
+        }
+        RespConnection conn = (RespConnection) key.attachment();
+        try {
+            if (key.isWritable()) {
+                conn.flush();
+            }
+            if (key.isValid() && key.isReadable()) {
+                if (!conn.read()) {
+                    close(conn);
+                    return;
+                }
+                process(conn);
+            }
+        } catch (IOException | RuntimeException e) {
+            close(conn);
+        }
+    }
+
+    /**
+     * 执行连接中所有完整的命令，一次读到的命令的回复合并发送
+     */
+    private void process(RespConnection conn) throws IOException {
+        boolean quit = false;
+        int executed = 0;
+        List<byte[]> args;
+        while (!conn.blocked && (args = conn.next()) != null) {
+            if (args.isEmpty()) {
+                continue;
+            }
+            commandCounts.computeIfAbsent(new String(args.get(0)).toUpperCase(Locale.ROOT), c -> new LongAdder())
+                    .increment();
+            executed++;
+            store.execute(conn, args);
+            if (args.size() == 1 && "QUIT".equalsIgnoreCase(new String(args.get(0)))) {
+                quit = true;
+                break;
+            }
+        }
+        if (executed > maxPipelined) {
+            maxPipelined = executed;
+        }
+        respond(conn);
+        if (quit) {
+            close(conn);
+        }
+    }
+
+    private void respond(RespConnection conn) throws IOException {
+        if (conn.reply.size() == 0) {
+            return;
+        }
+        long latency = conn.node.getLatencyNanos();
+        long now = System.nanoTime();
+        if (latency <= 0 && conn.lastDue - now <= 0) {
+            conn.enqueue();
+            conn.flush();
+            return;
+        }
+        long due = now + latency;
+        if (due - conn.lastDue < 0) {
+            due = conn.lastDue;
+        }
+        conn.lastDue = due;
+        delayed.add(new Delayed(due, sequence++, conn, conn.reply.drain()));
+    }
+
+    private void deliver(long now) {
+        Delayed d;
+        while ((d = delayed.peek()) != null && d.due - now <= 0) {
+            delayed.poll();
+            if (!d.conn.key.isValid()) {
+                continue;
+            }
+            try {
+                d.conn.enqueue(d.data);
+                d.conn.flush();
+            } catch (IOException e) {
+                close(d.conn);
+            }
+        }
+    }
+
+    /**
+     * BLPOP返回后继续处理该连接已缓存的命令
+     */
+    private void wake() {
+        while (!store.woken.isEmpty()) {
+            List<RespConnection> woken = new ArrayList<>(store.woken);
+            store.woken.clear();
+            for (RespConnection conn : woken) {
+                try {
+                    process(conn);
+                } catch (IOException e) {
+                    close(conn);
+                }
+            }
+        }
+    }
+
+    /**
+     * 距离下一个延迟回复或BLPOP超时的毫秒数，0表示无限等待，-1表示已到期
+     */
+    private long timeoutMillis() {
+        long next = 0;
+        Delayed d = delayed.peek();
+        if (d != null) {
+            next = d.due;
+        }
+        long deadline = store.nextWaiterDeadline();
+        if (deadline != 0 && (next == 0 || deadline - next < 0)) {
+            next = deadline;
+        }
+        if (next == 0) {
+            return 0;
+        }
+        long nanos = next - System.nanoTime();
+        return nanos <= 0 ? -1 : Math.max(1, TimeUnit.NANOSECONDS.toMillis(nanos));
+    }
+
+    private void close(RespConnection conn) {
+        store.remove(conn);
+        conn.close();
+    }
+
+    private static final class Delayed {
+        final long due;
+        final long sequence;
+        final RespConnection conn;
+        final byte[] data;
+
+        Delayed(long due, long sequence, RespConnection conn, byte[] data) {
+            this.due = due;
+            this.sequence = sequence;
+            this.conn = conn;
+            this.data = data;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package org.ifaster.redis.test.server;
+
+import java.nio.channels.ServerSocketChannel;
+
+/**
+ * 内嵌集群中的一个主节点，负责连续的一段slot
+ *
+ * @author yangnan
+ */
+public class EmbeddedRedisNode {
+
+    private final String id;
+    private final String host;
+    private final int port;
+    private final int slotStart;
+    private final int slotEnd;
+    final ServerSocketChannel server;
+    /**
+     * 每个回复的注入延迟
+     */
+    private volatile long latencyNanos;
+
+    EmbeddedRedisNode(String id, String host, ServerSocketChannel server, int slotStart, int slotEnd) {
+        this.id = id;
+        this.host = host;
+        this.port = server.socket().getLocalPort();
+        this.server = server;
+        this.slotStart = slotStart;
+        this.slotEnd = slotEnd;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public int getSlotStart() {
+        return slotStart;
+    }
+
+    public int getSlotEnd() {
+        return slotEnd;
+    }
+
+    /**
+     * 设置该节点每个回复的延迟，0表示不延迟
+     *
+     * @param millis
+     */
+    public void setLatencyMillis(long millis) {
+        this.latencyNanos = millis * 1_000_000L;
+    }
+
+    long getLatencyNanos() {
+        return latencyNanos;
+    }
+
+    boolean owns(int slot) {
+        return slot >= slotStart && slot <= slotEnd;
+    }
+
+    @Override
+    public String toString() {
+        return host + ":" + port;
+    }
+}
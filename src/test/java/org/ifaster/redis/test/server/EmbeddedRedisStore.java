@@ -0,0 +1,1173 @@
+package org.ifaster.redis.test.server;
+
+import redis.clients.jedis.util.JedisClusterCRC16;
+
+import java.util.*;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * 内嵌集群共享的数据和命令实现
+ * 只在集群的selector线程中访问，不需要同步；过期在访问时惰性删除。
+ * 实现RedisClient使用到的命令子集：string、hash、list、set、sorted set、过期、scan、pub/sub和CLUSTER SLOTS
+ *
+ * @author yangnan
+ */
+class EmbeddedRedisStore {
+
+    private static final String WRONG_TYPE = "WRONGTYPE Operation against a key holding the wrong kind of value";
+    private static final String NOT_INTEGER = "ERR value is not an integer or out of range";
+    private static final String NOT_FLOAT = "ERR value is not a valid float";
+    private static final String SYNTAX = "ERR syntax error";
+
+    private final List<EmbeddedRedisNode> nodes;
+    private final String password;
+    private final Map<Bytes, Object> data = new HashMap<>();
+    private final Map<Bytes, Long> expires = new HashMap<>();
+    /**
+     * 等待中的BLPOP
+     */
+    private final List<Waiter> waiters = new ArrayList<>();
+    /**
+     * BLPOP等到数据或超时后需要恢复处理的连接
+     */
+    final List<RespConnection> woken = new ArrayList<>();
+    /**
+     * channel -> 订阅的连接，PUBLISH发送到所有节点上的订阅连接
+     */
+    private final Map<Bytes, List<RespConnection>> channels = new HashMap<>();
+
+    EmbeddedRedisStore(List<EmbeddedRedisNode> nodes, String password) {
+        this.nodes = nodes;
+        this.password = password;
+    }
+
+    /**
+     * 执行一个命令，回复写入连接的reply
+     *
+     * @param conn
+     * @param args
+     */
+    void execute(RespConnection conn, List<byte[]> args) {
+        RespReply r = conn.reply;
+        String cmd = string(args.get(0)).toUpperCase(Locale.ROOT);
+        try {
+            if ("ASKING".equals(cmd)) {
+                conn.asking = true;
+                r.ok();
+                return;
+            }
+            if (!route(conn, cmd, args)) {
+                return;
+            }
+            dispatch(conn, cmd, args, r);
+        } catch (RespException e) {
+            r.error(e.getMessage());
+        } catch (IndexOutOfBoundsException e) {
+            r.error("ERR wrong number of arguments for '" + cmd.toLowerCase(Locale.ROOT) + "' command");
+        } finally {
+            if (!"ASKING".equals(cmd)) {
+                conn.asking = false;
+            }
+        }
+    }
+
+    void clear() {
+        data.clear();
+        expires.clear();
+    }
+
+    /**
+     * 超时的BLPOP回复nil
+     *
+     * @param now System.nanoTime
+     */
+    void expireWaiters(long now) {
+        for (Iterator<Waiter> it = waiters.iterator(); it.hasNext(); ) {
+            Waiter w = it.next();
+            if (w.deadline > 0 && now - w.deadline >= 0) {
+                it.remove();
+                w.conn.reply.nullArray();
+                w.conn.blocked = false;
+                woken.add(w.conn);
+            }
+        }
+    }
+
+    /**
+     * 最早的BLPOP超时时间，没有时返回0
+     *
+     * @return
+     */
+    long nextWaiterDeadline() {
+        long deadline = 0;
+        for (Waiter w : waiters) {
+            if (w.deadline > 0 && (deadline == 0 || w.deadline - deadline < 0)) {
+                deadline = w.deadline;
+            }
+        }
+        return deadline;
+    }
+
+    void remove(RespConnection conn) {
+        waiters.removeIf(w -> w.conn == conn);
+        channels.values().forEach(subs -> subs.remove(conn));
+    }
+
+    /**
+     * 订阅连接数
+     *
+     * @return
+     */
+    int subscribers() {
+        return (int) channels.values().stream().flatMap(List::stream).distinct().count();
+    }
+
+    /**
+     * 检查key所在slot：跨slot返回CROSSSLOT，不属于当前节点返回MOVED
+     *
+     * @return 可以在当前节点执行时返回true
+     */
+    private boolean route(RespConnection conn, String cmd, List<byte[]> args) {
+        int first;
+        int last;
+        int step = 1;
+        switch (cmd) {
+            case "PING": case "ECHO": case "AUTH": case "SELECT": case "CLUSTER": case "SCAN": case "FLUSHALL":
+            case "FLUSHDB": case "DBSIZE": case "INFO": case "QUIT": case "READONLY": case "READWRITE":
+            case "PUBLISH": case "COMMAND": case "CLIENT": case "SUBSCRIBE": case "UNSUBSCRIBE":
+                return true;
+            case "MGET": case "DEL": case "UNLINK": case "EXISTS":
+                first = 1;
+                last = args.size() - 1;
+                break;
+            case "MSET":
+                first = 1;
+                last = args.size() - 2;
+                step = 2;
+                break;
+            case "BLPOP":
+                first = 1;
+                last = args.size() - 2;
+                break;
+            default:
+                first = 1;
+                last = 1;
+        }
+        if (args.size() <= first) {
+            return true;
+        }
+        int slot = JedisClusterCRC16.getSlot(args.get(first));
+        for (int i = first + step; i <= last; i += step) {
+            if (JedisClusterCRC16.getSlot(args.get(i)) != slot) {
+                conn.reply.error("CROSSSLOT Keys in request don't hash to the same slot");
+                return false;
+            }
+        }
+        //ASKING之后的一个命令按迁移中的slot处理，数据是共享的所以直接执行
+        if (!conn.node.owns(slot) && !conn.asking) {
+            EmbeddedRedisNode owner = owner(slot);
+            conn.reply.error("MOVED " + slot + " " + owner.getHost() + ":" + owner.getPort());
+            return false;
+        }
+        return true;
+    }
+
+    private void dispatch(RespConnection conn, String cmd, List<byte[]> args, RespReply r) {
+        switch (cmd) {
+            //连接和集群
+            case "PING":
+                if (args.size() > 1) {
+                    r.bulk(args.get(1));
+                } else {
+                    r.status("PONG");
+                }
+                break;
+            case "ECHO":
+                r.bulk(args.get(1));
+                break;
+            case "AUTH":
+                if (password != null && !password.equals(string(args.get(args.size() - 1)))) {
+                    r.error("WRONGPASS invalid username-password pair");
+                } else {
+                    r.ok();
+                }
+                break;
+            case "SELECT": case "READONLY": case "READWRITE": case "CLIENT":
+                r.ok();
+                break;
+            case "QUIT":
+                r.ok();
+                break;
+            case "COMMAND":
+                r.array(0);
+                break;
+            case "INFO":
+                r.bulk("# Server\r\nredis_version:5.0.0\r\nredis_mode:cluster\r\n");
+                break;
+            case "FLUSHALL": case "FLUSHDB":
+                clear();
+                r.ok();
+                break;
+            case "DBSIZE":
+                r.integer(ownedKeys(conn.node).size());
+                break;
+            case "PUBLISH":
+                r.integer(publish(args.get(1), args.get(2)));
+                break;
+            case "SUBSCRIBE":
+                for (int i = 1; i < args.size(); i++) {
+                    List<RespConnection> subs = channels.computeIfAbsent(new Bytes(args.get(i)), c -> new ArrayList<>());
+                    if (!subs.contains(conn)) {
+                        subs.add(conn);
+                    }
+                    r.array(3).bulk("subscribe").bulk(args.get(i)).integer(subscriptions(conn));
+                }
+                break;
+            case "UNSUBSCRIBE":
+                unsubscribe(conn, args, r);
+                break;
+            case "CLUSTER":
+                cluster(args, r);
+                break;
+            case "SCAN":
+                scan(conn, args, r);
+                break;
+            //通用key命令
+            case "DEL": case "UNLINK": {
+                long n = 0;
+                for (int i = 1; i < args.size(); i++) {
+                    n += remove(new Bytes(args.get(i))) ? 1 : 0;
+                }
+                r.integer(n);
+                break;
+            }
+            case "EXISTS": {
+                long n = 0;
+                for (int i = 1; i < args.size(); i++) {
+                    n += lookup(new Bytes(args.get(i))) != null ? 1 : 0;
+                }
+                r.integer(n);
+                break;
+            }
+            case "TYPE":
+                r.status(type(lookup(key(args))));
+                break;
+            case "EXPIRE":
+                r.integer(expireAt(key(args), System.currentTimeMillis() + parseLong(args.get(2)) * 1000));
+                break;
+            case "PEXPIRE":
+                r.integer(expireAt(key(args), System.currentTimeMillis() + parseLong(args.get(2))));
+                break;
+            case "EXPIREAT":
+                r.integer(expireAt(key(args), parseLong(args.get(2)) * 1000));
+                break;
+            case "PERSIST":
+                r.integer(lookup(key(args)) != null && expires.remove(key(args)) != null ? 1 : 0);
+                break;
+            case "TTL":
+                r.integer(ttl(key(args), 1000));
+                break;
+            case "PTTL":
+                r.integer(ttl(key(args), 1));
+                break;
+            default:
+                if (!strings(cmd, args, r) && !hashes(cmd, args, r) && !lists(conn, cmd, args, r)
+                        && !sets(cmd, args, r) && !sortedSets(cmd, args, r)) {
+                    r.error("ERR unknown command '" + cmd.toLowerCase(Locale.ROOT) + "'");
+                }
+        }
+    }
+
+    /**
+     * 消息写入订阅连接的回复，由集群线程随唤醒的连接一起发送
+     *
+     * @return 收到消息的连接数
+     */
+    private int publish(byte[] channel, byte[] message) {
+        List<RespConnection> subs = channels.get(new Bytes(channel));
+        if (subs == null) {
+            return 0;
+        }
+        for (RespConnection sub : subs) {
+            sub.reply.array(3).bulk("message").bulk(channel).bulk(message);
+            woken.add(sub);
+        }
+        return subs.size();
+    }
+
+    private void unsubscribe(RespConnection conn, List<byte[]> args, RespReply r) {
+        List<byte[]> names = new ArrayList<>();
+        if (args.size() > 1) {
+            names.addAll(args.subList(1, args.size()));
+        } else {
+            channels.forEach((channel, subs) -> {
+                if (subs.contains(conn)) {
+                    names.add(channel.data);
+                }
+            });
+        }
+        if (names.isEmpty()) {
+            r.array(3).bulk("unsubscribe").bulk((byte[]) null).integer(0);
+            return;
+        }
+        for (byte[] name : names) {
+            List<RespConnection> subs = channels.get(new Bytes(name));
+            if (subs != null) {
+                subs.remove(conn);
+            }
+            r.array(3).bulk("unsubscribe").bulk(name).integer(subscriptions(conn));
+        }
+    }
+
+    private int subscriptions(RespConnection conn) {
+        return (int) channels.values().stream().filter(subs -> subs.contains(conn)).count();
+    }
+
+    private boolean strings(String cmd, List<byte[]> args, RespReply r) {
+        switch (cmd) {
+            case "GET":
+                r.bulk(value(key(args)));
+                return true;
+            case "SET":
+                set(args, r);
+                return true;
+            case "SETEX":
+                put(key(args), args.get(3), System.currentTimeMillis() + parseLong(args.get(2)) * 1000);
+                r.ok();
+                return true;
+            case "PSETEX":
+                put(key(args), args.get(3), System.currentTimeMillis() + parseLong(args.get(2)));
+                r.ok();
+                return true;
+            case "SETNX":
+                if (lookup(key(args)) == null) {
+                    put(key(args), args.get(2), 0);
+                    r.integer(1);
+                } else {
+                    r.integer(0);
+                }
+                return true;
+            case "GETSET": {
+                byte[] old = value(key(args));
+                put(key(args), args.get(2), 0);
+                r.bulk(old);
+                return true;
+            }
+            case "MGET": {
+                r.array(args.size() - 1);
+                for (int i = 1; i < args.size(); i++) {
+                    Object v = lookup(new Bytes(args.get(i)));
+                    r.bulk(v instanceof byte[] ? (byte[]) v : null);
+                }
+                return true;
+            }
+            case "MSET":
+                if (args.size() % 2 == 0) {
+                    throw new IndexOutOfBoundsException();
+                }
+                for (int i = 1; i < args.size(); i += 2) {
+                    put(new Bytes(args.get(i)), args.get(i + 1), 0);
+                }
+                r.ok();
+                return true;
+            case "INCR":
+                r.integer(incrBy(key(args), 1));
+                return true;
+            case "DECR":
+                r.integer(incrBy(key(args), -1));
+                return true;
+            case "INCRBY":
+                r.integer(incrBy(key(args), parseLong(args.get(2))));
+                return true;
+            case "DECRBY":
+                r.integer(incrBy(key(args), -parseLong(args.get(2))));
+                return true;
+            case "INCRBYFLOAT": {
+                byte[] old = value(key(args));
+                double value = (old == null ? 0 : parseDouble(old)) + parseDouble(args.get(2));
+                byte[] rs = RespReply.format(value).getBytes(UTF_8);
+                data.put(key(args), rs);
+                r.bulk(rs);
+                return true;
+            }
+            case "STRLEN": {
+                byte[] v = value(key(args));
+                r.integer(v == null ? 0 : v.length);
+                return true;
+            }
+            default:
+                return false;
+        }
+    }
+
+    private boolean hashes(String cmd, List<byte[]> args, RespReply r) {
+        switch (cmd) {
+            case "HGET": {
+                Map<Bytes, byte[]> hash = get(key(args), LinkedHashMap.class);
+                r.bulk(hash == null ? null : hash.get(new Bytes(args.get(2))));
+                return true;
+            }
+            case "HSET": case "HMSET": {
+                if (args.size() < 4 || args.size() % 2 != 0) {
+                    throw new IndexOutOfBoundsException();
+                }
+                Map<Bytes, byte[]> hash = getOrCreate(key(args), LinkedHashMap.class, LinkedHashMap::new);
+                long n = 0;
+                for (int i = 2; i < args.size(); i += 2) {
+                    n += hash.put(new Bytes(args.get(i)), args.get(i + 1)) == null ? 1 : 0;
+                }
+                if ("HSET".equals(cmd)) {
+                    r.integer(n);
+                } else {
+                    r.ok();
+                }
+                return true;
+            }
+            case "HSETNX": {
+                Map<Bytes, byte[]> hash = getOrCreate(key(args), LinkedHashMap.class, LinkedHashMap::new);
+                r.integer(hash.putIfAbsent(new Bytes(args.get(2)), args.get(3)) == null ? 1 : 0);
+                return true;
+            }
+            case "HDEL": {
+                Map<Bytes, byte[]> hash = get(key(args), LinkedHashMap.class);
+                long n = 0;
+                for (int i = 2; hash != null && i < args.size(); i++) {
+                    n += hash.remove(new Bytes(args.get(i))) != null ? 1 : 0;
+                }
+                removeIfEmpty(key(args), hash);
+                r.integer(n);
+                return true;
+            }
+            case "HMGET": {
+                Map<Bytes, byte[]> hash = get(key(args), LinkedHashMap.class);
+                r.array(args.size() - 2);
+                for (int i = 2; i < args.size(); i++) {
+                    r.bulk(hash == null ? null : hash.get(new Bytes(args.get(i))));
+                }
+                return true;
+            }
+            case "HGETALL": {
+                Map<Bytes, byte[]> hash = get(key(args), LinkedHashMap.class);
+                if (hash == null) {
+                    r.array(0);
+                    return true;
+                }
+                r.array(hash.size() * 2);
+                hash.forEach((f, v) -> r.bulk(f.data).bulk(v));
+                return true;
+            }
+            case "HEXISTS": {
+                Map<Bytes, byte[]> hash = get(key(args), LinkedHashMap.class);
+                r.integer(hash != null && hash.containsKey(new Bytes(args.get(2))) ? 1 : 0);
+                return true;
+            }
+            case "HINCRBY": {
+                Map<Bytes, byte[]> hash = getOrCreate(key(args), LinkedHashMap.class, LinkedHashMap::new);
+                Bytes field = new Bytes(args.get(2));
+                byte[] old = hash.get(field);
+                long value = (old == null ? 0 : parseLong(old)) + parseLong(args.get(3));
+                hash.put(field, Long.toString(value).getBytes(UTF_8));
+                r.integer(value);
+                return true;
+            }
+            case "HLEN": {
+                Map<Bytes, byte[]> hash = get(key(args), LinkedHashMap.class);
+                r.integer(hash == null ? 0 : hash.size());
+                return true;
+            }
+            case "HSCAN": {
+                Map<Bytes, byte[]> hash = get(key(args), LinkedHashMap.class);
+                byte[] pattern = match(args, 3);
+                List<byte[]> rs = new ArrayList<>();
+                if (hash != null) {
+                    hash.forEach((f, v) -> {
+                        if (Glob.match(pattern, f.data)) {
+                            rs.add(f.data);
+                            rs.add(v);
+                        }
+                    });
+                }
+                r.array(2).bulk("0").bulks(rs);
+                return true;
+            }
+            default:
+                return false;
+        }
+    }
+
+    private boolean lists(RespConnection conn, String cmd, List<byte[]> args, RespReply r) {
+        switch (cmd) {
+            case "RPUSH": case "LPUSH": {
+                LinkedList<byte[]> list = getOrCreate(key(args), LinkedList.class, LinkedList::new);
+                for (int i = 2; i < args.size(); i++) {
+                    if ("RPUSH".equals(cmd)) {
+                        list.addLast(args.get(i));
+                    } else {
+                        list.addFirst(args.get(i));
+                    }
+                }
+                r.integer(list.size());
+                serveWaiters();
+                return true;
+            }
+            case "LPOP": case "RPOP": {
+                LinkedList<byte[]> list = get(key(args), LinkedList.class);
+                byte[] value = list == null ? null : "LPOP".equals(cmd) ? list.pollFirst() : list.pollLast();
+                removeIfEmpty(key(args), list);
+                r.bulk(value);
+                return true;
+            }
+            case "BLPOP": {
+                List<Bytes> keys = new ArrayList<>();
+                for (int i = 1; i < args.size() - 1; i++) {
+                    keys.add(new Bytes(args.get(i)));
+                }
+                long timeout = (long) (parseDouble(args.get(args.size() - 1)) * 1000);
+                if (!pop(keys, r)) {
+                    conn.blocked = true;
+                    waiters.add(new Waiter(conn, keys, timeout <= 0 ? 0 : System.nanoTime() + timeout * 1_000_000L));
+                }
+                return true;
+            }
+            case "LRANGE": {
+                LinkedList<byte[]> list = get(key(args), LinkedList.class);
+                if (list == null) {
+                    r.array(0);
+                    return true;
+                }
+                int[] range = range(list.size(), parseLong(args.get(2)), parseLong(args.get(3)));
+                r.bulks(list.subList(range[0], range[1]));
+                return true;
+            }
+            case "LINDEX": {
+                LinkedList<byte[]> list = get(key(args), LinkedList.class);
+                long index = parseLong(args.get(2));
+                if (list != null && index < 0) {
+                    index += list.size();
+                }
+                r.bulk(list == null || index < 0 || index >= list.size() ? null : list.get((int) index));
+                return true;
+            }
+            case "LLEN": {
+                LinkedList<byte[]> list = get(key(args), LinkedList.class);
+                r.integer(list == null ? 0 : list.size());
+                return true;
+            }
+            case "LREM": {
+                LinkedList<byte[]> list = get(key(args), LinkedList.class);
+                long count = parseLong(args.get(2));
+                byte[] value = args.get(3);
+                long n = 0;
+                if (list != null) {
+                    Iterator<byte[]> it = count < 0 ? list.descendingIterator() : list.iterator();
+                    long limit = count == 0 ? Long.MAX_VALUE : Math.abs(count);
+                    while (it.hasNext() && n < limit) {
+                        if (Arrays.equals(it.next(), value)) {
+                            it.remove();
+                            n++;
+                        }
+                    }
+                }
+                removeIfEmpty(key(args), list);
+                r.integer(n);
+                return true;
+            }
+            default:
+                return false;
+        }
+    }
+
+    private boolean sets(String cmd, List<byte[]> args, RespReply r) {
+        switch (cmd) {
+            case "SADD": {
+                Set<Bytes> set = getOrCreate(key(args), LinkedHashSet.class, LinkedHashSet::new);
+                long n = 0;
+                for (int i = 2; i < args.size(); i++) {
+                    n += set.add(new Bytes(args.get(i))) ? 1 : 0;
+                }
+                r.integer(n);
+                return true;
+            }
+            case "SREM": {
+                Set<Bytes> set = get(key(args), LinkedHashSet.class);
+                long n = 0;
+                for (int i = 2; set != null && i < args.size(); i++) {
+                    n += set.remove(new Bytes(args.get(i))) ? 1 : 0;
+                }
+                removeIfEmpty(key(args), set);
+                r.integer(n);
+                return true;
+            }
+            case "SMEMBERS": case "SSCAN": {
+                Set<Bytes> set = get(key(args), LinkedHashSet.class);
+                byte[] pattern = "SSCAN".equals(cmd) ? match(args, 3) : null;
+                List<byte[]> rs = new ArrayList<>();
+                if (set != null) {
+                    for (Bytes member : set) {
+                        if (Glob.match(pattern, member.data)) {
+                            rs.add(member.data);
+                        }
+                    }
+                }
+                if ("SSCAN".equals(cmd)) {
+                    r.array(2).bulk("0");
+                }
+                r.bulks(rs);
+                return true;
+            }
+            case "SCARD": {
+                Set<Bytes> set = get(key(args), LinkedHashSet.class);
+                r.integer(set == null ? 0 : set.size());
+                return true;
+            }
+            case "SISMEMBER": {
+                Set<Bytes> set = get(key(args), LinkedHashSet.class);
+                r.integer(set != null && set.contains(new Bytes(args.get(2))) ? 1 : 0);
+                return true;
+            }
+            default:
+                return false;
+        }
+    }
+
+    private boolean sortedSets(String cmd, List<byte[]> args, RespReply r) {
+        switch (cmd) {
+            case "ZADD":
+                zadd(args, r);
+                return true;
+            case "ZINCRBY": {
+                ZSet zset = getOrCreate(key(args), ZSet.class, ZSet::new);
+                Bytes member = new Bytes(args.get(3));
+                Double old = zset.scores.get(member);
+                double score = (old == null ? 0 : old) + parseDouble(args.get(2));
+                zset.put(member, score);
+                r.bulk(score);
+                return true;
+            }
+            case "ZCARD": {
+                ZSet zset = get(key(args), ZSet.class);
+                r.integer(zset == null ? 0 : zset.scores.size());
+                return true;
+            }
+            case "ZSCORE": {
+                ZSet zset = get(key(args), ZSet.class);
+                Double score = zset == null ? null : zset.scores.get(new Bytes(args.get(2)));
+                if (score == null) {
+                    r.bulk((byte[]) null);
+                } else {
+                    r.bulk(score);
+                }
+                return true;
+            }
+            case "ZCOUNT": {
+                ZSet zset = get(key(args), ZSet.class);
+                String min = string(args.get(2));
+                String max = string(args.get(3));
+                long n = 0;
+                for (ZEntry e : zset == null ? Collections.<ZEntry>emptySet() : zset.sorted) {
+                    if (above(e.score, min) && below(e.score, max)) {
+                        n++;
+                    }
+                }
+                r.integer(n);
+                return true;
+            }
+            case "ZREM": {
+                ZSet zset = get(key(args), ZSet.class);
+                long n = 0;
+                for (int i = 2; zset != null && i < args.size(); i++) {
+                    n += zset.remove(new Bytes(args.get(i))) ? 1 : 0;
+                }
+                if (zset != null && zset.scores.isEmpty()) {
+                    remove(key(args));
+                }
+                r.integer(n);
+                return true;
+            }
+            case "ZRANGE": case "ZREVRANGE": {
+                ZSet zset = get(key(args), ZSet.class);
+                boolean withScores = args.size() > 4 && "WITHSCORES".equalsIgnoreCase(string(args.get(4)));
+                List<ZEntry> entries = zset == null ? new ArrayList<>() : new ArrayList<>(zset.sorted);
+                if ("ZREVRANGE".equals(cmd)) {
+                    Collections.reverse(entries);
+                }
+                int[] range = range(entries.size(), parseLong(args.get(2)), parseLong(args.get(3)));
+                r.array((range[1] - range[0]) * (withScores ? 2 : 1));
+                for (ZEntry e : entries.subList(range[0], range[1])) {
+                    r.bulk(e.member.data);
+                    if (withScores) {
+                        r.bulk(e.score);
+                    }
+                }
+                return true;
+            }
+            case "ZRANK": case "ZREVRANK": {
+                ZSet zset = get(key(args), ZSet.class);
+                Bytes member = new Bytes(args.get(2));
+                if (zset == null || !zset.scores.containsKey(member)) {
+                    r.bulk((byte[]) null);
+                    return true;
+                }
+                long rank = 0;
+                for (ZEntry e : zset.sorted) {
+                    if (e.member.equals(member)) {
+                        break;
+                    }
+                    rank++;
+                }
+                r.integer("ZRANK".equals(cmd) ? rank : zset.scores.size() - 1 - rank);
+                return true;
+            }
+            case "ZSCAN": {
+                ZSet zset = get(key(args), ZSet.class);
+                byte[] pattern = match(args, 3);
+                List<byte[]> rs = new ArrayList<>();
+                for (ZEntry e : zset == null ? Collections.<ZEntry>emptySet() : zset.sorted) {
+                    if (Glob.match(pattern, e.member.data)) {
+                        rs.add(e.member.data);
+                        rs.add(RespReply.format(e.score).getBytes(UTF_8));
+                    }
+                }
+                r.array(2).bulk("0").bulks(rs);
+                return true;
+            }
+            default:
+                return false;
+        }
+    }
+
+    private void cluster(List<byte[]> args, RespReply r) {
+        String sub = string(args.get(1)).toUpperCase(Locale.ROOT);
+        switch (sub) {
+            case "SLOTS":
+                r.array(nodes.size());
+                for (EmbeddedRedisNode node : nodes) {
+                    r.array(3).integer(node.getSlotStart()).integer(node.getSlotEnd());
+                    r.array(3).bulk(node.getHost()).integer(node.getPort()).bulk(node.getId());
+                }
+                break;
+            case "NODES": {
+                StringBuilder sb = new StringBuilder();
+                for (EmbeddedRedisNode node : nodes) {
+                    sb.append(node.getId()).append(' ').append(node).append('@').append(node.getPort() + 10000)
+                            .append(" master - 0 0 0 connected ").append(node.getSlotStart()).append('-')
+                            .append(node.getSlotEnd()).append('\n');
+                }
+                r.bulk(sb.toString());
+                break;
+            }
+            case "KEYSLOT":
+                r.integer(JedisClusterCRC16.getSlot(args.get(2)));
+                break;
+            case "INFO":
+                r.bulk("cluster_state:ok\r\ncluster_slots_assigned:16384\r\ncluster_known_nodes:" + nodes.size() + "\r\n");
+                break;
+            default:
+                r.error("ERR unknown subcommand '" + sub.toLowerCase(Locale.ROOT) + "'");
+        }
+    }
+
+    /**
+     * 一次返回当前节点所有匹配的key，cursor固定为0
+     */
+    private void scan(RespConnection conn, List<byte[]> args, RespReply r) {
+        byte[] pattern = match(args, 2);
+        List<byte[]> rs = new ArrayList<>();
+        for (Bytes key : ownedKeys(conn.node)) {
+            if (Glob.match(pattern, key.data)) {
+                rs.add(key.data);
+            }
+        }
+        r.array(2).bulk("0").bulks(rs);
+    }
+
+    private void set(List<byte[]> args, RespReply r) {
+        Bytes key = key(args);
+        long expireAt = 0;
+        boolean nx = false;
+        boolean xx = false;
+        boolean keepTtl = false;
+        for (int i = 3; i < args.size(); i++) {
+            String option = string(args.get(i)).toUpperCase(Locale.ROOT);
+            switch (option) {
+                case "NX":
+                    nx = true;
+                    break;
+                case "XX":
+                    xx = true;
+                    break;
+                case "EX":
+                    expireAt = System.currentTimeMillis() + parseLong(args.get(++i)) * 1000;
+                    break;
+                case "PX":
+                    expireAt = System.currentTimeMillis() + parseLong(args.get(++i));
+                    break;
+                case "KEEPTTL":
+                    keepTtl = true;
+                    break;
+                default:
+                    throw new RespException(SYNTAX);
+            }
+        }
+        boolean exists = lookup(key) != null;
+        if ((nx && exists) || (xx && !exists)) {
+            r.bulk((byte[]) null);
+            return;
+        }
+        Long ttl = keepTtl ? expires.get(key) : null;
+        put(key, args.get(2), ttl != null ? ttl : expireAt);
+        r.ok();
+    }
+
+    private void zadd(List<byte[]> args, RespReply r) {
+        boolean nx = false;
+        boolean xx = false;
+        boolean ch = false;
+        int i = 2;
+        for (; i < args.size(); i++) {
+            String option = string(args.get(i)).toUpperCase(Locale.ROOT);
+            if ("NX".equals(option)) {
+                nx = true;
+            } else if ("XX".equals(option)) {
+                xx = true;
+            } else if ("CH".equals(option)) {
+                ch = true;
+            } else {
+                break;
+            }
+        }
+        if (i >= args.size() || (args.size() - i) % 2 != 0) {
+            throw new RespException(SYNTAX);
+        }
+        ZSet zset = getOrCreate(key(args), ZSet.class, ZSet::new);
+        long added = 0;
+        long changed = 0;
+        for (; i < args.size(); i += 2) {
+            double score = parseDouble(args.get(i));
+            Bytes member = new Bytes(args.get(i + 1));
+            Double old = zset.scores.get(member);
+            if ((nx && old != null) || (xx && old == null)) {
+                continue;
+            }
+            if (old == null) {
+                added++;
+            } else if (old != score) {
+                changed++;
+            }
+            zset.put(member, score);
+        }
+        removeIfEmpty(key(args), zset.scores);
+        r.integer(ch ? added + changed : added);
+    }
+
+    /**
+     * 任一key有数据时弹出第一个元素，回复 [key, value]
+     */
+    private boolean pop(List<Bytes> keys, RespReply r) {
+        for (Bytes key : keys) {
+            LinkedList<byte[]> list = get(key, LinkedList.class);
+            if (list != null && !list.isEmpty()) {
+                byte[] value = list.pollFirst();
+                removeIfEmpty(key, list);
+                r.array(2).bulk(key.data).bulk(value);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void serveWaiters() {
+        for (Iterator<Waiter> it = waiters.iterator(); it.hasNext(); ) {
+            Waiter w = it.next();
+            if (pop(w.keys, w.conn.reply)) {
+                it.remove();
+                w.conn.blocked = false;
+                woken.add(w.conn);
+            }
+        }
+    }
+
+    private long incrBy(Bytes key, long delta) {
+        byte[] old = value(key);
+        long value = (old == null ? 0 : parseLong(old)) + delta;
+        Long ttl = expires.get(key);
+        put(key, Long.toString(value).getBytes(UTF_8), ttl == null ? 0 : ttl);
+        return value;
+    }
+
+    private long expireAt(Bytes key, long millis) {
+        if (lookup(key) == null) {
+            return 0;
+        }
+        expires.put(key, millis);
+        return 1;
+    }
+
+    private long ttl(Bytes key, long unit) {
+        if (lookup(key) == null) {
+            return -2;
+        }
+        Long expireAt = expires.get(key);
+        return expireAt == null ? -1 : Math.max(0, (expireAt - System.currentTimeMillis() + unit - 1) / unit);
+    }
+
+    private List<Bytes> ownedKeys(EmbeddedRedisNode node) {
+        List<Bytes> rs = new ArrayList<>();
+        for (Bytes key : new ArrayList<>(data.keySet())) {
+            if (node.owns(JedisClusterCRC16.getSlot(key.data)) && lookup(key) != null) {
+                rs.add(key);
+            }
+        }
+        return rs;
+    }
+
+    private EmbeddedRedisNode owner(int slot) {
+        for (EmbeddedRedisNode node : nodes) {
+            if (node.owns(slot)) {
+                return node;
+            }
+        }
+        throw new IllegalStateException("slot " + slot + " not assigned");
+    }
+
+    private Object lookup(Bytes key) {
+        Long expireAt = expires.get(key);
+        if (expireAt != null && expireAt <= System.currentTimeMillis()) {
+            remove(key);
+            return null;
+        }
+        return data.get(key);
+    }
+
+    private boolean remove(Bytes key) {
+        expires.remove(key);
+        return data.remove(key) != null;
+    }
+
+    private void put(Bytes key, byte[] value, long expireAt) {
+        data.put(key, value);
+        if (expireAt > 0) {
+            expires.put(key, expireAt);
+        } else {
+            expires.remove(key);
+        }
+    }
+
+    private byte[] value(Bytes key) {
+        return get(key, byte[].class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T get(Bytes key, Class<?> type) {
+        Object value = lookup(key);
+        if (value != null && !type.isInstance(value)) {
+            throw new RespException(WRONG_TYPE);
+        }
+        return (T) value;
+    }
+
+    private <T> T getOrCreate(Bytes key, Class<?> type, java.util.function.Supplier<T> creator) {
+        T value = get(key, type);
+        if (value == null) {
+            value = creator.get();
+            data.put(key, value);
+        }
+        return value;
+    }
+
+    private void removeIfEmpty(Bytes key, Object value) {
+        if ((value instanceof Collection && ((Collection<?>) value).isEmpty())
+                || (value instanceof Map && ((Map<?, ?>) value).isEmpty())) {
+            remove(key);
+        }
+    }
+
+    private static String type(Object value) {
+        if (value == null) {
+            return "none";
+        }
+        if (value instanceof byte[]) {
+            return "string";
+        }
+        if (value instanceof Map) {
+            return "hash";
+        }
+        if (value instanceof LinkedList) {
+            return "list";
+        }
+        return value instanceof ZSet ? "zset" : "set";
+    }
+
+    /**
+     * 解析 MATCH pattern 选项，没有时返回null
+     */
+    private static byte[] match(List<byte[]> args, int from) {
+        for (int i = from; i < args.size() - 1; i += 2) {
+            if ("MATCH".equalsIgnoreCase(string(args.get(i)))) {
+                return args.get(i + 1);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 把可能为负的 start/stop 转换为 subList 的 [from, to)
+     */
+    private static int[] range(int size, long start, long stop) {
+        if (start < 0) {
+            start = Math.max(0, size + start);
+        }
+        if (stop < 0) {
+            stop = size + stop;
+        }
+        stop = Math.min(stop, size - 1);
+        if (start > stop || start >= size) {
+            return new int[]{0, 0};
+        }
+        return new int[]{(int) start, (int) stop + 1};
+    }
+
+    private static boolean above(double score, String min) {
+        if (min.startsWith("(")) {
+            return score > parseBound(min.substring(1));
+        }
+        return score >= parseBound(min);
+    }
+
+    private static boolean below(double score, String max) {
+        if (max.startsWith("(")) {
+            return score < parseBound(max.substring(1));
+        }
+        return score <= parseBound(max);
+    }
+
+    private static double parseBound(String s) {
+        return parseDouble(s.getBytes(UTF_8));
+    }
+
+    private static Bytes key(List<byte[]> args) {
+        return new Bytes(args.get(1));
+    }
+
+    private static String string(byte[] data) {
+        return new String(data, UTF_8);
+    }
+
+    private static long parseLong(byte[] data) {
+        try {
+            return Long.parseLong(string(data));
+        } catch (NumberFormatException e) {
+            throw new RespException(NOT_INTEGER);
+        }
+    }
+
+    private static double parseDouble(byte[] data) {
+        String s = string(data).toLowerCase(Locale.ROOT);
+        switch (s) {
+            case "inf": case "+inf":
+                return Double.POSITIVE_INFINITY;
+            case "-inf":
+                return Double.NEGATIVE_INFINITY;
+            default:
+                try {
+                    return Double.parseDouble(s);
+                } catch (NumberFormatException e) {
+                    throw new RespException(NOT_FLOAT);
+                }
+        }
+    }
+
+    /**
+     * byte数组key
+     */
+    static final class Bytes {
+        final byte[] data;
+        private final int hash;
+
+        Bytes(byte[] data) {
+            this.data = data;
+            this.hash = Arrays.hashCode(data);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Bytes && Arrays.equals(data, ((Bytes) o).data);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        int compareTo(Bytes o) {
+            int n = Math.min(data.length, o.data.length);
+            for (int i = 0; i < n; i++) {
+                int c = (data[i] & 0xFF) - (o.data[i] & 0xFF);
+                if (c != 0) {
+                    return c;
+                }
+            }
+            return data.length - o.data.length;
+        }
+    }
+
+    private static final class ZEntry {
+        final Bytes member;
+        final double score;
+
+        ZEntry(Bytes member, double score) {
+            this.member = member;
+            this.score = score;
+        }
+    }
+
+    /**
+     * sorted set：member到score的映射加按 (score, member) 排序的集合
+     */
+    private static final class ZSet {
+        final Map<Bytes, Double> scores = new HashMap<>();
+        final TreeSet<ZEntry> sorted = new TreeSet<>((a, b) -> {
+            int c = Double.compare(a.score, b.score);
+            return c != 0 ? c : a.member.compareTo(b.member);
+        });
+
+        void put(Bytes member, double score) {
+            Double old = scores.put(member, score);
+            if (old != null) {
+                sorted.remove(new ZEntry(member, old));
+            }
+            sorted.add(new ZEntry(member, score));
+        }
+
+        boolean remove(Bytes member) {
+            Double old = scores.remove(member);
+            if (old == null) {
+                return false;
+            }
+            sorted.remove(new ZEntry(member, old));
+            return true;
+        }
+    }
+
+    private static final class Waiter {
+        final RespConnection conn;
+        final List<Bytes> keys;
+        /**
+         * System.nanoTime超时时间，0表示一直等待
+         */
+        final long deadline;
+
+        Waiter(RespConnection conn, List<Bytes> keys, long deadline) {
+            this.conn = conn;
+            this.keys = keys;
+            this.deadline = deadline;
+        }
+    }
+
+    private static final class RespException extends RuntimeException {
+        RespException(String message) {
+            super(message, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package org.ifaster.redis.test.server;
+
+/**
+ * redis的glob匹配：支持 * ? [abc] [^a-z] 和反斜杠转义
+ *
+ * @author yangnan
+ */
+final class Glob {
+
+    private Glob() {
+    }
+
+    /**
+     * @param pattern 为null时匹配所有
+     * @param s
+     * @return
+     */
+    static boolean match(byte[] pattern, byte[] s) {
+        return pattern == null || match(pattern, 0, s, 0);
+    }
+
+    private static boolean match(byte[] p, int pi, byte[] s, int si) {
+        while (pi < p.length) {
+            switch (p[pi]) {
+                case '*':
+                    while (pi + 1 < p.length && p[pi + 1] == '*') {
+                        pi++;
+                    }
+                    if (pi + 1 == p.length) {
+                        return true;
+                    }
+                    for (int i = si; i <= s.length; i++) {
+                        if (match(p, pi + 1, s, i)) {
+                            return true;
+                        }
+                    }
+                    return false;
+                case '?':
+                    if (si >= s.length) {
+                        return false;
+                    }
+                    si++;
+                    break;
+                case '[': {
+                    if (si >= s.length) {
+                        return false;
+                    }
+                    pi++;
+                    boolean not = pi < p.length && p[pi] == '^';
+                    if (not) {
+                        pi++;
+                    }
+                    boolean matched = false;
+                    while (pi < p.length && p[pi] != ']') {
+                        if (p[pi] == '\\' && pi + 1 < p.length) {
+                            pi++;
+                            matched |= p[pi] == s[si];
+                        } else if (pi + 2 < p.length && p[pi + 1] == '-' && p[pi + 2] != ']') {
+                            int from = p[pi] & 0xFF;
+                            int to = p[pi + 2] & 0xFF;
+                            int c = s[si] & 0xFF;
+                            matched |= c >= Math.min(from, to) && c <= Math.max(from, to);
+                            pi += 2;
+                        } else {
+                            matched |= p[pi] == s[si];
+                        }
+                        pi++;
+                    }
+                    if (matched == not) {
+                        return false;
+                    }
+                    si++;
+                    break;
+                }
+                case '\\':
+                    if (pi + 1 < p.length) {
+                        pi++;
+                    }
+                    //fall through
+                default:
+                    if (si >= s.length || p[pi] != s[si]) {
+                        return false;
+                    }
+                    si++;
+            }
+            pi++;
+        }
+        return si == s.length;
+    }
+}
@@ -0,0 +1,195 @@
+package org.ifaster.redis.test.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * 一个客户端连接：增量解析RESP请求，按顺序写回回复
+ *
+ * @author yangnan
+ */
+class RespConnection {
+
+    final EmbeddedRedisNode node;
+    final SocketChannel channel;
+    final SelectionKey key;
+    final RespReply reply = new RespReply();
+
+    private byte[] input = new byte[4096];
+    private int start;
+    private int end;
+    private final ArrayDeque<ByteBuffer> outputs = new ArrayDeque<>();
+    /**
+     * 最后一个延迟回复的发送时间，保证同一连接的回复不乱序
+     */
+    long lastDue;
+    /**
+     * 阻塞命令等待中，暂停处理后续请求
+     */
+    boolean blocked;
+    /**
+     * 收到ASKING，下一个命令不检查slot归属
+     */
+    boolean asking;
+
+    RespConnection(EmbeddedRedisNode node, SocketChannel channel, SelectionKey key) {
+        this.node = node;
+        this.channel = channel;
+        this.key = key;
+        this.lastDue = System.nanoTime();
+    }
+
+    /**
+     * 读取可用数据
+     *
+     * @return 连接已关闭时返回false
+     * @throws IOException
+     */
+    boolean read() throws IOException {
+        if (end == input.length) {
+            if (start > 0) {
+                System.arraycopy(input, start, input, 0, end - start);
+                end -= start;
+                start = 0;
+            } else {
+                input = Arrays.copyOf(input, input.length * 2);
+            }
+        }
+        int n = channel.read(ByteBuffer.wrap(input, end, input.length - end));
+        if (n < 0) {
+            return false;
+        }
+        end += n;
+        return true;
+    }
+
+    /**
+     * 解析下一个完整的命令
+     *
+     * @return 数据不完整时返回null
+     */
+    List<byte[]> next() {
+        if (start == end) {
+            return null;
+        }
+        int position = start;
+        if (input[position] != '*') {
+            return inline();
+        }
+        int lineEnd = lineEnd(position);
+        if (lineEnd < 0) {
+            return null;
+        }
+        int count = parseInt(position + 1, lineEnd);
+        position = lineEnd + 2;
+        List<byte[]> args = new ArrayList<>(Math.max(count, 0));
+        for (int i = 0; i < count; i++) {
+            lineEnd = lineEnd(position);
+            if (lineEnd < 0) {
+                return null;
+            }
+            if (input[position] != '$') {
+                throw new IllegalStateException("expect '$' but " + (char) input[position]);
+            }
+            int length = parseInt(position + 1, lineEnd);
+            position = lineEnd + 2;
+            if (end - position < length + 2) {
+                return null;
+            }
+            args.add(Arrays.copyOfRange(input, position, position + length));
+            position += length + 2;
+        }
+        start = position;
+        return args;
+    }
+
+    /**
+     * 把reply中的内容加入发送队列
+     */
+    void enqueue() {
+        if (reply.size() > 0) {
+            enqueue(reply.drain());
+        }
+    }
+
+    void enqueue(byte[] data) {
+        outputs.add(ByteBuffer.wrap(data));
+    }
+
+    /**
+     * 尽量写出发送队列，写不完时关注OP_WRITE
+     *
+     * @throws IOException
+     */
+    void flush() throws IOException {
+        while (!outputs.isEmpty()) {
+            ByteBuffer buffer = outputs.peek();
+            channel.write(buffer);
+            if (buffer.hasRemaining()) {
+                break;
+            }
+            outputs.poll();
+        }
+        if (key.isValid()) {
+            int ops = SelectionKey.OP_READ | (outputs.isEmpty() ? 0 : SelectionKey.OP_WRITE);
+            if (key.interestOps() != ops) {
+                key.interestOps(ops);
+            }
+        }
+    }
+
+    void close() {
+        key.cancel();
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * redis-cli / telnet使用的内联命令
+     *
+     * @return
+     */
+    private List<byte[]> inline() {
+        int lineEnd = lineEnd(start);
+        if (lineEnd < 0) {
+            return null;
+        }
+        String line = new String(input, start, lineEnd - start, UTF_8).trim();
+        start = lineEnd + 2;
+        List<byte[]> args = new ArrayList<>();
+        for (String s : line.split("\\s+")) {
+            if (!s.isEmpty()) {
+                args.add(s.getBytes(UTF_8));
+            }
+        }
+        return args;
+    }
+
+    private int lineEnd(int from) {
+        for (int i = from; i < end - 1; i++) {
+            if (input[i] == '\r' && input[i + 1] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int parseInt(int from, int to) {
+        boolean negative = input[from] == '-';
+        int value = 0;
+        for (int i = negative ? from + 1 : from; i < to; i++) {
+            value = value * 10 + (input[i] - '0');
+        }
+        return negative ? -value : value;
+    }
+}
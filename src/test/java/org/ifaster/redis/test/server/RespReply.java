@@ -0,0 +1,114 @@
+package org.ifaster.redis.test.server;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Collection;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * RESP回复编码
+ *
+ * @author yangnan
+ */
+class RespReply extends ByteArrayOutputStream {
+
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final byte[] OK = "+OK\r\n".getBytes(UTF_8);
+    private static final byte[] NULL_BULK = "$-1\r\n".getBytes(UTF_8);
+    private static final byte[] NULL_ARRAY = "*-1\r\n".getBytes(UTF_8);
+
+    RespReply ok() {
+        write(OK, 0, OK.length);
+        return this;
+    }
+
+    RespReply status(String status) {
+        write('+');
+        line(status);
+        return this;
+    }
+
+    RespReply error(String message) {
+        write('-');
+        line(message);
+        return this;
+    }
+
+    RespReply integer(long value) {
+        write(':');
+        line(Long.toString(value));
+        return this;
+    }
+
+    RespReply bulk(byte[] value) {
+        if (value == null) {
+            write(NULL_BULK, 0, NULL_BULK.length);
+            return this;
+        }
+        write('$');
+        line(Integer.toString(value.length));
+        write(value, 0, value.length);
+        write(CRLF, 0, CRLF.length);
+        return this;
+    }
+
+    RespReply bulk(String value) {
+        return bulk(value == null ? null : value.getBytes(UTF_8));
+    }
+
+    RespReply bulk(double value) {
+        return bulk(format(value));
+    }
+
+    RespReply nullArray() {
+        write(NULL_ARRAY, 0, NULL_ARRAY.length);
+        return this;
+    }
+
+    /**
+     * 数组头，后面需要写入size个元素
+     *
+     * @param size
+     * @return
+     */
+    RespReply array(int size) {
+        write('*');
+        line(Integer.toString(size));
+        return this;
+    }
+
+    RespReply bulks(Collection<byte[]> values) {
+        array(values.size());
+        for (byte[] value : values) {
+            bulk(value);
+        }
+        return this;
+    }
+
+    /**
+     * 取出已写入的回复并清空
+     *
+     * @return
+     */
+    byte[] drain() {
+        byte[] data = toByteArray();
+        reset();
+        return data;
+    }
+
+    static String format(double value) {
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "inf" : "-inf";
+        }
+        if (value == Math.rint(value) && Math.abs(value) < 1e17) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    private void line(String s) {
+        byte[] data = s.getBytes(UTF_8);
+        write(data, 0, data.length);
+        write(CRLF, 0, CRLF.length);
+    }
+}